@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import nars.entity.BudgetValue;
+import nars.entity.Item;
+import nars.storage.Bag;
+import nars.storage.BagImplementation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bag primitives: putIn, takeOut and putBack, at the capacities used by the
+ * concept, term link and task link bags.
+ * <p>
+ * The bag is filled to capacity before each iteration, so putIn measures the
+ * eviction path and takeOut the level selection over a full table.
+ * pickOut is the access pattern of Memory.activateConcept.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BagBenchmark {
+
+    @Param({"DEQUE", "ARRAY", "SUMTREE"})
+    public BagImplementation impl;
+
+    @Param({"20", "100", "1000", "100000"})
+    public int capacity;
+
+    @Param({"100"})
+    public int levels;
+
+    /** Distinct keys inserted; twice the capacity so half the puts evict */
+    private Item[] items;
+    private Bag<Item> bag;
+    private int next;
+
+    public static class BenchItem extends Item {
+
+        public BenchItem(final String key, final float priority) {
+            super(key, new BudgetValue(priority, 0.5f, 0.5f));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        final Random random = new Random(1);
+        items = new Item[capacity * 2];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new BenchItem("item" + i, random.nextFloat());
+        }
+        bag = impl.newBag(levels, capacity, new AtomicInteger(10));
+        for (int i = 0; i < capacity; i++) {
+            bag.putIn(items[i]);
+        }
+        next = 0;
+    }
+
+    private Item nextItem() {
+        final Item i = items[next];
+        if (++next == items.length) {
+            next = 0;
+        }
+        return i;
+    }
+
+    @Benchmark
+    public boolean putIn() {
+        return bag.putIn(nextItem());
+    }
+
+    @Benchmark
+    public Item takeOutPutIn() {
+        final Item x = bag.takeOut();
+        if (x != null) {
+            bag.putIn(x);
+        }
+        return x;
+    }
+
+    @Benchmark
+    public Item takeOutPutBack() {
+        final Item x = bag.takeOut();
+        if (x != null) {
+            bag.putBack(x);
+        }
+        return x;
+    }
+
+    @Benchmark
+    public Item pickOutPutIn() {
+        final Item item = nextItem();
+        final Item x = bag.pickOut(item.getKeyHash(), item.getKey());
+        if (x != null) {
+            bag.putIn(x);
+        }
+        return x;
+    }
+
+    @Benchmark
+    public Item getByKey() {
+        return bag.get(nextItem().getKey());
+    }
+
+    @Benchmark
+    public Item getByKeyHash() {
+        final Item item = nextItem();
+        return bag.get(item.getKeyHash(), item.getKey());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import nars.entity.Item;
+import nars.storage.Bag;
+import nars.storage.BagImplementation;
+import nars.storage.ConcurrentBag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A concept bag shared by several threads, with the access pattern of
+ * parallel firing: select a concept (takeOut and putBack), and activate one
+ * by key (pickOut, adjust, putBack).
+ * <p>
+ * A bag that is not thread-safe is guarded by its monitor, as a single lock
+ * around the bag; {@link ConcurrentBag} is used as is. Run with
+ * <code>-t</code> to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class BagContentionBenchmark {
+
+    @Param({"ARRAY", "CONCURRENT"})
+    public BagImplementation impl;
+
+    @Param({"1000", "10000"})
+    public int capacity;
+
+    @Param({"100"})
+    public int levels;
+
+    private Item[] items;
+    private Bag<Item> bag;
+    private boolean locked;
+
+    private static final Bag.Adjustment<Item> ACTIVATION = new Bag.Adjustment<Item>() {
+        @Override
+        public void apply(final Item item) {
+            item.incPriority(0.1f);
+        }
+    };
+
+    /** Per-thread position in the item array */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup
+        public void setup() {
+            next = (int) Thread.currentThread().getId() * 7919;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        final Random random = new Random(1);
+        items = new Item[capacity];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new BagBenchmark.BenchItem("concept" + i, random.nextFloat());
+        }
+        bag = impl.newBag(levels, capacity, new AtomicInteger(10));
+        for (final Item i : items) {
+            bag.putIn(i);
+        }
+        locked = !(bag instanceof ConcurrentBag);
+    }
+
+    private Item nextItem(final Cursor c) {
+        c.next = (c.next + 1) % items.length;
+        return items[c.next];
+    }
+
+    @Benchmark
+    public Item select() {
+        if (locked) {
+            synchronized (bag) {
+                return bag.takeOutAndPutBack();
+            }
+        }
+        return bag.takeOutAndPutBack();
+    }
+
+    @Benchmark
+    public boolean activate(final Cursor c) {
+        final Item x = nextItem(c);
+        if (locked) {
+            synchronized (bag) {
+                return bag.adjust(x, ACTIVATION);
+            }
+        }
+        return bag.adjust(x, ACTIVATION);
+    }
+}
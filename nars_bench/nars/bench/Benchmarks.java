@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.util.List;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the "bench" ant target. Accepts the usual JMH command line
+ * (benchmark regexps, -p, -f, -wi, -i, ...) and adds the GC profiler, so
+ * every result comes with allocation rates, plus the full NAL script corpus
+ * as the path parameter of {@link NALBenchmark}.
+ * <p>
+ * Examples:
+ * <pre>
+ *   ant bench
+ *   ant bench -Dbench.args="BagBenchmark -p capacity=1000"
+ *   ant bench -Dbench.args="NALBenchmark -p path=nal/Examples/Example-NAL6-edited.txt"
+ * </pre>
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions cmd = new CommandLineOptions(args);
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(cmd)
+                .addProfiler(GCProfiler.class);
+
+        if (!cmd.getParameter("path").hasValue()) {
+            final List<String> scripts = Scripts.all();
+            options.param("path", scripts.toArray(new String[scripts.size()]));
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import nars.core.NAR;
+import nars.entity.Concept;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+import nars.inference.InferenceContext;
+import nars.inference.RuleTables;
+import nars.io.TextInput;
+import nars.storage.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The inner loop of the reasoner on a memory populated by a NAL script:
+ * a whole Memory.workCycle, a single Concept.fire, and a single
+ * RuleTables.reason call on a TaskLink/TermLink pair the reasoner itself
+ * selected while running the script.
+ * <p>
+ * Derived tasks are discarded after each fire and reason call so the memory
+ * does not drift away from the state the script left it in; workCycle keeps
+ * them, and the memory is rebuilt before every iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InferenceBenchmark {
+
+    @Param({Scripts.DEFAULT})
+    public String script;
+
+    /** Cycles run after the script to collect reasoning premises */
+    @Param({"200"})
+    public int cycles;
+
+    private NAR nar;
+    private Memory memory;
+    private long clock;
+
+    private final List<TaskLink> taskLinks = new ArrayList<>();
+    private final List<TermLink> termLinks = new ArrayList<>();
+    private final List<Concept> linkConcepts = new ArrayList<>();
+    private int nextLink;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        nar = new NAR();
+        memory = nar.memory;
+        new TextInput(nar, Scripts.read(script));
+        nar.bufferInput();
+        nar.run(0);
+
+        taskLinks.clear();
+        termLinks.clear();
+        linkConcepts.clear();
+        final InferenceContext ctx = memory.getContext();
+        for (int i = 0; i < cycles; i++) {
+            ctx.currentBeliefLink = null;
+            nar.run(2);
+            if ((ctx.currentBeliefLink != null) && (ctx.currentTaskLink != null)) {
+                taskLinks.add(ctx.currentTaskLink);
+                termLinks.add(ctx.currentBeliefLink);
+                linkConcepts.add(ctx.currentConcept);
+            }
+        }
+        if (taskLinks.isEmpty()) {
+            throw new IllegalStateException(script + " selected no TermLink in " + cycles + " cycles");
+        }
+        memory.newTasks.clear();
+        clock = nar.getTime();
+        nextLink = 0;
+    }
+
+    @Benchmark
+    public void workCycle() {
+        memory.workCycle(++clock);
+    }
+
+    @Benchmark
+    public Concept fire() {
+        final Concept c = memory.concepts.takeOut();
+        if (c != null) {
+            memory.concepts.putBack(c);
+            final InferenceContext ctx = memory.getContext();
+            ctx.currentConcept = c;
+            ctx.currentTerm = c.getTerm();
+            c.fire(ctx);
+        }
+        memory.newTasks.clear();
+        return c;
+    }
+
+    @Benchmark
+    public void reason() {
+        final int i = nextLink;
+        if (++nextLink == taskLinks.size()) {
+            nextLink = 0;
+        }
+        final TaskLink taskLink = taskLinks.get(i);
+        final TermLink termLink = termLinks.get(i);
+        final Concept c = linkConcepts.get(i);
+        final InferenceContext ctx = memory.getContext();
+        ctx.currentConcept = c;
+        ctx.currentTerm = c.getTerm();
+        ctx.currentTaskLink = taskLink;
+        ctx.currentTask = taskLink.getTargetTask();
+        ctx.currentBeliefLink = termLink;
+        RuleTables.reason(taskLink, termLink, ctx);
+        memory.newTasks.clear();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.util.concurrent.TimeUnit;
+import nars.core.NAR;
+import nars.io.TextInput;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replays a whole NAL script on a fresh reasoner, the same way
+ * TestUtil.perfNAL does. Besides scripts per second, the
+ * "cycles" secondary result reports working cycles per second.
+ * <p>
+ * {@link Benchmarks} runs this once per script found by {@link Scripts#all()},
+ * unless a path is given with -p path=...
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class NALBenchmark {
+
+    /** Overridden by {@link Benchmarks} with every script in the corpus */
+    @Param({Scripts.DEFAULT})
+    public String path;
+
+    private String input;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Cycles {
+        public long cycles;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            cycles = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        input = Scripts.read(path);
+    }
+
+    @Benchmark
+    public NAR run(final Cycles counter) {
+        final NAR n = new NAR();
+        new TextInput(n, input);
+        n.bufferInput();
+        n.run(0);
+        counter.cycles += n.getTime();
+        return n;
+    }
+}
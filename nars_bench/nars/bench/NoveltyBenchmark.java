@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.util.concurrent.TimeUnit;
+import nars.core.NAR;
+import nars.entity.BudgetValue;
+import nars.entity.Task;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+import nars.io.TextInput;
+import nars.language.Term;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TaskLink.novel, called by Concept.fire for each TermLink taken out with a
+ * TaskLink: a TaskLink checked against a pool of TermLinks, the clock
+ * advancing once per round over the pool, as once per cycle.
+ * <p>
+ * The allocation of the TaskLinks themselves, with their novelty record, is
+ * measured by <code>newTaskLink</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoveltyBenchmark {
+
+    /** Number of distinct TermLinks checked with the TaskLink */
+    @Param({"8", "40"})
+    public int links;
+
+    private Task task;
+    private TaskLink taskLink;
+    private TermLink[] termLinks;
+    private final BudgetValue budget = new BudgetValue(0.5f, 0.5f, 0.5f);
+    private int next;
+    private long time;
+
+    @Setup
+    public void setup() throws TextInput.InvalidInputException {
+        final NAR nar = new NAR();
+        task = TextInput.parseTask("<a --> b>.", nar.memory, 0);
+        taskLink = new TaskLink(task, null, budget);
+        termLinks = new TermLink[links];
+        for (int i = 0; i < links; i++) {
+            termLinks[i] = new TermLink(new Term("t" + i), TermLink.COMPONENT, new short[]{(short) (i % 2)}, budget);
+        }
+    }
+
+    @Benchmark
+    public boolean novel() {
+        if (++next == termLinks.length) {
+            next = 0;
+            time++;
+        }
+        return taskLink.novel(termLinks[next], time);
+    }
+
+    @Benchmark
+    public TaskLink newTaskLink() {
+        return new TaskLink(task, null, budget);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import nars.core.NAR;
+import nars.entity.Task;
+import nars.io.TextInput;
+import nars.io.TextInput.InvalidInputException;
+import nars.storage.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TextInput.parseNarsese over the sentences of a NAL script, one line per
+ * invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({Scripts.DEFAULT})
+    public String script;
+
+    private Memory memory;
+    private final List<String> lines = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setup() {
+        memory = new NAR().memory;
+        lines.clear();
+        for (String line : Scripts.read(script).split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || "'*/".indexOf(line.charAt(0)) != -1 || Character.isDigit(line.charAt(0))) {
+                continue;
+            }
+            try {
+                if (TextInput.parseNarsese(new StringBuffer(line), memory, 0) != null) {
+                    lines.add(line);
+                }
+            } catch (InvalidInputException | RuntimeException e) {
+                //not Narsese, skip it
+            }
+        }
+        if (lines.isEmpty()) {
+            throw new IllegalStateException(script + " contains no Narsese");
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public Task parseNarsese() throws InvalidInputException {
+        final String line = lines.get(next);
+        if (++next == lines.size()) {
+            next = 0;
+        }
+        return TextInput.parseNarsese(new StringBuffer(line), memory, 0);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Locates and reads the NAL scripts the benchmarks replay: the unit test
+ * scripts in nars_test/nars/test/nal and the example corpus in nal/Examples.
+ * Paths are relative to the project root, which is the working directory
+ * of the bench target.
+ */
+public class Scripts {
+
+    public static final String[] DIRECTORIES = { "nars_test/nars/test/nal", "nal/Examples" };
+
+    /** Default script for the benchmarks that need a populated memory */
+    public static final String DEFAULT = "nal/Examples/Example-NAL1-edited.txt";
+
+    public static List<String> all() {
+        final List<String> paths = new ArrayList<>();
+        for (final String d : DIRECTORIES) {
+            final File[] files = new File(d).listFiles();
+            if (files == null) {
+                continue;
+            }
+            Arrays.sort(files);
+            for (final File f : files) {
+                if (f.getName().endsWith(".nal") || f.getName().endsWith(".txt")) {
+                    paths.add(d + "/" + f.getName());
+                }
+            }
+        }
+        return paths;
+    }
+
+    public static String read(final String path) {
+        final StringBuilder sb = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                sb.append(line).append('\n');
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read " + path, e);
+        }
+        return sb.toString();
+    }
+}
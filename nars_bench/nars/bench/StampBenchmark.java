@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import nars.core.Parameters;
+import nars.entity.DerivationChain;
+import nars.entity.Stamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Stamp operations on the path of every judgment and revision: equality
+ * (Concept.processJudgment), merge (Stamp.make) and the overlapping evidence
+ * check of a revision (InferenceContext.derivedTask).
+ * <p>
+ * The <code>legacy</code> benchmarks run the former algorithms on the same
+ * bases, as a baseline: equality through two boxed TreeSets, and the quadratic
+ * search for a repeated serial number in the merged, unsorted base. Compare
+ * the allocation rates reported by the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StampBenchmark {
+
+    private static final int STAMPS = 256;
+
+    private Stamp[] stamps;
+    private Stamp[] merged;
+    /** The bases the former merge produced: interleaved, with repetitions */
+    private long[][] mergedBases;
+    private int next;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(1);
+        stamps = new Stamp[STAMPS];
+        for (int i = 0; i < STAMPS; i++) {
+            final long[] base = new long[1 + random.nextInt(Parameters.MAXIMUM_EVIDENTAL_BASE_LENGTH)];
+            for (int j = 0; j < base.length; j++) {
+                base[j] = 1 + random.nextInt(64);
+            }
+            stamps[i] = new Stamp(base, false, 0, new DerivationChain());
+        }
+        merged = new Stamp[STAMPS];
+        mergedBases = new long[STAMPS][];
+        for (int i = 0; i < STAMPS; i++) {
+            final long[] a = stamps[i].getBase(), b = stamps[(i + 1) % STAMPS].getBase();
+            final long[] m = new long[Math.min(a.length + b.length, Parameters.MAXIMUM_EVIDENTAL_BASE_LENGTH)];
+            int i1 = 0, i2 = 0, j = 0;
+            while (j < m.length) {
+                if ((i1 < a.length) && ((j % 2 == 0) || (i2 >= b.length))) {
+                    m[j++] = a[i1++];
+                } else {
+                    m[j++] = b[i2++];
+                }
+            }
+            mergedBases[i] = m;
+            merged[i] = Stamp.make(stamps[i], stamps[(i + 1) % STAMPS], 0);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % STAMPS;
+        return next;
+    }
+
+    @Benchmark
+    public boolean equality() {
+        final int i = nextIndex();
+        return stamps[i].equals(stamps[(i + 1) % STAMPS]);
+    }
+
+    @Benchmark
+    public boolean legacyEquality() {
+        final int i = nextIndex();
+        final TreeSet<Long> set1 = toSet(stamps[i].getBase());
+        final TreeSet<Long> set2 = toSet(stamps[(i + 1) % STAMPS].getBase());
+        return set1.containsAll(set2) && set2.containsAll(set1);
+    }
+
+    @Benchmark
+    public boolean overlap() {
+        final int i = nextIndex();
+        return stamps[i].overlaps(stamps[(i + 1) % STAMPS]);
+    }
+
+    /**
+     * The check is now made once by the merge, which {@link #merge()}
+     * measures, and only read by the revision
+     */
+    @Benchmark
+    public boolean revisionOverlap() {
+        return merged[nextIndex()].isOverlapping();
+    }
+
+    @Benchmark
+    public boolean legacyRevisionOverlap() {
+        final long[] base = mergedBases[nextIndex()];
+        for (int i = 0; i < base.length; i++) {
+            for (int j = 0; j < base.length; j++) {
+                if (i != j && base[i] == base[j]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public Stamp merge() {
+        final int i = nextIndex();
+        return Stamp.make(stamps[i], stamps[(i + 1) % STAMPS], 0);
+    }
+
+    private static TreeSet<Long> toSet(final long[] base) {
+        final TreeSet<Long> set = new TreeSet<>();
+        for (final long l : base) {
+            set.add(l);
+        }
+        return set;
+    }
+}
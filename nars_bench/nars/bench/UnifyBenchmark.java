@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import nars.core.NAR;
+import nars.entity.Concept;
+import nars.io.Symbols;
+import nars.io.TextInput;
+import nars.language.CompoundTerm;
+import nars.language.ImageExt;
+import nars.language.ImageInt;
+import nars.language.Statement;
+import nars.language.Term;
+import nars.language.Variable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Unification of the subjects of every pair of statements with variables
+ * that a NAL script leaves in memory, the way RuleTables matches two
+ * premises: Variable.hasSubstitute alone, and Variable.unify on copies of the
+ * two statements, which includes substituting them when they unify (and
+ * cloning them, every time).
+ * <p>
+ * The <code>legacy</code> benchmark runs the former search on the same
+ * pairs, as a baseline: two HashMaps per call, the components of every
+ * compound copied, and those of a commutative one shuffled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnifyBenchmark {
+
+    @Param({"nal/Examples/Example-NAL6-edited.txt"})
+    public String script;
+
+    private final List<Statement> firsts = new ArrayList<>();
+    private final List<Statement> seconds = new ArrayList<>();
+    private int next;
+    private final Random random = new Random(1);
+
+    @Setup
+    public void setup() throws Exception {
+        final NAR nar = new NAR();
+        new TextInput(nar, Scripts.read(script));
+        nar.bufferInput();
+        nar.run(0);
+
+        final List<Statement> statements = new ArrayList<>();
+        for (final String pattern : new String[]{"<?1 ==> ?2>", "<?1 <=> ?2>", "<?1 --> ?2>"}) {
+            for (final Concept c : nar.memory.search((Statement) TextInput.parseTerm(pattern, nar.memory))) {
+                if (Variable.containVar(c.getTerm().getName())) {
+                    statements.add((Statement) c.getTerm());
+                }
+            }
+        }
+        if (statements.isEmpty()) {
+            throw new IllegalStateException(script + " left no statement with variables");
+        }
+        for (final Statement s1 : statements) {
+            for (final Statement s2 : statements) {
+                if (s1.getClass() == s2.getClass()) {
+                    firsts.add(s1);
+                    seconds.add(s2);
+                }
+            }
+        }
+    }
+
+    private int nextIndex() {
+        if (++next == firsts.size()) {
+            next = 0;
+        }
+        return next;
+    }
+
+    @Benchmark
+    public boolean hasSubstitute() {
+        final int i = nextIndex();
+        return Variable.hasSubstitute(Symbols.VAR_INDEPENDENT, firsts.get(i).getSubject(), seconds.get(i).getSubject());
+    }
+
+    @Benchmark
+    public boolean legacyHasSubstitute() {
+        final int i = nextIndex();
+        return legacyFindSubstitute(Symbols.VAR_INDEPENDENT, firsts.get(i).getSubject(), seconds.get(i).getSubject(),
+                new HashMap<Term, Term>(), new HashMap<Term, Term>());
+    }
+
+    @Benchmark
+    public boolean unify() {
+        final int i = nextIndex();
+        final Statement s1 = (Statement) firsts.get(i).clone();
+        final Statement s2 = (Statement) seconds.get(i).clone();
+        return Variable.unify(Symbols.VAR_INDEPENDENT, s1.getSubject(), s2.getSubject(), s1, s2);
+    }
+
+    private boolean legacyFindSubstitute(final char type, final Term term1, final Term term2,
+            final HashMap<Term, Term> map1, final HashMap<Term, Term> map2) {
+        Term t;
+        if ((term1 instanceof Variable) && (((Variable) term1).getType() == type)) {
+            t = map1.get(term1);
+            if (t != null) {
+                return legacyFindSubstitute(type, t, term2, map1, map2);
+            }
+            if ((term2 instanceof Variable) && (((Variable) term2).getType() == type)) {
+                final Variable common = new Variable(term1.getName() + term2.getName() + '$');
+                map1.put(term1, common);
+                map2.put(term2, common);
+            } else {
+                map1.put(term1, term2);
+            }
+            return true;
+        } else if ((term2 instanceof Variable) && (((Variable) term2).getType() == type)) {
+            t = map2.get(term2);
+            if (t != null) {
+                return legacyFindSubstitute(type, term1, t, map1, map2);
+            }
+            map2.put(term2, term1);
+            return true;
+        } else if ((term1 instanceof CompoundTerm) && term1.getClass().equals(term2.getClass())) {
+            final CompoundTerm cTerm1 = (CompoundTerm) term1;
+            final CompoundTerm cTerm2 = (CompoundTerm) term2;
+            if (cTerm1.size() != cTerm2.size()) {
+                return false;
+            }
+            if ((cTerm1 instanceof ImageExt) && (((ImageExt) cTerm1).getRelationIndex() != ((ImageExt) cTerm2).getRelationIndex())
+                    || (cTerm1 instanceof ImageInt) && (((ImageInt) cTerm1).getRelationIndex() != ((ImageInt) cTerm2).getRelationIndex())) {
+                return false;
+            }
+            final ArrayList<Term> list = cTerm1.cloneComponents();
+            if (cTerm1.isCommutative()) {
+                Collections.shuffle(list, random);
+            }
+            for (int i = 0; i < cTerm1.size(); i++) {
+                if (!legacyFindSubstitute(type, list.get(i), cTerm2.componentAt(i), map1, map2)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return term1.equals(term2);
+    }
+}
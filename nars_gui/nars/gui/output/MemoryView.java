@@ -13,11 +13,12 @@ import javax.swing.JFrame;
 import javax.swing.JPanel;
 import nars.core.NAR;
 import nars.entity.Concept;
+import nars.entity.DerivationChain;
 import nars.entity.Sentence;
 import nars.entity.Task;
 import nars.gui.NSlider;
 import nars.language.*;
-import nars.storage.ConceptBag;
+import nars.storage.Bag;
 import nars.storage.Memory;
 import processing.core.*;
 
@@ -190,19 +191,21 @@ class applet extends PApplet implements ActionListener //(^break,0_0)! //<0_0 --
 
             float mul = 0f;
             try {
-                if (mem.currentBelief != null && (elem1.name.containTerm(mem.currentBelief.getContent()) || mem.currentBelief.getContent().containTerm(elem1.name))) {
+                final Sentence currentBelief = mem.getContext().currentBelief;
+                final Task currentTask = mem.getContext().currentTask;
+                if (currentBelief != null && (elem1.name.containTerm(currentBelief.getContent()) || currentBelief.getContent().containTerm(elem1.name))) {
                     ellipse(p2[0], p2[1], 100, 100);
                     mul = 1.0f;
                 }
-                if (mem.currentBelief != null && (elem1.name.equals(mem.currentBelief.getContent()) || mem.currentBelief.getContent().equals(elem1.name))) {
+                if (currentBelief != null && (elem1.name.equals(currentBelief.getContent()) || currentBelief.getContent().equals(elem1.name))) {
                     ellipse(p2[0], p2[1], 200, 200);
                     mul = 1.0f;
                 }
-                if (mem.currentTask != null && (elem2.name.containTerm(mem.currentTask.getContent()) || mem.currentTask.getContent().containTerm(elem2.name))) {
+                if (currentTask != null && (elem2.name.containTerm(currentTask.getContent()) || currentTask.getContent().containTerm(elem2.name))) {
                     ellipse(p2[0], p2[1], 100, 100);
                     mul = 1.0f;
                 }
-                if (mem.currentTask != null && (elem2.name.equals(mem.currentTask.getContent()) || mem.currentTask.getContent().equals(elem2.name))) {
+                if (currentTask != null && (elem2.name.equals(currentTask.getContent()) || currentTask.getContent().equals(elem2.name))) {
                     ellipse(p2[0], p2[1], 200, 200);
                     mul = 1.0f;
                 }
@@ -234,7 +237,7 @@ class applet extends PApplet implements ActionListener //(^break,0_0)! //<0_0 --
         stroke(127, 255, 255, 127);
 
         for (int i = 0; i < Sent_s.size(); i++) {
-            final List<Term> deriv = Sent_s.get(i).getStamp().getChain();
+            final DerivationChain deriv = Sent_s.get(i).getStamp().getChain();
             final Obj elem1 = V.get(Sent_i.get(i));
             float[] p1 = vertexPosition(elem1);            
             
@@ -243,13 +246,9 @@ class applet extends PApplet implements ActionListener //(^break,0_0)! //<0_0 --
                 final Obj elem2 = V.get(Sent_i.get(j));
                 float[] p2 = vertexPosition(elem2);
                 
-                for (int k = 0; k < deriv.size(); k++) {
-                    if (i != j && deriv.get(k) == Sent_s.get(j).getContent()) {
-                        
-                        line(p1[0], p1[1], p2[0], p2[1]);
-                        break;
-                    } 
-               }
+                if (i != j && deriv.contains(Sent_s.get(j).getContent())) {
+                    line(p1[0], p1[1], p2[0], p2[1]);
+                }
             }
         }
         
@@ -310,7 +309,7 @@ class applet extends PApplet implements ActionListener //(^break,0_0)! //<0_0 --
             
             int x = 0;
             int cnt = 0;
-            ConceptBag bag = mem.concepts;
+            Bag<Concept> bag = mem.concepts;
             for (int i = bag.levels; i >= 1; i--) {
                 if (!bag.emptyLevel(i - 1)) {
                     if (!bag.emptyLevel(i-1)) {
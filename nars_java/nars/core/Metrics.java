@@ -0,0 +1,434 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import nars.inference.Rule;
+import nars.storage.Bag;
+import nars.storage.Memory;
+
+/**
+ * Counters and latency histograms of the work of a memory: the time taken by
+ * each phase of Memory.workCycle, the tasks derived by each rule, and the
+ * derived tasks dropped by InferenceContext.derivedTask, by reason. Kept
+ * when {@link Parameters#isMetrics()} is set, see {@link Memory#getMetrics()}.
+ * <p>
+ * The metrics are registered as an MXBean named
+ * <code>nars:type=Metrics,name=</code><i>n</i> when the memory is made, again
+ * when it is reset, and until {@link #unregister()} when it is closed, see
+ * {@link Memory#close()}; they can be polled from the reasoner with
+ * {@link NAR#getMetrics()} or {@link NARState#measure()}.
+ *
+ * @author me
+ */
+public class Metrics implements MetricsMXBean {
+
+    /** Phases of the working cycle */
+    public static final int NEW_TASK = 0;
+    public static final int NOVEL_TASK = 1;
+    public static final int CONCEPT = 2;
+    private static final String[] PHASES = {"processNewTask", "processNovelTask", "processConcept"};
+
+    /** Reasons a derived task is dropped */
+    public static final int BELOW_THRESHOLD = 0;
+    public static final int ZERO_CONFIDENCE = 1;
+    public static final int CYCLIC = 2;
+    public static final int OVERLAPPING_EVIDENCE = 3;
+    private static final String[] REJECTIONS = {"belowThreshold", "zeroConfidence", "cyclic", "overlappingEvidence"};
+
+    private static final Rule[] RULES = Rule.values();
+    /** Index of the tasks derived by no known rule */
+    private static final int UNKNOWN = RULES.length;
+
+    private static final AtomicInteger names = new AtomicInteger();
+
+    private final Memory memory;
+    private final Counter cycles = new Counter();
+    private final Histogram[] phases = new Histogram[PHASES.length];
+    private final Counter[] rejected = new Counter[REJECTIONS.length];
+    /** the tasks derived by each rule, by ordinal, then by no known rule */
+    private final Counter[] derived = new Counter[RULES.length + 1];
+    private final ObjectName name;
+    /** the clock and cycle count of the previous getCyclesPerSecond */
+    private long pollTime = System.nanoTime();
+    private long pollCycles;
+
+    /**
+     * Create the metrics of a memory, and register them
+     *
+     * @param memory The memory
+     */
+    public Metrics(final Memory memory) {
+        this.memory = memory;
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new Histogram();
+        }
+        for (int i = 0; i < rejected.length; i++) {
+            rejected[i] = new Counter();
+        }
+        for (int i = 0; i < derived.length; i++) {
+            derived[i] = new Counter();
+        }
+        ObjectName n = null;
+        try {
+            n = new ObjectName("nars:type=Metrics,name=" + names.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, n);
+        } catch (JMException | SecurityException e) {
+            n = null;       // still kept, but not published
+        }
+        name = n;
+    }
+
+    /**
+     * Remove the MXBean from the platform MBean server, so that the memory
+     * can be garbage collected
+     */
+    public void unregister() {
+        if (name == null) {
+            return;
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot unregister " + name, e);
+        }
+    }
+
+    /**
+     * Register the MXBean again, after {@link #unregister()}, so that JMX
+     * clients see the counters start over when the memory is reset
+     */
+    public void register() {
+        if (name == null) {
+            return;
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register " + name, e);
+        }
+    }
+
+    /**
+     * @return The name of the MXBean, null if it could not be registered
+     */
+    public ObjectName getName() {
+        return name;
+    }
+
+    /* ---------- recording ---------- */
+    /**
+     * Count a working cycle, called at its end
+     */
+    public void cycle() {
+        cycles.increment();
+    }
+
+    /**
+     * Record the time taken by a phase of the working cycle
+     *
+     * @param phase One of NEW_TASK, NOVEL_TASK and CONCEPT
+     * @param start System.nanoTime() at the start of the phase
+     * @return System.nanoTime() at its end, the start of the next phase
+     */
+    public long phase(final int phase, final long start) {
+        final long now = System.nanoTime();
+        phases[phase].record(now - start);
+        return now;
+    }
+
+    /**
+     * Count a task derived
+     *
+     * @param rule The rule method that built it, or null if it is not known
+     */
+    public void derived(final Rule rule) {
+        derived[(rule != null) ? rule.ordinal() : UNKNOWN].increment();
+    }
+
+    /**
+     * Count a derived task dropped
+     *
+     * @param reason One of BELOW_THRESHOLD, ZERO_CONFIDENCE, CYCLIC and
+     * OVERLAPPING_EVIDENCE
+     */
+    public void rejected(final int reason) {
+        rejected[reason].increment();
+    }
+
+    /* ---------- reading ---------- */
+    @Override
+    public long getCycles() {
+        return cycles.get();
+    }
+
+    @Override
+    public synchronized double getCyclesPerSecond() {
+        final long now = System.nanoTime();
+        final long count = cycles.get();
+        final double rate = (now > pollTime) ? (count - pollCycles) * 1e9 / (now - pollTime) : 0;
+        pollTime = now;
+        pollCycles = count;
+        return rate;
+    }
+
+    /**
+     * @return The number of tasks derived by all rules
+     */
+    public long getDerived() {
+        long sum = 0;
+        for (final Counter c : derived) {
+            sum += c.get();
+        }
+        return sum;
+    }
+
+    @Override
+    public Map<String, Long> getDerivedByRule() {
+        final Map<String, Long> m = new TreeMap<>();
+        for (int i = 0; i < derived.length; i++) {
+            final long n = derived[i].get();
+            if (n > 0) {
+                m.put((i < UNKNOWN) ? RULES[i].method : "unknown", n);
+            }
+        }
+        return m;
+    }
+
+    @Override
+    public Map<String, Long> getRejected() {
+        final Map<String, Long> m = new TreeMap<>();
+        for (int i = 0; i < REJECTIONS.length; i++) {
+            m.put(REJECTIONS[i], rejected[i].get());
+        }
+        return m;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseCounts() {
+        final Map<String, Long> m = new TreeMap<>();
+        for (int i = 0; i < PHASES.length; i++) {
+            m.put(PHASES[i], phases[i].getCount());
+        }
+        return m;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseLatencyNanos() {
+        final Map<String, Long> m = new TreeMap<>();
+        for (int i = 0; i < PHASES.length; i++) {
+            m.put(PHASES[i] + ".p50", phases[i].getPercentile(0.5));
+            m.put(PHASES[i] + ".p90", phases[i].getPercentile(0.9));
+            m.put(PHASES[i] + ".p99", phases[i].getPercentile(0.99));
+            m.put(PHASES[i] + ".max", phases[i].getPercentile(1));
+        }
+        return m;
+    }
+
+    /**
+     * @param phase One of NEW_TASK, NOVEL_TASK and CONCEPT
+     * @return The histogram of the time taken by the phase
+     */
+    public Histogram getPhase(final int phase) {
+        return phases[phase];
+    }
+
+    @Override
+    public int[] getConceptBagOccupancy() {
+        return occupancy(memory.concepts);
+    }
+
+    @Override
+    public int[] getNovelTaskBagOccupancy() {
+        return occupancy(memory.novelTasks);
+    }
+
+    private static int[] occupancy(final Bag<?> bag) {
+        final int[] sizes = new int[bag.levels];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = bag.getLevelSize(i);
+        }
+        return sizes;
+    }
+
+    @Override
+    public void reset() {
+        cycles.reset();
+        for (final Histogram h : phases) {
+            h.reset();
+        }
+        for (final Counter c : rejected) {
+            c.reset();
+        }
+        for (final Counter c : derived) {
+            c.reset();
+        }
+        synchronized (this) {
+            pollTime = System.nanoTime();
+            pollCycles = 0;
+        }
+    }
+
+    /**
+     * All the metrics, flattened, for {@link NARState#measure()}
+     *
+     * @return The values by name, prefixed by "metrics."
+     */
+    public HashMap<String, Object> snapshot() {
+        final HashMap<String, Object> data = new HashMap<>();
+        data.put("metrics.cycles", getCycles());
+        data.put("metrics.derived", getDerived());
+        for (final Map.Entry<String, Long> e : getDerivedByRule().entrySet()) {
+            data.put("metrics.derived." + e.getKey(), e.getValue());
+        }
+        for (final Map.Entry<String, Long> e : getRejected().entrySet()) {
+            data.put("metrics.rejected." + e.getKey(), e.getValue());
+        }
+        for (final Map.Entry<String, Long> e : getPhaseLatencyNanos().entrySet()) {
+            data.put("metrics.phase." + e.getKey(), e.getValue());
+        }
+        data.put("metrics.concepts.occupancy", getConceptBagOccupancy());
+        return data;
+    }
+
+    /**
+     * A counter added to by several threads, each in its own cell most of the
+     * time, the cells a cache line apart
+     */
+    public static final class Counter {
+
+        private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        /** longs in a cache line */
+        private static final int PAD = 8;
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+        public void increment() {
+            add(1);
+        }
+
+        public void add(final long n) {
+            cells.getAndAdd(((int) Thread.currentThread().getId() & (STRIPES - 1)) * PAD, n);
+        }
+
+        public long get() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i * PAD);
+            }
+            return sum;
+        }
+
+        public void reset() {
+            for (int i = 0; i < STRIPES; i++) {
+                cells.set(i * PAD, 0);
+            }
+        }
+    }
+
+    /**
+     * A histogram of non-negative values, in buckets of a fixed relative
+     * width: exact below 32, then 16 buckets for each power of two, so that a
+     * value read back is within about 6% of the values counted in its bucket
+     */
+    public static final class Histogram {
+
+        private static final int SUB_BITS = 5;
+        private static final int SUB = 1 << SUB_BITS;
+        private static final int HALF = SUB / 2;
+        private static final int BUCKETS = (Long.SIZE - SUB_BITS) * HALF + HALF;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        static int index(final long value) {
+            if (value < SUB) {
+                return (int) Math.max(0, value);
+            }
+            final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BITS + 1;
+            return shift * HALF + (int) (value >>> shift);
+        }
+
+        /**
+         * @return The lowest value of a bucket
+         */
+        static long lowest(final int index) {
+            if (index < SUB) {
+                return index;
+            }
+            final int shift = index / HALF - 1;
+            return (long) (index - shift * HALF) << shift;
+        }
+
+        public void record(final long value) {
+            counts.getAndIncrement(index(value));
+        }
+
+        public long getCount() {
+            long sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                sum += counts.get(i);
+            }
+            return sum;
+        }
+
+        /**
+         * @param fraction The fraction of the values counted, from 0 to 1
+         * @return The highest value of the bucket the value at that rank is
+         * in, 0 if nothing was counted
+         */
+        public long getPercentile(final double fraction) {
+            final long total = getCount();
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            int last = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                final long c = counts.get(i);
+                if (c == 0) {
+                    continue;
+                }
+                last = i;
+                seen += c;
+                if (seen >= rank) {
+                    break;
+                }
+            }
+            return (last + 1 < BUCKETS) ? lowest(last + 1) - 1 : Long.MAX_VALUE;
+        }
+
+        public void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.core;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link Metrics}, as seen through JMX
+ *
+ * @author me
+ */
+public interface MetricsMXBean {
+
+    /**
+     * @return The number of working cycles run
+     */
+    long getCycles();
+
+    /**
+     * @return The working cycles run per second since the previous call
+     */
+    double getCyclesPerSecond();
+
+    /**
+     * @return The number of tasks derived, by the rule method that built them,
+     * for the rules that derived any
+     */
+    Map<String, Long> getDerivedByRule();
+
+    /**
+     * @return The number of derived tasks dropped, by reason
+     */
+    Map<String, Long> getRejected();
+
+    /**
+     * @return The number of times each phase of the working cycle ran
+     */
+    Map<String, Long> getPhaseCounts();
+
+    /**
+     * @return The median, 90th and 99th percentiles and maximum of the time
+     * taken by each phase of the working cycle, in nanoseconds
+     */
+    Map<String, Long> getPhaseLatencyNanos();
+
+    /**
+     * @return The number of concepts in each level of the concept bag
+     */
+    int[] getConceptBagOccupancy();
+
+    /**
+     * @return The number of tasks in each level of the novel task bag
+     */
+    int[] getNovelTaskBagOccupancy();
+
+    /**
+     * Set all counters and histograms back to zero
+     */
+    void reset();
+}
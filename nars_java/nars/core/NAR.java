@@ -1,11 +1,18 @@
 package nars.core;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.HashMap;
 
 import nars.entity.Stamp;
 import nars.gui.NARControls;
+import nars.io.BulkInput;
+import nars.io.EventLog;
+import nars.io.MemorySnapshot;
 import nars.io.Input;
 import nars.io.Output;
 import nars.storage.Memory;
@@ -15,7 +22,7 @@ import nars.storage.Memory;
  * <p>
  * An instantation of a NARS logic processor, useful for batch functionality; 
 */
-public class NAR implements Runnable, Output {
+public class NAR implements Runnable, Output, Closeable {
 
     
     private Thread thread = null;
@@ -100,10 +107,39 @@ public class NAR implements Runnable, Output {
                 
     }
 
+    /**
+     * Stop the inference process and release the resources of the memory,
+     * such as its reasoning threads and the files of its concept store and
+     * event log; the reasoner is not to be used afterwards
+     *
+     * @throws IOException if a file of the memory cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        stop();
+        memory.close();
+    }
+
     public Memory getMemory() {
         return memory;
     }
 
+    /**
+     * @return The metrics of the memory, or null if they are not kept, see
+     * {@link Parameters#setMetrics(boolean)}
+     */
+    public Metrics getMetrics() {
+        return memory.getMetrics();
+    }
+
+    /**
+     * @return The binary log of the steps of the inference, or null if they
+     * are not logged, see {@link Parameters#setEventLog(java.io.File)}
+     */
+    public EventLog getEventLog() {
+        return memory.getEventLog();
+    }
+
     public void addInputChannel(Input channel) {
         inputChannels.add(channel);
     }
@@ -276,6 +312,41 @@ public class NAR implements Runnable, Output {
     public void bufferInput() {
         while (processInput()) { }
     }    
+
+    /**
+     * Load a stream of Narsese statements into the memory at once, parsing
+     * them in parallel; see {@link BulkInput}
+     *
+     * @param input The Narsese lines
+     * @return The counts and throughput of the load
+     * @throws IOException if the stream cannot be read
+     */
+    public BulkInput.Result load(final Reader input) throws IOException {
+        return new BulkInput(this).load(input);
+    }
+    
+    /**
+     * Save the state of the memory and the clock to a binary snapshot; see
+     * {@link MemorySnapshot}
+     *
+     * @param file The snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(final File file) throws IOException {
+        MemorySnapshot.save(memory, clock, file);
+    }
+
+    /**
+     * Replace the state of the memory and the clock by a saved snapshot
+     *
+     * @param file The snapshot file
+     * @throws IOException if the file cannot be read
+     */
+    public void restore(final File file) throws IOException {
+        walkingSteps = 0;
+        clock = MemorySnapshot.restore(memory, file);
+        output(OUT.class, "restored " + file);
+    }
     
     private void workCycle() {
         if (((running || walkingSteps > 0)) && (!paused)) {
@@ -2,7 +2,8 @@ package nars.core;
 
 import java.util.HashMap;
 import java.util.TreeMap;
-import nars.storage.ConceptBag;
+import nars.entity.Concept;
+import nars.storage.Bag;
 
 /**
  * Contains information about the state of a NAR, including measurements 
@@ -27,12 +28,15 @@ public class NARState extends TreeMap<Long, HashMap<String, Object>> {
         long now = nar.getTime();
         HashMap<String, Object> data = newData();
         
-        ConceptBag concepts = nar.getMemory().concepts;
+        Bag<Concept> concepts = nar.getMemory().concepts;
         
         //..
         data.put("concepts.AveragePriority", nar.getMemory().concepts.getAveragePriority());
         data.put("concepts.Total", concepts.size());
         data.put("concepts.Mass", concepts.getMass());
+        if (nar.getMetrics() != null) {
+            data.putAll(nar.getMetrics().snapshot());
+        }
         
         put(now, data);        
         return data;
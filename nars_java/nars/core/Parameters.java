@@ -20,7 +20,9 @@
  */
 package nars.core;
 
+import java.io.File;
 import java.util.Random;
+import nars.storage.BagImplementation;
 
 /**
  * NAR operating parameters.
@@ -40,6 +42,55 @@ public class Parameters {
     public int getSilenceLevel() { return silenceLevel;    }
     public void setSilenceLevel(int silenceLevel) { this.silenceLevel = silenceLevel;     }
 
+    /** Bag implementation of each kind of bag; takes effect for bags created afterwards */
+    private BagImplementation conceptBag = BagImplementation.ARRAY;
+    private BagImplementation taskLinkBag = BagImplementation.DEQUE;
+    private BagImplementation termLinkBag = BagImplementation.DEQUE;
+    private BagImplementation novelTaskBag = BagImplementation.DEQUE;
+    public BagImplementation getConceptBag() { return conceptBag; }
+    public void setConceptBag(BagImplementation b) { this.conceptBag = b; }
+    public BagImplementation getTaskLinkBag() { return taskLinkBag; }
+    public void setTaskLinkBag(BagImplementation b) { this.taskLinkBag = b; }
+    public BagImplementation getTermLinkBag() { return termLinkBag; }
+    public void setTermLinkBag(BagImplementation b) { this.termLinkBag = b; }
+    public BagImplementation getNovelTaskBag() { return novelTaskBag; }
+    public void setNovelTaskBag(BagImplementation b) { this.novelTaskBag = b; }
+
+    /** Whether the concept and link bags forget by elapsed cycles instead of once per use; takes effect for bags created afterwards, see {@link nars.storage.Bag#setClock} */
+    private boolean timeForgetting = false;
+    public boolean isTimeForgetting() { return timeForgetting; }
+    public void setTimeForgetting(boolean timeForgetting) { this.timeForgetting = timeForgetting; }
+
+    /** Whether the term links that are not novel for a task link are only looked at, keeping their budget and place, instead of forgotten and moved to the level of their new priority as rounds of takeOut and putBack would; see {@link nars.storage.Bag#takeOut(nars.storage.Bag.Selection, int)} and {@link nars.storage.Bag#takeOutOrPutBack} */
+    private boolean termLinkLookahead = false;
+    public boolean isTermLinkLookahead() { return termLinkLookahead; }
+    public void setTermLinkLookahead(boolean termLinkLookahead) { this.termLinkLookahead = termLinkLookahead; }
+
+    /** Number of threads firing concepts in each cycle; 1 fires them on the reasoner thread, deterministically, more need the CONCURRENT concept bag. */
+    private int reasoningThreads = 1;
+    public int getReasoningThreads() { return reasoningThreads; }
+    public void setReasoningThreads(int reasoningThreads) { this.reasoningThreads = reasoningThreads; }
+
+    /** Directory of the cold tier of the concepts: the concepts dropped by the full concept bag are written there and reloaded when their term is used again; null to lose them. Takes effect for memories created afterwards, see {@link nars.io.ConceptStore} */
+    private File conceptStore = null;
+    public File getConceptStore() { return conceptStore; }
+    public void setConceptStore(File directory) { this.conceptStore = directory; }
+
+    /** Whether questions with query variables are also answered at once by the concepts an index of the statements by their components finds for them; takes effect for memories created afterwards, see {@link nars.storage.StatementIndex} */
+    private boolean statementIndex = false;
+    public boolean isStatementIndex() { return statementIndex; }
+    public void setStatementIndex(boolean statementIndex) { this.statementIndex = statementIndex; }
+
+    /** Whether the work of the memory is counted and timed, and published over JMX; takes effect for memories created afterwards, see {@link Metrics} */
+    private boolean metrics = false;
+    public boolean isMetrics() { return metrics; }
+    public void setMetrics(boolean metrics) { this.metrics = metrics; }
+
+    /** File the steps of the inference are logged to, in binary, as the inference recorder shows them; null for none. Takes effect for memories created afterwards, see {@link nars.io.EventLog}, whose main method renders the file as text */
+    private File eventLog = null;
+    public File getEventLog() { return eventLog; }
+    public void setEventLog(File file) { this.eventLog = file; }
+
     
     
     
@@ -33,25 +33,30 @@ public class BudgetValue implements Cloneable {
     private static final char MARK = Symbols.BUDGET_VALUE_MARK;
     /** The character that separates the factors in a budget value */
     private static final char SEPARATOR = Symbols.VALUE_SEPARATOR;
+    /**
+     * The three factors, packed 16 bits each in the short representation of
+     * {@link ShortFloat}, at the following offsets
+     */
+    private long values;
     /** The relative share of time resource to be allocated */
-    final protected ShortFloat priority;
+    private static final int PRIORITY = 0;
 	/**
 	 * The percent of priority to be kept in a constant period; All priority
 	 * values “decay” over time, though at different rates. Each item is given a
 	 * “durability” factor in (0, 1) to specify the percentage of priority level
 	 * left after each reevaluation
 	 */
-    final protected ShortFloat durability;
+    private static final int DURABILITY = 16;
     /** The overall (context-independent) evaluation */
-    final protected ShortFloat quality;
+    private static final int QUALITY = 32;
+    /** The time the priority was last decayed, when forgetting by elapsed cycles; -1 before */
+    private long lastForgetTime = -1;
 
     /** 
      * Default constructor
      */
     public BudgetValue() {
-        priority = new ShortFloat(0.01f);
-        durability = new ShortFloat(0.01f);
-        quality = new ShortFloat(0.01f);
+        this(0.01f, 0.01f, 0.01f);
     }
 
     /** 
@@ -61,9 +66,9 @@ public class BudgetValue implements Cloneable {
      * @param q Initial quality
      */
     public BudgetValue(final float p, final float d, final float q) {
-        priority = new ShortFloat(p);
-        durability = new ShortFloat(d);
-        quality = new ShortFloat(q);
+        set(PRIORITY, p);
+        set(DURABILITY, d);
+        set(QUALITY, q);
     }
 
     /**
@@ -71,9 +76,7 @@ public class BudgetValue implements Cloneable {
      * @param v Budget value to be cloned
      */
     public BudgetValue(final BudgetValue v) {
-        priority = new ShortFloat(v.getPriority());
-        durability = new ShortFloat(v.getDurability());
-        quality = new ShortFloat(v.getQuality());
+        values = v.values;
     }
 
     /**
@@ -84,12 +87,24 @@ public class BudgetValue implements Cloneable {
         return new BudgetValue(this.getPriority(), this.getDurability(), this.getQuality());
     }
 
+    private int shortValue(final int factor) {
+        return (int) (values >>> factor) & 0xffff;
+    }
+
+    private float get(final int factor) {
+        return ShortFloat.toFloat(shortValue(factor));
+    }
+
+    private void set(final int factor, final float v) {
+        values = (values & ~(0xffffL << factor)) | (((long) ShortFloat.toShort(v)) << factor);
+    }
+
     /**
      * Get priority value
      * @return The current priority
      */
     public float getPriority() {
-        return priority.getValue();
+        return get(PRIORITY);
     }
 
     /**
@@ -97,7 +112,7 @@ public class BudgetValue implements Cloneable {
      * @param v The new priority
      */
     public void setPriority(final float v) {
-        priority.setValue(v);
+        set(PRIORITY, v);
     }
 
     /**
@@ -105,7 +120,7 @@ public class BudgetValue implements Cloneable {
      * @param v The increasing percent
      */
     public void incPriority(final float v) {
-        priority.setValue(UtilityFunctions.or(priority.getValue(), v));
+        set(PRIORITY, UtilityFunctions.or(get(PRIORITY), v));
     }
 
     /**
@@ -113,7 +128,7 @@ public class BudgetValue implements Cloneable {
      * @param v The decreasing percent
      */
     public void decPriority(final float v) {
-        priority.setValue(UtilityFunctions.and(priority.getValue(), v));
+        set(PRIORITY, UtilityFunctions.and(get(PRIORITY), v));
     }
 
     /**
@@ -121,7 +136,7 @@ public class BudgetValue implements Cloneable {
      * @return The current durability
      */
     public float getDurability() {
-        return durability.getValue();
+        return get(DURABILITY);
     }
 
     /**
@@ -129,7 +144,7 @@ public class BudgetValue implements Cloneable {
      * @param v The new durability
      */
     public void setDurability(final float v) {
-        durability.setValue(v);
+        set(DURABILITY, v);
     }
 
     /**
@@ -137,7 +152,7 @@ public class BudgetValue implements Cloneable {
      * @param v The increasing percent
      */
     public void incDurability(final float v) {
-        durability.setValue(UtilityFunctions.or(durability.getValue(), v));
+        set(DURABILITY, UtilityFunctions.or(get(DURABILITY), v));
     }
 
     /**
@@ -145,7 +160,7 @@ public class BudgetValue implements Cloneable {
      * @param v The decreasing percent
      */
     public void decDurability(final float v) {
-        durability.setValue(UtilityFunctions.and(durability.getValue(), v));
+        set(DURABILITY, UtilityFunctions.and(get(DURABILITY), v));
     }
 
     /**
@@ -153,7 +168,7 @@ public class BudgetValue implements Cloneable {
      * @return The current quality
      */
     public float getQuality() {
-        return quality.getValue();
+        return get(QUALITY);
     }
 
     /**
@@ -161,7 +176,7 @@ public class BudgetValue implements Cloneable {
      * @param v The new quality
      */
     public void setQuality(final float v) {
-        quality.setValue(v);
+        set(QUALITY, v);
     }
 
     /**
@@ -169,7 +184,7 @@ public class BudgetValue implements Cloneable {
      * @param v The increasing percent
      */
     public void incQuality(final float v) {
-        quality.setValue(UtilityFunctions.or(quality.getValue(), v));
+        set(QUALITY, UtilityFunctions.or(get(QUALITY), v));
     }
 
     /**
@@ -177,7 +192,23 @@ public class BudgetValue implements Cloneable {
      * @param v The decreasing percent
      */
     public void decQuality(final float v) {
-        quality.setValue(UtilityFunctions.and(quality.getValue(), v));
+        set(QUALITY, UtilityFunctions.and(get(QUALITY), v));
+    }
+
+    /**
+     * Get the time the priority was last decayed
+     * @return The time, or -1 if it was never decayed by elapsed cycles
+     */
+    public long getLastForgetTime() {
+        return lastForgetTime;
+    }
+
+    /**
+     * Change the time the priority was last decayed
+     * @param time The new time
+     */
+    public void setLastForgetTime(final long time) {
+        lastForgetTime = time;
     }
 
     /**
@@ -193,7 +224,7 @@ public class BudgetValue implements Cloneable {
      * @return The summary value
      */
     public float summary() {
-        return UtilityFunctions.aveGeo(priority.getValue(), durability.getValue(), quality.getValue());
+        return UtilityFunctions.aveGeo(get(PRIORITY), get(DURABILITY), get(QUALITY));
     }
 
     /**
@@ -212,7 +243,28 @@ public class BudgetValue implements Cloneable {
      */
     @Override
     public String toString() {
-        return MARK + priority.toString() + SEPARATOR + durability.toString() + SEPARATOR + quality.toString() + MARK;
+        return toString(values);
+    }
+
+    /**
+     * The three factors packed in one long, as kept by a budget value
+     *
+     * @return The priority, durability and quality, 16 bits each from the
+     * lowest
+     */
+    public long getPacked() {
+        return values;
+    }
+
+    /**
+     * The String representation of a budget value packed by
+     * {@link #getPacked()}
+     *
+     * @param values The packed factors
+     * @return The String
+     */
+    public static String toString(final long values) {
+        return MARK + ShortFloat.toString((int) (values >>> PRIORITY) & 0xffff) + SEPARATOR + ShortFloat.toString((int) (values >>> DURABILITY) & 0xffff) + SEPARATOR + ShortFloat.toString((int) (values >>> QUALITY) & 0xffff) + MARK;
     }
 
     /**
@@ -220,6 +272,6 @@ public class BudgetValue implements Cloneable {
      * @return String representation of the value with 2-digit accuracy
      */
     public String toStringBrief() {
-        return MARK + priority.toStringBrief() + SEPARATOR + durability.toStringBrief() + SEPARATOR + quality.toStringBrief() + MARK;
+        return MARK + ShortFloat.toStringBrief(shortValue(PRIORITY)) + SEPARATOR + ShortFloat.toStringBrief(shortValue(DURABILITY)) + SEPARATOR + ShortFloat.toStringBrief(shortValue(QUALITY)) + MARK;
     }
 }
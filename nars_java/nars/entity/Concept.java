@@ -23,8 +23,10 @@ package nars.entity;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import nars.inference.BudgetFunctions;
+import nars.inference.InferenceContext;
 import nars.inference.LocalRules;
 import nars.inference.RuleTables;
 import nars.inference.UtilityFunctions;
@@ -32,11 +34,11 @@ import nars.language.CompoundTerm;
 import nars.language.Term;
 import nars.core.NARRun;
 import nars.core.Parameters;
+import nars.io.EventLog;
+import nars.storage.Bag;
 import nars.storage.BagObserver;
 import nars.storage.Memory;
 import nars.storage.NullBagObserver;
-import nars.storage.TaskLinkBag;
-import nars.storage.TermLinkBag;
 
 /**
  * A concept contains information associated with a term, including directly and
@@ -55,11 +57,11 @@ public final class Concept extends Item {
     /**
      * Task links for indirect processing
      */
-    private final TaskLinkBag taskLinks;
+    private final Bag<TaskLink> taskLinks;
     /**
      * Term links between the term and its components and compounds
      */
-    private final TermLinkBag termLinks;
+    private final Bag<TermLink> termLinks;
     /**
      * Link templates of TermLink, only in concepts with CompoundTerm jmv TODO
      * explain more
@@ -83,6 +85,11 @@ public final class Concept extends Item {
     
     private final EntityObserver defaultNullEntityObserver = new NullEntityObserver();
     private EntityObserver entityObserver = defaultNullEntityObserver;
+    /**
+     * Held while the concept is fired, so that parallel reasoning threads
+     * never fire the same concept at once
+     */
+    private final ReentrantLock firing = new ReentrantLock();
 
 
     /* ---------- constructor and initialization ---------- */
@@ -98,11 +105,18 @@ public final class Concept extends Item {
         this.memory = memory;
         questions = new LinkedList();
         beliefs = new ArrayList<>();
-        taskLinks = new TaskLinkBag(memory.taskForgettingRate);
-        termLinks = new TermLinkBag(memory.beliefForgettingRate);
+        taskLinks = memory.reasoner.param.getTaskLinkBag().newBag(Parameters.TASK_LINK_BAG_SIZE, memory.taskForgettingRate);
+        termLinks = memory.reasoner.param.getTermLinkBag().newBag(Parameters.TERM_LINK_BAG_SIZE, memory.beliefForgettingRate);
+        if (memory.reasoner.param.isTimeForgetting()) {
+            taskLinks.setClock(memory);
+            termLinks.setClock(memory);
+        }
         if (tm instanceof CompoundTerm) {
             termLinkTemplates = ((CompoundTerm) tm).prepareComponentLinks();
         }
+        if (memory.getStatementIndex() != null) {
+            memory.getStatementIndex().add(tm);
+        }
     }
 
     /* ---------- direct processing of tasks ---------- */
@@ -114,12 +128,13 @@ public final class Concept extends Item {
      * called in Memory.immediateProcess only
      *
      * @param task The task to be processed
+     * @param ctx The inference context of the working cycle
      */
-    public void directProcess(final Task task) {
+    public void directProcess(final Task task, final InferenceContext ctx) {
         if (task.getSentence().isJudgment()) {
-            processJudgment(task);
+            processJudgment(task, ctx);
         } else {
-            processQuestion(task);
+            processQuestion(task, ctx);
         }
         if (task.getBudget().aboveThreshold()) {    // still need to be processed
             linkToTask(task);
@@ -134,9 +149,10 @@ public final class Concept extends Item {
      *
      * @param judg The judgment to be accepted
      * @param task The task to be processed
+     * @param ctx The inference context of the working cycle
      * @return Whether to continue the processing of the task
      */
-    private void processJudgment(final Task task) {
+    private void processJudgment(final Task task, final InferenceContext ctx) {
         final Sentence judg = task.getSentence();
         final Sentence oldBelief = evaluation(judg, beliefs);
         if (oldBelief != null) {
@@ -148,17 +164,17 @@ public final class Concept extends Item {
                 }   // else: activated belief
                 return;
             } else if (LocalRules.revisible(judg, oldBelief)) {
-                memory.newStamp = Stamp.make(newStamp, oldStamp, memory.getTime());
-                if (memory.newStamp != null) {
-                    memory.currentBelief = oldBelief;
-                    LocalRules.revision(judg, oldBelief, false, memory);
+                ctx.newStamp = Stamp.make(newStamp, oldStamp, memory.getTime());
+                if (ctx.newStamp != null) {
+                    ctx.currentBelief = oldBelief;
+                    LocalRules.revision(judg, oldBelief, false, ctx);
                 }
             }
         }
         if (task.getBudget().aboveThreshold()) {
             for (final Task ques : questions) {
 //                LocalRules.trySolution(ques.getSentence(), judg, ques, memory);
-                LocalRules.trySolution(judg, ques, memory);
+                LocalRules.trySolution(judg, ques, ctx);
             }
             addToTable(judg, beliefs, Parameters.MAXIMUM_BELIEF_LENGTH);
         }
@@ -168,9 +184,10 @@ public final class Concept extends Item {
      * To answer a question by existing beliefs
      *
      * @param task The task to be processed
+     * @param ctx The inference context of the working cycle
      * @return Whether to continue the processing of the task
      */
-    public float processQuestion(final Task task) {
+    public float processQuestion(final Task task, final InferenceContext ctx) {
 
         
         Sentence ques = task.getSentence();
@@ -192,10 +209,14 @@ public final class Concept extends Item {
             questions.removeFirst();    // FIFO
         }
         
+        if (ques.containQueryVar()) {
+            memory.answerFromIndex(task, ctx);
+        }
+
         final Sentence newAnswer = evaluation(ques, beliefs);
         if (newAnswer != null) {
 //            LocalRules.trySolution(ques, newAnswer, task, memory);
-            LocalRules.trySolution(newAnswer, task, memory);
+            LocalRules.trySolution(newAnswer, task, ctx);
             return newAnswer.getTruth().getExpectation();
         } else {
             return 0.5f;
@@ -403,6 +424,24 @@ public final class Concept extends Item {
         return UtilityFunctions.or(linkPriority, termComplexityFactor);
     }
 
+    /**
+     * Return the TaskLinks, for saving the concept in a snapshot
+     *
+     * @return The TaskLink bag
+     */
+    public Bag<TaskLink> getTaskLinks() {
+        return taskLinks;
+    }
+
+    /**
+     * Return the TermLinks, for saving the concept in a snapshot
+     *
+     * @return The TermLink bag
+     */
+    public Bag<TermLink> getTermLinks() {
+        return termLinks;
+    }
+
     /**
      * Return the templates for TermLinks, only called in
      * Memory.continuedProcess
@@ -421,16 +460,16 @@ public final class Concept extends Item {
      * only called in RuleTables.reason
      *
      * @param task The selected task
+     * @param ctx The inference context of the current thread
      * @return The selected isBelief
      */
-    public Sentence getBelief(final Task task) {
+    public Sentence getBelief(final Task task, final InferenceContext ctx) {
         final Sentence taskSentence = task.getSentence();
         
         for (final Sentence belief : beliefs)  {
-            if (memory.getRecorder().isActive())
-                memory.getRecorder().append(" * Selected Belief: " + belief + "\n");
-            memory.newStamp = Stamp.make(taskSentence.getStamp(), belief.getStamp(), memory.getTime());
-            if (memory.newStamp != null) {
+            memory.trace(EventLog.SELECTED_BELIEF, belief);
+            ctx.newStamp = Stamp.make(taskSentence.getStamp(), belief.getStamp(), memory.getTime());
+            if (ctx.newStamp != null) {
                 final Sentence belief2 = (Sentence) belief.clone();   // will this mess up priority adjustment?
                 return belief2;
             }
@@ -440,33 +479,49 @@ public final class Concept extends Item {
 
     /* ---------- main loop ---------- */
     /**
-     * An atomic step in a concept, only called in {@link Memory#processConcept}
+     * Try to reserve the concept for firing on the current thread
+     *
+     * @return Whether the concept is reserved, and must then be released
      */
-    public void fire() {
+    public boolean tryLock() {
+        return firing.tryLock();
+    }
+
+    /**
+     * Release a concept reserved by {@link #tryLock()}
+     */
+    public void unlock() {
+        firing.unlock();
+    }
+
+    /**
+     * An atomic step in a concept, only called in {@link Memory#fireConcept}
+     *
+     * @param ctx The inference context of the current thread
+     */
+    public void fire(final InferenceContext ctx) {
         final TaskLink currentTaskLink = taskLinks.takeOut();
         if (currentTaskLink == null) {
             return;
         }
-        memory.currentTaskLink = currentTaskLink;
-        memory.currentBeliefLink = null;
-        if (memory.getRecorder().isActive())
-            memory.getRecorder().append(" * Selected TaskLink: " + currentTaskLink + "\n");
+        ctx.currentTaskLink = currentTaskLink;
+        ctx.currentBeliefLink = null;
+        memory.trace(EventLog.SELECTED_TASK_LINK, currentTaskLink);
         final Task task = currentTaskLink.getTargetTask();
-        memory.currentTask = task;  // one of the two places where this variable is set
+        ctx.currentTask = task;  // one of the two places where this variable is set
 //      memory.getRecorder().append(" * Selected Task: " + task + "\n");    // for debugging
         if (currentTaskLink.getType() == TermLink.TRANSFORM) {
-            memory.currentBelief = null;
-            RuleTables.transformTask(currentTaskLink, memory);  // to turn this into structural inference as below?
+            ctx.currentBelief = null;
+            RuleTables.transformTask(currentTaskLink, ctx);  // to turn this into structural inference as below?
         } else {
             int termLinkCount = Parameters.MAX_REASONED_TERM_LINK;
 //        while (memory.noResult() && (termLinkCount > 0)) {
             while (termLinkCount > 0) {
-                final TermLink termLink = termLinks.takeOut(currentTaskLink, memory.getTime());
+                final TermLink termLink = takeOutTermLink(currentTaskLink, memory.getTime());
                 if (termLink != null) {
-                    if (memory.getRecorder().isActive())
-                        memory.getRecorder().append(" * Selected TermLink: " + termLink + "\n");
-                    memory.currentBeliefLink = termLink;
-                    RuleTables.reason(currentTaskLink, termLink, memory);
+                    memory.trace(EventLog.SELECTED_TERM_LINK, termLink);
+                    ctx.currentBeliefLink = termLink;
+                    RuleTables.reason(currentTaskLink, termLink, ctx);
                     termLinks.putBack(termLink);
                     termLinkCount--;
                 } else {
@@ -477,6 +532,30 @@ public final class Concept extends Item {
         taskLinks.putBack(currentTaskLink);
     }
 
+    /**
+     * Take out a TermLink that has not been recently used with the TaskLink,
+     * to prevent repeated inference. The TermLinks that are not novel stay in
+     * the bag: they are put back with forgetting, as rounds of takeOut and
+     * putBack would, or, with {@link Parameters#isTermLinkLookahead()}, only
+     * looked at, keeping their budget and place.
+     *
+     * @param taskLink The selected TaskLink
+     * @param time The current time
+     * @return The selected TermLink
+     */
+    private TermLink takeOutTermLink(final TaskLink taskLink, final long time) {
+        final Bag.Selection<TermLink> novel = new Bag.Selection<TermLink>() {
+            @Override
+            public boolean select(final TermLink termLink) {
+                return taskLink.novel(termLink, time);
+            }
+        };
+        if (memory.reasoner.param.isTermLinkLookahead()) {
+            return termLinks.takeOut(novel, Parameters.MAX_MATCHED_TERM_LINK);
+        }
+        return termLinks.takeOutOrPutBack(novel, Parameters.MAX_MATCHED_TERM_LINK);
+    }
+
     /* ---------- display ---------- */
     /**
      * Start displaying contents and links, called from ConceptWindow,
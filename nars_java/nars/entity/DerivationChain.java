@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.entity;
+
+import nars.core.Parameters;
+import nars.language.Term;
+
+/**
+ * The derivation chain of a Stamp: the premises and conclusions that made the
+ * derivation of a sentence possible, the most recent last.
+ * <p>
+ * The terms are recorded by name, with the {@link Fingerprint} of the name and
+ * the {@link Term#getObjectId() object id} of the term, so the chain does not
+ * keep the terms alive. A term is in the chain as any term of its name,
+ * {@link #contains}, and as the same reference, {@link #containsSame}, which
+ * the check of cyclic derivations uses. The entries are kept in a ring of
+ * {@link Parameters#MAXIMUM_DERIVATION_CHAIN_LENGTH} slots, the oldest
+ * dropped first, with a one-word summary of the fingerprints: a term whose
+ * bit is not in the summary is found absent without looking at the ring.
+ * <p>
+ * A chain is shared by the stamps cloned or derived from one premise, and
+ * copied by the first of them that changes it, in {@link Stamp#addToChain}.
+ *
+ * @author me
+ */
+public final class DerivationChain {
+
+    private final String[] names;
+    private final long[] hashes;
+    private final long[] objectIds;
+    /** slot of the oldest entry */
+    private int start;
+    private int size;
+    /** one bit per entry, by the fingerprint of its name */
+    private long summary;
+    /** whether another stamp may refer to this chain */
+    boolean shared;
+
+    public DerivationChain() {
+        names = new String[Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH];
+        hashes = new long[names.length];
+        objectIds = new long[names.length];
+    }
+
+    private DerivationChain(final DerivationChain c) {
+        names = c.names.clone();
+        hashes = c.hashes.clone();
+        objectIds = c.objectIds.clone();
+        start = c.start;
+        size = c.size;
+        summary = c.summary;
+    }
+
+    /**
+     * The chain of a stamp merged from two others: the most recent entries of
+     * both, taken in turn, without repetition; a stamp keeps its turn after a
+     * repeated entry, and loses it when it has no entry left
+     *
+     * @param first The chain of the first stamp, which has the first turn
+     * @param second The chain of the second stamp
+     */
+    DerivationChain(final DerivationChain first, final DerivationChain second) {
+        this();
+        int i1 = first.size - 1;
+        int i2 = second.size - 1;
+        int j = 0;
+        while ((j < names.length) && ((i1 >= 0) || (i2 >= 0))) {
+            final DerivationChain from = (j % 2 == 0) ? first : second;
+            final int i = (from == first) ? i1-- : i2--;
+            if (i >= 0) {
+                final int slot = from.slot(i);
+                if (indexOf(from.names[slot], from.hashes[slot]) >= 0) {
+                    continue;       // a repetition, the same stamp takes another
+                }
+                names[size] = from.names[slot];     // most recent first, until reversed
+                hashes[size] = from.hashes[slot];
+                objectIds[size] = from.objectIds[slot];
+                summary |= bit(hashes[size]);
+                size++;
+            } else if (from == first) {
+                i1++;
+            } else {
+                i2++;
+            }
+            j++;
+        }
+        for (int k = 0; k < size / 2; k++) {
+            swap(k, size - 1 - k);
+        }
+    }
+
+    private void swap(final int a, final int b) {
+        final String name = names[a];
+        names[a] = names[b];
+        names[b] = name;
+        final long hash = hashes[a];
+        hashes[a] = hashes[b];
+        hashes[b] = hash;
+        final long id = objectIds[a];
+        objectIds[a] = objectIds[b];
+        objectIds[b] = id;
+    }
+
+    private static long bit(final long hash) {
+        return 1L << ((hash * 0x9E3779B97F4A7C15L) >>> 58);
+    }
+
+    private int slot(final int i) {
+        return (start + i) % names.length;
+    }
+
+    /**
+     * @return The number of terms in the chain
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i The position in the chain, 0 for the oldest
+     * @return The name of the term at this position
+     */
+    public String get(final int i) {
+        return names[slot(i)];
+    }
+
+    /**
+     * @param i The position in the chain, 0 for the oldest
+     * @return The object id of the term at this position, 0 if unknown
+     */
+    public long getObjectId(final int i) {
+        return objectIds[slot(i)];
+    }
+
+    /**
+     * Check whether a term of the same name is in the chain
+     *
+     * @param t The term to look for
+     * @return Whether the term is in the chain
+     */
+    public boolean contains(final Term t) {
+        return indexOf(t.getName(), t.getNameHash()) >= 0;
+    }
+
+    /**
+     * Check whether a term is in the chain as the same reference
+     *
+     * @param t The term to look for
+     * @return Whether the term itself is in the chain
+     */
+    public boolean containsSame(final Term t) {
+        if (!t.hasObjectId() || ((summary & bit(t.getNameHash())) == 0)) {
+            return false;
+        }
+        final long id = t.getObjectId();
+        for (int i = 0; i < size; i++) {
+            if (objectIds[slot(i)] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexOf(final String name, final long hash) {
+        if ((summary & bit(hash)) == 0) {
+            return -1;
+        }
+        for (int i = 0; i < size; i++) {
+            final int slot = slot(i);
+            if ((hashes[slot] == hash) && names[slot].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Append a term as the most recent, moving the term of the same name if
+     * it is already in the chain, and dropping the oldest term of a full
+     * chain. Only for a chain not shared with other stamps; see
+     * {@link Stamp#addToChain}.
+     *
+     * @param t The term to add
+     */
+    public void add(final Term t) {
+        add(t.getName(), t.getNameHash(), t.getObjectId());
+    }
+
+    /**
+     * Append a term known by name only, as {@link #add(Term)}: it is not the
+     * same reference as any term
+     *
+     * @param name The name of the term to add
+     */
+    public void add(final String name) {
+        add(name, Fingerprint.of(name), 0);
+    }
+
+    private void add(final String name, final long hash, final long objectId) {
+        final int i = indexOf(name, hash);
+        if (i >= 0) {
+            remove(i);
+        }
+        if (size == names.length) {
+            remove(0);
+        }
+        final int slot = slot(size);
+        names[slot] = name;
+        hashes[slot] = hash;
+        objectIds[slot] = objectId;
+        size++;
+        summary |= bit(hash);
+    }
+
+    /**
+     * Remove the entry at a position, shifting the more recent ones
+     */
+    private void remove(final int index) {
+        if (index == 0) {
+            names[start] = null;
+            start = (start + 1) % names.length;
+        } else {
+            for (int i = index; i < size - 1; i++) {
+                final int to = slot(i);
+                final int from = slot(i + 1);
+                names[to] = names[from];
+                hashes[to] = hashes[from];
+                objectIds[to] = objectIds[from];
+            }
+            names[slot(size - 1)] = null;
+        }
+        size--;
+        summary = 0;
+        for (int i = 0; i < size; i++) {
+            summary |= bit(hashes[slot(i)]);
+        }
+    }
+
+    DerivationChain copy() {
+        return new DerivationChain(this);
+    }
+}
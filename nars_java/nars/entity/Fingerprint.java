@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.entity;
+
+/**
+ * 64-bit polynomial fingerprint of a character sequence,
+ * h(s) = s[0]*P^(n-1) + ... + s[n-1] (mod 2^64).
+ * <p>
+ * Fingerprints compose under concatenation, h(a+b) = h(a)*P^len(b) + h(b),
+ * so the key of a link can be fingerprinted from the cached fingerprint of
+ * its target's name without building the key String. Bags find items by
+ * the fingerprint of their key. Distinct keys may have the same
+ * fingerprint: {@link nars.storage.NameTable} checks the key itself and
+ * keeps the items of such keys apart.
+ *
+ * @author me
+ */
+public final class Fingerprint {
+
+    /** odd multiplier */
+    private static final long P = 0x9E3779B97F4A7C15L;
+
+    /** P^i for short lengths */
+    private static final long[] POW = new long[1024];
+
+    static {
+        POW[0] = 1;
+        for (int i = 1; i < POW.length; i++) {
+            POW[i] = POW[i - 1] * P;
+        }
+    }
+
+    private Fingerprint() {
+    }
+
+    /**
+     * Fingerprint of a whole String
+     *
+     * @param s The String, may be null
+     * @return Its fingerprint, 0 for null or empty
+     */
+    public static long of(final CharSequence s) {
+        return (s == null) ? 0 : append(0, s);
+    }
+
+    /**
+     * Fingerprint of h's sequence followed by one char
+     */
+    public static long append(final long h, final char c) {
+        return h * P + c;
+    }
+
+    /**
+     * Fingerprint of h's sequence followed by the chars of s
+     */
+    public static long append(long h, final CharSequence s) {
+        final int n = s.length();
+        for (int i = 0; i < n; i++) {
+            h = h * P + s.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * Fingerprint of h's sequence followed by the decimal digits of a
+     * non-negative int, as StringBuilder.append(int) writes them
+     */
+    public static long append(final long h, final int n) {
+        if (n < 10) {
+            return append(h, (char) ('0' + n));
+        }
+        return append(append(h, n / 10), (char) ('0' + (n % 10)));
+    }
+
+    /**
+     * Fingerprint of a concatenation
+     *
+     * @param head Fingerprint of the first part
+     * @param tail Fingerprint of the second part
+     * @param tailLength Length of the second part
+     * @return The fingerprint of both parts
+     */
+    public static long concat(final long head, final long tail, final int tailLength) {
+        return head * pow(tailLength) + tail;
+    }
+
+    private static long pow(int n) {
+        if (n < POW.length) {
+            return POW[n];
+        }
+        long result = 1, base = P;
+        while (n > 0) {
+            if ((n & 1) != 0) {
+                result *= base;
+            }
+            base *= base;
+            n >>>= 1;
+        }
+        return result;
+    }
+}
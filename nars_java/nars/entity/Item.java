@@ -28,10 +28,14 @@ package nars.entity;
  */
 public abstract class Item {
 
-    /** The key of the Item, unique in a Bag */
+    /** The key of the Item, unique in a Bag; may be built on demand by subclasses */
     protected String key;
+    /** The {@link Fingerprint} of the key, which identifies the Item in a Bag */
+    protected long keyHash;
     /** The budget of the Item, consisting of 3 numbers */
     protected final BudgetValue budget;
+    /** The slot of the Item in the ArrayBag or SumTreeBag holding it, -1 when in none */
+    private int bagSlot = -1;
 
     /**
      * The default constructor
@@ -46,6 +50,7 @@ public abstract class Item {
      */
     protected Item(final String key) {
         this.key = key;
+        this.keyHash = Fingerprint.of(key);
         this.budget = new BudgetValue();
      }
 
@@ -56,6 +61,7 @@ public abstract class Item {
      */
     protected Item(final String key, final BudgetValue budget) {
         this.key = key;
+        this.keyHash = Fingerprint.of(key);
         this.budget = new BudgetValue(budget);  // clone, not assignment
     }
 
@@ -68,6 +74,41 @@ public abstract class Item {
         return key;
     }
 
+    /**
+     * Get the fingerprint of the key
+     * @return The fingerprint, equal to Fingerprint.of(getKey())
+     */
+    public long getKeyHash() {
+        return keyHash;
+    }
+
+    /**
+     * Check whether another Item has the same key, which two Items of the
+     * same fingerprint need not have
+     * @param that The other Item
+     * @return Whether the keys are equal
+     */
+    public boolean keyEquals(final Item that) {
+        return (this == that) || ((keyHash == that.keyHash) && getKey().equals(that.getKey()));
+    }
+
+    /**
+     * Get the slot index assigned by {@link nars.storage.ArrayBag} or
+     * {@link nars.storage.SumTreeBag}
+     * @return The slot, or -1 if the Item is not in such a bag
+     */
+    public int getBagSlot() {
+        return bagSlot;
+    }
+
+    /**
+     * Set the slot index, called by the slot-based bags only
+     * @param slot The slot, or -1 when the Item leaves the bag
+     */
+    public void setBagSlot(final int slot) {
+        this.bagSlot = slot;
+    }
+
     /**
      * Get BudgetValue
      * @return Current BudgetValue
@@ -170,7 +211,7 @@ public abstract class Item {
      */
     @Override
     public String toString() {
-        return budget + " " + key ;
+        return budget + " " + getKey();
     }
 
     /**
@@ -178,7 +219,7 @@ public abstract class Item {
      * @return A simplified String representation of the content
      */
     public String toStringBrief() {        
-        return budget.toStringBrief() + " " + key ;
+        return budget.toStringBrief() + " " + getKey();
     }
     
     public String toStringLong() {
@@ -22,6 +22,10 @@ package nars.entity;
 
 /**
  * A float value in [0, 1], with 4 digits accuracy.
+ * <p>
+ * The static methods work on the short representation directly, for the
+ * values packed into the primitive fields of {@link BudgetValue} and
+ * {@link TruthValue}.
  */
 public class ShortFloat implements Cloneable {
 
@@ -50,7 +54,7 @@ public class ShortFloat implements Cloneable {
      * @return The current value in float
      */
     public float getValue() {
-        return value * 0.0001f;
+        return toFloat(value);
     }
 
     /**
@@ -66,11 +70,27 @@ public class ShortFloat implements Cloneable {
      * @param v The new value
      */
     public final void setValue(final float v) {
+        value = toShort(v);
+    }
+
+    /**
+     * Round a value to its short representation, with validity checking
+     * @param v The value in float
+     * @return The value in short, from 0 to 10000
+     */
+    public static short toShort(final float v) {
         if ((v < 0) || (v > 1)) {
             throw new ArithmeticException("Invalid value: " + v);
-        } else {
-            value = (short) (v * 10000.0f + 0.5f);
         }
+        return (short) (v * 10000.0f + 0.5f);
+    }
+
+    /**
+     * @param value The value in short, from 0 to 10000
+     * @return The value in float
+     */
+    public static float toFloat(final int value) {
+        return value * 0.0001f;
     }
 
     /**
@@ -107,6 +127,15 @@ public class ShortFloat implements Cloneable {
      */
     @Override
     public String toString() {
+        return toString(value);
+    }
+
+    /**
+     * Convert a short value into a String
+     * @param value The value in short, from 0 to 10000
+     * @return The String representation, with 4 digits accuracy
+     */
+    public static String toString(final int value) {
         if (value >= 10000) {
             return "1.0000";
         } else {
@@ -133,9 +162,16 @@ public class ShortFloat implements Cloneable {
      * @return The String representation, with 2 digits accuracy
      */
     public String toStringBrief() {
-        value += 50;
-        final String s = toString();
-        value -= 50;
+        return toStringBrief(value);
+    }
+
+    /**
+     * Round a short value into a short String
+     * @param value The value in short, from 0 to 10000
+     * @return The String representation, with 2 digits accuracy
+     */
+    public static String toStringBrief(final int value) {
+        final String s = toString(value + 50);
         if (s.length() > 4) {
             return s.substring(0, 4);
         } else {
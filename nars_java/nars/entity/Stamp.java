@@ -21,6 +21,7 @@
 package nars.entity;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import nars.io.Symbols;
 import nars.core.Parameters;
@@ -40,10 +41,10 @@ public class Stamp implements Cloneable {
      * serial number, for the whole system TODO : should it really be static? or
      * a Stamp be a field in {@link ReasonerBatch} ?
      */
-    private static long currentSerial = 0;
+    private static final AtomicLong currentSerial = new AtomicLong();
 
     /**
-     * serial numbers
+     * serial numbers, sorted and without duplicates
      */
     private final long[] evidentialBase;
 
@@ -52,6 +53,18 @@ public class Stamp implements Cloneable {
      */
     private final int baseLength;
 
+    /**
+     * One bit per serial number of the evidentialBase, set by its hash: two
+     * stamps whose summaries have no bit in common share no evidence
+     */
+    private final long evidentialSummary;
+
+    /**
+     * Whether evidence was counted twice in the derivation of the stamp, that
+     * is, the evidential bases of two merged stamps overlapped
+     */
+    private final boolean overlapping;
+
     /**
      * creation time of the stamp
      */
@@ -61,7 +74,7 @@ public class Stamp implements Cloneable {
      * derivation chain containing the used premises and conclusions which made
      * deriving the conclusion c possible *
      */
-    public final List<Term> derivationChain;
+    private DerivationChain derivationChain;
 
     /**
      * Generate a new stamp, with a new serial number, for a new Task
@@ -69,12 +82,40 @@ public class Stamp implements Cloneable {
      * @param time Creation time of the stamp
      */
     public Stamp(final long time) {
-        currentSerial++;
         baseLength = 1;
         evidentialBase = new long[baseLength];
-        evidentialBase[0] = currentSerial;
+        evidentialBase[0] = currentSerial.incrementAndGet();
+        evidentialSummary = summary(evidentialBase, baseLength);
+        overlapping = false;
         creationTime = time;
-        derivationChain = new ArrayList<Term>();
+        derivationChain = new DerivationChain();
+    }
+
+    /**
+     * Generate a stamp with given components, when a memory is restored from a
+     * snapshot
+     *
+     * @param base The serial numbers of the evidential base
+     * @param overlapping Whether evidence was counted twice in the derivation
+     * @param time Creation time of the stamp
+     * @param chain The derivation chain
+     */
+    public Stamp(final long[] base, final boolean overlapping, final long time, final DerivationChain chain) {
+        final long[] sorted = base.clone();
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if ((n == 0) || (sorted[i] != sorted[n - 1])) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        baseLength = n;
+        evidentialBase = (n == sorted.length) ? sorted : Arrays.copyOf(sorted, n);
+        evidentialSummary = summary(evidentialBase, baseLength);
+        this.overlapping = overlapping || (n < sorted.length);
+        creationTime = time;
+        derivationChain = chain;
+        chain.shared = true;
     }
 
     /**
@@ -85,8 +126,11 @@ public class Stamp implements Cloneable {
     private Stamp(final Stamp old) {
         baseLength = old.length();
         evidentialBase = old.getBase();
+        evidentialSummary = old.evidentialSummary;
+        overlapping = old.overlapping;
         creationTime = old.getCreationTime();
-        derivationChain = old.getChain();
+        derivationChain = old.derivationChain;
+        derivationChain.shared = true;
     }
 
     /**
@@ -101,8 +145,11 @@ public class Stamp implements Cloneable {
     public Stamp(final Stamp old, final long time) {
         baseLength = old.length();
         evidentialBase = old.getBase();
+        evidentialSummary = old.evidentialSummary;
+        overlapping = old.overlapping;
         creationTime = time;
-        derivationChain = old.getChain();
+        derivationChain = old.derivationChain;
+        derivationChain.shared = true;
     }
 
     /**
@@ -113,54 +160,68 @@ public class Stamp implements Cloneable {
      * @param second The second Stamp
      */
     private Stamp(final Stamp first, final Stamp second, final long time) {
-        //TODO use iterators instead of repeated first and second .get's
         int i1, i2, j;
-        i1 = i2 = j = 0;
-        baseLength = Math.min(first.length() + second.length(), Parameters.MAXIMUM_EVIDENTAL_BASE_LENGTH);
-        evidentialBase = new long[baseLength];
-
         final long[] firstBase = first.getBase();
         final long[] secondBase = second.getBase();
-
-        while (i2 < second.length() && j < baseLength) {
-            evidentialBase[j++] = firstBase[i1++];
-            evidentialBase[j++] = secondBase[i2++];
-        }
-        while (i1 < first.length() && j < baseLength) {
-            evidentialBase[j++] = firstBase[i1++];
+        final int firstLength = first.length();
+        final int secondLength = second.length();
+
+        // size of the union, by a linear merge of the sorted bases
+        int union = firstLength + secondLength;
+        if ((first.evidentialSummary & second.evidentialSummary) != 0) {
+            i1 = i2 = 0;
+            while (i1 < firstLength && i2 < secondLength) {
+                final long a = firstBase[i1], b = secondBase[i2];
+                if (a == b) {
+                    union--;
+                    i1++;
+                    i2++;
+                } else if (a < b) {
+                    i1++;
+                } else {
+                    i2++;
+                }
+            }
         }
+        overlapping = first.overlapping || second.overlapping || (union < firstLength + secondLength);
+        baseLength = Math.min(union, Parameters.MAXIMUM_EVIDENTAL_BASE_LENGTH);
+        evidentialBase = new long[baseLength];
 
-        final List<Term> chain1 = first.getChain();
-        final List<Term> chain2 = second.getChain();
-        i1 = chain1.size() - 1;
-        i2 = chain2.size() - 1;
-
-        derivationChain = new ArrayList<Term>(baseLength); //take as long till the chain is full or all elements were taken out of chain1 and chain2:
-
-        j = 0;
-        while (j < Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH && (i1 >= 0 || i2 >= 0)) {
-            if (j % 2 == 0) {//one time take from first, then from second, last ones are more important
-                if (i1 >= 0) {
-                    if (!derivationChain.contains(chain1.get(i1))) {
-                        derivationChain.add(chain1.get(i1));
-                    } else {
-                        j--; //was double, so we can add one more now
+        if (union == baseLength) {
+            i1 = i2 = j = 0;
+            while (i1 < firstLength || i2 < secondLength) {
+                if (i2 == secondLength || (i1 < firstLength && firstBase[i1] < secondBase[i2])) {
+                    evidentialBase[j++] = firstBase[i1++];
+                } else {
+                    if (i1 < firstLength && firstBase[i1] == secondBase[i2]) {
+                        i1++;
                     }
-                    i1--;
+                    evidentialBase[j++] = secondBase[i2++];
                 }
-            } else {
-                if (i2 >= 0) {
-                    if (!derivationChain.contains(chain2.get(i2))) {
-                        derivationChain.add(chain2.get(i2));
-                    } else {
-                       j--; //was double, so we can add one more now
-                    }
-                    i2--;
+            }
+        } else {
+            // too long: keep the most recent serial numbers of both, in turn
+            i1 = firstLength - 1;
+            i2 = secondLength - 1;
+            j = 0;
+            boolean fromFirst = true;
+            while (j < baseLength) {
+                final long n;
+                if ((fromFirst && i1 >= 0) || i2 < 0) {
+                    n = firstBase[i1--];
+                } else {
+                    n = secondBase[i2--];
+                }
+                fromFirst = !fromFirst;
+                if (!contains(evidentialBase, j, n)) {
+                    evidentialBase[j++] = n;
                 }
             }
-            j++;
-        } //ok but now the most important elements are at the beginning so let's change that:
-        Collections.reverse(derivationChain); //if jvm implements that correctly this is O(1)
+            Arrays.sort(evidentialBase);
+        }
+        evidentialSummary = summary(evidentialBase, baseLength);
+
+        derivationChain = new DerivationChain(first.derivationChain, second.derivationChain);
 
         creationTime = time;
     }
@@ -223,7 +284,23 @@ public class Stamp implements Cloneable {
      * Initialize the stamp mechanism of the system, called in Reasoner
      */
     public static void init() {
-        currentSerial = 0;
+        currentSerial.set(0);
+    }
+
+    /**
+     * @return The last serial number given to an input stamp
+     */
+    public static long getCurrentSerial() {
+        return currentSerial.get();
+    }
+
+    /**
+     * Continue the serial numbers after those of a restored memory
+     *
+     * @param serial The last serial number given
+     */
+    public static void setCurrentSerial(final long serial) {
+        currentSerial.set(serial);
     }
 
     /**
@@ -257,35 +334,91 @@ public class Stamp implements Cloneable {
     /**
      * Get the derivationChain, called from derivedTask in Memory
      *
-     * @return The evidentialBase of numbers
+     * @return The derivation chain, not to be changed but through
+     * {@link #addToChain(Term)}
      */
-    public List<Term> getChain() {
+    public DerivationChain getChain() {
         return derivationChain;
     }
 
     /**
-     * Add element to the chain
+     * Get the derivationChain as it is now, for a reader that keeps it, such
+     * as the event log: from then on the stamp copies the chain before adding
+     * to it
      *
-     * @return The evidentialBase of numbers
+     * @return The derivation chain, not to be changed
+     */
+    public DerivationChain shareChain() {
+        derivationChain.shared = true;
+        return derivationChain;
+    }
+
+    /**
+     * Add element to the chain, as the most recent one, copying the chain
+     * first if other stamps share it
+     *
+     * @param t The term to be added
      */
-    public void addToChain(final Term T) {
-        derivationChain.add(T);
-        if (derivationChain.size() > Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH) {
-            derivationChain.remove(0);
+    public void addToChain(final Term t) {
+        if (derivationChain.shared) {
+            derivationChain = derivationChain.copy();
         }
+        derivationChain.add(t);
+    }
+
+    /**
+     * The summary of an evidential base, one bit per serial number
+     */
+    private static long summary(final long[] base, final int length) {
+        long summary = 0;
+        for (int i = 0; i < length; i++) {
+            summary |= 1L << ((base[i] * 0x9E3779B97F4A7C15L) >>> 58);
+        }
+        return summary;
+    }
+
+    private static boolean contains(final long[] base, final int length, final long n) {
+        for (int i = 0; i < length; i++) {
+            if (base[i] == n) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether evidence was counted twice in the derivation of the stamp, in
+     * which case it cannot be used for revision
+     *
+     * @return Whether merged evidential bases overlapped
+     */
+    public boolean isOverlapping() {
+        return overlapping;
     }
 
     /**
-     * Convert the evidentialBase into a set
+     * Check whether two stamps share evidence, by their summaries and, only
+     * when these have common bits, by a merge of the sorted bases
      *
-     * @return The TreeSet representation of the evidential base
+     * @param that The other stamp
+     * @return Whether a serial number is in both evidential bases
      */
-    private TreeSet<Long> toSet() {
-        final TreeSet<Long> set = new TreeSet<>();
-        for (Long l : evidentialBase) {
-            set.add(l);
+    public boolean overlaps(final Stamp that) {
+        if ((evidentialSummary & that.evidentialSummary) == 0) {
+            return false;
+        }
+        int i1 = 0, i2 = 0;
+        while (i1 < baseLength && i2 < that.baseLength) {
+            final long a = evidentialBase[i1], b = that.evidentialBase[i2];
+            if (a == b) {
+                return true;
+            } else if (a < b) {
+                i1++;
+            } else {
+                i2++;
+            }
         }
-        return set;
+        return false;
     }
 
     /**
@@ -299,20 +432,26 @@ public class Stamp implements Cloneable {
         if (!(that instanceof Stamp)) {
             return false;
         }
-
-        final TreeSet<Long> set1 = toSet();
-        final TreeSet<Long> set2 = ((Stamp) that).toSet();
-        return (set1.containsAll(set2) && set2.containsAll(set1));
+        final Stamp s = (Stamp) that;
+        if ((evidentialSummary != s.evidentialSummary) || (baseLength != s.baseLength)) {
+            return false;
+        }
+        for (int i = 0; i < baseLength; i++) {
+            if (evidentialBase[i] != s.evidentialBase[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * The hash code of Stamp
+     * The hash code of Stamp, from the summary of its evidential base
      *
      * @return The hash code
      */
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return (int) (evidentialSummary ^ (evidentialSummary >>> 32));
     }
 
     //return toString().hashCode();
@@ -362,16 +501,30 @@ public class Stamp implements Cloneable {
      */
     @Override
     public String toString() {
+        return toString(creationTime, evidentialBase, baseLength, derivationChain);
+    }
+
+    /**
+     * Get a String representation of a stamp from its parts, as kept by the
+     * event log
+     *
+     * @param creationTime The creation time of the stamp
+     * @param evidentialBase The evidential base
+     * @param baseLength The number of serial numbers in the base
+     * @param derivationChain The derivation chain
+     * @return The String
+     */
+    public static String toString(final long creationTime, final long[] evidentialBase, final int baseLength, final DerivationChain derivationChain) {
         final int estimatedInitialSize = 10 * (baseLength + derivationChain.size());
 
-        final StringBuilder buffer = new StringBuilder(estimatedInitialSize).append(" " + Symbols.STAMP_OPENER + creationTime);
+        final StringBuilder buffer = new StringBuilder(estimatedInitialSize).append(' ').append(Symbols.STAMP_OPENER).append(creationTime);
         buffer.append(' ').append(Symbols.STAMP_STARTER).append(' ');
         for (int i = 0; i < baseLength; i++) {
             buffer.append(Long.toString(evidentialBase[i]));
             if (i < (baseLength - 1)) {
                 buffer.append(Symbols.STAMP_SEPARATOR);
             } else {
-                if (derivationChain.isEmpty()) {
+                if (derivationChain.size() == 0) {
                     buffer.append(' ').append(Symbols.STAMP_STARTER).append(' ');
                 }
             }
@@ -383,9 +536,6 @@ public class Stamp implements Cloneable {
             }
         }
         buffer.append(Symbols.STAMP_CLOSER).append(' ');
-
-        //this is for estimating an initial size of the stringbuffer
-        //System.out.println(baseLength + " " + derivationChain.size() + " " + buffer.length());
         return buffer.toString();
     }
 
@@ -36,13 +36,11 @@ public class TaskLink extends TermLink {
      */
     private final Task targetTask;
     /**
-     * Remember the TermLinks that has been used recently with this TaskLink
+     * Remember the TermLinks that has been used recently with this TaskLink,
+     * and when: the key fingerprint of a TermLink folded to an int in the high
+     * half of a record, the time it was used, modulo 2^32, in the low half
      */
-    private final String recordedLinks[];
-    /**
-     * Remember the time when each TermLink is used with this TaskLink
-     */
-    private final long recordingTime[];
+    private final long records[];
     /**
      * The number of TermLinks remembered
      */
@@ -58,7 +56,7 @@ public class TaskLink extends TermLink {
      * @param v The budget
      */
     public TaskLink(final Task t, final TermLink template, final BudgetValue v) {
-        super("", v);
+        super(null, v);
         targetTask = t;
         if (template == null) {
             type = TermLink.SELF;
@@ -67,11 +65,49 @@ public class TaskLink extends TermLink {
             type = template.getType();
             index = template.getIndices();
         }
-        recordedLinks = new String[Parameters.TERM_LINK_RECORD_LENGTH];
-        recordingTime = new long[Parameters.TERM_LINK_RECORD_LENGTH];
+        records = new long[Parameters.TERM_LINK_RECORD_LENGTH];
         counter = 0;
         setKey();   // as defined in TermLink
-        key += t.getKey();
+        keyHash = Fingerprint.concat(keyHash, t.getKeyHash(), t.getKey().length());
+    }
+
+    /**
+     * Constructor of a saved TaskLink, with its record of the TermLinks used
+     * recently, when a memory is restored from a snapshot
+     *
+     * @param t The target Task
+     * @param type The link type
+     * @param indices The component indices, or null
+     * @param v The budget
+     * @param saved The records of the TermLinks used recently
+     * @param count The number of TermLinks recorded
+     */
+    public TaskLink(final Task t, final short type, final short[] indices, final BudgetValue v,
+            final long[] saved, final int count) {
+        super(null, v);
+        targetTask = t;
+        this.type = type;
+        index = indices;
+        records = new long[Parameters.TERM_LINK_RECORD_LENGTH];
+        counter = Math.min(count, Parameters.TERM_LINK_RECORD_LENGTH);
+        System.arraycopy(saved, 0, records, 0, counter);
+        setKey();
+        keyHash = Fingerprint.concat(keyHash, t.getKeyHash(), t.getKey().length());
+    }
+
+    /**
+     * The key of the TermLink part followed by the key of the Task
+     *
+     * @return The key
+     */
+    @Override
+    protected String makeKey() {
+        return super.makeKey() + targetTask.getKey();
+    }
+
+    @Override
+    public boolean keyEquals(final Item that) {
+        return super.keyEquals(that) && ((this == that) || targetTask.getKey().equals(((TaskLink) that).targetTask.getKey()));
     }
 
     /**
@@ -83,11 +119,30 @@ public class TaskLink extends TermLink {
         return targetTask;
     }
 
+    /**
+     * @return The number of TermLinks recorded
+     */
+    public int getRecordCount() {
+        return counter;
+    }
+
+    /**
+     * @param i The position of a record, less than the record count
+     * @return The record of a TermLink used recently
+     */
+    public long getRecord(final int i) {
+        return records[i];
+    }
+
+    private static long record(final int linkId, final int time) {
+        return (((long) linkId) << 32) | (time & 0xffffffffL);
+    }
+
     /**
      * To check whether a TaskLink should use a TermLink, return false if they
      * interacted recently
      * <p>
-     * called in TermLinkBag only
+     * called in Concept.takeOutTermLink only
      *
      * @param termLink The TermLink to be checked
      * @param currentTime The current time
@@ -98,22 +153,22 @@ public class TaskLink extends TermLink {
         if (bTerm.equals(targetTask.getSentence().getContent())) {
             return false;
         }
-        String linkKey = termLink.getKey();
-        int next, i;
+        final long linkKey = termLink.getKeyHash();
+        final int linkId = (int) (linkKey ^ (linkKey >>> 32));
+        final int now = (int) currentTime;
+        int i;
         for (i = 0; i < counter; i++) {
-            next = i % Parameters.TERM_LINK_RECORD_LENGTH;
-            if (linkKey.equals(recordedLinks[next])) {
-                if (currentTime < recordingTime[next] + Parameters.TERM_LINK_RECORD_LENGTH) {
+            final long record = records[i];
+            if ((int) (record >>> 32) == linkId) {
+                if (now - (int) record < Parameters.TERM_LINK_RECORD_LENGTH) {
                     return false;
                 } else {
-                    recordingTime[next] = currentTime;
+                    records[i] = record(linkId, now);
                     return true;
                 }
             }
         }
-        next = i % Parameters.TERM_LINK_RECORD_LENGTH;
-        recordedLinks[next] = linkKey;       // add knowledge reference to recordedLinks
-        recordingTime[next] = currentTime;
+        records[i % Parameters.TERM_LINK_RECORD_LENGTH] = record(linkId, now);  // add knowledge reference to the records
         if (counter < Parameters.TERM_LINK_RECORD_LENGTH) { // keep a constant length
             counter++;
         }
@@ -20,6 +20,7 @@
  */
 package nars.entity;
 
+import java.util.Arrays;
 import nars.io.Symbols;
 import nars.language.Term;
 
@@ -102,7 +103,7 @@ public class TermLink extends Item {
      * @param v Budget value of the link
      */
     public TermLink(final Term t, final TermLink template, final BudgetValue v) {
-        super(t.getName(), v);
+        super(null, v);
         target = t;
         type = template.getType();
         if (template.getTarget().equals(t)) {
@@ -112,6 +113,22 @@ public class TermLink extends Item {
         setKey();
     }
 
+    /**
+     * Constructor of a saved TermLink, when a memory is restored from a
+     * snapshot
+     * @param t Target Term
+     * @param type Link type
+     * @param indices Component indices, or null
+     * @param v Budget value of the link
+     */
+    public TermLink(final Term t, final short type, final short[] indices, final BudgetValue v) {
+        super(null, v);
+        target = t;
+        this.type = type;
+        index = indices;
+        setKey();
+    }
+
     /**
      * Set the key of the link
      */
@@ -139,9 +156,37 @@ public class TermLink extends Item {
     */
     
     /**
-     * Set the key of the link
+     * Set the key of the link: only its fingerprint is computed here, from
+     * the cached fingerprint of the target's name; the key String is built
+     * by {@link #getKey()} when it is first needed.
      */    
     protected final void setKey() {
+        long h;
+        if ((type % 2) == 1) {  // to component
+            h = Fingerprint.append(0, Symbols.TO_COMPONENT_1);
+        } else {                // to compound
+            h = Fingerprint.append(0, Symbols.TO_COMPOUND_1);
+        }
+        h = Fingerprint.append(Fingerprint.append(h, 'T'), type);
+        if (index != null) {
+            for (int i = 0; i < index.length; i++) {
+                h = Fingerprint.append(Fingerprint.append(h, '-'), index[i] + 1);
+            }
+        }
+        h = Fingerprint.append(h, ((type % 2) == 1) ? Symbols.TO_COMPONENT_2 : Symbols.TO_COMPOUND_2);
+        if (target != null) {
+            h = Fingerprint.concat(h, target.getNameHash(), target.getName().length());
+        }
+        key = null;
+        keyHash = h;
+    }
+
+    /**
+     * Build the key String, whose fingerprint setKey computed
+     *
+     * @return The key
+     */
+    protected String makeKey() {
         final String at1, at2;
         if ((type % 2) == 1) {  // to component
             at1 = Symbols.TO_COMPONENT_1;
@@ -151,7 +196,7 @@ public class TermLink extends Item {
             at2 = Symbols.TO_COMPOUND_2;
         }
         
-        final StringBuffer sb = new StringBuffer(16).append(at1).append('T').append(type);
+        final StringBuilder sb = new StringBuilder(16).append(at1).append('T').append(type);
         if (index != null) {
             for (int i = 0; i < index.length; i++) {
                 sb.append('-').append((index[i] + 1));
@@ -162,10 +207,44 @@ public class TermLink extends Item {
         if (target != null) {
             sb.append(target);
         }
-        key = sb.toString();
+        return sb.toString();
+    }
+
+    /**
+     * Get the key, building it on first use
+     *
+     * @return The key
+     */
+    @Override
+    public String getKey() {
+        if (key == null) {
+            key = makeKey();
+        }
+        return key;
     }
     
     
+    /**
+     * Compare the parts of the keys, without building them
+     *
+     * @param that The other Item
+     * @return Whether the keys are equal
+     */
+    @Override
+    public boolean keyEquals(final Item that) {
+        if (this == that) {
+            return true;
+        }
+        if ((that.getClass() != getClass()) || (keyHash != that.keyHash)) {
+            return false;
+        }
+        final TermLink t = (TermLink) that;
+        if ((type != t.type) || !Arrays.equals(index, t.index)) {
+            return false;
+        }
+        return (target == null) ? (t.target == null) : ((t.target != null) && target.getName().equals(t.target.getName()));
+    }
+
     /**
      * Get the target of the link
      * @return The Term pointed by the link
@@ -36,13 +36,11 @@ public class TruthValue implements Cloneable { // implements Cloneable {
      */
     private static final char SEPARATOR = Symbols.VALUE_SEPARATOR;
     /**
-     * The frequency factor of the truth value
+     * The frequency factor of the truth value in the high 16 bits, and the
+     * confidence factor in the low 16 bits, each in the short representation
+     * of {@link ShortFloat}
      */
-    private final ShortFloat frequency;
-    /**
-     * The confidence factor of the truth value
-     */
-    private final ShortFloat confidence;
+    private final int values;
     /**
      * Whether the truth value is derived from a definition
      */
@@ -66,8 +64,8 @@ public class TruthValue implements Cloneable { // implements Cloneable {
      *
      */
     public TruthValue(final float f, final float c, final boolean b) {
-        frequency = new ShortFloat(f);
-        confidence = (c < 1) ? new ShortFloat(c) : new ShortFloat(0.9999f);
+        final short confidence = (c < 1) ? ShortFloat.toShort(c) : ShortFloat.toShort(0.9999f);
+        values = (ShortFloat.toShort(f) << 16) | confidence;
         isAnalytic = b;
     }
 
@@ -77,8 +75,7 @@ public class TruthValue implements Cloneable { // implements Cloneable {
      * @param v The truth value to be cloned
      */
     public TruthValue(final TruthValue v) {
-        frequency = new ShortFloat(v.getFrequency());
-        confidence = new ShortFloat(v.getConfidence());
+        values = v.values;
         isAnalytic = v.getAnalytic();
     }
 
@@ -88,7 +85,7 @@ public class TruthValue implements Cloneable { // implements Cloneable {
      * @return The frequency value
      */
     public float getFrequency() {
-        return frequency.getValue();
+        return ShortFloat.toFloat(values >>> 16);
     }
 
     /**
@@ -97,7 +94,7 @@ public class TruthValue implements Cloneable { // implements Cloneable {
      * @return The confidence value
      */
     public float getConfidence() {
-        return confidence.getValue();
+        return ShortFloat.toFloat(values & 0xffff);
     }
 
     /**
@@ -122,7 +119,7 @@ public class TruthValue implements Cloneable { // implements Cloneable {
      * @return The expectation value
      */
     public float getExpectation() {
-        return (float) (confidence.getValue() * (frequency.getValue() - 0.5) + 0.5);
+        return (float) (getConfidence() * (getFrequency() - 0.5) + 0.5);
     }
 
     /**
@@ -180,7 +177,7 @@ public class TruthValue implements Cloneable { // implements Cloneable {
      */
     @Override
     public String toString() {
-        return DELIMITER + frequency.toString() + SEPARATOR + confidence.toString() + DELIMITER;
+        return DELIMITER + ShortFloat.toString(values >>> 16) + SEPARATOR + ShortFloat.toString(values & 0xffff) + DELIMITER;
     }
 
     /**
@@ -190,18 +187,30 @@ public class TruthValue implements Cloneable { // implements Cloneable {
      * @return The String
      */
     public String toStringBrief() {
-        /*String s1 = DELIMITER + frequency.toStringBrief() + SEPARATOR;
-        String s2 = confidence.toStringBrief();
-        if (s2.equals("1.00")) {
-            return s1 + "0.99" + DELIMITER;
-        } else {
-            return s1 + s2 + DELIMITER;
-        }*/
-        
-        StringBuffer sb = 
-                new StringBuffer(12).append(DELIMITER).append(frequency.toStringBrief()).append(SEPARATOR);                    
+        return toStringBrief(values);
+    }
+
+    /**
+     * The frequency and confidence packed in one int, as kept by a truth value
+     *
+     * @return The frequency in the high 16 bits, the confidence in the low
+     */
+    public int getPacked() {
+        return values;
+    }
+
+    /**
+     * The simplified String representation of a truth value packed by
+     * {@link #getPacked()}
+     *
+     * @param values The packed frequency and confidence
+     * @return The String
+     */
+    public static String toStringBrief(final int values) {
+        StringBuilder sb = 
+                new StringBuilder(12).append(DELIMITER).append(ShortFloat.toStringBrief(values >>> 16)).append(SEPARATOR);                    
         
-        String s2 = confidence.toStringBrief();
+        String s2 = ShortFloat.toStringBrief(values & 0xffff);
         if (s2.equals("1.00")) {
             sb.append("0.99");
         } else {
@@ -5,18 +5,18 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import javax.xml.transform.TransformerConfigurationException;
 import nars.core.NAR;
 import nars.entity.Concept;
+import nars.entity.DerivationChain;
 import nars.entity.Sentence;
 import nars.entity.Task;
 import nars.language.CompoundTerm;
 import nars.language.Term;
-import nars.storage.ConceptBag;
+import nars.storage.Bag;
 import org.jgrapht.ext.GmlExporter;
 import org.jgrapht.ext.GraphMLExporter;
 import org.jgrapht.ext.IntegerEdgeNameProvider;
@@ -123,7 +123,7 @@ public class NARGraph extends DirectedMultigraph {
     public void add(NAR n, Filter filter, Graphize graphize) {
         graphize.onTime(this, n.getTime());
 
-        ConceptBag bag = n.memory.concepts;
+        Bag<Concept> bag = n.memory.concepts;
 
         for (int level = bag.levels - 1; level >= 0; level--) {
 
@@ -271,7 +271,7 @@ public class NARGraph extends DirectedMultigraph {
             if (includeDerivations && includeBeliefs) {
                 for (final Entry<Sentence,Term> s : sentenceTerms.entrySet()) {
                     
-                    final List<Term> chain = s.getKey().getStamp().getChain();
+                    final DerivationChain chain = s.getKey().getStamp().getChain();
                     final Term derived = s.getValue();
 
                     for (final Entry<Sentence,Term> t : sentenceTerms.entrySet()) {
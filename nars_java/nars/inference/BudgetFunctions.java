@@ -22,7 +22,6 @@ package nars.inference;
 
 import nars.entity.*;
 import nars.language.*;
-import nars.storage.Memory;
 
 /**
  * Budget functions for resources allocation
@@ -68,11 +67,11 @@ public final class BudgetFunctions extends UtilityFunctions {
      * @return The budget for the new task which is the belief activated, if
      * necessary
      */
-    static BudgetValue solutionEval(final Sentence problem, final Sentence solution, Task task, final Memory memory) {
+    static BudgetValue solutionEval(final Sentence problem, final Sentence solution, Task task, final InferenceContext ctx) {
         BudgetValue budget = null;
         boolean feedbackToLinks = false;
         if (task == null) {                   // called in continued processing
-            task = memory.currentTask;
+            task = ctx.currentTask;
             feedbackToLinks = true;
         }
         boolean judgmentTask = task.getSentence().isJudgment();
@@ -85,9 +84,9 @@ public final class BudgetFunctions extends UtilityFunctions {
             task.setPriority(Math.min(1 - quality, taskPriority));
         }
         if (feedbackToLinks) {
-            TaskLink tLink = memory.currentTaskLink;
+            TaskLink tLink = ctx.currentTaskLink;
             tLink.setPriority(Math.min(1 - quality, tLink.getPriority()));
-            TermLink bLink = memory.currentBeliefLink;
+            TermLink bLink = ctx.currentBeliefLink;
             bLink.incPriority(quality);
         }
         return budget;
@@ -101,16 +100,16 @@ public final class BudgetFunctions extends UtilityFunctions {
      * @param truth The truth value of the conclusion of revision
      * @return The budget for the new task
      */
-    static BudgetValue revise(final TruthValue tTruth, final TruthValue bTruth, final TruthValue truth, final boolean feedbackToLinks, final Memory memory) {
+    static BudgetValue revise(final TruthValue tTruth, final TruthValue bTruth, final TruthValue truth, final boolean feedbackToLinks, final InferenceContext ctx) {
         final float difT = truth.getExpDifAbs(tTruth);
-        final Task task = memory.currentTask;
+        final Task task = ctx.currentTask;
         task.decPriority(1 - difT);
         task.decDurability(1 - difT);
         if (feedbackToLinks) {
-            TaskLink tLink = memory.currentTaskLink;
+            TaskLink tLink = ctx.currentTaskLink;
             tLink.decPriority(1 - difT);
             tLink.decDurability(1 - difT);
-            TermLink bLink = memory.currentBeliefLink;
+            TermLink bLink = ctx.currentBeliefLink;
             final float difB = truth.getExpDifAbs(bTruth);
             bLink.decPriority(1 - difB);
             bLink.decDurability(1 - difB);
@@ -191,6 +190,34 @@ public final class BudgetFunctions extends UtilityFunctions {
         budget.setPriority((float) quality);
     }
 
+    /**
+     * Decrease Priority after an item is used, by the number of cycles since
+     * it was last decayed rather than once per use
+     * <p>
+     * The priority above the re-scaled quality is multiplied by the durability
+     * every "forgetCycles" cycles; a budget never decayed before only starts
+     * counting.
+     *
+     * @param budget The previous budget value
+     * @param forgetCycles The number of cycles for the durability to be fully
+     * applied
+     * @param relativeThreshold The relative threshold of the bag
+     * @param now The current time
+     */
+    public static void forget(final BudgetValue budget, final float forgetCycles, final float relativeThreshold, final long now) {
+        final long last = budget.getLastForgetTime();
+        budget.setLastForgetTime(now);
+        if ((last < 0) || (now <= last)) {
+            return;
+        }
+        double quality = budget.getQuality() * relativeThreshold;      // re-scaled quality
+        final double p = budget.getPriority() - quality;                     // priority above quality
+        if (p > 0) {
+            quality += p * Math.pow(budget.getDurability(), (now - last) / forgetCycles);
+        }    // priority Durability
+        budget.setPriority((float) quality);
+    }
+
     /**
      * Merge an item into another one in a bag, when the two are identical
      * except in budget values
@@ -211,30 +238,30 @@ public final class BudgetFunctions extends UtilityFunctions {
      * @param truth The truth value of the conclusion
      * @return The budget value of the conclusion
      */
-    static BudgetValue forward(final TruthValue truth, final Memory memory) {
-        return budgetInference(truthToQuality(truth), 1, memory);
+    static BudgetValue forward(final TruthValue truth, final InferenceContext ctx) {
+        return budgetInference(truthToQuality(truth), 1, ctx);
     }
 
     /**
      * Backward inference result and adjustment, stronger case
      *
      * @param truth The truth value of the belief deriving the conclusion
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      * @return The budget value of the conclusion
      */
-    public static BudgetValue backward(final TruthValue truth, final Memory memory) {
-        return budgetInference(truthToQuality(truth), 1, memory);
+    public static BudgetValue backward(final TruthValue truth, final InferenceContext ctx) {
+        return budgetInference(truthToQuality(truth), 1, ctx);
     }
 
     /**
      * Backward inference result and adjustment, weaker case
      *
      * @param truth The truth value of the belief deriving the conclusion
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      * @return The budget value of the conclusion
      */
-    public static BudgetValue backwardWeak(final TruthValue truth, final Memory memory) {
-        return budgetInference(w2c(1) * truthToQuality(truth), 1, memory);
+    public static BudgetValue backwardWeak(final TruthValue truth, final InferenceContext ctx) {
+        return budgetInference(w2c(1) * truthToQuality(truth), 1, ctx);
     }
 
     /* ----- Task derivation in CompositionalRules and StructuralRules ----- */
@@ -243,34 +270,34 @@ public final class BudgetFunctions extends UtilityFunctions {
      *
      * @param truth The truth value of the conclusion
      * @param content The content of the conclusion
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      * @return The budget of the conclusion
      */
-    public static BudgetValue compoundForward(final TruthValue truth, final Term content, final Memory memory) {
+    public static BudgetValue compoundForward(final TruthValue truth, final Term content, final InferenceContext ctx) {
         final int complexity = (content == null) ? 1 : content.getComplexity();
-        return budgetInference(truthToQuality(truth), complexity, memory);
+        return budgetInference(truthToQuality(truth), complexity, ctx);
     }
 
     /**
      * Backward inference with CompoundTerm conclusion, stronger case
      *
      * @param content The content of the conclusion
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      * @return The budget of the conclusion
      */
-    public static BudgetValue compoundBackward(final Term content, final Memory memory) {
-        return budgetInference(1, content.getComplexity(), memory);
+    public static BudgetValue compoundBackward(final Term content, final InferenceContext ctx) {
+        return budgetInference(1, content.getComplexity(), ctx);
     }
 
     /**
      * Backward inference with CompoundTerm conclusion, weaker case
      *
      * @param content The content of the conclusion
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      * @return The budget of the conclusion
      */
-    public static BudgetValue compoundBackwardWeak(final Term content, final Memory memory) {
-        return budgetInference(w2c(1), content.getComplexity(), memory);
+    public static BudgetValue compoundBackwardWeak(final Term content, final InferenceContext ctx) {
+        return budgetInference(w2c(1), content.getComplexity(), ctx);
     }
 
     /**
@@ -278,22 +305,22 @@ public final class BudgetFunctions extends UtilityFunctions {
      *
      * @param qual Quality of the inference
      * @param complexity Syntactic complexity of the conclusion
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      * @return Budget of the conclusion task
      */
-    private static BudgetValue budgetInference(final float qual, final int complexity, final Memory memory) {
-        Item t = memory.currentTaskLink;
+    private static BudgetValue budgetInference(final float qual, final int complexity, final InferenceContext ctx) {
+        Item t = ctx.currentTaskLink;
         if (t == null) {
-            t = memory.currentTask;
+            t = ctx.currentTask;
         }
         float priority = t.getPriority();
         float durability = t.getDurability() / complexity;
         final float quality = qual / complexity;
-        final TermLink bLink = memory.currentBeliefLink;
+        final TermLink bLink = ctx.currentBeliefLink;
         if (bLink != null) {
             priority = or(priority, bLink.getPriority());
             durability = and(durability, bLink.getDurability());
-            final float targetActivation = memory.getConceptActivation(bLink.getTarget());
+            final float targetActivation = ctx.memory.getConceptActivation(bLink.getTarget());
             bLink.incPriority(or(quality, targetActivation));
             bLink.incDurability(quality);
         }
@@ -24,7 +24,6 @@ import java.util.*;
 
 import nars.entity.*;
 import nars.language.*;
-import nars.storage.Memory;
 
 /**
  * Compound term composition and decomposition rules, with two premises.
@@ -42,24 +41,24 @@ public final class CompositionalRules {
      * @param taskSentence The first premise
      * @param belief The second premise
      * @param index The location of the shared term
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void composeCompound(final Statement taskContent, final Statement beliefContent, final int index, final Memory memory) {
-        if ((!memory.currentTask.getSentence().isJudgment()) || (taskContent.getClass() != beliefContent.getClass())) {
+    static void composeCompound(final Statement taskContent, final Statement beliefContent, final int index, final InferenceContext ctx) {
+        if ((!ctx.currentTask.getSentence().isJudgment()) || (taskContent.getClass() != beliefContent.getClass())) {
             return;
         }
         final Term componentT = taskContent.componentAt(1 - index);
         final Term componentB = beliefContent.componentAt(1 - index);
         final Term componentCommon = taskContent.componentAt(index);
         if ((componentT instanceof CompoundTerm) && ((CompoundTerm) componentT).containAllComponents(componentB)) {
-            decomposeCompound((CompoundTerm) componentT, componentB, componentCommon, index, true, memory);
+            decomposeCompound((CompoundTerm) componentT, componentB, componentCommon, index, true, ctx);
             return;
         } else if ((componentB instanceof CompoundTerm) && ((CompoundTerm) componentB).containAllComponents(componentT)) {
-            decomposeCompound((CompoundTerm) componentB, componentT, componentCommon, index, false, memory);
+            decomposeCompound((CompoundTerm) componentB, componentT, componentCommon, index, false, ctx);
             return;
         }
-        final TruthValue truthT = memory.currentTask.getSentence().getTruth();
-        final TruthValue truthB = memory.currentBelief.getTruth();
+        final TruthValue truthT = ctx.currentTask.getSentence().getTruth();
+        final TruthValue truthB = ctx.currentBelief.getTruth();
         final TruthValue truthOr = TruthFunctions.union(truthT, truthB);
         final TruthValue truthAnd = TruthFunctions.intersection(truthT, truthB);
         TruthValue truthDif = null;
@@ -68,47 +67,47 @@ public final class CompositionalRules {
         Term termDif = null;
         if (index == 0) {
             if (taskContent instanceof Inheritance) {
-                termOr = IntersectionInt.make(componentT, componentB, memory);
-                termAnd = IntersectionExt.make(componentT, componentB, memory);
+                termOr = IntersectionInt.make(componentT, componentB, ctx.memory);
+                termAnd = IntersectionExt.make(componentT, componentB, ctx.memory);
                 if (truthB.isNegative()) {
                     if (!truthT.isNegative()) {
-                        termDif = DifferenceExt.make(componentT, componentB, memory);
+                        termDif = DifferenceExt.make(componentT, componentB, ctx.memory);
                         truthDif = TruthFunctions.intersection(truthT, TruthFunctions.negation(truthB));
                     }
                 } else if (truthT.isNegative()) {
-                    termDif = DifferenceExt.make(componentB, componentT, memory);
+                    termDif = DifferenceExt.make(componentB, componentT, ctx.memory);
                     truthDif = TruthFunctions.intersection(truthB, TruthFunctions.negation(truthT));
                 }
             } else if (taskContent instanceof Implication) {
-                termOr = Disjunction.make(componentT, componentB, memory);
-                termAnd = Conjunction.make(componentT, componentB, memory);
+                termOr = Disjunction.make(componentT, componentB, ctx.memory);
+                termAnd = Conjunction.make(componentT, componentB, ctx.memory);
             }
-            processComposed(taskContent, (Term) componentCommon.clone(), termOr, truthOr, memory);
-            processComposed(taskContent, (Term) componentCommon.clone(), termAnd, truthAnd, memory);
-            processComposed(taskContent, (Term) componentCommon.clone(), termDif, truthDif, memory);
+            processComposed(taskContent, (Term) componentCommon.clone(), termOr, truthOr, ctx);
+            processComposed(taskContent, (Term) componentCommon.clone(), termAnd, truthAnd, ctx);
+            processComposed(taskContent, (Term) componentCommon.clone(), termDif, truthDif, ctx);
         } else {    // index == 1
             if (taskContent instanceof Inheritance) {
-                termOr = IntersectionExt.make(componentT, componentB, memory);
-                termAnd = IntersectionInt.make(componentT, componentB, memory);
+                termOr = IntersectionExt.make(componentT, componentB, ctx.memory);
+                termAnd = IntersectionInt.make(componentT, componentB, ctx.memory);
                 if (truthB.isNegative()) {
                     if (!truthT.isNegative()) {
-                        termDif = DifferenceInt.make(componentT, componentB, memory);
+                        termDif = DifferenceInt.make(componentT, componentB, ctx.memory);
                         truthDif = TruthFunctions.intersection(truthT, TruthFunctions.negation(truthB));
                     }
                 } else if (truthT.isNegative()) {
-                    termDif = DifferenceInt.make(componentB, componentT, memory);
+                    termDif = DifferenceInt.make(componentB, componentT, ctx.memory);
                     truthDif = TruthFunctions.intersection(truthB, TruthFunctions.negation(truthT));
                 }
             } else if (taskContent instanceof Implication) {
-                termOr = Conjunction.make(componentT, componentB, memory);
-                termAnd = Disjunction.make(componentT, componentB, memory);
+                termOr = Conjunction.make(componentT, componentB, ctx.memory);
+                termAnd = Disjunction.make(componentT, componentB, ctx.memory);
             }
-            processComposed(taskContent, termOr, (Term) componentCommon.clone(), truthOr, memory);
-            processComposed(taskContent, termAnd, (Term) componentCommon.clone(), truthAnd, memory);
-            processComposed(taskContent, termDif, (Term) componentCommon.clone(), truthDif, memory);
+            processComposed(taskContent, termOr, (Term) componentCommon.clone(), truthOr, ctx);
+            processComposed(taskContent, termAnd, (Term) componentCommon.clone(), truthAnd, ctx);
+            processComposed(taskContent, termDif, (Term) componentCommon.clone(), truthDif, ctx);
         }
         if (taskContent instanceof Inheritance) {
-            introVarOuter(taskContent, beliefContent, index, memory);//            introVarImage(taskContent, beliefContent, index, memory);
+            introVarOuter(taskContent, beliefContent, index, ctx);//            introVarImage(taskContent, beliefContent, index, memory);
         }
     }
 
@@ -119,18 +118,19 @@ public final class CompositionalRules {
      * @param subject Subject of contentInd
      * @param predicate Predicate of contentInd
      * @param truth TruthValue of the contentInd
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void processComposed(Statement statement, Term subject, Term predicate, TruthValue truth, Memory memory) {
+    private static void processComposed(Statement statement, Term subject, Term predicate, TruthValue truth, InferenceContext ctx) {
         if ((subject == null) || (predicate == null)) {
             return;
         }
-        Term content = Statement.make(statement, subject, predicate, memory);
-        if ((content == null) || content.equals(statement) || content.equals(memory.currentBelief.getContent())) {
+        Term content = Statement.make(statement, subject, predicate, ctx.memory);
+        if ((content == null) || content.equals(statement) || content.equals(ctx.currentBelief.getContent())) {
             return;
         }
-        BudgetValue budget = BudgetFunctions.compoundForward(truth, content, memory);
-        memory.doublePremiseTask(content, truth, budget);
+        BudgetValue budget = BudgetFunctions.compoundForward(truth, content, ctx);
+        ctx.rule = Rule.PROCESS_COMPOSED;
+        ctx.doublePremiseTask(content, truth, budget);
     }
 
     /**
@@ -142,20 +142,20 @@ public final class CompositionalRules {
      * @param index The location of the shared term: 0 for subject, 1 for
      * predicate
      * @param compoundTask Whether the implication comes from the task
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void decomposeCompound(CompoundTerm compound, Term component, Term term1, int index, boolean compoundTask, Memory memory) {
+    private static void decomposeCompound(CompoundTerm compound, Term component, Term term1, int index, boolean compoundTask, InferenceContext ctx) {
         
         if ((compound instanceof Statement) || (compound instanceof ImageExt) || (compound instanceof ImageInt)) {
             return;
         }
-        Term term2 = CompoundTerm.reduceComponents(compound, component, memory);
+        Term term2 = CompoundTerm.reduceComponents(compound, component, ctx.memory);
         if (term2 == null) {
             return;
         }
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
-        Sentence belief = memory.currentBelief;
+        Sentence belief = ctx.currentBelief;
         Statement oldContent = (Statement) task.getContent();
         TruthValue v1,
                 v2;
@@ -169,7 +169,7 @@ public final class CompositionalRules {
         TruthValue truth = null;
         Term content;
         if (index == 0) {
-            content = Statement.make(oldContent, term1, term2, memory);
+            content = Statement.make(oldContent, term1, term2, ctx.memory);
             if (content == null) {
                 return;
             }
@@ -197,7 +197,7 @@ public final class CompositionalRules {
                 }
             }
         } else {
-            content = Statement.make(oldContent, term2, term1, memory);
+            content = Statement.make(oldContent, term2, term1, ctx.memory);
             if (content == null) {
                 return;
             }
@@ -226,8 +226,9 @@ public final class CompositionalRules {
             }
         }
         if (truth != null) {
-            BudgetValue budget = BudgetFunctions.compoundForward(truth, content, memory);
-            memory.doublePremiseTask(content, truth, budget);
+            BudgetValue budget = BudgetFunctions.compoundForward(truth, content, ctx);
+            ctx.rule = Rule.DECOMPOSE_COMPOUND;
+            ctx.doublePremiseTask(content, truth, budget);
         }
     }
 
@@ -237,38 +238,39 @@ public final class CompositionalRules {
      * @param implication The implication term to be decomposed
      * @param componentCommon The part of the implication to be removed
      * @param compoundTask Whether the implication comes from the task
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void decomposeStatement(CompoundTerm compound, Term component, boolean compoundTask, Memory memory) {
-        Task task = memory.currentTask;
+    static void decomposeStatement(CompoundTerm compound, Term component, boolean compoundTask, InferenceContext ctx) {
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
 
-        Sentence belief = memory.currentBelief;
-        Term content = CompoundTerm.reduceComponents(compound, component, memory);
+        Sentence belief = ctx.currentBelief;
+        Term content = CompoundTerm.reduceComponents(compound, component, ctx.memory);
         if (content == null) {
             return;
         }
         TruthValue truth = null;
         BudgetValue budget;
+        ctx.rule = Rule.DECOMPOSE_STATEMENT;
         if (sentence.isQuestion()) {
-            budget = BudgetFunctions.compoundBackward(content, memory);
-            memory.doublePremiseTask(content, truth, budget);
+            budget = BudgetFunctions.compoundBackward(content, ctx);
+            ctx.doublePremiseTask(content, truth, budget);
             // special inference to answer conjunctive questions with query variables
             if (Variable.containVarQuery(sentence.getContent().getName())) {
-                Concept contentConcept = memory.termToConcept(content);
+                Concept contentConcept = ctx.memory.termToConcept(content);
                 if (contentConcept == null) {
                     return;
                 }
-                Sentence contentBelief = contentConcept.getBelief(task);
+                Sentence contentBelief = contentConcept.getBelief(task, ctx);
                 if (contentBelief == null) {
                     return;
                 }
                 Task contentTask = new Task(contentBelief, task.getBudget());
-                memory.currentTask = contentTask;
-                Term conj = Conjunction.make(component, content, memory);
+                ctx.currentTask = contentTask;
+                Term conj = Conjunction.make(component, content, ctx.memory);
                 truth = TruthFunctions.intersection(contentBelief.getTruth(), belief.getTruth());
-                budget = BudgetFunctions.compoundForward(truth, conj, memory);
-                memory.doublePremiseTask(conj, truth, budget);
+                budget = BudgetFunctions.compoundForward(truth, conj, ctx);
+                ctx.doublePremiseTask(conj, truth, budget);
             }        
         } else {
             TruthValue v1, v2;
@@ -290,8 +292,8 @@ public final class CompositionalRules {
                 } else {
                 return;
             }
-            budget = BudgetFunctions.compoundForward(truth, content, memory);
-            memory.doublePremiseTask(content, truth, budget);
+            budget = BudgetFunctions.compoundForward(truth, content, ctx);
+            ctx.doublePremiseTask(content, truth, budget);
         }
 
     }
@@ -304,11 +306,11 @@ public final class CompositionalRules {
      * @param beliefContent The second premise <M --> P>
      * @param index The location of the shared term: 0 for subject, 1 for
      * predicate
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void introVarOuter(Statement taskContent, Statement beliefContent, int index, Memory memory) {
-        TruthValue truthT = memory.currentTask.getSentence().getTruth();
-        TruthValue truthB = memory.currentBelief.getTruth();
+    private static void introVarOuter(Statement taskContent, Statement beliefContent, int index, InferenceContext ctx) {
+        TruthValue truthT = ctx.currentTask.getSentence().getTruth();
+        TruthValue truthB = ctx.currentBelief.getTruth();
         Variable varInd = new Variable("$varInd1");
         Variable varInd2 = new Variable("$varInd2");
         Term term11, term12, term21, term22, commonTerm;
@@ -328,8 +330,8 @@ public final class CompositionalRules {
                 }
                 if (commonTerm != null) {
                     subs.put(commonTerm, varInd2);
-                    ((ImageExt) term12).applySubstitute(subs);
-                    ((ImageExt) term22).applySubstitute(subs);
+                    term12 = ((ImageExt) term12).applySubstitute(subs);
+                    term22 = ((ImageExt) term22).applySubstitute(subs);
                 }
             }
         } else {
@@ -347,41 +349,42 @@ public final class CompositionalRules {
                 }
                 if (commonTerm != null) {
                     subs.put(commonTerm, varInd2);
-                    ((ImageInt) term11).applySubstitute(subs);
-                    ((ImageInt) term21).applySubstitute(subs);
+                    term11 = ((ImageInt) term11).applySubstitute(subs);
+                    term21 = ((ImageInt) term21).applySubstitute(subs);
                 }
             }
         }
-        Statement state1 = Inheritance.make(term11, term12, memory);
-        Statement state2 = Inheritance.make(term21, term22, memory);
-        Term content = Implication.make(state1, state2, memory);
+        Statement state1 = Inheritance.make(term11, term12, ctx.memory);
+        Statement state2 = Inheritance.make(term21, term22, ctx.memory);
+        Term content = Implication.make(state1, state2, ctx.memory);
         if (content == null) {
             return;
         }
         
         TruthValue truth = TruthFunctions.induction(truthT, truthB);
-        BudgetValue budget = BudgetFunctions.compoundForward(truth, content, memory);
-        memory.doublePremiseTask(content, truth, budget);
-        content = Implication.make(state2, state1, memory);
+        BudgetValue budget = BudgetFunctions.compoundForward(truth, content, ctx);
+        ctx.rule = Rule.INTRO_VAR_OUTER;
+        ctx.doublePremiseTask(content, truth, budget);
+        content = Implication.make(state2, state1, ctx.memory);
         truth = TruthFunctions.induction(truthB, truthT);
-        budget = BudgetFunctions.compoundForward(truth, content, memory);
-        memory.doublePremiseTask(content, truth, budget);
-        content = Equivalence.make(state1, state2, memory);
+        budget = BudgetFunctions.compoundForward(truth, content, ctx);
+        ctx.doublePremiseTask(content, truth, budget);
+        content = Equivalence.make(state1, state2, ctx.memory);
         truth = TruthFunctions.comparison(truthT, truthB);
-        budget = BudgetFunctions.compoundForward(truth, content, memory);
-        memory.doublePremiseTask(content, truth, budget);
+        budget = BudgetFunctions.compoundForward(truth, content, ctx);
+        ctx.doublePremiseTask(content, truth, budget);
         Variable varDep = new Variable("#varDep");
         if (index == 0) {
-            state1 = Inheritance.make(varDep, taskContent.getPredicate(), memory);
-            state2 = Inheritance.make(varDep, beliefContent.getPredicate(), memory);
+            state1 = Inheritance.make(varDep, term12, ctx.memory);
+            state2 = Inheritance.make(varDep, term22, ctx.memory);
         } else {
-            state1 = Inheritance.make(taskContent.getSubject(), varDep, memory);
-            state2 = Inheritance.make(beliefContent.getSubject(), varDep, memory);
+            state1 = Inheritance.make(term11, varDep, ctx.memory);
+            state2 = Inheritance.make(term21, varDep, ctx.memory);
         }
-        content = Conjunction.make(state1, state2, memory);
+        content = Conjunction.make(state1, state2, ctx.memory);
         truth = TruthFunctions.intersection(truthT, truthB);
-        budget = BudgetFunctions.compoundForward(truth, content, memory);
-        memory.doublePremiseTask(content, truth, budget, false);
+        budget = BudgetFunctions.compoundForward(truth, content, ctx);
+        ctx.doublePremiseTask(content, truth, budget, false);
     }
 
     /**
@@ -394,10 +397,10 @@ public final class CompositionalRules {
      * internal induction, <M --> P>
      * @param oldCompound The whole contentInd of the first premise, Implication
      * or Conjunction
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void introVarInner(Statement premise1, Statement premise2, CompoundTerm oldCompound, Memory memory) {
-        Task task = memory.currentTask;
+    static void introVarInner(Statement premise1, Statement premise2, CompoundTerm oldCompound, InferenceContext ctx) {
+        Task task = ctx.currentTask;
         Sentence taskSentence = task.getSentence();
         if (!taskSentence.isJudgment() || (premise1.getClass() != premise2.getClass()) || oldCompound.containComponent(premise1)) {
             return;
@@ -416,30 +419,31 @@ public final class CompositionalRules {
         } else {
             return;
         }
-        Sentence belief = memory.currentBelief;
+        Sentence belief = ctx.currentBelief;
         HashMap<Term, Term> substitute = new HashMap<>();
         substitute.put(commonTerm1, new Variable("#varDep2"));
-        CompoundTerm content = (CompoundTerm) Conjunction.make(premise1, oldCompound, memory);
-        content.applySubstitute(substitute);
+        CompoundTerm content = (CompoundTerm) Conjunction.make(premise1, oldCompound, ctx.memory);
+        content = content.applySubstitute(substitute);
         TruthValue truth = TruthFunctions.intersection(taskSentence.getTruth(), belief.getTruth());
-        BudgetValue budget = BudgetFunctions.forward(truth, memory);
-        memory.doublePremiseTask(content, truth, budget, false);
+        BudgetValue budget = BudgetFunctions.forward(truth, ctx);
+        ctx.rule = Rule.INTRO_VAR_INNER;
+        ctx.doublePremiseTask(content, truth, budget, false);
         substitute.clear();
         substitute.put(commonTerm1, new Variable("$varInd1"));
         if (commonTerm2 != null) {
             substitute.put(commonTerm2, new Variable("$varInd2"));
         }
-        content = Implication.make(premise1, oldCompound, memory);
+        content = Implication.make(premise1, oldCompound, ctx.memory);
         if (content == null)
             return;
-        content.applySubstitute(substitute);
+        content = content.applySubstitute(substitute);
         if (premise1.equals(taskSentence.getContent())) {
             truth = TruthFunctions.induction(belief.getTruth(), taskSentence.getTruth());
         } else {
             truth = TruthFunctions.induction(taskSentence.getTruth(), belief.getTruth());
         }
-        budget = BudgetFunctions.forward(truth, memory);
-        memory.doublePremiseTask(content, truth, budget);
+        budget = BudgetFunctions.forward(truth, ctx);
+        ctx.doublePremiseTask(content, truth, budget);
     }
 
     /**
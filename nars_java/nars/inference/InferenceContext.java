@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.inference;
+
+import java.util.Collection;
+import nars.core.Metrics;
+import nars.entity.BudgetValue;
+import nars.entity.Concept;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.Task;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+import nars.entity.TruthValue;
+import nars.io.EventLog;
+import nars.language.Term;
+import nars.storage.Memory;
+
+/**
+ * Short-term workspace of a single inference step: the premises selected
+ * for it, the stamp of its conclusions, and the building of the derived
+ * tasks, which are reported and added to the new tasks of the context.
+ * <p>
+ * The context is passed explicitly to the inference rules. Each thread that
+ * fires concepts works in its own context, see
+ * {@link nars.storage.Memory#getContext()}, whose new tasks are a buffer of
+ * the thread, moved to the memory once the concept is fired.
+ */
+public class InferenceContext {
+
+    /**
+     * Reference to the memory
+     */
+    public final Memory memory;
+
+    /**
+     * The selected Term
+     */
+    public Term currentTerm;
+    /**
+     * The selected Concept
+     */
+    public Concept currentConcept;
+    /**
+     * The selected TaskLink
+     */
+    public TaskLink currentTaskLink;
+    /**
+     * The selected Task
+     */
+    public Task currentTask;
+    /**
+     * The selected TermLink
+     */
+    public TermLink currentBeliefLink;
+    /**
+     * The selected belief
+     */
+    public Sentence currentBelief;
+    /**
+     * The new Stamp
+     */
+    public Stamp newStamp;
+    /**
+     * The rule method building the next derived task, for the metrics
+     */
+    public Rule rule;
+
+    /**
+     * Where the derived tasks are added: the new tasks of the memory, or a
+     * buffer of the thread
+     */
+    private final Collection<Task> newTasks;
+    /**
+     * Number of tasks derived since the context was last cleared
+     */
+    private int results;
+
+    /**
+     * Create the context of the working cycle, deriving into the new tasks
+     * of the memory
+     *
+     * @param memory The memory
+     */
+    public InferenceContext(final Memory memory) {
+        this(memory, memory.newTasks);
+    }
+
+    /**
+     * @param memory The memory
+     * @param newTasks Where the derived tasks are added
+     */
+    public InferenceContext(final Memory memory, final Collection<Task> newTasks) {
+        this.memory = memory;
+        this.newTasks = newTasks;
+    }
+
+    /**
+     * @return Whether no task was derived since the context was last
+     * cleared, that is in the firing of the current concept
+     */
+    public boolean noResult() {
+        return results == 0;
+    }
+
+    /**
+     * Forget the premises, so they can be garbage collected
+     */
+    public void clear() {
+        currentTerm = null;
+        currentConcept = null;
+        currentTaskLink = null;
+        currentTask = null;
+        currentBeliefLink = null;
+        currentBelief = null;
+        newStamp = null;
+        rule = null;
+        results = 0;
+    }
+
+    /* --------------- new task building --------------- */
+    /**
+     * Activated task called in LocalRules.trySolution
+     *
+     * @param budget The budget value of the new Task
+     * @param sentence The content of the new Task
+     * @param candidateBelief The belief to be used in future inference, for
+     * forward/backward correspondence
+     */
+    public void activatedTask(final BudgetValue budget, final Sentence sentence, final Sentence candidateBelief) {
+        final Task task = new Task(sentence, budget, currentTask, sentence, candidateBelief);
+        memory.trace(EventLog.ACTIVATED, task);
+        if (sentence.isQuestion()) {
+            final float s = task.getBudget().summary();
+//            float minSilent = reasoner.getMainWindow().silentW.value() / 100.0f;
+            final float minSilent = memory.reasoner.param.getSilenceLevel() / 100.0f;
+            if (s > minSilent) {  // only report significant derived Tasks
+                memory.report(task.getSentence());
+            }
+        }
+        if (memory.getMetrics() != null) {
+            memory.getMetrics().derived(rule);
+        }
+        addNewTask(task);
+    }
+
+    /**
+     * Derived task comes from the inference rules.
+     *
+     * @param task the derived task
+     */
+    private void derivedTask(Task task, boolean revised, boolean single) {
+        if (task.getBudget().aboveThreshold()) {
+            if (task.getSentence() != null && task.getSentence().getTruth() != null) {
+                float conf = task.getSentence().getTruth().getConfidence();
+                if (conf == 0) { //no confidence - we can delete the wrongs out that way.
+                    memory.trace(EventLog.IGNORED_CONFIDENCE, task);
+                    rejected(Metrics.ZERO_CONFIDENCE);
+                    return;
+                }
+            }
+            Stamp stamp = task.getSentence().getStamp();
+            if (currentBelief != null) {
+                stamp.addToChain(currentBelief.getContent());
+            }
+            if (currentTask != null && !single) {
+                stamp.addToChain(currentTask.getContent());
+            }
+            if (!revised) { //its a inference rule, we have to do the derivation chain check to hamper cycles
+                if (stamp.getChain().containsSame(task.getContent())) {
+                    memory.trace(EventLog.CYCLIC, task);
+                    rejected(Metrics.CYCLIC);
+                    return;
+                }
+            } else { //its revision, of course its cyclic, apply evidental base policy
+                if (stamp.isOverlapping()) {
+                    memory.trace(EventLog.OVERLAPPING_EVIDENCE, task);
+                    rejected(Metrics.OVERLAPPING_EVIDENCE);
+                    return;
+                }
+            }
+            memory.trace(EventLog.DERIVED, task);
+            float budget = task.getBudget().summary();
+//            float minSilent = reasoner.getMainWindow().silentW.value() / 100.0f;
+            float minSilent = memory.reasoner.param.getSilenceLevel() / 100.0f;
+            if (budget > minSilent) {  // only report significant derived Tasks
+                memory.report(task.getSentence());
+            }
+            if (memory.getMetrics() != null) {
+                memory.getMetrics().derived(rule);
+            }
+            addNewTask(task);
+        } else {
+            memory.trace(EventLog.IGNORED, task);
+            rejected(Metrics.BELOW_THRESHOLD);
+        }
+    }
+
+    private void addNewTask(final Task task) {
+        results++;
+        newTasks.add(task);
+    }
+
+    private void rejected(final int reason) {
+        if (memory.getMetrics() != null) {
+            memory.getMetrics().rejected(reason);
+        }
+    }
+
+    /**
+     * Shared final operations by all double-premise rules, called from the
+     * rules except StructuralRules
+     *
+     * @param newContent The content of the sentence in task
+     * @param newTruth The truth value of the sentence in task
+     * @param newBudget The budget value in task
+     */
+    public void doublePremiseTaskRevised(Term newContent, TruthValue newTruth, BudgetValue newBudget) {
+        if (newContent != null) {
+            Sentence newSentence = new Sentence(newContent, currentTask.getSentence().getPunctuation(), newTruth, newStamp);
+            Task newTask = new Task(newSentence, newBudget, currentTask, currentBelief);
+            derivedTask(newTask, true, false);
+        }
+    }
+
+    /**
+     * Shared final operations by all double-premise rules, called from the
+     * rules except StructuralRules
+     *
+     * @param newContent The content of the sentence in task
+     * @param newTruth The truth value of the sentence in task
+     * @param newBudget The budget value in task
+     */
+    public void doublePremiseTask(final Term newContent, final TruthValue newTruth, final BudgetValue newBudget) {
+        if (newContent != null) {
+            final Sentence newSentence = new Sentence(newContent, currentTask.getSentence().getPunctuation(), newTruth, newStamp);
+            final Task newTask = new Task(newSentence, newBudget, currentTask, currentBelief);
+            derivedTask(newTask, false, false);
+        }
+    }
+
+    /**
+     * Shared final operations by all double-premise rules, called from the
+     * rules except StructuralRules
+     *
+     * @param newContent The content of the sentence in task
+     * @param newTruth The truth value of the sentence in task
+     * @param newBudget The budget value in task
+     * @param revisible Whether the sentence is revisible
+     */
+    public void doublePremiseTask(Term newContent, TruthValue newTruth, BudgetValue newBudget, boolean revisible) {
+        if (newContent != null) {
+            Sentence taskSentence = currentTask.getSentence();
+            Sentence newSentence = new Sentence(newContent, taskSentence.getPunctuation(), newTruth, newStamp, revisible);
+            Task newTask = new Task(newSentence, newBudget, currentTask, currentBelief);
+            derivedTask(newTask, false, false);
+        }
+    }
+
+    /**
+     * Shared final operations by all single-premise rules, called in
+     * StructuralRules
+     *
+     * @param newContent The content of the sentence in task
+     * @param newTruth The truth value of the sentence in task
+     * @param newBudget The budget value in task
+     */
+    public void singlePremiseTask(Term newContent, TruthValue newTruth, BudgetValue newBudget) {
+        singlePremiseTask(newContent, currentTask.getSentence().getPunctuation(), newTruth, newBudget);
+    }
+
+    /**
+     * Shared final operations by all single-premise rules, called in
+     * StructuralRules
+     *
+     * @param newContent The content of the sentence in task
+     * @param punctuation The punctuation of the sentence in task
+     * @param newTruth The truth value of the sentence in task
+     * @param newBudget The budget value in task
+     */
+    public void singlePremiseTask(Term newContent, char punctuation, TruthValue newTruth, BudgetValue newBudget) {
+        Task parentTask = currentTask.getParentTask();
+        if (parentTask != null && newContent.equals(parentTask.getContent())) { // circular structural inference
+            return;
+        }
+        Sentence taskSentence = currentTask.getSentence();
+        if (taskSentence.isJudgment() || currentBelief == null) {
+            newStamp = new Stamp(taskSentence.getStamp(), memory.getTime());
+        } else {    // to answer a question with negation in NAL-5 --- move to activated task?
+            newStamp = new Stamp(currentBelief.getStamp(), memory.getTime());
+        }
+
+        Sentence newSentence = new Sentence(newContent, punctuation, newTruth, newStamp, taskSentence.getRevisible());
+        Task newTask = new Task(newSentence, newBudget, currentTask, null);
+        derivedTask(newTask, false, true);
+    }
+}
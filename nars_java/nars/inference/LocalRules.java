@@ -20,9 +20,7 @@
  */
 package nars.inference;
 
-import nars.storage.Memory;
 import nars.entity.*;
-import nars.io.Output.OUT;
 import nars.language.*;
 import nars.io.Symbols;
 
@@ -46,16 +44,16 @@ public class LocalRules {
      *
      * @param task The task
      * @param belief The belief
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    public static void match(final Task task, final Sentence belief, final Memory memory) {
+    public static void match(final Task task, final Sentence belief, final InferenceContext ctx) {
         Sentence sentence = (Sentence) task.getSentence().clone();
         if (sentence.isJudgment()) {
             if (revisible(sentence, belief)) {
-                revision(sentence, belief, true, memory);
+                revision(sentence, belief, true, ctx);
             }
         } else if (Variable.unify(Symbols.VAR_QUERY, sentence.getContent(), (Term) belief.getContent().clone())) {
-            trySolution(belief, task, memory);
+            trySolution(belief, task, ctx);
         }
     }
 
@@ -78,15 +76,16 @@ public class LocalRules {
      * @param newBelief The new belief in task
      * @param oldBelief The previous belief with the same content
      * @param feedbackToLinks Whether to send feedback to the links
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    public static void revision(Sentence newBelief, Sentence oldBelief, boolean feedbackToLinks, Memory memory) {
+    public static void revision(Sentence newBelief, Sentence oldBelief, boolean feedbackToLinks, InferenceContext ctx) {
         TruthValue newTruth = newBelief.getTruth();
         TruthValue oldTruth = oldBelief.getTruth();
         TruthValue truth = TruthFunctions.revision(newTruth, oldTruth);
-        BudgetValue budget = BudgetFunctions.revise(newTruth, oldTruth, truth, feedbackToLinks, memory);
+        BudgetValue budget = BudgetFunctions.revise(newTruth, oldTruth, truth, feedbackToLinks, ctx);
         Term content = newBelief.getContent();
-        memory.doublePremiseTaskRevised(content, truth, budget);
+        ctx.rule = Rule.REVISION;
+        ctx.doublePremiseTaskRevised(content, truth, budget);
     }
 
 /**
@@ -94,9 +93,9 @@ public class LocalRules {
      *
      * @param belief The proposed answer
      * @param task The task to be processed
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    public static void trySolution(Sentence belief, Task task, Memory memory) {
+    public static void trySolution(Sentence belief, Task task, InferenceContext ctx) {
         Sentence problem = task.getSentence();
         Sentence oldBest = task.getBestSolution();
         float newQ = solutionQuality(problem, belief);
@@ -111,17 +110,18 @@ public class LocalRules {
             Variable.unify(Symbols.VAR_INDEPENDENT, content, problem.cloneContent());
             belief = (Sentence) belief.clone();
             belief.setContent(content);
-            Stamp st = new Stamp(belief.getStamp(), memory.getTime());
+            Stamp st = new Stamp(belief.getStamp(), ctx.memory.getTime());
             st.addToChain(belief.getContent());
             belief.setStamp(st);
         }
         task.setBestSolution(belief);
         if (task.isInput()) {    // moved from Sentence
-            memory.reasoner.output(OUT.class, belief);
+            ctx.memory.report(belief);
         }
-        BudgetValue budget = BudgetFunctions.solutionEval(problem, belief, task, memory);
+        BudgetValue budget = BudgetFunctions.solutionEval(problem, belief, task, ctx);
         if ((budget != null) && budget.aboveThreshold()) {
-            memory.activatedTask(budget, belief, task.getParentBelief());
+            ctx.rule = Rule.TRY_SOLUTION;
+            ctx.activatedTask(budget, belief, task.getParentBelief());
         }
     }
 
@@ -148,16 +148,16 @@ public class LocalRules {
     /**
      * The task and belief match reversely
      *
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    public static void matchReverse(final Memory memory) {
-        Task task = memory.currentTask;
-        Sentence belief = memory.currentBelief;
+    public static void matchReverse(final InferenceContext ctx) {
+        Task task = ctx.currentTask;
+        Sentence belief = ctx.currentBelief;
         Sentence sentence = task.getSentence();
         if (sentence.isJudgment()) {
-            inferToSym((Sentence) sentence, belief, memory);
+            inferToSym((Sentence) sentence, belief, ctx);
         } else {
-            conversion(memory);
+            conversion(ctx);
         }
     }
 
@@ -167,13 +167,13 @@ public class LocalRules {
      * @param asym A Inheritance/Implication sentence
      * @param sym A Similarity/Equivalence sentence
      * @param figure location of the shared term
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    public static void matchAsymSym(final Sentence asym, final Sentence sym, int figure, final Memory memory) {
-        if (memory.currentTask.getSentence().isJudgment()) {
-            inferToAsym((Sentence) asym, (Sentence) sym, memory);
+    public static void matchAsymSym(final Sentence asym, final Sentence sym, int figure, final InferenceContext ctx) {
+        if (ctx.currentTask.getSentence().isJudgment()) {
+            inferToAsym((Sentence) asym, (Sentence) sym, ctx);
         } else {
-            convertRelation(memory);
+            convertRelation(ctx);
         }
     }
 
@@ -184,23 +184,24 @@ public class LocalRules {
      *
      * @param judgment1 The first premise
      * @param judgment2 The second premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void inferToSym(Sentence judgment1, Sentence judgment2, Memory memory) {
+    private static void inferToSym(Sentence judgment1, Sentence judgment2, InferenceContext ctx) {
         Statement s1 = (Statement) judgment1.getContent();
         Term t1 = s1.getSubject();
         Term t2 = s1.getPredicate();
         Term content;
         if (s1 instanceof Inheritance) {
-            content = Similarity.make(t1, t2, memory);
+            content = Similarity.make(t1, t2, ctx.memory);
         } else {
-            content = Equivalence.make(t1, t2, memory);
+            content = Equivalence.make(t1, t2, ctx.memory);
         }
         TruthValue value1 = judgment1.getTruth();
         TruthValue value2 = judgment2.getTruth();
         TruthValue truth = TruthFunctions.intersection(value1, value2);
-        BudgetValue budget = BudgetFunctions.forward(truth, memory);
-        memory.doublePremiseTask(content, truth, budget);
+        BudgetValue budget = BudgetFunctions.forward(truth, ctx);
+        ctx.rule = Rule.INFER_TO_SYM;
+        ctx.doublePremiseTask(content, truth, budget);
     }
 
     /**
@@ -209,16 +210,17 @@ public class LocalRules {
      *
      * @param asym The asymmetric premise
      * @param sym The symmetric premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void inferToAsym(Sentence asym, Sentence sym, Memory memory) {
+    private static void inferToAsym(Sentence asym, Sentence sym, InferenceContext ctx) {
         Statement statement = (Statement) asym.getContent();
         Term sub = statement.getPredicate();
         Term pre = statement.getSubject();
-        Statement content = Statement.make(statement, sub, pre, memory);
+        Statement content = Statement.make(statement, sub, pre, ctx.memory);
         TruthValue truth = TruthFunctions.reduceConjunction(sym.getTruth(), asym.getTruth());
-        BudgetValue budget = BudgetFunctions.forward(truth, memory);
-        memory.doublePremiseTask(content, truth, budget);
+        BudgetValue budget = BudgetFunctions.forward(truth, ctx);
+        ctx.rule = Rule.INFER_TO_ASYM;
+        ctx.doublePremiseTask(content, truth, budget);
     }
 
     /* -------------------- one-premise inference rules -------------------- */
@@ -226,29 +228,29 @@ public class LocalRules {
      * {<P --> S>} |- <S --> P> Produce an Inheritance/Implication from a
      * reversed Inheritance/Implication
      *
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void conversion(final Memory memory) {
-        TruthValue truth = TruthFunctions.conversion(memory.currentBelief.getTruth());
-        BudgetValue budget = BudgetFunctions.forward(truth, memory);
-        convertedJudgment(truth, budget, memory);
+    private static void conversion(final InferenceContext ctx) {
+        TruthValue truth = TruthFunctions.conversion(ctx.currentBelief.getTruth());
+        BudgetValue budget = BudgetFunctions.forward(truth, ctx);
+        convertedJudgment(truth, budget, ctx);
     }
 
     /**
      * {<S --> P>} |- <S <-> P> {<S <-> P>} |- <S --> P> Switch between
      * Inheritance/Implication and Similarity/Equivalence
      *
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void convertRelation(final Memory memory) {
-        TruthValue truth = memory.currentBelief.getTruth();
-        if (((Statement) memory.currentTask.getContent()).isCommutative()) {
+    private static void convertRelation(final InferenceContext ctx) {
+        TruthValue truth = ctx.currentBelief.getTruth();
+        if (((Statement) ctx.currentTask.getContent()).isCommutative()) {
             truth = TruthFunctions.abduction(truth, 1.0f);
         } else {
             truth = TruthFunctions.deduction(truth, 1.0f);
         }
-        BudgetValue budget = BudgetFunctions.forward(truth, memory);
-        convertedJudgment(truth, budget, memory);
+        BudgetValue budget = BudgetFunctions.forward(truth, ctx);
+        convertedJudgment(truth, budget, ctx);
     }
 
     /**
@@ -258,11 +260,11 @@ public class LocalRules {
      *
      * @param budget The budget value of the new task
      * @param truth The truth value of the new task
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void convertedJudgment(final TruthValue newTruth, final BudgetValue newBudget, final Memory memory) {
-        Statement content = (Statement) memory.currentTask.getContent();
-        Statement beliefContent = (Statement) memory.currentBelief.getContent();
+    private static void convertedJudgment(final TruthValue newTruth, final BudgetValue newBudget, final InferenceContext ctx) {
+        Statement content = (Statement) ctx.currentTask.getContent();
+        Statement beliefContent = (Statement) ctx.currentBelief.getContent();
         final Term subjT = content.getSubject();
         final Term predT = content.getPredicate();
         final Term subjB = beliefContent.getSubject();
@@ -270,12 +272,13 @@ public class LocalRules {
         Term otherTerm;
         if (Variable.containVarQuery(subjT.getName())) {
             otherTerm = (predT.equals(subjB)) ? predB : subjB;
-            content = Statement.make(content, otherTerm, predT, memory);
+            content = Statement.make(content, otherTerm, predT, ctx.memory);
         }
         if (Variable.containVarQuery(predT.getName())) {
             otherTerm = (subjT.equals(subjB)) ? predB : subjB;
-            content = Statement.make(content, subjT, otherTerm, memory);
+            content = Statement.make(content, subjT, otherTerm, ctx.memory);
         }
-        memory.singlePremiseTask(content, Symbols.JUDGMENT_MARK, newTruth, newBudget);
+        ctx.rule = Rule.CONVERTED_JUDGMENT;
+        ctx.singlePremiseTask(content, Symbols.JUDGMENT_MARK, newTruth, newBudget);
     }
 }
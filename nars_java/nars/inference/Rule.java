@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.inference;
+
+/**
+ * The rule methods that build derived tasks, set in
+ * {@link InferenceContext#rule} before a derivation and counted by
+ * {@link nars.core.Metrics} in an array indexed by ordinal.
+ *
+ * @author me
+ */
+public enum Rule {
+
+    REVISION("LocalRules.revision"),
+    TRY_SOLUTION("LocalRules.trySolution"),
+    INFER_TO_SYM("LocalRules.inferToSym"),
+    INFER_TO_ASYM("LocalRules.inferToAsym"),
+    CONVERTED_JUDGMENT("LocalRules.convertedJudgment"),
+    DED_EXE("SyllogisticRules.dedExe"),
+    ABD_IND_COM("SyllogisticRules.abdIndCom"),
+    ANALOGY("SyllogisticRules.analogy"),
+    RESEMBLANCE("SyllogisticRules.resemblance"),
+    DETACHMENT("SyllogisticRules.detachment"),
+    CONDITIONAL_DED_IND("SyllogisticRules.conditionalDedInd"),
+    CONDITIONAL_ANA("SyllogisticRules.conditionalAna"),
+    CONDITIONAL_ABD("SyllogisticRules.conditionalAbd"),
+    ELIMI_VAR_DEP("SyllogisticRules.elimiVarDep"),
+    PROCESS_COMPOSED("CompositionalRules.processComposed"),
+    DECOMPOSE_COMPOUND("CompositionalRules.decomposeCompound"),
+    DECOMPOSE_STATEMENT("CompositionalRules.decomposeStatement"),
+    INTRO_VAR_OUTER("CompositionalRules.introVarOuter"),
+    INTRO_VAR_INNER("CompositionalRules.introVarInner"),
+    STRUCTURAL_COMPOSE2("StructuralRules.structuralCompose2"),
+    STRUCTURAL_DECOMPOSE2("StructuralRules.structuralDecompose2"),
+    STRUCTURAL_STATEMENT("StructuralRules.structuralStatement"),
+    TRANSFORM_SET_RELATION("StructuralRules.transformSetRelation"),
+    TRANSFORM_PRODUCT_IMAGE("StructuralRules.transformProductImage"),
+    TRANSFORM_SUBJECT_PI("StructuralRules.transformSubjectPI"),
+    TRANSFORM_PREDICATE_PI("StructuralRules.transformPredicatePI"),
+    STRUCTURAL_COMPOUND("StructuralRules.structuralCompound"),
+    TRANSFORM_NEGATION("StructuralRules.transformNegation"),
+    CONTRAPOSITION("StructuralRules.contraposition");
+
+    /** The rule method, as Class.method */
+    public final String method;
+
+    private Rule(final String method) {
+        this.method = method;
+    }
+
+    @Override
+    public String toString() {
+        return method;
+    }
+}
@@ -22,7 +22,6 @@ package nars.inference;
 
 import nars.entity.*;
 import nars.language.*;
-import nars.storage.Memory;
 import nars.io.Symbols;
 
 /**
@@ -37,193 +36,289 @@ public class RuleTables {
      *
      * @param tLink The selected TaskLink, which will provide a task
      * @param bLink The selected TermLink, which may provide a belief
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    public static void reason(final TaskLink tLink, final TermLink bLink, final Memory memory) {
-        final Task task = memory.currentTask;
+    public static void reason(final TaskLink tLink, final TermLink bLink, final InferenceContext ctx) {
+        final Task task = ctx.currentTask;
         Sentence taskSentence = task.getSentence();
         Term taskTerm = (Term) taskSentence.getContent().clone();         // cloning for substitution
         Term beliefTerm = (Term) bLink.getTarget().clone();       // cloning for substitution
-        Concept beliefConcept = memory.termToConcept(beliefTerm);
+        Concept beliefConcept = ctx.memory.termToConcept(beliefTerm);
         Sentence belief = null;
         if (beliefConcept != null) {
-            belief = beliefConcept.getBelief(task);
+            belief = beliefConcept.getBelief(task, ctx);
         }
-        memory.currentBelief = belief;  // may be null
+        ctx.currentBelief = belief;  // may be null
         if (belief != null) {
-            LocalRules.match(task, belief, memory);
+            LocalRules.match(task, belief, ctx);
         }
-        if (!memory.noResult() && task.getSentence().isJudgment()) {
+        if (!ctx.noResult() && task.getSentence().isJudgment()) {
             return;
         }
         short tIndex = tLink.getIndex(0);
         short bIndex = bLink.getIndex(0);
-        switch (tLink.getType()) {          // dispatch first by TaskLink type
+        switch (RULES[shape(tLink.getType(), bLink.getType(), copula(taskTerm), copula(beliefTerm), belief != null)]) {
+            case COMPOUND_AND_SELF:
+                compoundAndSelf((CompoundTerm) taskTerm, beliefTerm, true, ctx);
+                break;
+            case SELF_AND_COMPOUND:
+                compoundAndSelf((CompoundTerm) beliefTerm, taskTerm, false, ctx);
+                break;
+            case DETACHMENT:
+                SyllogisticRules.detachment(task.getSentence(), belief, bIndex, ctx);
+                break;
+            case DETACHMENT_REVERSE:
+                SyllogisticRules.detachment(belief, task.getSentence(), bIndex, ctx);
+                break;
+            case CONDITIONAL_DED_IND:
+                bIndex = bLink.getIndex(1);
+                SyllogisticRules.conditionalDedInd((Implication) taskTerm, bIndex, beliefTerm, tIndex, ctx);
+                break;
+            case CONDITIONAL_DED_IND_REVERSE:
+                bIndex = bLink.getIndex(1);
+                SyllogisticRules.conditionalDedInd((Implication) beliefTerm, bIndex, taskTerm, tIndex, ctx);
+                break;
+            case COMPOUND_AND_COMPOUND:
+                compoundAndCompound((CompoundTerm) taskTerm, (CompoundTerm) beliefTerm, ctx);
+                break;
+            case COMPOUND_AND_STATEMENT:
+                compoundAndStatement((CompoundTerm) taskTerm, tIndex, (Statement) beliefTerm, bIndex, beliefTerm, ctx);
+                break;
+            case STATEMENT_AND_COMPOUND:
+                compoundAndStatement((CompoundTerm) beliefTerm, bIndex, (Statement) taskTerm, tIndex, beliefTerm, ctx);
+                break;
+            case COMPONENT_AND_STATEMENT:
+                componentAndStatement((CompoundTerm) ctx.currentTerm, bIndex, (Statement) taskTerm, tIndex, ctx);
+                break;
+            case DETACHMENT_OR_CONDITIONAL:
+                if (Variable.unify(Symbols.VAR_INDEPENDENT, ((Implication) beliefTerm).getSubject(), taskTerm, beliefTerm, taskTerm)) {
+                    detachmentWithVar(belief, taskSentence, bIndex, ctx);
+                } else {
+                    SyllogisticRules.conditionalDedInd((Implication) beliefTerm, bIndex, taskTerm, -1, ctx);
+                }
+                break;
+            case CONDITIONAL_ANA:
+                SyllogisticRules.conditionalAna((Equivalence) beliefTerm, bIndex, taskTerm, -1, ctx);
+                break;
+            case CONDITIONAL_WITH_VAR: {
+                Term subj = ((Implication) taskTerm).getSubject();
+                if (subj instanceof Negation) {
+                    if (task.getSentence().isJudgment()) {
+                        componentAndStatement((CompoundTerm) subj, bIndex, (Statement) taskTerm, tIndex, ctx);
+                    } else {
+                        componentAndStatement((CompoundTerm) subj, tIndex, (Statement) beliefTerm, bIndex, ctx);
+                    }
+                } else {
+                    conditionalDedIndWithVar((Implication) taskTerm, tIndex, (Statement) beliefTerm, bIndex, ctx);
+                }
+                break;
+            }
+            case CONDITIONAL_WITH_VAR_REVERSE:
+                bIndex = bLink.getIndex(1);
+                conditionalDedIndWithVar((Implication) beliefTerm, bIndex, (Statement) taskTerm, tIndex, ctx);
+                break;
+            case DETACHMENT_WITH_VAR:
+                detachmentWithVar(taskSentence, belief, tIndex, ctx);
+                break;
+            case DETACHMENT_WITH_VAR_REVERSE:
+                detachmentWithVar(belief, taskSentence, bIndex, ctx);
+                break;
+            case ASYMMETRIC_ASYMMETRIC:
+                asymmetricAsymmetric(taskSentence, belief, indexToFigure(tLink, bLink), ctx);
+                break;
+            case ASYMMETRIC_SYMMETRIC:
+                asymmetricSymmetric(taskSentence, belief, indexToFigure(tLink, bLink), ctx);
+                break;
+            case SYMMETRIC_ASYMMETRIC:
+                asymmetricSymmetric(belief, taskSentence, indexToFigure(bLink, tLink), ctx);
+                break;
+            case SYMMETRIC_SYMMETRIC:
+                symmetricSymmetric(belief, taskSentence, indexToFigure(bLink, tLink), ctx);
+                break;
+            default:
+        }
+    }
+
+    /* ----- dispatch table ----- */
+    /*
+     * The rules a pair of premises goes to, one per premise shape: the types
+     * of the TaskLink and the TermLink, the copulas of the task and the
+     * belief, and whether there is a belief. The table is filled once, by
+     * rule(); a premise is classified by shape() and dispatched by a single
+     * lookup, instead of going through nested switches and instanceof
+     * chains every time.
+     */
+    private static final byte NONE = 0;
+    private static final byte COMPOUND_AND_SELF = 1;
+    private static final byte SELF_AND_COMPOUND = 2;
+    private static final byte DETACHMENT = 3;
+    private static final byte DETACHMENT_REVERSE = 4;
+    private static final byte CONDITIONAL_DED_IND = 5;
+    private static final byte CONDITIONAL_DED_IND_REVERSE = 6;
+    private static final byte COMPOUND_AND_COMPOUND = 7;
+    private static final byte COMPOUND_AND_STATEMENT = 8;
+    private static final byte STATEMENT_AND_COMPOUND = 9;
+    private static final byte COMPONENT_AND_STATEMENT = 10;
+    private static final byte DETACHMENT_OR_CONDITIONAL = 11;
+    private static final byte CONDITIONAL_ANA = 12;
+    private static final byte CONDITIONAL_WITH_VAR = 13;
+    private static final byte CONDITIONAL_WITH_VAR_REVERSE = 14;
+    private static final byte DETACHMENT_WITH_VAR = 15;
+    private static final byte DETACHMENT_WITH_VAR_REVERSE = 16;
+    private static final byte ASYMMETRIC_ASYMMETRIC = 17;
+    private static final byte ASYMMETRIC_SYMMETRIC = 18;
+    private static final byte SYMMETRIC_ASYMMETRIC = 19;
+    private static final byte SYMMETRIC_SYMMETRIC = 20;
+
+    /** copulas told apart by the rules */
+    private static final int OTHER = 0;
+    private static final int INHERITANCE = 1;
+    private static final int SIMILARITY = 2;
+    private static final int IMPLICATION = 3;
+    private static final int EQUIVALENCE = 4;
+    private static final int COPULAS = 5;
+    private static final int LINK_TYPES = TermLink.TRANSFORM + 1;
+
+    private static final byte[] RULES = new byte[LINK_TYPES * LINK_TYPES * COPULAS * COPULAS * 2];
+
+    static {
+        for (short tType = 0; tType < LINK_TYPES; tType++) {
+            for (short bType = 0; bType < LINK_TYPES; bType++) {
+                for (int tCopula = 0; tCopula < COPULAS; tCopula++) {
+                    for (int bCopula = 0; bCopula < COPULAS; bCopula++) {
+                        RULES[shape(tType, bType, tCopula, bCopula, false)] = rule(tType, bType, tCopula, bCopula, false);
+                        RULES[shape(tType, bType, tCopula, bCopula, true)] = rule(tType, bType, tCopula, bCopula, true);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int shape(final short tType, final short bType, final int tCopula, final int bCopula, final boolean hasBelief) {
+        return ((((tType * LINK_TYPES) + bType) * COPULAS + tCopula) * COPULAS + bCopula) * 2 + (hasBelief ? 1 : 0);
+    }
+
+    private static int copula(final Term t) {
+        if (t instanceof Inheritance) {
+            return INHERITANCE;
+        } else if (t instanceof Similarity) {
+            return SIMILARITY;
+        } else if (t instanceof Implication) {
+            return IMPLICATION;
+        } else if (t instanceof Equivalence) {
+            return EQUIVALENCE;
+        }
+        return OTHER;
+    }
+
+    /**
+     * The rule of a premise shape, dispatched first by TaskLink type
+     */
+    private static byte rule(final short tType, final short bType, final int tCopula, final int bCopula, final boolean hasBelief) {
+        switch (tType) {
             case TermLink.SELF:
-                switch (bLink.getType()) {
+                switch (bType) {
                     case TermLink.COMPONENT:
-                        compoundAndSelf((CompoundTerm) taskTerm, beliefTerm, true, memory);
-                        break;
+                        return COMPOUND_AND_SELF;
                     case TermLink.COMPOUND:
-                        compoundAndSelf((CompoundTerm) beliefTerm, taskTerm, false, memory);
-                        break;
+                        return SELF_AND_COMPOUND;
                     case TermLink.COMPONENT_STATEMENT:
-                        if (belief != null) {
-                            SyllogisticRules.detachment(task.getSentence(), belief, bIndex, memory);
-                        }
-                        break;
+                        return hasBelief ? DETACHMENT : NONE;
                     case TermLink.COMPOUND_STATEMENT:
-                        if (belief != null) {
-                            SyllogisticRules.detachment(belief, task.getSentence(), bIndex, memory);
-                        }
-                        break;
+                        return hasBelief ? DETACHMENT_REVERSE : NONE;
                     case TermLink.COMPONENT_CONDITION:
-                        if (belief != null) {
-                            bIndex = bLink.getIndex(1);
-                            SyllogisticRules.conditionalDedInd((Implication) taskTerm, bIndex, beliefTerm, tIndex, memory);
-                        }
-                        break;
+                        return hasBelief ? CONDITIONAL_DED_IND : NONE;
                     case TermLink.COMPOUND_CONDITION:
-                        if (belief != null) {
-                            bIndex = bLink.getIndex(1);
-                            SyllogisticRules.conditionalDedInd((Implication) beliefTerm, bIndex, taskTerm, tIndex, memory);
-                        }
-                        break;
+                        return hasBelief ? CONDITIONAL_DED_IND_REVERSE : NONE;
                 }
                 break;
             case TermLink.COMPOUND:
-                switch (bLink.getType()) {
+                switch (bType) {
                     case TermLink.COMPOUND:
-                        compoundAndCompound((CompoundTerm) taskTerm, (CompoundTerm) beliefTerm, memory);
-                        break;
+                        return COMPOUND_AND_COMPOUND;
                     case TermLink.COMPOUND_STATEMENT:
-                        compoundAndStatement((CompoundTerm) taskTerm, tIndex, (Statement) beliefTerm, bIndex, beliefTerm, memory);
-                        break;
+                        return COMPOUND_AND_STATEMENT;
                     case TermLink.COMPOUND_CONDITION:
-                        if (belief != null) {
-                            if (beliefTerm instanceof Implication) {
-
-                                if (Variable.unify(Symbols.VAR_INDEPENDENT, ((Implication) beliefTerm).getSubject(), taskTerm, beliefTerm, taskTerm)) {
-                                    detachmentWithVar(belief, taskSentence, bIndex, memory);
-                                } else {
-                                    SyllogisticRules.conditionalDedInd((Implication) beliefTerm, bIndex, taskTerm, -1, memory);
-                                }                                
-                                
-                            } else if (beliefTerm instanceof Equivalence) {
-                                SyllogisticRules.conditionalAna((Equivalence) beliefTerm, bIndex, taskTerm, -1, memory);
-                            }
+                        if (!hasBelief) {
+                            return NONE;
                         }
-                        break;
+                        return (bCopula == IMPLICATION) ? DETACHMENT_OR_CONDITIONAL : (bCopula == EQUIVALENCE) ? CONDITIONAL_ANA : NONE;
                 }
                 break;
             case TermLink.COMPOUND_STATEMENT:
-                switch (bLink.getType()) {
+                switch (bType) {
                     case TermLink.COMPONENT:
-                        componentAndStatement((CompoundTerm) memory.currentTerm, bIndex, (Statement) taskTerm, tIndex, memory);
-                        break;
+                        return COMPONENT_AND_STATEMENT;
                     case TermLink.COMPOUND:
-                        compoundAndStatement((CompoundTerm) beliefTerm, bIndex, (Statement) taskTerm, tIndex, beliefTerm, memory);
-                        break;
+                        return STATEMENT_AND_COMPOUND;
                     case TermLink.COMPOUND_STATEMENT:
-                        if (belief != null) {
-                            syllogisms(tLink, bLink, taskTerm, beliefTerm, memory);
-                        }
-                        break;
+                        return hasBelief ? syllogism(tCopula, bCopula) : NONE;
                     case TermLink.COMPOUND_CONDITION:
-                        if (belief != null) {
-                            bIndex = bLink.getIndex(1);
-                            if (beliefTerm instanceof Implication) {
-                                conditionalDedIndWithVar((Implication) beliefTerm, bIndex, (Statement) taskTerm, tIndex, memory);
-                            }
-                        }
-                        break;
+                        return (hasBelief && (bCopula == IMPLICATION)) ? CONDITIONAL_WITH_VAR_REVERSE : NONE;
                 }
                 break;
             case TermLink.COMPOUND_CONDITION:
-                switch (bLink.getType()) {
-                      case TermLink.COMPOUND:
-                        if (belief != null) {
-                            detachmentWithVar(taskSentence, belief, tIndex, memory);
-                        }
-                        break;
-                    
+                switch (bType) {
+                    case TermLink.COMPOUND:
+                        return hasBelief ? DETACHMENT_WITH_VAR : NONE;
                     case TermLink.COMPOUND_STATEMENT:
-                        if (belief != null) {
-                            if (taskTerm instanceof Implication) // TODO maybe put instanceof test within conditionalDedIndWithVar()
-                            {
-                                Term subj = ((Implication) taskTerm).getSubject();
-                                if (subj instanceof Negation) {
-                                    if (task.getSentence().isJudgment()) {
-                                    componentAndStatement((CompoundTerm) subj, bIndex, (Statement) taskTerm, tIndex, memory);
-                                    } else {
-                                    componentAndStatement((CompoundTerm) subj, tIndex, (Statement) beliefTerm, bIndex, memory);
-                                    }
-                                    } else {
-                                    conditionalDedIndWithVar((Implication) taskTerm, tIndex, (Statement) beliefTerm, bIndex, memory);
-                                    }
-                                }
-                                break;
-                            
-                        }
-                        break;
+                        return (hasBelief && (tCopula == IMPLICATION)) ? CONDITIONAL_WITH_VAR : NONE;
                 }
+                break;
         }
+        return NONE;
     }
 
     /* ----- syllogistic inferences ----- */
     /**
-     * Meta-table of syllogistic rules, indexed by the content classes of the
-     * taskSentence and the belief
+     * Meta-table of syllogistic rules, indexed by the copulas of the task and
+     * the belief
      *
-     * @param tLink The link to task
-     * @param bLink The link to belief
-     * @param taskTerm The content of task
-     * @param beliefTerm The content of belief
-     * @param memory Reference to the memory
+     * @param tCopula The copula of the task
+     * @param bCopula The copula of the belief
+     * @return The rule
      */
-    private static void syllogisms(TaskLink tLink, TermLink bLink, Term taskTerm, Term beliefTerm, Memory memory) {
-        Sentence taskSentence = memory.currentTask.getSentence();
-        Sentence belief = memory.currentBelief;
-        int figure;
-        if (taskTerm instanceof Inheritance) {
-            if (beliefTerm instanceof Inheritance) {
-                figure = indexToFigure(tLink, bLink);
-                asymmetricAsymmetric(taskSentence, belief, figure, memory);
-            } else if (beliefTerm instanceof Similarity) {
-                figure = indexToFigure(tLink, bLink);
-                asymmetricSymmetric(taskSentence, belief, figure, memory);
-            } else {
-                detachmentWithVar(belief, taskSentence, bLink.getIndex(0), memory);
-            }
-        } else if (taskTerm instanceof Similarity) {
-            if (beliefTerm instanceof Inheritance) {
-                figure = indexToFigure(bLink, tLink);
-                asymmetricSymmetric(belief, taskSentence, figure, memory);
-            } else if (beliefTerm instanceof Similarity) {
-                figure = indexToFigure(bLink, tLink);
-                symmetricSymmetric(belief, taskSentence, figure, memory);
-            }
-        } else if (taskTerm instanceof Implication) {
-            if (beliefTerm instanceof Implication) {
-                figure = indexToFigure(tLink, bLink);
-                asymmetricAsymmetric(taskSentence, belief, figure, memory);
-            } else if (beliefTerm instanceof Equivalence) {
-                figure = indexToFigure(tLink, bLink);
-                asymmetricSymmetric(taskSentence, belief, figure, memory);
-            } else if (beliefTerm instanceof Inheritance) {
-                detachmentWithVar(taskSentence, belief, tLink.getIndex(0), memory);
-            }
-        } else if (taskTerm instanceof Equivalence) {
-            if (beliefTerm instanceof Implication) {
-                figure = indexToFigure(bLink, tLink);
-                asymmetricSymmetric(belief, taskSentence, figure, memory);
-            } else if (beliefTerm instanceof Equivalence) {
-                figure = indexToFigure(bLink, tLink);
-                symmetricSymmetric(belief, taskSentence, figure, memory);
-            } else if (beliefTerm instanceof Inheritance) {
-                detachmentWithVar(taskSentence, belief, tLink.getIndex(0), memory);
-            }
+    private static byte syllogism(final int tCopula, final int bCopula) {
+        switch (tCopula) {
+            case INHERITANCE:
+                switch (bCopula) {
+                    case INHERITANCE:
+                        return ASYMMETRIC_ASYMMETRIC;
+                    case SIMILARITY:
+                        return ASYMMETRIC_SYMMETRIC;
+                    default:
+                        return DETACHMENT_WITH_VAR_REVERSE;
+                }
+            case SIMILARITY:
+                switch (bCopula) {
+                    case INHERITANCE:
+                        return SYMMETRIC_ASYMMETRIC;
+                    case SIMILARITY:
+                        return SYMMETRIC_SYMMETRIC;
+                }
+                break;
+            case IMPLICATION:
+                switch (bCopula) {
+                    case IMPLICATION:
+                        return ASYMMETRIC_ASYMMETRIC;
+                    case EQUIVALENCE:
+                        return ASYMMETRIC_SYMMETRIC;
+                    case INHERITANCE:
+                        return DETACHMENT_WITH_VAR;
+                }
+                break;
+            case EQUIVALENCE:
+                switch (bCopula) {
+                    case IMPLICATION:
+                        return SYMMETRIC_ASYMMETRIC;
+                    case EQUIVALENCE:
+                        return SYMMETRIC_SYMMETRIC;
+                    case INHERITANCE:
+                        return DETACHMENT_WITH_VAR;
+                }
+                break;
         }
+        return NONE;
     }
 
     /**
@@ -244,9 +339,9 @@ public class RuleTables {
      * @param sentence The taskSentence in the task
      * @param belief The judgment in the belief
      * @param figure The location of the shared term
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void asymmetricAsymmetric(Sentence sentence, Sentence belief, int figure, Memory memory) {
+    private static void asymmetricAsymmetric(Sentence sentence, Sentence belief, int figure, InferenceContext ctx) {
         Statement s1 = (Statement) sentence.cloneContent();
         Statement s2 = (Statement) belief.cloneContent();
         Term t1, t2;
@@ -258,8 +353,8 @@ public class RuleTables {
                     }
                     t1 = s2.getPredicate();
                     t2 = s1.getPredicate();
-                    CompositionalRules.composeCompound(s1, s2, 0, memory);
-                    SyllogisticRules.abdIndCom(t1, t2, sentence, belief, figure, memory);
+                    CompositionalRules.composeCompound(s1, s2, 0, ctx);
+                    SyllogisticRules.abdIndCom(t1, t2, sentence, belief, figure, ctx);
                 }
 
                 break;
@@ -271,9 +366,9 @@ public class RuleTables {
                     t1 = s2.getSubject();
                     t2 = s1.getPredicate();
                     if (Variable.unify(Symbols.VAR_QUERY, t1, t2, s1, s2)) {
-                        LocalRules.matchReverse(memory);
+                        LocalRules.matchReverse(ctx);
                     } else {
-                        SyllogisticRules.dedExe(t1, t2, sentence, belief, memory);
+                        SyllogisticRules.dedExe(t1, t2, sentence, belief, ctx);
                     }
                 }
                 break;
@@ -285,9 +380,9 @@ public class RuleTables {
                     t1 = s1.getSubject();
                     t2 = s2.getPredicate();
                     if (Variable.unify(Symbols.VAR_QUERY, t1, t2, s1, s2)) {
-                        LocalRules.matchReverse(memory);
+                        LocalRules.matchReverse(ctx);
                     } else {
-                        SyllogisticRules.dedExe(t1, t2, sentence, belief, memory);
+                        SyllogisticRules.dedExe(t1, t2, sentence, belief, ctx);
                     }
                 }
                 break;
@@ -298,9 +393,9 @@ public class RuleTables {
                     }
                     t1 = s1.getSubject();
                     t2 = s2.getSubject();
-                    if (!SyllogisticRules.conditionalAbd(t1, t2, s1, s2, memory)) {         // if conditional abduction, skip the following
-                        CompositionalRules.composeCompound(s1, s2, 1, memory);
-                        SyllogisticRules.abdIndCom(t1, t2, sentence, belief, figure, memory);
+                    if (!SyllogisticRules.conditionalAbd(t1, t2, s1, s2, ctx)) {         // if conditional abduction, skip the following
+                        CompositionalRules.composeCompound(s1, s2, 1, ctx);
+                        SyllogisticRules.abdIndCom(t1, t2, sentence, belief, figure, ctx);
                     }
                 }
                 break;
@@ -315,9 +410,9 @@ public class RuleTables {
      * @param asym The asymmetric premise
      * @param sym The symmetric premise
      * @param figure The location of the shared term
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void asymmetricSymmetric(Sentence asym, Sentence sym, int figure, Memory memory) {
+    private static void asymmetricSymmetric(Sentence asym, Sentence sym, int figure, InferenceContext ctx) {
         Statement asymSt = (Statement) asym.cloneContent();
         Statement symSt = (Statement) sym.cloneContent();
         Term t1, t2;
@@ -327,9 +422,9 @@ public class RuleTables {
                     t1 = asymSt.getPredicate();
                     t2 = symSt.getPredicate();
                     if (Variable.unify(Symbols.VAR_QUERY, t1, t2, asymSt, symSt)) {
-                        LocalRules.matchAsymSym(asym, sym, figure, memory);
+                        LocalRules.matchAsymSym(asym, sym, figure, ctx);
                     } else {
-                        SyllogisticRules.analogy(t2, t1, asym, sym, figure, memory);
+                        SyllogisticRules.analogy(t2, t1, asym, sym, figure, ctx);
                     }
                 }
                 break;
@@ -338,9 +433,9 @@ public class RuleTables {
                     t1 = asymSt.getPredicate();
                     t2 = symSt.getSubject();
                     if (Variable.unify(Symbols.VAR_QUERY, t1, t2, asymSt, symSt)) {
-                        LocalRules.matchAsymSym(asym, sym, figure, memory);
+                        LocalRules.matchAsymSym(asym, sym, figure, ctx);
                     } else {
-                        SyllogisticRules.analogy(t2, t1, asym, sym, figure, memory);
+                        SyllogisticRules.analogy(t2, t1, asym, sym, figure, ctx);
                     }
                 }
                 break;
@@ -349,9 +444,9 @@ public class RuleTables {
                     t1 = asymSt.getSubject();
                     t2 = symSt.getPredicate();
                     if (Variable.unify(Symbols.VAR_QUERY, t1, t2, asymSt, symSt)) {
-                        LocalRules.matchAsymSym(asym, sym, figure, memory);
+                        LocalRules.matchAsymSym(asym, sym, figure, ctx);
                     } else {
-                        SyllogisticRules.analogy(t1, t2, asym, sym, figure, memory);
+                        SyllogisticRules.analogy(t1, t2, asym, sym, figure, ctx);
                     }
                 }
                 break;
@@ -360,9 +455,9 @@ public class RuleTables {
                     t1 = asymSt.getSubject();
                     t2 = symSt.getSubject();
                     if (Variable.unify(Symbols.VAR_QUERY, t1, t2, asymSt, symSt)) {
-                        LocalRules.matchAsymSym(asym, sym, figure, memory);
+                        LocalRules.matchAsymSym(asym, sym, figure, ctx);
                     } else {
-                        SyllogisticRules.analogy(t1, t2, asym, sym, figure, memory);
+                        SyllogisticRules.analogy(t1, t2, asym, sym, figure, ctx);
                     }
                 }
                 break;
@@ -375,30 +470,30 @@ public class RuleTables {
      * @param belief The premise that comes from a belief
      * @param taskSentence The premise that comes from a task
      * @param figure The location of the shared term
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void symmetricSymmetric(Sentence belief, Sentence taskSentence, int figure, Memory memory) {
+    private static void symmetricSymmetric(Sentence belief, Sentence taskSentence, int figure, InferenceContext ctx) {
         Statement s1 = (Statement) belief.cloneContent();
         Statement s2 = (Statement) taskSentence.cloneContent();
         switch (figure) {
             case 11:
                 if (Variable.unify(Symbols.VAR_INDEPENDENT, s1.getSubject(), s2.getSubject(), s1, s2)) {
-                    SyllogisticRules.resemblance(s1.getPredicate(), s2.getPredicate(), belief, taskSentence, figure, memory);
+                    SyllogisticRules.resemblance(s1.getPredicate(), s2.getPredicate(), belief, taskSentence, figure, ctx);
                 }
                 break;
             case 12:
                 if (Variable.unify(Symbols.VAR_INDEPENDENT, s1.getSubject(), s2.getPredicate(), s1, s2)) {
-                    SyllogisticRules.resemblance(s1.getPredicate(), s2.getSubject(), belief, taskSentence, figure, memory);
+                    SyllogisticRules.resemblance(s1.getPredicate(), s2.getSubject(), belief, taskSentence, figure, ctx);
                 }
                 break;
             case 21:
                 if (Variable.unify(Symbols.VAR_INDEPENDENT, s1.getPredicate(), s2.getSubject(), s1, s2)) {
-                    SyllogisticRules.resemblance(s1.getSubject(), s2.getPredicate(), belief, taskSentence, figure, memory);
+                    SyllogisticRules.resemblance(s1.getSubject(), s2.getPredicate(), belief, taskSentence, figure, ctx);
                 }
                 break;
             case 22:
                 if (Variable.unify(Symbols.VAR_INDEPENDENT, s1.getPredicate(), s2.getPredicate(), s1, s2)) {
-                    SyllogisticRules.resemblance(s1.getSubject(), s2.getSubject(), belief, taskSentence, figure, memory);
+                    SyllogisticRules.resemblance(s1.getSubject(), s2.getSubject(), belief, taskSentence, figure, ctx);
                 }
                 break;
         }
@@ -413,22 +508,22 @@ public class RuleTables {
      * @param subSentence The premise that is the subject or predicate of the
      * first one
      * @param index The location of the second premise in the first
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void detachmentWithVar(Sentence originalMainSentence, Sentence subSentence, int index, Memory memory) {
+    private static void detachmentWithVar(Sentence originalMainSentence, Sentence subSentence, int index, InferenceContext ctx) {
         Sentence mainSentence = (Sentence) originalMainSentence.clone();   // for substitution
         Statement statement = (Statement) mainSentence.getContent();
         Term component = statement.componentAt(index);
         Term content = subSentence.getContent();
-        if (((component instanceof Inheritance) || (component instanceof Negation)) && (memory.currentBelief != null)) {
+        if (((component instanceof Inheritance) || (component instanceof Negation)) && (ctx.currentBelief != null)) {
             if (component.isConstant()) {
-                SyllogisticRules.detachment(mainSentence, subSentence, index, memory);
+                SyllogisticRules.detachment(mainSentence, subSentence, index, ctx);
             } else if (Variable.unify(Symbols.VAR_INDEPENDENT, component, content, statement, content)) {
-                SyllogisticRules.detachment(mainSentence, subSentence, index, memory);
-            } else if ((statement instanceof Implication) && (statement.getPredicate() instanceof Statement) && (memory.currentTask.getSentence().isJudgment())) {
+                SyllogisticRules.detachment(mainSentence, subSentence, index, ctx);
+            } else if ((statement instanceof Implication) && (statement.getPredicate() instanceof Statement) && (ctx.currentTask.getSentence().isJudgment())) {
                 Statement s2 = (Statement) statement.getPredicate();
                 if (s2.getSubject().equals(((Statement) content).getSubject())) {
-                    CompositionalRules.introVarInner((Statement) content, s2, statement, memory);
+                    CompositionalRules.introVarInner((Statement) content, s2, statement, ctx);
                 }
             }
         }
@@ -442,9 +537,9 @@ public class RuleTables {
      * @param index The location of the shared term in the condition
      * @param statement The second premise that is a statement
      * @param side The location of the shared term in the statement
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void conditionalDedIndWithVar(Implication conditional, short index, Statement statement, short side, Memory memory) {
+    private static void conditionalDedIndWithVar(Implication conditional, short index, Statement statement, short side, InferenceContext ctx) {
         CompoundTerm condition = (CompoundTerm) conditional.getSubject();
         Term component = condition.componentAt(index);
         Term component2 = null;
@@ -461,7 +556,7 @@ public class RuleTables {
                 unifiable = Variable.unify(Symbols.VAR_DEPENDENT, component, component2, conditional, statement);
             }
             if (unifiable) {
-                SyllogisticRules.conditionalDedInd(conditional, index, statement, side, memory);
+                SyllogisticRules.conditionalDedInd(conditional, index, statement, side, ctx);
             }
         }
     }
@@ -473,21 +568,21 @@ public class RuleTables {
      * @param compound The compound term
      * @param component The component term
      * @param compoundTask Whether the compound comes from the task
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void compoundAndSelf(CompoundTerm compound, Term component, boolean compoundTask, Memory memory) {
+    private static void compoundAndSelf(CompoundTerm compound, Term component, boolean compoundTask, InferenceContext ctx) {
         if ((compound instanceof Conjunction) || (compound instanceof Disjunction)) {
-            if (memory.currentBelief != null) {
-                CompositionalRules.decomposeStatement(compound, component, compoundTask, memory);
+            if (ctx.currentBelief != null) {
+                CompositionalRules.decomposeStatement(compound, component, compoundTask, ctx);
             } else if (compound.containComponent(component)) {
-                StructuralRules.structuralCompound(compound, component, compoundTask, memory);
+                StructuralRules.structuralCompound(compound, component, compoundTask, ctx);
             }
-//        } else if ((compound instanceof Negation) && !memory.currentTask.isStructural()) {
+//        } else if ((compound instanceof Negation) && !ctx.currentTask.isStructural()) {
         } else if (compound instanceof Negation) {
             if (compoundTask) {
-                StructuralRules.transformNegation(((Negation) compound).componentAt(0), memory);
+                StructuralRules.transformNegation(((Negation) compound).componentAt(0), ctx);
             } else {
-                StructuralRules.transformNegation(compound, memory);
+                StructuralRules.transformNegation(compound, ctx);
             }
         }
     }
@@ -497,14 +592,14 @@ public class RuleTables {
      *
      * @param taskTerm The compound from the task
      * @param beliefTerm The compound from the belief
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void compoundAndCompound(CompoundTerm taskTerm, CompoundTerm beliefTerm, Memory memory) {
+    private static void compoundAndCompound(CompoundTerm taskTerm, CompoundTerm beliefTerm, InferenceContext ctx) {
         if (taskTerm.getClass() == beliefTerm.getClass()) {
             if (taskTerm.size() > beliefTerm.size()) {
-                compoundAndSelf(taskTerm, beliefTerm, true, memory);
+                compoundAndSelf(taskTerm, beliefTerm, true, ctx);
             } else if (taskTerm.size() < beliefTerm.size()) {
-                compoundAndSelf(beliefTerm, taskTerm, false, memory);
+                compoundAndSelf(beliefTerm, taskTerm, false, ctx);
             }
         }
     }
@@ -517,32 +612,32 @@ public class RuleTables {
      * @param statement The statement
      * @param side The location of the current term in the statement
      * @param beliefTerm The content of the belief
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void compoundAndStatement(CompoundTerm compound, short index, Statement statement, short side, Term beliefTerm, Memory memory) {
+    private static void compoundAndStatement(CompoundTerm compound, short index, Statement statement, short side, Term beliefTerm, InferenceContext ctx) {
         Term component = compound.componentAt(index);
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         if (component.getClass() == statement.getClass()) {
-            if ((compound instanceof Conjunction) && (memory.currentBelief != null)) {
+            if ((compound instanceof Conjunction) && (ctx.currentBelief != null)) {
                 if (Variable.unify(Symbols.VAR_DEPENDENT, component, statement, compound, statement)) {
-                    SyllogisticRules.elimiVarDep(compound, component, statement.equals(beliefTerm), memory);
+                    SyllogisticRules.elimiVarDep(compound, component, statement.equals(beliefTerm), ctx);
                 } else if (task.getSentence().isJudgment()) { // && !compound.containComponent(component)) {
-                    CompositionalRules.introVarInner(statement, (Statement) component, compound, memory);
+                    CompositionalRules.introVarInner(statement, (Statement) component, compound, ctx);
                 } else if (Variable.unify(Symbols.VAR_QUERY, component, statement, compound, statement)) {
-                    CompositionalRules.decomposeStatement(compound, component, true, memory);                    
+                    CompositionalRules.decomposeStatement(compound, component, true, ctx);                    
                 }
             }
         } else {
 //            if (!task.isStructural() && task.getSentence().isJudgment()) {
             if (task.getSentence().isJudgment()) {
                 if (statement instanceof Inheritance) {
-                    StructuralRules.structuralCompose1(compound, index, statement, memory);
+                    StructuralRules.structuralCompose1(compound, index, statement, ctx);
 //                    if (!(compound instanceof SetExt) && !(compound instanceof SetInt)) {
                     if (!(compound instanceof SetExt || compound instanceof SetInt || compound instanceof Negation)) {
-                        StructuralRules.structuralCompose2(compound, index, statement, side, memory);
+                        StructuralRules.structuralCompose2(compound, index, statement, side, ctx);
                     }    // {A --> B, A @ (A&C)} |- (A&C) --> (B&C)
                 } else if ((statement instanceof Similarity) && !(compound instanceof Conjunction)) {
-                    StructuralRules.structuralCompose2(compound, index, statement, side, memory);
+                    StructuralRules.structuralCompose2(compound, index, statement, side, ctx);
                 }       // {A <-> B, A @ (A&C)} |- (A&C) <-> (B&C)
             }
         }
@@ -555,27 +650,27 @@ public class RuleTables {
      * @param index The location of the current term in the compound
      * @param statement The statement
      * @param side The location of the current term in the statement
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void componentAndStatement(CompoundTerm compound, short index, Statement statement, short side, Memory memory) {
-//        if (!memory.currentTask.isStructural()) {
+    private static void componentAndStatement(CompoundTerm compound, short index, Statement statement, short side, InferenceContext ctx) {
+//        if (!ctx.currentTask.isStructural()) {
         if (statement instanceof Inheritance) {
-            StructuralRules.structuralDecompose1(compound, index, statement, memory);
+            StructuralRules.structuralDecompose1(compound, index, statement, ctx);
             if (!(compound instanceof SetExt) && !(compound instanceof SetInt)) {
-                StructuralRules.structuralDecompose2(statement, index, memory);    // {(C-B) --> (C-A), A @ (C-A)} |- A --> B
+                StructuralRules.structuralDecompose2(statement, index, ctx);    // {(C-B) --> (C-A), A @ (C-A)} |- A --> B
             } else {
-                StructuralRules.transformSetRelation(compound, statement, side, memory);
+                StructuralRules.transformSetRelation(compound, statement, side, ctx);
             }
         } else if (statement instanceof Similarity) {
-            StructuralRules.structuralDecompose2(statement, index, memory);        // {(C-B) --> (C-A), A @ (C-A)} |- A --> B
+            StructuralRules.structuralDecompose2(statement, index, ctx);        // {(C-B) --> (C-A), A @ (C-A)} |- A --> B
             if ((compound instanceof SetExt) || (compound instanceof SetInt)) {
-                StructuralRules.transformSetRelation(compound, statement, side, memory);
+                StructuralRules.transformSetRelation(compound, statement, side, ctx);
             }
         } else if ((statement instanceof Implication) && (compound instanceof Negation)) {
             if (index == 0) {
-                StructuralRules.contraposition(statement, memory.currentTask.getSentence(), memory);
+                StructuralRules.contraposition(statement, ctx.currentTask.getSentence(), ctx);
             } else {
-                StructuralRules.contraposition(statement, memory.currentBelief, memory);
+                StructuralRules.contraposition(statement, ctx.currentBelief, ctx);
             }
         
         }
@@ -588,10 +683,10 @@ public class RuleTables {
      * transformation
      *
      * @param tLink The task link
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    public static void transformTask(TaskLink tLink, Memory memory) {
-        CompoundTerm content = (CompoundTerm) memory.currentTask.getContent().clone();
+    public static void transformTask(TaskLink tLink, InferenceContext ctx) {
+        CompoundTerm content = (CompoundTerm) ctx.currentTask.getContent().clone();
         short[] indices = tLink.getIndices();
         Term inh = null;
         if ((indices.length == 2) || (content instanceof Inheritance)) {          // <(*, term, #) --> #>
@@ -607,7 +702,7 @@ public class RuleTables {
             }
         }
         if (inh instanceof Inheritance) {
-            StructuralRules.transformProductImage((Inheritance) inh, content, indices, memory);
+            StructuralRules.transformProductImage((Inheritance) inh, content, indices, ctx);
         }
     }
 }
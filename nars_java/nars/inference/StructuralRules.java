@@ -20,7 +20,6 @@
  */
 package nars.inference;
 
-import nars.storage.Memory;
 import java.util.ArrayList;
 
 import nars.entity.*;
@@ -44,9 +43,9 @@ public final class StructuralRules {
      * @param index The location of the indicated term in the compound
      * @param statement The premise
      * @param side The location of the indicated term in the premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void structuralCompose2(CompoundTerm compound, short index, Statement statement, short side, Memory memory) {
+    static void structuralCompose2(CompoundTerm compound, short index, Statement statement, short side, InferenceContext ctx) {
         if (compound.equals(statement.componentAt(side))) {
             return;
         }
@@ -60,12 +59,12 @@ public final class StructuralRules {
             if (components.contains(sub)) {
                 sub = compound;
                 components.set(index, pred);
-                pred = CompoundTerm.make(compound, components, memory);
+                pred = CompoundTerm.make(compound, components, ctx.memory);
             }
         } else {
             if (components.contains(pred)) {
                 components.set(index, sub);
-                sub = CompoundTerm.make(compound, components, memory);
+                sub = CompoundTerm.make(compound, components, ctx.memory);
                 pred = compound;
             }
         }
@@ -74,19 +73,19 @@ public final class StructuralRules {
         }
         Term content;
         if (switchOrder(compound, index)) {
-            content = Statement.make(statement, pred, sub, memory);
+            content = Statement.make(statement, pred, sub, ctx.memory);
         } else {
-            content = Statement.make(statement, sub, pred, memory);
+            content = Statement.make(statement, sub, pred, ctx.memory);
         }
         if (content == null) {
             return;
         }
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
         TruthValue truth = sentence.getTruth();
         BudgetValue budget;
         if (sentence.isQuestion()) {
-            budget = BudgetFunctions.compoundBackwardWeak(content, memory);
+            budget = BudgetFunctions.compoundBackwardWeak(content, ctx);
         } else {
             if (compound.size() > 1) {
                 if (sentence.isJudgment()) {
@@ -95,17 +94,18 @@ public final class StructuralRules {
                     return;
                 }
             }
-            budget = BudgetFunctions.compoundForward(truth, content, memory);
+            budget = BudgetFunctions.compoundForward(truth, content, ctx);
         }
-        memory.singlePremiseTask(content, truth, budget);
+        ctx.rule = Rule.STRUCTURAL_COMPOSE2;
+        ctx.singlePremiseTask(content, truth, budget);
     }
 
     /**
      * {<(S&T) --> (P&T)>, S@(S&T)} |- <S --> P>
      * @param statement The premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void structuralDecompose2(Statement statement, int index, Memory memory) {
+    static void structuralDecompose2(Statement statement, int index, InferenceContext ctx) {
         Term subj = statement.getSubject();
         Term pred = statement.getPredicate();
         if (subj.getClass() != pred.getClass()) {
@@ -120,26 +120,27 @@ public final class StructuralRules {
         Term t2 = pre.componentAt(index);
         Term content;
         if (switchOrder(sub, (short) index)) {
-            content = Statement.make(statement, t2, t1, memory);
+            content = Statement.make(statement, t2, t1, ctx.memory);
         } else {
-            content = Statement.make(statement, t1, t2, memory);
+            content = Statement.make(statement, t1, t2, ctx.memory);
         }
         if (content == null) {
             return;
         }
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
         TruthValue truth = sentence.getTruth();
         BudgetValue budget;
         if (sentence.isQuestion()) {
-            budget = BudgetFunctions.compoundBackward(content, memory);
+            budget = BudgetFunctions.compoundBackward(content, ctx);
         } else {
             if (!(sub instanceof Product) && (sub.size() > 1) && (sentence.isJudgment())) {
                 return;
             }
-            budget = BudgetFunctions.compoundForward(truth, content, memory);
+            budget = BudgetFunctions.compoundForward(truth, content, ctx);
         }
-        memory.singlePremiseTask(content, truth, budget);
+        ctx.rule = Rule.STRUCTURAL_DECOMPOSE2;
+        ctx.singlePremiseTask(content, truth, budget);
     }
 
     /**
@@ -161,14 +162,14 @@ public final class StructuralRules {
      * @param compound The compound term
      * @param index The location of the indicated term in the compound
      * @param statement The premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void structuralCompose1(CompoundTerm compound, short index, Statement statement, Memory memory) {
-        if (!memory.currentTask.getSentence().isJudgment()) {
+    static void structuralCompose1(CompoundTerm compound, short index, Statement statement, InferenceContext ctx) {
+        if (!ctx.currentTask.getSentence().isJudgment()) {
             return;
         }
         Term component = compound.componentAt(index);
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
         TruthValue truth = sentence.getTruth();
         TruthValue truthDed = TruthFunctions.deduction(truth, RELIANCE);
@@ -177,27 +178,27 @@ public final class StructuralRules {
         Term pred = statement.getPredicate();
         if (component.equals(subj)) {
             if (compound instanceof IntersectionExt) {
-                structuralStatement(compound, pred, truthDed, memory);
+                structuralStatement(compound, pred, truthDed, ctx);
             } else if (compound instanceof IntersectionInt) {
             } else if ((compound instanceof DifferenceExt) && (index == 0)) {
-                structuralStatement(compound, pred, truthDed, memory);
+                structuralStatement(compound, pred, truthDed, ctx);
             } else if (compound instanceof DifferenceInt) {
                 if (index == 0) {
                 } else {
-                    structuralStatement(compound, pred, truthNDed, memory);
+                    structuralStatement(compound, pred, truthNDed, ctx);
                 }
             }
         } else if (component.equals(pred)) {
             if (compound instanceof IntersectionExt) {
             } else if (compound instanceof IntersectionInt) {
-                structuralStatement(subj, compound, truthDed, memory);
+                structuralStatement(subj, compound, truthDed, ctx);
             } else if (compound instanceof DifferenceExt) {
                 if (index == 0) {
                 } else {
-                    structuralStatement(subj, compound, truthNDed, memory);
+                    structuralStatement(subj, compound, truthNDed, ctx);
                 }
             } else if ((compound instanceof DifferenceInt) && (index == 0)) {
-                structuralStatement(subj, compound, truthDed, memory);
+                structuralStatement(subj, compound, truthDed, ctx);
             }
         }
     }
@@ -207,14 +208,14 @@ public final class StructuralRules {
      * @param compound The compound term
      * @param index The location of the indicated term in the compound
      * @param statement The premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void structuralDecompose1(CompoundTerm compound, short index, Statement statement, Memory memory) {
-        if (!memory.currentTask.getSentence().isJudgment()) {
+    static void structuralDecompose1(CompoundTerm compound, short index, Statement statement, InferenceContext ctx) {
+        if (!ctx.currentTask.getSentence().isJudgment()) {
             return;
         }
         Term component = compound.componentAt(index);
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
         TruthValue truth = sentence.getTruth();
         TruthValue truthDed = TruthFunctions.deduction(truth, RELIANCE);
@@ -223,26 +224,26 @@ public final class StructuralRules {
         Term pred = statement.getPredicate();
         if (compound.equals(subj)) {
             if (compound instanceof IntersectionInt) {
-                structuralStatement(component, pred, truthDed, memory);
+                structuralStatement(component, pred, truthDed, ctx);
             } else if ((compound instanceof SetExt) && (compound.size() > 1)) {                
-                structuralStatement(SetExt.make(component, memory), pred, truthDed, memory);
+                structuralStatement(SetExt.make(component, ctx.memory), pred, truthDed, ctx);
             } else if (compound instanceof DifferenceInt) {
                 if (index == 0) {
-                    structuralStatement(component, pred, truthDed, memory);
+                    structuralStatement(component, pred, truthDed, ctx);
                 } else {
-                    structuralStatement(component, pred, truthNDed, memory);
+                    structuralStatement(component, pred, truthNDed, ctx);
                 }
             }
         } else if (compound.equals(pred)) {
             if (compound instanceof IntersectionExt) {
-                structuralStatement(subj, component, truthDed, memory);
+                structuralStatement(subj, component, truthDed, ctx);
             } else if ((compound instanceof SetInt) && (compound.size() > 1)) {                
-                structuralStatement(subj, SetInt.make(component, memory), truthDed, memory);
+                structuralStatement(subj, SetInt.make(component, ctx.memory), truthDed, ctx);
             } else if (compound instanceof DifferenceExt) {
                 if (index == 0) {
-                    structuralStatement(subj, component, truthDed, memory);
+                    structuralStatement(subj, component, truthDed, ctx);
                 } else {
-                    structuralStatement(subj, component, truthNDed, memory);
+                    structuralStatement(subj, component, truthNDed, ctx);
                 }
             }
         }
@@ -254,16 +255,17 @@ public final class StructuralRules {
      * @param subject The subject of the new task
      * @param predicate The predicate of the new task
      * @param truth The truth value of the new task
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void structuralStatement(Term subject, Term predicate, TruthValue truth, Memory memory) {
-        Task task = memory.currentTask;
+    private static void structuralStatement(Term subject, Term predicate, TruthValue truth, InferenceContext ctx) {
+        Task task = ctx.currentTask;
         Term oldContent = task.getContent();
         if (oldContent instanceof Statement) {
-            Term content = Statement.make((Statement) oldContent, subject, predicate, memory);
+            Term content = Statement.make((Statement) oldContent, subject, predicate, ctx.memory);
             if (content != null) {
-                BudgetValue budget = BudgetFunctions.compoundForward(truth, content, memory);
-                memory.singlePremiseTask(content, truth, budget);
+                BudgetValue budget = BudgetFunctions.compoundForward(truth, content, ctx);
+                ctx.rule = Rule.STRUCTURAL_STATEMENT;
+                ctx.singlePremiseTask(content, truth, budget);
             }
         }
     }
@@ -275,9 +277,9 @@ public final class StructuralRules {
      * @param compound The set compound
      * @param statement The premise
      * @param side The location of the indicated term in the premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void transformSetRelation(CompoundTerm compound, Statement statement, short side, Memory memory) {
+    static void transformSetRelation(CompoundTerm compound, Statement statement, short side, InferenceContext ctx) {
         if (compound.size() > 1) {
             return;
         }
@@ -290,26 +292,27 @@ public final class StructuralRules {
         Term pre = statement.getPredicate();
         Term content;
         if (statement instanceof Inheritance) {
-            content = Similarity.make(sub, pre, memory);
+            content = Similarity.make(sub, pre, ctx.memory);
         } else {
             if (((compound instanceof SetExt) && (side == 0)) || ((compound instanceof SetInt) && (side == 1))) {
-                content = Inheritance.make(pre, sub, memory);
+                content = Inheritance.make(pre, sub, ctx.memory);
             } else {
-                content = Inheritance.make(sub, pre, memory);
+                content = Inheritance.make(sub, pre, ctx.memory);
             }
         }
         if (content == null) return;
         
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
         TruthValue truth = sentence.getTruth();
         BudgetValue budget;
         if (sentence.isQuestion()) {
-            budget = BudgetFunctions.compoundBackward(content, memory);
+            budget = BudgetFunctions.compoundBackward(content, ctx);
         } else {
-            budget = BudgetFunctions.compoundForward(truth, content, memory);
+            budget = BudgetFunctions.compoundForward(truth, content, ctx);
         }
-        memory.singlePremiseTask(content, truth, budget);
+        ctx.rule = Rule.TRANSFORM_SET_RELATION;
+        ctx.singlePremiseTask(content, truth, budget);
     }
 
     /* -------------------- products and images transform -------------------- */
@@ -322,17 +325,17 @@ public final class StructuralRules {
      * @param oldContent The whole content
      * @param indices The indices of the TaskLink
      * @param task The task
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void transformProductImage(Inheritance inh, CompoundTerm oldContent, short[] indices, Memory memory) {
+    static void transformProductImage(Inheritance inh, CompoundTerm oldContent, short[] indices, InferenceContext ctx) {
         Term subject = inh.getSubject();
         Term predicate = inh.getPredicate();
         if (inh.equals(oldContent)) {
             if (subject instanceof CompoundTerm) {
-                transformSubjectPI((CompoundTerm) subject, predicate, memory);
+                transformSubjectPI((CompoundTerm) subject, predicate, ctx);
             }
             if (predicate instanceof CompoundTerm) {
-                transformPredicatePI(subject, (CompoundTerm) predicate, memory);
+                transformPredicatePI(subject, (CompoundTerm) predicate, ctx);
             }
             return;
         }
@@ -342,66 +345,67 @@ public final class StructuralRules {
         if (comp instanceof Product) {
             if (side == 0) {
                 subject = comp.componentAt(index);
-                predicate = ImageExt.make((Product) comp, inh.getPredicate(), index, memory);
+                predicate = ImageExt.make((Product) comp, inh.getPredicate(), index, ctx.memory);
             } else {
-                subject = ImageInt.make((Product) comp, inh.getSubject(), index, memory);
+                subject = ImageInt.make((Product) comp, inh.getSubject(), index, ctx.memory);
                 predicate = comp.componentAt(index);
             }
         } else if ((comp instanceof ImageExt) && (side == 1)) {
             if (index == ((ImageExt) comp).getRelationIndex()) {
-                subject = Product.make(comp, inh.getSubject(), index, memory);
+                subject = Product.make(comp, inh.getSubject(), index, ctx.memory);
                 predicate = comp.componentAt(index);
             } else {
                 subject = comp.componentAt(index);
-                predicate = ImageExt.make((ImageExt) comp, inh.getSubject(), index, memory);
+                predicate = ImageExt.make((ImageExt) comp, inh.getSubject(), index, ctx.memory);
             }
         } else if ((comp instanceof ImageInt) && (side == 0)) {
             if (index == ((ImageInt) comp).getRelationIndex()) {
                 subject = comp.componentAt(index);
-                predicate = Product.make(comp, inh.getPredicate(), index, memory);
+                predicate = Product.make(comp, inh.getPredicate(), index, ctx.memory);
             } else {
-                subject = ImageInt.make((ImageInt) comp, inh.getPredicate(), index, memory);
+                subject = ImageInt.make((ImageInt) comp, inh.getPredicate(), index, ctx.memory);
                 predicate = comp.componentAt(index);
             }
         } else {
             return;
         }
-        Inheritance newInh = Inheritance.make(subject, predicate, memory);
+        Inheritance newInh = Inheritance.make(subject, predicate, ctx.memory);
         Term content = null;
         if (indices.length == 2) {
             content = newInh;
         } else if ((oldContent instanceof Statement) && (indices[0] == 1)) {
-            content = Statement.make((Statement) oldContent, oldContent.componentAt(0), newInh, memory);
+            content = Statement.make((Statement) oldContent, oldContent.componentAt(0), newInh, ctx.memory);
         } else {
             ArrayList<Term> componentList;
             Term condition = oldContent.componentAt(0);
             if (((oldContent instanceof Implication) || (oldContent instanceof Equivalence)) && (condition instanceof Conjunction)) {
                 componentList = ((CompoundTerm) condition).cloneComponents();
                 componentList.set(indices[1], newInh);
-                Term newCond = CompoundTerm.make((CompoundTerm) condition, componentList, memory);
-                content = Statement.make((Statement) oldContent, newCond, ((Statement) oldContent).getPredicate(), memory);
+                Term newCond = CompoundTerm.make((CompoundTerm) condition, componentList, ctx.memory);
+                content = Statement.make((Statement) oldContent, newCond, ((Statement) oldContent).getPredicate(), ctx.memory);
             } else {
                 componentList = oldContent.cloneComponents();
                 componentList.set(indices[0], newInh);
                 if (oldContent instanceof Conjunction) {
-                    content = CompoundTerm.make(oldContent, componentList, memory);
+                    content = CompoundTerm.make(oldContent, componentList, ctx.memory);
                 } else if ((oldContent instanceof Implication) || (oldContent instanceof Equivalence)) {
-                    content = Statement.make((Statement) oldContent, componentList.get(0), componentList.get(1), memory);
+                    content = Statement.make((Statement) oldContent, componentList.get(0), componentList.get(1), ctx.memory);
                 }
             }
         }
         if (content == null) {
             return;
         }
-        Sentence sentence = memory.currentTask.getSentence();
+        Sentence sentence = ctx.currentTask.getSentence();
         TruthValue truth = sentence.getTruth();
         BudgetValue budget;
         if (sentence.isQuestion()) {
-            budget = BudgetFunctions.compoundBackward(content, memory);
+            budget = BudgetFunctions.compoundBackward(content, ctx);
         } else {
-            budget = BudgetFunctions.compoundForward(truth, content, memory);
+            budget = BudgetFunctions.compoundForward(truth, content, ctx);
         }
-        memory.singlePremiseTask(content, truth, budget);
+        ctx.rule = Rule.TRANSFORM_PRODUCT_IMAGE;
+        ctx.singlePremiseTask(content, truth, budget);
     }
 
     /**
@@ -411,26 +415,27 @@ public final class StructuralRules {
      * M)>, M@(/, P, _, M)} |- <M --> (/, P, S, _)>
      * @param subject The subject term
      * @param predicate The predicate term
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void transformSubjectPI(CompoundTerm subject, Term predicate, Memory memory) {
-        TruthValue truth = memory.currentTask.getSentence().getTruth();
+    private static void transformSubjectPI(CompoundTerm subject, Term predicate, InferenceContext ctx) {
+        TruthValue truth = ctx.currentTask.getSentence().getTruth();
         BudgetValue budget;
         Inheritance inheritance;
         Term newSubj, newPred;
+        ctx.rule = Rule.TRANSFORM_SUBJECT_PI;
         if (subject instanceof Product) {
             Product product = (Product) subject;
             for (short i = 0; i < product.size(); i++) {
                 newSubj = product.componentAt(i);
-                newPred = ImageExt.make(product, predicate, i, memory);
-                inheritance = Inheritance.make(newSubj, newPred, memory);                
+                newPred = ImageExt.make(product, predicate, i, ctx.memory);
+                inheritance = Inheritance.make(newSubj, newPred, ctx.memory);                
                 if (inheritance != null) {
                     if (truth == null) {
-                        budget = BudgetFunctions.compoundBackward(inheritance, memory);
+                        budget = BudgetFunctions.compoundBackward(inheritance, ctx);
                     } else {
-                        budget = BudgetFunctions.compoundForward(truth, inheritance, memory);
+                        budget = BudgetFunctions.compoundForward(truth, inheritance, ctx);
                     }
-                    memory.singlePremiseTask(inheritance, truth, budget);
+                    ctx.singlePremiseTask(inheritance, truth, budget);
                 }
             }
         } else if (subject instanceof ImageInt) {
@@ -439,19 +444,19 @@ public final class StructuralRules {
             for (short i = 0; i < image.size(); i++) {
                 if (i == relationIndex) {
                     newSubj = image.componentAt(relationIndex);
-                    newPred = Product.make(image, predicate, relationIndex, memory);
+                    newPred = Product.make(image, predicate, relationIndex, ctx.memory);
                 } else {
-                    newSubj = ImageInt.make((ImageInt) image, predicate, i, memory);
+                    newSubj = ImageInt.make((ImageInt) image, predicate, i, ctx.memory);
                     newPred = image.componentAt(i);
                 }
-                inheritance = Inheritance.make(newSubj, newPred, memory);
+                inheritance = Inheritance.make(newSubj, newPred, ctx.memory);
                 if (inheritance!=null) {
                     if (truth == null) {
-                        budget = BudgetFunctions.compoundBackward(inheritance, memory);
+                        budget = BudgetFunctions.compoundBackward(inheritance, ctx);
                     } else {
-                        budget = BudgetFunctions.compoundForward(truth, inheritance, memory);
+                        budget = BudgetFunctions.compoundForward(truth, inheritance, ctx);
                     }
-                    memory.singlePremiseTask(inheritance, truth, budget);
+                    ctx.singlePremiseTask(inheritance, truth, budget);
                 }
             }
         }
@@ -464,26 +469,27 @@ public final class StructuralRules {
      * P, _, M)>, M@(/, P, _, M)} |- <M --> (/, P, S, _)>
      * @param subject The subject term
      * @param predicate The predicate term
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    private static void transformPredicatePI(Term subject, CompoundTerm predicate, Memory memory) {
-        TruthValue truth = memory.currentTask.getSentence().getTruth();
+    private static void transformPredicatePI(Term subject, CompoundTerm predicate, InferenceContext ctx) {
+        TruthValue truth = ctx.currentTask.getSentence().getTruth();
         BudgetValue budget;
         Inheritance inheritance;
         Term newSubj, newPred;
+        ctx.rule = Rule.TRANSFORM_PREDICATE_PI;
         if (predicate instanceof Product) {
             Product product = (Product) predicate;
             for (short i = 0; i < product.size(); i++) {
-                newSubj = ImageInt.make(product, subject, i, memory);
+                newSubj = ImageInt.make(product, subject, i, ctx.memory);
                 newPred = product.componentAt(i);
-                inheritance = Inheritance.make(newSubj, newPred, memory);
+                inheritance = Inheritance.make(newSubj, newPred, ctx.memory);
                 if (inheritance != null) {
                     if (truth == null) {
-                        budget = BudgetFunctions.compoundBackward(inheritance, memory);
+                        budget = BudgetFunctions.compoundBackward(inheritance, ctx);
                     } else {
-                        budget = BudgetFunctions.compoundForward(truth, inheritance, memory);
+                        budget = BudgetFunctions.compoundForward(truth, inheritance, ctx);
                     }
-                    memory.singlePremiseTask(inheritance, truth, budget);
+                    ctx.singlePremiseTask(inheritance, truth, budget);
                 }
             }
         } else if (predicate instanceof ImageExt) {
@@ -491,20 +497,20 @@ public final class StructuralRules {
             int relationIndex = image.getRelationIndex();
             for (short i = 0; i < image.size(); i++) {
                 if (i == relationIndex) {
-                    newSubj = Product.make(image, subject, relationIndex, memory);
+                    newSubj = Product.make(image, subject, relationIndex, ctx.memory);
                     newPred = image.componentAt(relationIndex);
                 } else {
                     newSubj = image.componentAt(i);
-                    newPred = ImageExt.make((ImageExt) image, subject, i, memory);
+                    newPred = ImageExt.make((ImageExt) image, subject, i, ctx.memory);
                 }
-                inheritance = Inheritance.make(newSubj, newPred, memory);
+                inheritance = Inheritance.make(newSubj, newPred, ctx.memory);
                 if (inheritance != null) { // jmv <<<<<
                     if (truth == null) {
-                        budget = BudgetFunctions.compoundBackward(inheritance, memory);
+                        budget = BudgetFunctions.compoundBackward(inheritance, ctx);
                     } else {
-                        budget = BudgetFunctions.compoundForward(truth, inheritance, memory);
+                        budget = BudgetFunctions.compoundForward(truth, inheritance, ctx);
                     }
-                    memory.singlePremiseTask(inheritance, truth, budget);
+                    ctx.singlePremiseTask(inheritance, truth, budget);
                 }
             }
         }
@@ -518,21 +524,21 @@ public final class StructuralRules {
      * @param compound The premise
      * @param component The recognized component in the premise
      * @param compoundTask Whether the compound comes from the task
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void structuralCompound(CompoundTerm compound, Term component, boolean compoundTask, Memory memory) {
+    static void structuralCompound(CompoundTerm compound, Term component, boolean compoundTask, InferenceContext ctx) {
         if (!component.isConstant()) {
             return;
         }
         Term content = (compoundTask ? component : compound);
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         
         Sentence sentence = task.getSentence();
         TruthValue truth = sentence.getTruth();
-        Sentence belief = memory.currentBelief;
+        Sentence belief = ctx.currentBelief;
         BudgetValue budget;
         if (sentence.isQuestion()) {
-            budget = BudgetFunctions.compoundBackward(content, memory);
+            budget = BudgetFunctions.compoundBackward(content, ctx);
         } else {
             if ((sentence.isJudgment()) == (compoundTask == (compound instanceof Conjunction))) {
                 truth = TruthFunctions.deduction(truth, RELIANCE);
@@ -542,19 +548,20 @@ public final class StructuralRules {
                 v2 = TruthFunctions.deduction(v1, RELIANCE);
                 truth = TruthFunctions.negation(v2);
             }
-            budget = BudgetFunctions.forward(truth, memory);
+            budget = BudgetFunctions.forward(truth, ctx);
         }
-        memory.singlePremiseTask(content, truth, budget);
+        ctx.rule = Rule.STRUCTURAL_COMPOUND;
+        ctx.singlePremiseTask(content, truth, budget);
     }
 
     /* --------------- Negation related rules --------------- */
     /**
      * {A, A@(--, A)} |- (--, A)
      * @param content The premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    public static void transformNegation(Term content, Memory memory) {
-        Task task = memory.currentTask;
+    public static void transformNegation(Term content, InferenceContext ctx) {
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
         TruthValue truth = sentence.getTruth();
         if (sentence.isJudgment()) {
@@ -562,38 +569,40 @@ public final class StructuralRules {
         }
         BudgetValue budget;
         if (sentence.isQuestion()) {
-            budget = BudgetFunctions.compoundBackward(content, memory);
+            budget = BudgetFunctions.compoundBackward(content, ctx);
         } else {
-            budget = BudgetFunctions.compoundForward(truth, content, memory);
+            budget = BudgetFunctions.compoundForward(truth, content, ctx);
         }
-        memory.singlePremiseTask(content, truth, budget);
+        ctx.rule = Rule.TRANSFORM_NEGATION;
+        ctx.singlePremiseTask(content, truth, budget);
     }
 
     /**
      * {<A ==> B>, A@(--, A)} |- <(--, B) ==> (--, A)>
      * @param statement The premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void contraposition(Statement statement, Sentence sentence, Memory memory) {
+    static void contraposition(Statement statement, Sentence sentence, InferenceContext ctx) {
         Term subj = statement.getSubject();
         Term pred = statement.getPredicate();
 
-        Term content = Statement.make(statement, Negation.make(pred, memory), Negation.make(subj, memory), memory);
+        Term content = Statement.make(statement, Negation.make(pred, ctx.memory), Negation.make(subj, ctx.memory), ctx.memory);
         TruthValue truth = sentence.getTruth();
         BudgetValue budget;
+        ctx.rule = Rule.CONTRAPOSITION;
         if (sentence.isQuestion()) {
             if (content instanceof Implication) {
-                budget = BudgetFunctions.compoundBackwardWeak(content, memory);
+                budget = BudgetFunctions.compoundBackwardWeak(content, ctx);
             } else {
-                budget = BudgetFunctions.compoundBackward(content, memory);
+                budget = BudgetFunctions.compoundBackward(content, ctx);
             }
-        memory.singlePremiseTask(content, Symbols.QUESTION_MARK, truth, budget);            
+        ctx.singlePremiseTask(content, Symbols.QUESTION_MARK, truth, budget);            
         } else {
             if (content instanceof Implication) {
                 truth = TruthFunctions.contraposition(truth);
             }
-            budget = BudgetFunctions.compoundForward(truth, content, memory);
-            memory.singlePremiseTask(content, Symbols.JUDGMENT_MARK, truth, budget);
+            budget = BudgetFunctions.compoundForward(truth, content, ctx);
+            ctx.singlePremiseTask(content, Symbols.JUDGMENT_MARK, truth, budget);
         }
     }
 }
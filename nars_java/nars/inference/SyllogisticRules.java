@@ -23,7 +23,6 @@ package nars.inference;
 import nars.entity.*;
 import nars.language.*;
 import nars.io.Symbols;
-import nars.storage.Memory;
 
 /**
  * Syllogisms: Inference rules based on the transitivity of the relation.
@@ -40,9 +39,9 @@ public final class SyllogisticRules {
      * @param term2 Predicate of the first new task
      * @param sentence The first premise
      * @param belief The second premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void dedExe(Term term1, Term term2, Sentence sentence, Sentence belief, Memory memory) {
+    static void dedExe(Term term1, Term term2, Sentence sentence, Sentence belief, InferenceContext ctx) {
         if (Statement.invalidStatement(term1, term2)) {
             return;
         }
@@ -52,19 +51,20 @@ public final class SyllogisticRules {
         TruthValue truth2 = null;
         BudgetValue budget1, budget2;
         if (sentence.isQuestion()) {
-            budget1 = BudgetFunctions.backwardWeak(value2, memory);
-            budget2 = BudgetFunctions.backwardWeak(value2, memory);
+            budget1 = BudgetFunctions.backwardWeak(value2, ctx);
+            budget2 = BudgetFunctions.backwardWeak(value2, ctx);
         } else {
             truth1 = TruthFunctions.deduction(value1, value2);
             truth2 = TruthFunctions.exemplification(value1, value2);
-            budget1 = BudgetFunctions.forward(truth1, memory);
-            budget2 = BudgetFunctions.forward(truth2, memory);
+            budget1 = BudgetFunctions.forward(truth1, ctx);
+            budget2 = BudgetFunctions.forward(truth2, ctx);
         }
         Statement content = (Statement) sentence.getContent();
-        Statement content1 = Statement.make(content, term1, term2, memory);
-        Statement content2 = Statement.make(content, term2, term1, memory);
-        memory.doublePremiseTask(content1, truth1, budget1);
-        memory.doublePremiseTask(content2, truth2, budget2);
+        Statement content1 = Statement.make(content, term1, term2, ctx.memory);
+        Statement content2 = Statement.make(content, term2, term1, ctx.memory);
+        ctx.rule = Rule.DED_EXE;
+        ctx.doublePremiseTask(content1, truth1, budget1);
+        ctx.doublePremiseTask(content2, truth2, budget2);
     }
 
     /**
@@ -75,9 +75,9 @@ public final class SyllogisticRules {
      * @param taskSentence The first premise
      * @param belief The second premise
      * @param figure Locations of the shared term in premises
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void abdIndCom(Term term1, Term term2, Sentence taskSentence, Sentence belief, int figure, Memory memory) {
+    static void abdIndCom(Term term1, Term term2, Sentence taskSentence, Sentence belief, int figure, InferenceContext ctx) {
         if (Statement.invalidStatement(term1, term2) || Statement.invalidPair(term1.getName(), term2.getName())) {
             return;
         }
@@ -89,23 +89,24 @@ public final class SyllogisticRules {
         TruthValue value1 = taskSentence.getTruth();
         TruthValue value2 = belief.getTruth();
         if (taskSentence.isQuestion()) {
-            budget1 = BudgetFunctions.backward(value2, memory);
-            budget2 = BudgetFunctions.backwardWeak(value2, memory);
-            budget3 = BudgetFunctions.backward(value2, memory);
+            budget1 = BudgetFunctions.backward(value2, ctx);
+            budget2 = BudgetFunctions.backwardWeak(value2, ctx);
+            budget3 = BudgetFunctions.backward(value2, ctx);
         } else {
             truth1 = TruthFunctions.abduction(value1, value2);
             truth2 = TruthFunctions.abduction(value2, value1);
             truth3 = TruthFunctions.comparison(value1, value2);
-            budget1 = BudgetFunctions.forward(truth1, memory);
-            budget2 = BudgetFunctions.forward(truth2, memory);
-            budget3 = BudgetFunctions.forward(truth3, memory);
-        }
-        Statement statement1 = Statement.make(taskContent, term1, term2, memory);
-        Statement statement2 = Statement.make(taskContent, term2, term1, memory);
-        Statement statement3 = Statement.makeSym(taskContent, term1, term2, memory);
-        memory.doublePremiseTask(statement1, truth1, budget1);
-        memory.doublePremiseTask(statement2, truth2, budget2);
-        memory.doublePremiseTask(statement3, truth3, budget3);
+            budget1 = BudgetFunctions.forward(truth1, ctx);
+            budget2 = BudgetFunctions.forward(truth2, ctx);
+            budget3 = BudgetFunctions.forward(truth3, ctx);
+        }
+        Statement statement1 = Statement.make(taskContent, term1, term2, ctx.memory);
+        Statement statement2 = Statement.make(taskContent, term2, term1, ctx.memory);
+        Statement statement3 = Statement.makeSym(taskContent, term1, term2, ctx.memory);
+        ctx.rule = Rule.ABD_IND_COM;
+        ctx.doublePremiseTask(statement1, truth1, budget1);
+        ctx.doublePremiseTask(statement2, truth2, budget2);
+        ctx.doublePremiseTask(statement3, truth3, budget3);
     }
 
     /**
@@ -116,29 +117,30 @@ public final class SyllogisticRules {
      * @param asym The asymmetric premise
      * @param sym The symmetric premise
      * @param figure Locations of the shared term in premises
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void analogy(Term subj, Term pred, Sentence asym, Sentence sym, int figure, Memory memory) {
+    static void analogy(Term subj, Term pred, Sentence asym, Sentence sym, int figure, InferenceContext ctx) {
         if (Statement.invalidStatement(subj, pred)) {
             return;
         }
         Statement st = (Statement) asym.getContent();
         TruthValue truth = null;
         BudgetValue budget;
-        Sentence sentence = memory.currentTask.getSentence();
+        Sentence sentence = ctx.currentTask.getSentence();
         CompoundTerm taskTerm = (CompoundTerm) sentence.getContent();
         if (sentence.isQuestion()) {
             if (taskTerm.isCommutative()) {
-                budget = BudgetFunctions.backwardWeak(asym.getTruth(), memory);
+                budget = BudgetFunctions.backwardWeak(asym.getTruth(), ctx);
             } else {
-                budget = BudgetFunctions.backward(sym.getTruth(), memory);
+                budget = BudgetFunctions.backward(sym.getTruth(), ctx);
             }
         } else {
             truth = TruthFunctions.analogy(asym.getTruth(), sym.getTruth());
-            budget = BudgetFunctions.forward(truth, memory);
+            budget = BudgetFunctions.forward(truth, ctx);
         }
-        Term content = Statement.make(st, subj, pred, memory);
-        memory.doublePremiseTask(content, truth, budget);
+        Term content = Statement.make(st, subj, pred, ctx.memory);
+        ctx.rule = Rule.ANALOGY;
+        ctx.doublePremiseTask(content, truth, budget);
     }
 
     /**
@@ -149,9 +151,9 @@ public final class SyllogisticRules {
      * @param belief The first premise
      * @param sentence The second premise
      * @param figure Locations of the shared term in premises
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void resemblance(Term term1, Term term2, Sentence belief, Sentence sentence, int figure, Memory memory) {
+    static void resemblance(Term term1, Term term2, Sentence belief, Sentence sentence, int figure, InferenceContext ctx) {
         if (Statement.invalidStatement(term1, term2)) {
             return;
         }
@@ -159,13 +161,14 @@ public final class SyllogisticRules {
         TruthValue truth = null;
         BudgetValue budget;
         if (sentence.isQuestion()) {
-            budget = BudgetFunctions.backward(belief.getTruth(), memory);
+            budget = BudgetFunctions.backward(belief.getTruth(), ctx);
         } else {
             truth = TruthFunctions.resemblance(belief.getTruth(), sentence.getTruth());
-            budget = BudgetFunctions.forward(truth, memory);
+            budget = BudgetFunctions.forward(truth, ctx);
         }
-        Term statement = Statement.make(st, term1, term2, memory);
-        memory.doublePremiseTask(statement, truth, budget);
+        Term statement = Statement.make(st, term1, term2, ctx.memory);
+        ctx.rule = Rule.RESEMBLANCE;
+        ctx.doublePremiseTask(statement, truth, budget);
     }
 
     /* --------------- rules used only in conditional inference --------------- */
@@ -177,9 +180,9 @@ public final class SyllogisticRules {
      * @param mainSentence The implication/equivalence premise
      * @param subSentence The premise on part of s1
      * @param side The location of s2 in s1
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void detachment(Sentence mainSentence, Sentence subSentence, int side, Memory memory) {
+    static void detachment(Sentence mainSentence, Sentence subSentence, int side, InferenceContext ctx) {
         Statement statement = (Statement) mainSentence.getContent();
         if (!(statement instanceof Implication) && !(statement instanceof Equivalence)) {
             return;
@@ -198,8 +201,8 @@ public final class SyllogisticRules {
         if ((content instanceof Statement) && ((Statement) content).invalid()) {
             return;
         }
-        Sentence taskSentence = memory.currentTask.getSentence();
-        Sentence beliefSentence = memory.currentBelief;
+        Sentence taskSentence = ctx.currentTask.getSentence();
+        Sentence beliefSentence = ctx.currentBelief;
         TruthValue beliefTruth = beliefSentence.getTruth();
         TruthValue truth1 = mainSentence.getTruth();
         TruthValue truth2 = subSentence.getTruth();
@@ -207,11 +210,11 @@ public final class SyllogisticRules {
         BudgetValue budget;
         if (taskSentence.isQuestion()) {
             if (statement instanceof Equivalence) {
-                budget = BudgetFunctions.backward(beliefTruth, memory);
+                budget = BudgetFunctions.backward(beliefTruth, ctx);
             } else if (side == 0) {
-                budget = BudgetFunctions.backwardWeak(beliefTruth, memory);
+                budget = BudgetFunctions.backwardWeak(beliefTruth, ctx);
             } else {
-                budget = BudgetFunctions.backward(beliefTruth, memory);
+                budget = BudgetFunctions.backward(beliefTruth, ctx);
             }
         } else {
             if (statement instanceof Equivalence) {
@@ -221,9 +224,10 @@ public final class SyllogisticRules {
             } else {
                 truth = TruthFunctions.abduction(truth2, truth1);
             }
-            budget = BudgetFunctions.forward(truth, memory);
+            budget = BudgetFunctions.forward(truth, ctx);
         }
-        memory.doublePremiseTask(content, truth, budget);
+        ctx.rule = Rule.DETACHMENT;
+        ctx.doublePremiseTask(content, truth, budget);
     }
 
     /**
@@ -237,12 +241,12 @@ public final class SyllogisticRules {
      * condition of premise1
      * @param side The location of the shared term in premise2: 0 for subject, 1
      * for predicate, -1 for the whole term
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void conditionalDedInd(Implication premise1, short index, Term premise2, int side, Memory memory) {
-        Task task = memory.currentTask;
+    static void conditionalDedInd(Implication premise1, short index, Term premise2, int side, InferenceContext ctx) {
+        Task task = ctx.currentTask;
         Sentence taskSentence = task.getSentence();
-        Sentence belief = memory.currentBelief;
+        Sentence belief = ctx.currentBelief;
         boolean deduction = (side != 0);
         boolean conditionalTask = Variable.hasSubstitute(Symbols.VAR_INDEPENDENT, premise2, belief.getContent());
         Term commonComponent;
@@ -279,11 +283,11 @@ public final class SyllogisticRules {
         if (oldCondition.equals(commonComponent)) {
             newCondition = null;
         } else {
-            newCondition = CompoundTerm.setComponent(oldCondition, index, newComponent, memory);
+            newCondition = CompoundTerm.setComponent(oldCondition, index, newComponent, ctx.memory);
         }
         Term content;
         if (newCondition != null) {
-            content = Statement.make(premise1, newCondition, premise1.getPredicate(), memory);
+            content = Statement.make(premise1, newCondition, premise1.getPredicate(), ctx.memory);
         } else {
             content = premise1.getPredicate();
         }
@@ -295,7 +299,7 @@ public final class SyllogisticRules {
         TruthValue truth = null;
         BudgetValue budget;
         if (taskSentence.isQuestion()) {
-            budget = BudgetFunctions.backwardWeak(truth2, memory);
+            budget = BudgetFunctions.backwardWeak(truth2, ctx);
         } else {
             if (deduction) {
                 truth = TruthFunctions.deduction(truth1, truth2);
@@ -304,9 +308,10 @@ public final class SyllogisticRules {
             } else {
                 truth = TruthFunctions.induction(truth1, truth2);
             }
-            budget = BudgetFunctions.forward(truth, memory);
+            budget = BudgetFunctions.forward(truth, ctx);
         }
-        memory.doublePremiseTask(content, truth, budget);
+        ctx.rule = Rule.CONDITIONAL_DED_IND;
+        ctx.doublePremiseTask(content, truth, budget);
     }
 
     /**
@@ -318,12 +323,12 @@ public final class SyllogisticRules {
      * condition of premise1
      * @param side The location of the shared term in premise2: 0 for subject, 1
      * for predicate, -1 for the whole term
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void conditionalAna(Equivalence premise1, short index, Term premise2, int side, Memory memory) {
-        Task task = memory.currentTask;
+    static void conditionalAna(Equivalence premise1, short index, Term premise2, int side, InferenceContext ctx) {
+        Task task = ctx.currentTask;
         Sentence taskSentence = task.getSentence();
-        Sentence belief = memory.currentBelief;
+        Sentence belief = ctx.currentBelief;
         boolean conditionalTask = Variable.hasSubstitute(Symbols.VAR_INDEPENDENT, premise2, belief.getContent());
         Term commonComponent;
         Term newComponent = null;
@@ -353,11 +358,11 @@ public final class SyllogisticRules {
         if (oldCondition.equals(commonComponent)) {
             newCondition = null;
         } else {
-            newCondition = CompoundTerm.setComponent(oldCondition, index, newComponent, memory);
+            newCondition = CompoundTerm.setComponent(oldCondition, index, newComponent, ctx.memory);
         }
         Term content;
         if (newCondition != null) {
-            content = Statement.make(premise1, newCondition, premise1.getPredicate(), memory);
+            content = Statement.make(premise1, newCondition, premise1.getPredicate(), ctx.memory);
         } else {
             content = premise1.getPredicate();
         }
@@ -369,16 +374,17 @@ public final class SyllogisticRules {
         TruthValue truth = null;
         BudgetValue budget;
         if (taskSentence.isQuestion()) {
-            budget = BudgetFunctions.backwardWeak(truth2, memory);
+            budget = BudgetFunctions.backwardWeak(truth2, ctx);
         } else {
             if (conditionalTask) {
                 truth = TruthFunctions.comparison(truth1, truth2);
             } else {
                 truth = TruthFunctions.analogy(truth1, truth2);
             }
-            budget = BudgetFunctions.forward(truth, memory);
+            budget = BudgetFunctions.forward(truth, ctx);
         }
-        memory.doublePremiseTask(content, truth, budget);
+        ctx.rule = Rule.CONDITIONAL_ANA;
+        ctx.doublePremiseTask(content, truth, budget);
     }
 
     /**
@@ -388,10 +394,10 @@ public final class SyllogisticRules {
      * @param cond2 The condition of the second premise
      * @param taskContent The first premise
      * @param st2 The second premise
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      * @return Whether there are derived tasks
      */
-    static boolean conditionalAbd(Term cond1, Term cond2, Statement st1, Statement st2, Memory memory) {
+    static boolean conditionalAbd(Term cond1, Term cond2, Statement st1, Statement st2, InferenceContext ctx) {
         if (!(st1 instanceof Implication) || !(st2 instanceof Implication)) {
             return false;
         }
@@ -402,50 +408,51 @@ public final class SyllogisticRules {
         Term term2 = null;
 //        if ((cond1 instanceof Conjunction) && !Variable.containVarDep(cond1.getName())) {
         if (cond1 instanceof Conjunction) {
-            term1 = CompoundTerm.reduceComponents((Conjunction) cond1, cond2, memory);
+            term1 = CompoundTerm.reduceComponents((Conjunction) cond1, cond2, ctx.memory);
         }
 //        if ((cond2 instanceof Conjunction) && !Variable.containVarDep(cond2.getName())) {
         if (cond2 instanceof Conjunction) {
-            term2 = CompoundTerm.reduceComponents((Conjunction) cond2, cond1, memory);
+            term2 = CompoundTerm.reduceComponents((Conjunction) cond2, cond1, ctx.memory);
         }
         if ((term1 == null) && (term2 == null)) {
             return false;
         }
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
-        Sentence belief = memory.currentBelief;
+        Sentence belief = ctx.currentBelief;
         TruthValue value1 = sentence.getTruth();
         TruthValue value2 = belief.getTruth();
         Term content;
         TruthValue truth = null;
         BudgetValue budget;
+        ctx.rule = Rule.CONDITIONAL_ABD;
         if (term1 != null) {
             if (term2 != null) {
-                content = Statement.make(st2, term2, term1, memory);
+                content = Statement.make(st2, term2, term1, ctx.memory);
             } else {
                 content = term1;
             }
             if (sentence.isQuestion()) {
-                budget = BudgetFunctions.backwardWeak(value2, memory);
+                budget = BudgetFunctions.backwardWeak(value2, ctx);
             } else {
                 truth = TruthFunctions.abduction(value2, value1);
-                budget = BudgetFunctions.forward(truth, memory);
+                budget = BudgetFunctions.forward(truth, ctx);
             }
-            memory.doublePremiseTask(content, truth, budget);
+            ctx.doublePremiseTask(content, truth, budget);
         }
         if (term2 != null) {
             if (term1 != null) {
-                content = Statement.make(st1, term1, term2, memory);
+                content = Statement.make(st1, term1, term2, ctx.memory);
             } else {
                 content = term2;
             }
             if (sentence.isQuestion()) {
-                budget = BudgetFunctions.backwardWeak(value2, memory);
+                budget = BudgetFunctions.backwardWeak(value2, ctx);
             } else {
                 truth = TruthFunctions.abduction(value1, value2);
-                budget = BudgetFunctions.forward(truth, memory);
+                budget = BudgetFunctions.forward(truth, ctx);
             }
-            memory.doublePremiseTask(content, truth, budget);
+            ctx.doublePremiseTask(content, truth, budget);
         }
         return true;
     }
@@ -456,26 +463,27 @@ public final class SyllogisticRules {
      * @param compound The compound term to be decomposed
      * @param component The part of the compound to be removed
      * @param compoundTask Whether the compound comes from the task
-     * @param memory Reference to the memory
+     * @param ctx Reference to the inference context
      */
-    static void elimiVarDep(CompoundTerm compound, Term component, boolean compoundTask, Memory memory) {
-        Term content = CompoundTerm.reduceComponents(compound, component, memory);
+    static void elimiVarDep(CompoundTerm compound, Term component, boolean compoundTask, InferenceContext ctx) {
+        Term content = CompoundTerm.reduceComponents(compound, component, ctx.memory);
         if ((content == null) || ((content instanceof Statement) && ((Statement)content).invalid())) {
             return;
         }                
-        Task task = memory.currentTask;
+        Task task = ctx.currentTask;
         Sentence sentence = task.getSentence();
-        Sentence belief = memory.currentBelief;
+        Sentence belief = ctx.currentBelief;
         TruthValue v1 = sentence.getTruth();
         TruthValue v2 = belief.getTruth();
         TruthValue truth = null;
         BudgetValue budget;
         if (sentence.isQuestion()) {
-            budget = (compoundTask ? BudgetFunctions.backward(v2, memory) : BudgetFunctions.backwardWeak(v2, memory));
+            budget = (compoundTask ? BudgetFunctions.backward(v2, ctx) : BudgetFunctions.backwardWeak(v2, ctx));
         } else {
             truth = (compoundTask ? TruthFunctions.anonymousAnalogy(v1, v2) : TruthFunctions.anonymousAnalogy(v2, v1));
-            budget = BudgetFunctions.compoundForward(truth, content, memory);
+            budget = BudgetFunctions.compoundForward(truth, content, ctx);
         }
-        memory.doublePremiseTask(content, truth, budget);
+        ctx.rule = Rule.ELIMI_VAR_DEP;
+        ctx.doublePremiseTask(content, truth, budget);
     }
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import nars.core.NAR;
+import nars.entity.Task;
+import nars.io.Output.OUT;
+import nars.storage.Memory;
+
+/**
+ * Loads a stream of Narsese statements into the memory at once, instead of
+ * one line per cycle as {@link TextInput} does.
+ * <p>
+ * The lines are read in chunks. The lines of a chunk are parsed in parallel,
+ * as parsing only reads the memory, then their tasks are input in the order
+ * of the lines and processed into concepts, as at the start of a working
+ * cycle. Only Narsese is accepted: comments and blank lines are skipped, and
+ * other lines, including commands, are counted as rejected.
+ * <p>
+ * Called between runs of the reasoner, not while it runs on another thread.
+ * When parsed on several threads, the serial numbers of the input stamps
+ * follow the parsing order rather than the line order.
+ *
+ * @author me
+ */
+public class BulkInput {
+
+    /** Default number of lines parsed and input together */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    /**
+     * Counts and timing of a load
+     */
+    public static class Result {
+
+        /** Statements input */
+        public final long statements;
+        /** Lines that are neither Narsese, comments nor blank */
+        public final long rejected;
+        /** Duration of the load */
+        public final long nanos;
+
+        Result(final long statements, final long rejected, final long nanos) {
+            this.statements = statements;
+            this.rejected = rejected;
+            this.nanos = nanos;
+        }
+
+        public double getStatementsPerSecond() {
+            return (nanos == 0) ? 0 : statements * 1.0e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Loaded " + statements + " statements (" + rejected + " rejected) in "
+                    + (nanos / 1000000) + " ms: " + Math.round(getStatementsPerSecond()) + " statements/sec";
+        }
+    }
+
+    private final NAR nar;
+    private final int threads;
+    private final int chunkSize;
+
+    /**
+     * Parse on as many threads as there are processors
+     *
+     * @param nar The reasoner to load into
+     */
+    public BulkInput(final NAR nar) {
+        this(nar, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param nar The reasoner to load into
+     * @param threads The number of parsing threads
+     * @param chunkSize The number of lines parsed and input together
+     */
+    public BulkInput(final NAR nar, final int threads, final int chunkSize) {
+        this.nar = nar;
+        this.threads = Math.max(1, threads);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Load all the statements of a stream, and report the throughput on the
+     * output channels
+     *
+     * @param input The Narsese lines
+     * @return The counts and timing of the load
+     * @throws IOException if the stream cannot be read
+     */
+    public Result load(final Reader input) throws IOException {
+        final long start = System.nanoTime();
+        final BufferedReader reader = (input instanceof BufferedReader) ? (BufferedReader) input : new BufferedReader(input);
+        final ExecutorService executor = (threads > 1) ? Executors.newFixedThreadPool(threads) : null;
+        long statements = 0;
+        long rejected = 0;
+        try {
+            final List<String> lines = new ArrayList<>(chunkSize);
+            while (true) {
+                lines.clear();
+                String line;
+                while ((lines.size() < chunkSize) && ((line = reader.readLine()) != null)) {
+                    line = line.trim();
+                    if (!line.isEmpty() && (line.charAt(0) != Symbols.COMMENT_MARK)) {
+                        lines.add(line);
+                    }
+                }
+                if (lines.isEmpty()) {
+                    break;
+                }
+                final Task[] tasks = parse(lines, executor);
+                final Memory memory = nar.memory;
+                for (final Task task : tasks) {
+                    if (task != null) {
+                        memory.inputTask(task);
+                        statements++;
+                    } else {
+                        rejected++;
+                    }
+                }
+                memory.processNewTask();
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        final Result result = new Result(statements, rejected, System.nanoTime() - start);
+        nar.output(OUT.class, result);
+        return result;
+    }
+
+    /**
+     * Parse a chunk of lines, split in one slice per thread
+     *
+     * @return The task of each line, null for a line that is not Narsese
+     */
+    private Task[] parse(final List<String> lines, final ExecutorService executor) {
+        final Task[] tasks = new Task[lines.size()];
+        final long time = nar.getTime();
+        if (executor == null) {
+            parse(lines, tasks, 0, tasks.length, time);
+            return tasks;
+        }
+        final int slice = (tasks.length + threads - 1) / threads;
+        final List<Callable<Object>> slices = new ArrayList<>(threads);
+        for (int from = 0; from < tasks.length; from += slice) {
+            final int start = from;
+            final int end = Math.min(from + slice, tasks.length);
+            slices.add(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    parse(lines, tasks, start, end, time);
+                    return null;
+                }
+            });
+        }
+        try {
+            for (final Future<Object> f : executor.invokeAll(slices)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return tasks;
+    }
+
+    private void parse(final List<String> lines, final Task[] tasks, final int from, final int to, final long time) {
+        for (int i = from; i < to; i++) {
+            try {
+                tasks[i] = TextInput.parseNarsese(new StringBuffer(lines.get(i)), nar.memory, time);
+            } catch (TextInput.InvalidInputException | RuntimeException e) {
+                tasks[i] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import nars.entity.Concept;
+import nars.language.Term;
+import nars.storage.Bag;
+import nars.storage.Memory;
+import nars.storage.NameTable;
+
+/**
+ * Cold tier of the concepts of a memory: the concepts dropped by the full
+ * concept bag are written here, and taken back into the bag when their term
+ * is used again, by {@link Memory#termToConcept} and
+ * {@link Memory#getConcept}.
+ * <p>
+ * Each concept is one record, in the format of {@link MemorySnapshot}, found
+ * by the name of its term through its fingerprint. The records are appended to a
+ * file mapped in regions of a fixed size, none of them across two regions. A
+ * record is dead once its concept is reloaded; a region whose records are all
+ * dead is written again from its start, so that the file grows with the
+ * number of concepts kept rather than with the number that go through it. A
+ * concept whose record is larger than a region is lost, as it would be
+ * without the store.
+ * <p>
+ * The file is a temporary one, deleted when the store is closed, with the
+ * memory by {@link Memory#close()}, or at exit.
+ * The tasks and terms shared by several concepts are written with each of
+ * them, and no longer shared once reloaded.
+ *
+ * @author me
+ */
+public final class ConceptStore implements Bag.Overflow<Concept>, Closeable {
+
+    /** Size of the mapped regions of the file, 64 MB */
+    public static final int DEFAULT_REGION_SIZE = 1 << 26;
+
+    private final Memory memory;
+    private final File file;
+    private final RandomAccessFile raf;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    /** number of live records in each region */
+    private int[] live = new int[4];
+    /** regions whose records are all dead, to be written again */
+    private final Deque<Integer> freeRegions = new ArrayDeque<>();
+    /** region the records are appended to, -1 before the first */
+    private int current = -1;
+    /** the place of the record of a concept, by the name of its term */
+    private static final class Place {
+
+        final String name;
+        /** the region in the high 32 bits, the offset in the low 32 bits */
+        final long place;
+
+        Place(final String name, final long place) {
+            this.name = name;
+            this.place = place;
+        }
+    }
+
+    private final NameTable<Place> index = new NameTable<Place>(1024, Bag.LOAD_FACTOR) {
+        @Override
+        protected String keyOf(final Place p) {
+            return p.name;
+        }
+    };
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(4096);
+    private final DataOutputStream out = new DataOutputStream(record);
+    /** number of concepts dropped without a record */
+    private long lost;
+
+    /**
+     * Create a store in a new temporary file
+     *
+     * @param memory The memory of the concepts
+     * @param directory The directory of the file, null for the default
+     * temporary directory
+     * @param regionSize The size of the mapped regions of the file
+     * @throws IOException if the file cannot be created
+     */
+    public ConceptStore(final Memory memory, final File directory, final int regionSize) throws IOException {
+        this.memory = memory;
+        this.regionSize = regionSize;
+        file = File.createTempFile("concepts", ".store", directory);
+        file.deleteOnExit();
+        raf = new RandomAccessFile(file, "rw");
+    }
+
+    /**
+     * Write a concept dropped by the concept bag
+     *
+     * @param c The concept, out of the bag
+     */
+    @Override
+    public synchronized void overflow(final Concept c) {
+        record.reset();
+        try {
+            MemorySnapshot.writeConcept(c, out);
+            out.flush();
+            final int length = record.size();
+            if (length + 4 > regionSize) {
+                lost++;
+                return;
+            }
+            if ((current < 0) || (regions.get(current).remaining() < length + 4)) {
+                nextRegion();
+            }
+            final MappedByteBuffer region = regions.get(current);
+            final long place = ((long) current << 32) | region.position();
+            region.putInt(length);
+            region.put(record.toByteArray(), 0, length);
+            live[current]++;
+            final Place old = index.put(c.getKeyHash(), new Place(c.getKey(), place));
+            if (old != null) {          // a copy of the concept was written before
+                release(old.place);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot write the concept store " + file, e);
+        }
+    }
+
+    private void nextRegion() throws IOException {
+        final Integer free = freeRegions.poll();
+        if (free != null) {
+            current = free;
+            regions.get(current).clear();
+            return;
+        }
+        current = regions.size();
+        regions.add(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) current * regionSize, regionSize));
+        if (current == live.length) {
+            live = Arrays.copyOf(live, current * 2);
+        }
+    }
+
+    /**
+     * Count a record as dead, and free its region when no record in it is
+     * alive
+     */
+    private void release(final long place) {
+        final int region = (int) (place >>> 32);
+        if (--live[region] == 0) {
+            if (region == current) {
+                regions.get(region).clear();
+            } else {
+                freeRegions.add(region);
+            }
+        }
+    }
+
+    /**
+     * Take a concept out of the store
+     *
+     * @param term The term of the concept
+     * @return The concept, not yet in the concept bag, or null if it is not in
+     * the store
+     */
+    public synchronized Concept reload(final Term term) {
+        final Place p = index.remove(term.getNameHash(), term.getName());
+        if (p == null) {
+            return null;
+        }
+        final long place = p.place;
+        final ByteBuffer b = regions.get((int) (place >>> 32)).duplicate();
+        b.position((int) place);
+        final int length = b.getInt();
+        b.limit(b.position() + length);
+        final Concept c;
+        try {
+            c = MemorySnapshot.readConcept(memory, b);
+            if (!c.getKey().equals(term.getName())) {
+                throw new IOException("record of " + c.getKey() + " found for " + term);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("corrupt concept store " + file, e);
+        } finally {
+            release(place);
+        }
+        return c;
+    }
+
+    /**
+     * @param term The term of a concept
+     * @return Whether the concept is in the store
+     */
+    public synchronized boolean contains(final Term term) {
+        return index.get(term.getNameHash(), term.getName()) != null;
+    }
+
+    /**
+     * @return The number of concepts in the store
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * @return The number of concepts dropped because their record is larger
+     * than a region
+     */
+    public synchronized long getLost() {
+        return lost;
+    }
+
+    /**
+     * @return The size of the file, in bytes
+     */
+    public synchronized long getFileSize() {
+        return (long) regions.size() * regionSize;
+    }
+
+    /**
+     * @return The file of the records
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Forget all concepts, keeping the file to write them again
+     */
+    public synchronized void clear() {
+        index.clear();
+        freeRegions.clear();
+        for (int i = 0; i < regions.size(); i++) {
+            live[i] = 0;
+            freeRegions.add(i);
+        }
+        current = -1;
+        lost = 0;
+    }
+
+    /**
+     * Close and delete the file
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        clear();
+        regions.clear();
+        freeRegions.clear();
+        raf.close();
+        file.delete();
+    }
+}
@@ -0,0 +1,556 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import nars.entity.BudgetValue;
+import nars.entity.DerivationChain;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.Task;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+import nars.entity.TruthValue;
+import nars.language.Term;
+import nars.storage.Memory;
+
+/**
+ * Log of the steps of the inference, in a compact binary file: the events the
+ * inference recorder is shown as text, kept when
+ * {@link nars.core.Parameters#getEventLog()} is set, see
+ * {@link Memory#trace}.
+ * <p>
+ * An event is a fixed set of primitive fields, written by the threads of the
+ * inference into a preallocated ring of slots, with the name of its term and
+ * the parts of its stamp: the creation time, the evidential base and the
+ * derivation chain, read as the event is logged so that a term or stamp
+ * changed afterwards is logged as it was. A background thread drains the ring
+ * in order to the file, formatting the stamps there rather than on the
+ * threads of the inference; the names and stamps are written once, each in a
+ * name record that gives it a number, and the events refer to them by
+ * number. An event
+ * that finds the ring full is dropped rather than waited for, and the number
+ * dropped is logged as a {@link #LOST} event.
+ * <p>
+ * The log of a memory is closed with it, see {@link Memory#close()}.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, followed by
+ * records starting with their type byte: 0 for a name, followed by its
+ * number and the UTF form of the name, or an event type, followed by the
+ * cycle, the numbers of the term and stamp (-1 for none), the punctuation,
+ * the truth value packed by {@link TruthValue#getPacked()} (-1 for none) and
+ * the budget packed by {@link BudgetValue#getPacked()}, 35 bytes in all.
+ * The numbers start again from 0 when too many names are known, a name
+ * record replacing the name of its number.
+ * <p>
+ * The file is rendered in the text of the inference recorder by
+ * {@link #main(String[])}; the parent tasks of a task and the link types of
+ * a link are not logged, and are missing from that text.
+ *
+ * @author me
+ */
+public final class EventLog implements Closeable {
+
+    public static final int MAGIC = 0x4e415253;     // "NARS"
+    public static final byte VERSION = 1;
+
+    /** Number of events the ring holds, 64K */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    /** Most names numbered before the numbers start again */
+    private static final int MAX_NAMES = 1 << 16;
+    /** Longest name written, in chars, so that its UTF form fits a record */
+    private static final int MAX_NAME_LENGTH = 0xffff / 3;
+
+    /** Types of events */
+    public static final byte RESET = 1;
+    public static final byte CYCLE = 2;
+    public static final byte PERCEIVED = 3;
+    public static final byte NEGLECTED = 4;
+    public static final byte ACTIVATED = 5;
+    public static final byte IGNORED_CONFIDENCE = 6;
+    public static final byte CYCLIC = 7;
+    public static final byte OVERLAPPING_EVIDENCE = 8;
+    public static final byte DERIVED = 9;
+    public static final byte IGNORED = 10;
+    public static final byte INSERT = 11;
+    public static final byte SELECTED_CONCEPT = 12;
+    public static final byte SELECTED_BELIEF = 13;
+    public static final byte SELECTED_TASK_LINK = 14;
+    public static final byte SELECTED_TERM_LINK = 15;
+    /** Events dropped when the ring was full, their number in the cycle field */
+    public static final byte LOST = 16;
+    private static final byte NAME = 0;
+    private static final String[] LABELS = {null, "--reset--", " --- ",
+        "!!! Perceived: ", "!!! Neglected: ", "!!! Activated: ",
+        "!!! Ignored (confidence): ", "!!! Cyclic Reasoning detected: ",
+        "!!! Overlapping Evidence on Revision detected: ", "!!! Derived: ",
+        "!!! Ignored: ", "!!! Insert: ", " * Selected Concept: ",
+        " * Selected Belief: ", " * Selected TaskLink: ", " * Selected TermLink: ",
+        "!!! Lost: "};
+
+    private static final int NO_TRUTH = -1;
+
+    private final File file;
+    private final DataOutputStream out;
+
+    /* ---------- the ring, one array per field ---------- */
+    private final int mask;
+    private final byte[] types;
+    private final long[] cycles;
+    private final String[] terms;
+    /** the evidential base of the stamp, null for none */
+    private final long[][] bases;
+    private final int[] baseLengths;
+    private final long[] creationTimes;
+    private final DerivationChain[] chains;
+    private final char[] punctuations;
+    private final int[] truths;
+    private final long[] budgets;
+    /** the sequence number of the event in each slot, once written */
+    private final AtomicLongArray published;
+    /** the sequence number of the next event */
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    /** the sequence number of the next event to drain */
+    private volatile long drained;
+    /** the events before this one are in the file */
+    private volatile long written;
+    /** the events before this one are to be in the file, for {@link #flush()} */
+    private final AtomicLong flushTo = new AtomicLong();
+    private volatile boolean closed;
+
+    /* ---------- owned by the drainer ---------- */
+    private final Thread drainer;
+    private final HashMap<String, Integer> names = new HashMap<>();
+    private long droppedLogged;
+    private IOException failure;
+
+    /**
+     * Create the log, and start draining it
+     *
+     * @param file The file written, replaced if it exists
+     * @param capacity The number of events the ring holds, rounded up to a
+     * power of two
+     * @throws IOException If the file cannot be written
+     */
+    public EventLog(final File file, final int capacity) throws IOException {
+        this.file = file;
+        final int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        mask = size - 1;
+        types = new byte[size];
+        cycles = new long[size];
+        terms = new String[size];
+        bases = new long[size][];
+        baseLengths = new int[size];
+        creationTimes = new long[size];
+        chains = new DerivationChain[size];
+        punctuations = new char[size];
+        truths = new int[size];
+        budgets = new long[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        drainer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "EventLog " + file.getName());
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * @return The file written
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return The number of events dropped because the ring was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /* ---------- logging, on the threads of the inference ---------- */
+    /**
+     * Log an event of a task: its budget and its sentence
+     *
+     * @param type The type of the event
+     * @param cycle The current time
+     * @param task The task
+     */
+    public void task(final byte type, final long cycle, final Task task) {
+        final Sentence s = task.getSentence();
+        if (s == null) {
+            append(type, cycle, null, null, (char) 0, NO_TRUTH, task.getBudget().getPacked());
+        } else {
+            append(type, cycle, s.getContent(), s.getStamp(), s.getPunctuation(), truth(s), task.getBudget().getPacked());
+        }
+    }
+
+    /**
+     * Log an event of a sentence
+     *
+     * @param type The type of the event
+     * @param cycle The current time
+     * @param sentence The sentence
+     */
+    public void sentence(final byte type, final long cycle, final Sentence sentence) {
+        append(type, cycle, sentence.getContent(), sentence.getStamp(), sentence.getPunctuation(), truth(sentence), 0);
+    }
+
+    /**
+     * Log an event of a link: its budget and the sentence of the task of a
+     * TaskLink, or the target of a TermLink
+     *
+     * @param type The type of the event
+     * @param cycle The current time
+     * @param link The link
+     */
+    public void link(final byte type, final long cycle, final TermLink link) {
+        if (link instanceof TaskLink) {
+            final Sentence s = ((TaskLink) link).getTargetTask().getSentence();
+            append(type, cycle, s.getContent(), s.getStamp(), s.getPunctuation(), truth(s), link.getBudget().getPacked());
+        } else {
+            append(type, cycle, link.getTarget(), null, (char) 0, NO_TRUTH, link.getBudget().getPacked());
+        }
+    }
+
+    /**
+     * Log an event of a term
+     *
+     * @param type The type of the event
+     * @param cycle The current time
+     * @param term The term, or null
+     */
+    public void term(final byte type, final long cycle, final Term term) {
+        append(type, cycle, term, null, (char) 0, NO_TRUTH, 0);
+    }
+
+    private static int truth(final Sentence s) {
+        final TruthValue truth = s.getTruth();
+        return (truth != null) ? truth.getPacked() : NO_TRUTH;
+    }
+
+    private void append(final byte type, final long cycle, final Term term, final Stamp stamp,
+            final char punctuation, final int truth, final long budget) {
+        long seq;
+        do {
+            if (closed) {
+                return;
+            }
+            seq = claimed.get();
+            if (seq - drained > mask) {     // full
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        final int i = (int) seq & mask;
+        types[i] = type;
+        cycles[i] = cycle;
+        terms[i] = (term != null) ? term.getName() : null;
+        if (stamp != null) {
+            bases[i] = stamp.getBase();
+            baseLengths[i] = stamp.length();
+            creationTimes[i] = stamp.getCreationTime();
+            chains[i] = stamp.shareChain();
+        } else {
+            bases[i] = null;
+        }
+        punctuations[i] = punctuation;
+        truths[i] = truth;
+        budgets[i] = budget;
+        published.lazySet(i, seq);
+    }
+
+    /* ---------- draining, on the background thread ---------- */
+    private void drain() {
+        long next = 0;
+        boolean dirty = false;
+        while (true) {
+            final int i = (int) next & mask;
+            if (published.get(i) == next) {
+                if (failure == null) {
+                    try {
+                        write(i);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                terms[i] = null;
+                bases[i] = null;
+                chains[i] = null;
+                drained = ++next;
+                dirty = true;
+                final long asked = flushTo.get();
+                if ((written < asked) && (next >= asked)) {     // flushed even while busy
+                    flushFile();
+                    written = next;
+                    dirty = false;
+                }
+            } else if (closed && (claimed.get() == next)) {
+                break;
+            } else {
+                if (dirty) {            // idle: let the file catch up
+                    flushFile();
+                    written = next;
+                    dirty = false;
+                }
+                LockSupport.parkNanos(this, 100000);
+            }
+        }
+        flushFile();
+        written = next;
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private void flushFile() {
+        if (failure != null) {
+            return;
+        }
+        try {
+            final long lost = dropped.get();
+            if (lost > droppedLogged) {
+                writeEvent(LOST, lost - droppedLogged, -1, -1, (char) 0, NO_TRUTH, 0);
+                droppedLogged = lost;
+            }
+            out.flush();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void write(final int i) throws IOException {
+        if (names.size() > MAX_NAMES - 2) {
+            names.clear();
+        }
+        final String term = terms[i];
+        final String stamp = (bases[i] != null) ? Stamp.toString(creationTimes[i], bases[i], baseLengths[i], chains[i]) : null;
+        final int termId = (term != null) ? nameId(term) : -1;
+        final int stampId = (stamp != null) ? nameId(stamp) : -1;
+        writeEvent(types[i], cycles[i], termId, stampId, punctuations[i], truths[i], budgets[i]);
+    }
+
+    private void writeEvent(final byte type, final long cycle, final int termId, final int stampId,
+            final char punctuation, final int truth, final long budget) throws IOException {
+        out.writeByte(type);
+        out.writeLong(cycle);
+        out.writeInt(termId);
+        out.writeInt(stampId);
+        out.writeChar(punctuation);
+        out.writeInt(truth);
+        out.writeLong(budget);
+    }
+
+    private int nameId(final String name) throws IOException {
+        final Integer known = names.get(name);
+        if (known != null) {
+            return known;
+        }
+        final int id = names.size();
+        names.put(name, id);
+        out.writeByte(NAME);
+        out.writeInt(id);
+        out.writeUTF((name.length() > MAX_NAME_LENGTH) ? name.substring(0, MAX_NAME_LENGTH) : name);
+        return id;
+    }
+
+    /**
+     * Wait until the events logged before the call are in the file
+     *
+     * @throws IOException If the file could not be written
+     */
+    public void flush() throws IOException {
+        final long target = claimed.get();
+        long asked;
+        while ((asked = flushTo.get()) < target) {
+            if (flushTo.compareAndSet(asked, target)) {
+                break;
+            }
+        }
+        while ((written < target) && drainer.isAlive()) {
+            LockSupport.parkNanos(this, 100000);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stop logging, write the events logged so far and close the file; the
+     * events logged afterwards are ignored
+     *
+     * @throws IOException If the file could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        boolean interrupted = false;
+        while (drainer.isAlive()) {
+            try {
+                drainer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /* ---------- rendering ---------- */
+    /**
+     * @param type The type of an event
+     * @return The text the inference recorder shows before the item of the
+     * event
+     */
+    public static String label(final byte type) {
+        return LABELS[type];
+    }
+
+    /**
+     * Render a log in the text of the inference recorder, one line per event
+     *
+     * @param in The log, read to its end
+     * @param writer Where the lines are written
+     * @throws IOException If the log cannot be read, or is not a log
+     */
+    public static void render(final InputStream in, final Writer writer) throws IOException {
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if ((data.readInt() != MAGIC) || (data.readByte() != VERSION)) {
+            throw new IOException("not an event log");
+        }
+        final List<String> known = new ArrayList<>();
+        final PrintWriter lines = new PrintWriter(writer);
+        while (true) {
+            final int type;
+            try {
+                type = data.readByte();
+            } catch (EOFException e) {
+                break;
+            }
+            if (type == NAME) {
+                final int id = data.readInt();
+                final String name = data.readUTF();
+                if (id == known.size()) {
+                    known.add(name);
+                } else {
+                    known.set(id, name);
+                }
+                continue;
+            }
+            if ((type < RESET) || (type > LOST)) {
+                throw new IOException("unknown event type " + type);
+            }
+            final long cycle = data.readLong();
+            final int termId = data.readInt();
+            final int stampId = data.readInt();
+            final char punctuation = data.readChar();
+            final int truth = data.readInt();
+            final long budget = data.readLong();
+            final String term = (termId >= 0) ? known.get(termId) : null;
+            final String stamp = (stampId >= 0) ? known.get(stampId) : null;
+            lines.println(text((byte) type, cycle, term, stamp, punctuation, truth, budget));
+        }
+        lines.flush();
+    }
+
+    private static String text(final byte type, final long cycle, final String term, final String stamp,
+            final char punctuation, final int truth, final long budget) {
+        switch (type) {
+            case RESET:
+                return LABELS[type];
+            case CYCLE:
+                return LABELS[type] + cycle + " ---";
+            case LOST:
+                return LABELS[type] + cycle + " events";
+            case SELECTED_CONCEPT:
+                return LABELS[type] + term;
+            case SELECTED_TERM_LINK:
+                return LABELS[type] + BudgetValue.toString(budget) + " " + term;
+            case SELECTED_BELIEF:
+                return LABELS[type] + key(term, punctuation, truth) + stamp;
+            default:        // as Task.toString, without the parents
+                if (term == null) {
+                    return LABELS[type] + BudgetValue.toString(budget) + " null";
+                }
+                return LABELS[type] + BudgetValue.toString(budget) + " " + key(term, punctuation, truth) + " " + stamp;
+        }
+    }
+
+    /**
+     * As Sentence.toKey
+     */
+    private static String key(final String term, final char punctuation, final int truth) {
+        final StringBuilder k = new StringBuilder(term.length() + 16).append(term).append(punctuation).append(' ');
+        if (truth != NO_TRUTH) {
+            k.append(TruthValue.toStringBrief(truth));
+        }
+        return k.toString();
+    }
+
+    /**
+     * Print a log file in the text of the inference recorder
+     *
+     * @param args The name of the file
+     * @throws IOException If the file cannot be read
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: java nars.io.EventLog <file>");
+            System.exit(1);
+        }
+        try (InputStream in = new FileInputStream(args[0])) {
+            render(in, new PrintWriter(System.out));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.io;
+
+/**
+ * The interfaces of reactive streams, with the names and methods of
+ * java.util.concurrent.Flow, which is not in Java 7: a publisher sends items
+ * to each of its subscribers no faster than the subscriber asks for them
+ * through its subscription.
+ *
+ * @author me
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * A source of items
+     *
+     * @param <T> The type of the items
+     */
+    public static interface Publisher<T> {
+
+        /**
+         * Add a subscriber, which is then given its subscription with
+         * {@link Subscriber#onSubscribe}, or an error with
+         * {@link Subscriber#onError} if it cannot subscribe
+         *
+         * @param subscriber The subscriber
+         */
+        public void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items; its methods are called one at a time
+     *
+     * @param <T> The type of the items
+     */
+    public static interface Subscriber<T> {
+
+        /**
+         * Called first, before any other method
+         *
+         * @param subscription The subscription, through which items are asked for
+         */
+        public void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with each item asked for
+         *
+         * @param item The item
+         */
+        public void onNext(T item);
+
+        /**
+         * Called last when the subscription fails, after which nothing is sent
+         *
+         * @param throwable The failure
+         */
+        public void onError(Throwable throwable);
+
+        /**
+         * Called last when the publisher has no more items
+         */
+        public void onComplete();
+    }
+
+    /**
+     * The link between a publisher and a subscriber
+     */
+    public static interface Subscription {
+
+        /**
+         * Ask for more items
+         *
+         * @param n The number of items, added to those asked for before; not
+         * positive is an error
+         */
+        public void request(long n);
+
+        /**
+         * Stop receiving items, eventually
+         */
+        public void cancel();
+    }
+}
@@ -0,0 +1,684 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import nars.entity.BudgetValue;
+import nars.entity.Concept;
+import nars.entity.DerivationChain;
+import nars.entity.Item;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.Task;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+import nars.entity.TruthValue;
+import nars.language.Term;
+import nars.storage.Bag;
+import nars.storage.Memory;
+
+/**
+ * Binary snapshot of the whole state of a Memory: the concepts with their
+ * beliefs, questions, TaskLinks and TermLinks, the novel tasks and the new
+ * task buffer, the forgetting rates, the clock and the serial counter of the
+ * stamps.
+ * <p>
+ * The snapshot is written as one stream and read through a memory-mapped
+ * file. The bags are written level by level, from the highest, and the items
+ * are put back in the same order. A Term, derivation chain, Stamp, Sentence
+ * or Task shared by several items is written once, at its first use, and
+ * referred to by number afterwards, so the restored items share it again.
+ * Terms are saved by name and parsed when restored. Derivation chains are
+ * saved as the names and object ids of their terms: the ids of the saved
+ * terms are listed at the end, and the chains are rebuilt with the restored
+ * terms of their ids, and the names of the others.
+ * <p>
+ * Saved and restored between runs of the reasoner, not while it runs on
+ * another thread. The random number generator of the memory is not saved, nor
+ * are the concepts spilled to its {@link ConceptStore}.
+ * <p>
+ * A single concept is written and read in the same format by
+ * {@link #writeConcept} and {@link #readConcept}, for the ConceptStore.
+ *
+ * @author me
+ */
+public final class MemorySnapshot {
+
+    /** "NARS" */
+    private static final int MAGIC = 0x4E415253;
+    private static final int VERSION = 3;
+
+    /** Size of the file regions mapped at once when reading */
+    private static final int WINDOW = 1 << 26;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private MemorySnapshot() {
+    }
+
+    /**
+     * Write the state of a memory to a file
+     *
+     * @param memory The memory to save
+     * @param clock The clock of the reasoner
+     * @param file The snapshot file, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(final Memory memory, final long clock, final File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            new Writer(out).memory(memory, clock);
+        }
+    }
+
+    /**
+     * Replace the state of a memory by the one saved in a file
+     *
+     * @param memory The memory to restore, emptied first
+     * @param file The snapshot file
+     * @return The clock of the reasoner when the snapshot was saved
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static long restore(final Memory memory, final File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return new Reader(new MappedInput(raf.getChannel()), memory).memory();
+        }
+    }
+
+    /**
+     * Write one concept, with its beliefs, questions, links and the tasks
+     * they refer to, independently of any other record
+     *
+     * @param c The concept
+     * @param out The output
+     * @throws IOException if the output cannot be written
+     */
+    static void writeConcept(final Concept c, final DataOutputStream out) throws IOException {
+        final Writer w = new Writer(out);
+        w.concept(c);
+        w.objectIds();
+    }
+
+    /**
+     * Read one concept written by {@link #writeConcept}
+     *
+     * @param memory The memory of the concept
+     * @param buffer The record, from its position to its limit
+     * @return The concept, not yet in the memory
+     * @throws IOException if the record is not a concept
+     */
+    static Concept readConcept(final Memory memory, final ByteBuffer buffer) throws IOException {
+        final Reader r = new Reader(new MappedInput(buffer), memory);
+        final Concept c = r.concept();
+        r.chains();
+        return c;
+    }
+
+    /* ---------- writing ---------- */
+    /**
+     * Reference tags: 0 for null, a positive number for an object already
+     * written, and a negative one for the number of definitions that follow,
+     * the referenced object last. The objects are numbered from 1 in the order
+     * their definitions end.
+     */
+    private static final class Writer {
+
+        private final DataOutputStream out;
+        private final Map<Object, Integer> ids = new IdentityHashMap<>();
+        private final Map<String, Integer> termIds = new HashMap<>();
+        /** number of the saved term of each object id in use */
+        private final Map<Long, Integer> objectIds = new HashMap<>();
+        private int next = 1;
+
+        Writer(final DataOutputStream out) {
+            this.out = out;
+        }
+
+        void memory(final Memory memory, final long clock) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(clock);
+            out.writeLong(Stamp.getCurrentSerial());
+            out.writeInt(memory.getBeliefForgettingRate().get());
+            out.writeInt(memory.getTaskForgettingRate().get());
+            out.writeInt(memory.getConceptForgettingRate().get());
+            bag(memory.concepts);
+            bag(memory.novelTasks);
+            final List<Task> buffered = new ArrayList<>(memory.newTasks);
+            out.writeInt(buffered.size());
+            for (final Task t : buffered) {
+                task(t);
+            }
+            objectIds();
+        }
+
+        /**
+         * The saved terms of the object ids in the derivation chains written
+         */
+        void objectIds() throws IOException {
+            out.writeInt(objectIds.size());
+            for (final Map.Entry<Long, Integer> e : objectIds.entrySet()) {
+                out.writeLong(e.getKey());
+                out.writeInt(e.getValue());
+            }
+        }
+
+        private void bag(final Bag<? extends Item> bag) throws IOException {
+            out.writeInt(bag.levels);
+            for (int level = bag.levels - 1; level >= 0; level--) {
+                if (bag.emptyLevel(level)) {
+                    out.writeInt(0);
+                    continue;
+                }
+                final List<Item> items = new ArrayList<Item>(bag.getLevel(level));
+                out.writeInt(items.size());
+                for (final Item item : items) {
+                    if (item instanceof Concept) {
+                        concept((Concept) item);
+                    } else if (item instanceof TaskLink) {
+                        taskLink((TaskLink) item);
+                    } else if (item instanceof TermLink) {
+                        termLink((TermLink) item);
+                    } else {
+                        task((Task) item);
+                    }
+                }
+            }
+        }
+
+        void concept(final Concept c) throws IOException {
+            term(c.getTerm());
+            budget(c.getBudget());
+            out.writeInt(c.beliefs.size());
+            for (final Sentence s : c.beliefs) {
+                sentence(s);
+            }
+            out.writeInt(c.questions.size());
+            for (final Task t : c.questions) {
+                task(t);
+            }
+            bag(c.getTaskLinks());
+            bag(c.getTermLinks());
+        }
+
+        private void taskLink(final TaskLink l) throws IOException {
+            budget(l.getBudget());
+            out.writeShort(l.getType());
+            indices(l.getIndices());
+            task(l.getTargetTask());
+            final int count = l.getRecordCount();
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeLong(l.getRecord(i));
+            }
+        }
+
+        private void termLink(final TermLink l) throws IOException {
+            budget(l.getBudget());
+            out.writeShort(l.getType());
+            indices(l.getIndices());
+            term(l.getTarget());
+        }
+
+        private void indices(final short[] index) throws IOException {
+            if (index == null) {
+                out.writeByte(-1);
+                return;
+            }
+            out.writeByte(index.length);
+            for (final short i : index) {
+                out.writeShort(i);
+            }
+        }
+
+        private void budget(final BudgetValue b) throws IOException {
+            out.writeFloat(b.getPriority());
+            out.writeFloat(b.getDurability());
+            out.writeFloat(b.getQuality());
+            out.writeLong(b.getLastForgetTime());
+        }
+
+        private boolean written(final Object o) throws IOException {
+            if (o == null) {
+                out.writeInt(0);
+                return true;
+            }
+            final Integer id = ids.get(o);
+            if (id != null) {
+                out.writeInt(id);
+                return true;
+            }
+            return false;
+        }
+
+        private void term(final Term t) throws IOException {
+            final String name = t.getName();
+            Integer id = termIds.get(name);
+            if (id != null) {
+                out.writeInt(id);
+            } else {
+                out.writeInt(-1);
+                final byte[] bytes = name.getBytes(UTF8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                id = next++;
+                termIds.put(name, id);
+            }
+            if (t.hasObjectId()) {
+                objectIds.put(t.getObjectId(), id);
+            }
+        }
+
+        private void chain(final DerivationChain chain) throws IOException {
+            if (written(chain)) {
+                return;
+            }
+            out.writeInt(-1);
+            out.writeInt(chain.size());
+            for (int i = 0; i < chain.size(); i++) {
+                final byte[] bytes = chain.get(i).getBytes(UTF8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.writeLong(chain.getObjectId(i));
+            }
+            ids.put(chain, next++);
+        }
+
+        private void stamp(final Stamp s) throws IOException {
+            if (written(s)) {
+                return;
+            }
+            out.writeInt(-1);
+            out.writeLong(s.getCreationTime());
+            final long[] base = s.getBase();
+            out.writeInt(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                out.writeLong(base[i]);
+            }
+            out.writeBoolean(s.isOverlapping());
+            chain(s.getChain());
+            ids.put(s, next++);
+        }
+
+        private void sentence(final Sentence s) throws IOException {
+            if (written(s)) {
+                return;
+            }
+            out.writeInt(-1);
+            term(s.getContent());
+            out.writeChar(s.getPunctuation());
+            final TruthValue truth = s.getTruth();
+            out.writeBoolean(truth != null);
+            if (truth != null) {
+                out.writeFloat(truth.getFrequency());
+                out.writeFloat(truth.getConfidence());
+                out.writeBoolean(truth.getAnalytic());
+            }
+            stamp(s.getStamp());
+            out.writeBoolean(s.getRevisible());
+            ids.put(s, next++);
+        }
+
+        /**
+         * The parents not written yet are defined before the task, oldest
+         * first, without recursion along long derivations
+         */
+        private void task(final Task t) throws IOException {
+            if (written(t)) {
+                return;
+            }
+            final List<Task> unwritten = new ArrayList<>();
+            for (Task p = t; (p != null) && !ids.containsKey(p); p = p.getParentTask()) {
+                unwritten.add(p);
+            }
+            out.writeInt(-unwritten.size());
+            for (int i = unwritten.size() - 1; i >= 0; i--) {
+                final Task u = unwritten.get(i);
+                sentence(u.getSentence());
+                budget(u.getBudget());
+                written(u.getParentTask());
+                sentence(u.getParentBelief());
+                sentence(u.getBestSolution());
+                ids.put(u, next++);
+            }
+        }
+    }
+
+    /* ---------- reading ---------- */
+    private static final class Reader {
+
+        private final MappedInput in;
+        private final Memory memory;
+        private final List<Object> objects = new ArrayList<>();
+        /** the chains read, and the saved names and object ids of their terms */
+        private final List<DerivationChain> chains = new ArrayList<>();
+        private final List<String[]> chainNames = new ArrayList<>();
+        private final List<long[]> chainIds = new ArrayList<>();
+
+        Reader(final MappedInput in, final Memory memory) {
+            this.in = in;
+            this.memory = memory;
+        }
+
+        long memory() throws IOException {
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) {
+                throw new IOException("not a memory snapshot");
+            }
+            final long clock = in.readLong();
+            final long serial = in.readLong();
+            memory.init();
+            memory.getBeliefForgettingRate().set(in.readInt());
+            memory.getTaskForgettingRate().set(in.readInt());
+            memory.getConceptForgettingRate().set(in.readInt());
+            bag(memory.concepts, Concept.class);
+            bag(memory.novelTasks, Task.class);
+            for (int n = in.readInt(); n > 0; n--) {
+                memory.newTasks.add(task());
+            }
+            chains();
+            Stamp.setCurrentSerial(serial);
+            return clock;
+        }
+
+        /**
+         * Rebuild the derivation chains read, with the restored terms of
+         * their object ids, and the names of the terms not saved
+         */
+        void chains() throws IOException {
+            final Map<Long, Term> terms = new HashMap<>();
+            for (int n = in.readInt(); n > 0; n--) {
+                final long id = in.readLong();
+                terms.put(id, (Term) reference(in.readInt()));
+            }
+            for (int i = 0; i < chains.size(); i++) {
+                final String[] names = chainNames.get(i);
+                final long[] ids = chainIds.get(i);
+                for (int j = 0; j < names.length; j++) {
+                    final Term t = terms.get(ids[j]);
+                    if (t != null) {
+                        chains.get(i).add(t);
+                    } else {
+                        chains.get(i).add(names[j]);
+                    }
+                }
+            }
+        }
+
+        private <E extends Item> void bag(final Bag<E> bag, final Class<E> kind) throws IOException {
+            for (int level = in.readInt(); level > 0; level--) {
+                for (int n = in.readInt(); n > 0; n--) {
+                    final Item item;
+                    if (kind == Concept.class) {
+                        item = concept();
+                    } else if (kind == TaskLink.class) {
+                        item = taskLink();
+                    } else if (kind == TermLink.class) {
+                        item = termLink();
+                    } else {
+                        item = task();
+                    }
+                    bag.putIn(kind.cast(item));
+                }
+            }
+        }
+
+        Concept concept() throws IOException {
+            final Concept c = new Concept(term(), memory);
+            final BudgetValue b = c.getBudget();
+            b.setPriority(in.readFloat());
+            b.setDurability(in.readFloat());
+            b.setQuality(in.readFloat());
+            b.setLastForgetTime(in.readLong());
+            for (int n = in.readInt(); n > 0; n--) {
+                c.beliefs.add(sentence());
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                c.questions.add(task());
+            }
+            bag(c.getTaskLinks(), TaskLink.class);
+            bag(c.getTermLinks(), TermLink.class);
+            return c;
+        }
+
+        private TaskLink taskLink() throws IOException {
+            final BudgetValue b = budget();
+            final short type = in.readShort();
+            final short[] index = indices();
+            final Task t = task();
+            final int count = in.readInt();
+            final long[] records = new long[count];
+            for (int i = 0; i < count; i++) {
+                records[i] = in.readLong();
+            }
+            return new TaskLink(t, type, index, b, records, count);
+        }
+
+        private TermLink termLink() throws IOException {
+            final BudgetValue b = budget();
+            final short type = in.readShort();
+            final short[] index = indices();
+            return new TermLink(term(), type, index, b);
+        }
+
+        private short[] indices() throws IOException {
+            final int length = in.readByte();
+            if (length < 0) {
+                return null;
+            }
+            final short[] index = new short[length];
+            for (int i = 0; i < length; i++) {
+                index[i] = in.readShort();
+            }
+            return index;
+        }
+
+        private BudgetValue budget() throws IOException {
+            final BudgetValue b = new BudgetValue(in.readFloat(), in.readFloat(), in.readFloat());
+            b.setLastForgetTime(in.readLong());
+            return b;
+        }
+
+        /**
+         * @return The object of a positive tag, or null for 0
+         */
+        private Object reference(final int tag) throws IOException {
+            if (tag > objects.size()) {
+                throw new IOException("corrupt memory snapshot: reference " + tag);
+            }
+            return (tag == 0) ? null : objects.get(tag - 1);
+        }
+
+        private Term term() throws IOException {
+            final int tag = in.readInt();
+            if (tag >= 0) {
+                return (Term) reference(tag);
+            }
+            final String name = in.readString();
+            final Term t;
+            try {
+                t = TextInput.parseTerm(name, memory);
+            } catch (TextInput.InvalidInputException e) {
+                throw new IOException("unreadable term in memory snapshot: " + name, e);
+            }
+            objects.add(t);
+            return t;
+        }
+
+        private DerivationChain chain() throws IOException {
+            final int tag = in.readInt();
+            if (tag >= 0) {
+                return (DerivationChain) reference(tag);
+            }
+            final String[] names = new String[in.readInt()];
+            final long[] ids = new long[names.length];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readString();
+                ids[i] = in.readLong();
+            }
+            final DerivationChain chain = new DerivationChain();
+            chains.add(chain);
+            chainNames.add(names);
+            chainIds.add(ids);
+            objects.add(chain);
+            return chain;
+        }
+
+        private Stamp stamp() throws IOException {
+            final int tag = in.readInt();
+            if (tag >= 0) {
+                return (Stamp) reference(tag);
+            }
+            final long time = in.readLong();
+            final long[] base = new long[in.readInt()];
+            for (int i = 0; i < base.length; i++) {
+                base[i] = in.readLong();
+            }
+            final boolean overlapping = in.readBoolean();
+            final Stamp s = new Stamp(base, overlapping, time, chain());
+            objects.add(s);
+            return s;
+        }
+
+        private Sentence sentence() throws IOException {
+            final int tag = in.readInt();
+            if (tag >= 0) {
+                return (Sentence) reference(tag);
+            }
+            final Term content = term();
+            final char punctuation = in.readChar();
+            TruthValue truth = null;
+            if (in.readBoolean()) {
+                truth = new TruthValue(in.readFloat(), in.readFloat(), in.readBoolean());
+            }
+            final Sentence s = new Sentence(content, punctuation, truth, stamp(), in.readBoolean());
+            objects.add(s);
+            return s;
+        }
+
+        private Task task() throws IOException {
+            final int tag = in.readInt();
+            if (tag >= 0) {
+                return (Task) reference(tag);
+            }
+            Task t = null;
+            for (int n = -tag; n > 0; n--) {
+                final Sentence s = sentence();
+                final BudgetValue b = budget();
+                final Task parent = (Task) reference(in.readInt());
+                final Sentence parentBelief = sentence();
+                t = new Task(s, b, parent, parentBelief, sentence());
+                objects.add(t);
+            }
+            return t;
+        }
+    }
+
+    /**
+     * Sequential reads from a file mapped region by region, so that a
+     * snapshot may be larger than one mapped buffer, or from one buffer
+     */
+    private static final class MappedInput {
+
+        private final FileChannel channel;
+        private final long size;
+        private long regionStart;
+        private ByteBuffer buffer;
+
+        MappedInput(final FileChannel channel) throws IOException {
+            this.channel = channel;
+            size = channel.size();
+            map(0, 0);
+        }
+
+        MappedInput(final ByteBuffer buffer) {
+            channel = null;
+            this.buffer = buffer.slice();
+            size = this.buffer.limit();
+        }
+
+        private void map(final long position, final int needed) throws IOException {
+            regionStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, Math.max(WINDOW, needed)));
+        }
+
+        private void ensure(final int n) throws IOException {
+            if (buffer.remaining() < n) {
+                final long position = regionStart + buffer.position();
+                if (size - position < n) {
+                    throw new EOFException("truncated memory snapshot");
+                }
+                map(position, n);
+            }
+        }
+
+        byte readByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        boolean readBoolean() throws IOException {
+            return readByte() != 0;
+        }
+
+        short readShort() throws IOException {
+            ensure(2);
+            return buffer.getShort();
+        }
+
+        char readChar() throws IOException {
+            ensure(2);
+            return buffer.getChar();
+        }
+
+        int readInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            ensure(8);
+            return buffer.getLong();
+        }
+
+        float readFloat() throws IOException {
+            ensure(4);
+            return buffer.getFloat();
+        }
+
+        String readString() throws IOException {
+            final int length = readInt();
+            ensure(length);
+            final byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, UTF8);
+        }
+    }
+}
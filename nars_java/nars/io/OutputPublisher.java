@@ -0,0 +1,622 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.io;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import nars.core.NAR;
+import nars.entity.Item;
+import nars.entity.Sentence;
+
+/**
+ * An output channel of the reasoner that hands the output to its subscribers
+ * on other threads, so that a slow consumer does not slow the reasoning down.
+ * <p>
+ * Each subscriber has a buffer of a fixed capacity, which the output of the
+ * reasoner is only added to; a thread of the publisher takes the messages
+ * out in batches of at most {@link #BATCH}, as many as the subscriber asked
+ * for, and hands them over one at a time. When the buffer is full, what is
+ * done with a new message depends on the {@link Overflow} policy of the
+ * subscriber, by default DROP_LOWEST.
+ * <p>
+ * An {@link Output} channel is moved behind the publisher by
+ * {@link #decouple}, to be called with the messages as it was by the
+ * reasoner.
+ *
+ * @author me
+ */
+public class OutputPublisher implements Output, Flow.Publisher<OutputPublisher.Message>, Closeable {
+
+    /** What to do with a message when the buffer of a subscriber is full */
+    public static enum Overflow {
+
+        /** Drop the message of the lowest priority, the new one included */
+        DROP_LOWEST,
+        /**
+         * Wait for room, on the thread of the working cycle, which holds no
+         * lock of the reasoner while it outputs
+         */
+        BLOCK,
+        /**
+         * Keep a uniform sample of the messages that arrived since the
+         * buffer was last not full, in their order
+         */
+        SAMPLE
+    }
+
+    /** Capacity of the buffer of a subscriber, by default */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /** Most messages taken out of a buffer at once */
+    public static final int BATCH = 64;
+
+    /**
+     * An output of the reasoner
+     */
+    public static final class Message {
+
+        /** One of the channels of {@link Output} */
+        public final Class channel;
+        public final Object object;
+        /** The priority, from 0 to 1, see {@link OutputPublisher#priority} */
+        public final float priority;
+
+        public Message(final Class channel, final Object object, final float priority) {
+            this.channel = channel;
+            this.object = object;
+            this.priority = priority;
+        }
+
+        @Override
+        public String toString() {
+            return channel.getSimpleName() + ": " + object;
+        }
+    }
+
+    private final NAR reasoner;
+    private final Executor executor;
+    private final List<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Create a publisher of the output of a reasoner, delivering on daemon
+     * threads of its own
+     *
+     * @param reasoner The reasoner, whose output channel it becomes
+     */
+    public OutputPublisher(final NAR reasoner) {
+        this(reasoner, Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r, "OutputPublisher");
+                t.setDaemon(true);
+                return t;
+            }
+        }));
+    }
+
+    /**
+     * Create a publisher of the output of a reasoner
+     *
+     * @param reasoner The reasoner, whose output channel it becomes
+     * @param executor Runs the deliveries, one at a time for a subscriber
+     */
+    public OutputPublisher(final NAR reasoner, final Executor executor) {
+        this.reasoner = reasoner;
+        this.executor = executor;
+        reasoner.addOutputChannel(this);
+    }
+
+    /**
+     * The priority of an output: the budget summary of an item, the truth
+     * expectation of a judgment, and 1 for anything else
+     *
+     * @param o The output
+     * @return The priority, from 0 to 1
+     */
+    public static float priority(final Object o) {
+        if (o instanceof Item) {
+            return ((Item) o).getBudget().summary();
+        }
+        if ((o instanceof Sentence) && (((Sentence) o).getTruth() != null)) {
+            return ((Sentence) o).getTruth().getExpectation();
+        }
+        return 1;
+    }
+
+    @Override
+    public void output(final Class channel, final Object o) {
+        if (closed || subscriptions.isEmpty()) {
+            return;
+        }
+        final Message m = new Message(channel, o, priority(o));
+        for (final BufferedSubscription s : subscriptions) {
+            s.offer(m);
+        }
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super Message> subscriber) {
+        subscribe(subscriber, DEFAULT_CAPACITY, Overflow.DROP_LOWEST);
+    }
+
+    /**
+     * Add a subscriber, with a buffer of its own
+     *
+     * @param subscriber The subscriber
+     * @param capacity The number of messages its buffer holds
+     * @param overflow What to do with a message when the buffer is full
+     * @return The subscription
+     */
+    public BufferedSubscription subscribe(final Flow.Subscriber<? super Message> subscriber, final int capacity, final Overflow overflow) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity " + capacity);
+        }
+        final BufferedSubscription s = new BufferedSubscription(subscriber, capacity, overflow);
+        subscriptions.add(s);
+        subscriber.onSubscribe(s);
+        if (closed) {
+            s.complete();
+        }
+        return s;
+    }
+
+    /**
+     * Move an output channel of the reasoner behind the publisher: it is no
+     * longer called by the reasoner, but on a thread of the publisher, with
+     * the messages of its buffer
+     *
+     * @param channel The output channel
+     * @param capacity The number of messages its buffer holds
+     * @param overflow What to do with a message when the buffer is full
+     * @return The subscription of the channel
+     */
+    public BufferedSubscription decouple(final Output channel, final int capacity, final Overflow overflow) {
+        reasoner.removeOutputChannel(channel);
+        return subscribe(new OutputSubscriber(channel), capacity, overflow);
+    }
+
+    /**
+     * Stop publishing: the subscribers are completed once they have taken
+     * the messages left in their buffers
+     */
+    @Override
+    public void close() {
+        closed = true;
+        reasoner.removeOutputChannel(this);
+        for (final BufferedSubscription s : subscriptions) {
+            s.complete();
+        }
+    }
+
+    /**
+     * The buffer of a subscriber, and its link to the publisher
+     */
+    public final class BufferedSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super Message> subscriber;
+        private final int capacity;
+        private final Overflow overflow;
+        /** the messages, also the lock of the fields below */
+        private final MessageBuffer buffer;
+        private final Random random = new Random(1);
+        private long demand;
+        /** messages offered since the buffer was last not full */
+        private long offeredFull;
+        private long dropped;
+        private boolean cancelled;
+        private boolean completing;
+        private boolean done;
+        private Throwable error;
+        /** whether a delivery is queued or running */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        BufferedSubscription(final Flow.Subscriber<? super Message> subscriber, final int capacity, final Overflow overflow) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+            this.overflow = overflow;
+            buffer = new MessageBuffer(capacity, overflow == Overflow.DROP_LOWEST);
+        }
+
+        /**
+         * @return The number of messages not given to the subscriber
+         * because its buffer was full
+         */
+        public long getDropped() {
+            synchronized (buffer) {
+                return dropped;
+            }
+        }
+
+        /**
+         * @return The number of messages in the buffer
+         */
+        public int size() {
+            synchronized (buffer) {
+                return buffer.size();
+            }
+        }
+
+        void offer(final Message m) {
+            synchronized (buffer) {
+                if (cancelled || completing) {
+                    return;
+                }
+                if (buffer.size() < capacity) {
+                    offeredFull = 0;
+                } else if (!makeRoom(m)) {
+                    return;
+                }
+                buffer.addLast(m);
+            }
+            schedule();
+        }
+
+        /**
+         * @return Whether the message is to be added
+         */
+        private boolean makeRoom(final Message m) {
+            switch (overflow) {
+                case BLOCK:
+                    while ((buffer.size() >= capacity) && !cancelled && !completing) {
+                        try {
+                            buffer.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                    if (buffer.size() < capacity) {
+                        return !cancelled;
+                    }
+                    dropped++;
+                    return false;
+                case SAMPLE:
+                    dropped++;
+                    if (random.nextDouble() * (capacity + ++offeredFull) >= capacity) {
+                        return false;
+                    }
+                    buffer.removeRandom(random);
+                    return true;
+                default:
+                    dropped++;
+                    return buffer.removeLowerThan(m.priority);
+            }
+        }
+
+        @Override
+        public void request(final long n) {
+            synchronized (buffer) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("request of " + n);
+                } else {
+                    demand = (demand + n < 0) ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (buffer) {
+                cancelled = true;
+                buffer.clear();
+                buffer.notifyAll();
+            }
+            subscriptions.remove(this);
+        }
+
+        void complete() {
+            synchronized (buffer) {
+                completing = true;
+                buffer.notifyAll();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * Deliver the messages asked for, batch by batch, until there are
+         * none or none are asked for
+         */
+        @Override
+        public void run() {
+            final List<Message> batch = new ArrayList<>(BATCH);
+            while (true) {
+                Throwable failure = null;
+                boolean complete = false;
+                synchronized (buffer) {
+                    if (done) {
+                        return;
+                    }
+                    if (error != null) {
+                        failure = error;
+                        done = true;
+                        buffer.clear();
+                        buffer.notifyAll();
+                    } else {
+                        while ((demand > 0) && (batch.size() < BATCH) && !buffer.isEmpty()) {
+                            batch.add(buffer.pollFirst());
+                            demand--;
+                        }
+                        if (!batch.isEmpty()) {
+                            buffer.notifyAll();
+                        } else if (completing && buffer.isEmpty() && !cancelled) {
+                            complete = true;
+                            done = true;
+                        } else {
+                            scheduled.set(false);
+                            return;
+                        }
+                    }
+                }
+                if (failure != null) {
+                    subscriptions.remove(this);
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (complete) {
+                    subscriptions.remove(this);
+                    subscriber.onComplete();
+                    return;
+                }
+                for (final Message m : batch) {
+                    try {
+                        subscriber.onNext(m);
+                    } catch (RuntimeException e) {
+                        cancel();
+                        synchronized (buffer) {
+                            done = true;
+                        }
+                        subscriber.onError(e);
+                        return;
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * The messages of a subscriber, in their order, in an array of twice the
+     * capacity: a message taken out of the middle leaves a hole, and the
+     * messages are moved to the front when the end of the array is reached,
+     * so that each operation takes constant time on average. When the
+     * messages are ordered, a heap of their positions by priority, older
+     * first, gives the lowest in logarithmic time; the positions of holes
+     * are removed from it when they come to its top.
+     */
+    private static final class MessageBuffer {
+
+        private final Message[] slots;
+        /** positions of the messages, a heap by priority, if ordered */
+        private final int[] heap;
+        private int head;
+        private int end;
+        private int size;
+        private int heapSize;
+
+        MessageBuffer(final int capacity, final boolean ordered) {
+            slots = new Message[2 * capacity];
+            heap = ordered ? new int[slots.length] : null;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void addLast(final Message m) {
+            if (end == slots.length) {
+                compact();
+            }
+            slots[end] = m;
+            if (heap != null) {
+                heap[heapSize] = end;
+                siftUp(heapSize++);
+            }
+            end++;
+            size++;
+        }
+
+        Message pollFirst() {
+            while ((head < end) && (slots[head] == null)) {
+                head++;
+            }
+            if (head == end) {
+                return null;
+            }
+            final Message m = slots[head];
+            slots[head++] = null;
+            if (--size == 0) {
+                clear();
+            }
+            return m;
+        }
+
+        /**
+         * Remove a message chosen uniformly: there is a message at every
+         * other position at least when the buffer is full, so that few
+         * positions are tried
+         */
+        void removeRandom(final Random random) {
+            while (true) {
+                final int i = head + random.nextInt(end - head);
+                if (slots[i] != null) {
+                    slots[i] = null;
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Remove the oldest message of the lowest priority, if lower than the
+         * given one
+         *
+         * @return Whether a message was removed
+         */
+        boolean removeLowerThan(final float priority) {
+            while (slots[heap[0]] == null) {
+                popHeap();
+            }
+            final int i = heap[0];
+            if (slots[i].priority >= priority) {
+                return false;
+            }
+            popHeap();
+            slots[i] = null;
+            size--;
+            return true;
+        }
+
+        void clear() {
+            Arrays.fill(slots, head, end, null);
+            head = end = size = heapSize = 0;
+        }
+
+        /** move the messages to the front, and rebuild the heap */
+        private void compact() {
+            int n = 0;
+            for (int i = head; i < end; i++) {
+                if (slots[i] != null) {
+                    slots[n++] = slots[i];
+                }
+            }
+            Arrays.fill(slots, n, end, null);
+            head = 0;
+            end = n;
+            if (heap != null) {
+                heapSize = n;
+                for (int i = 0; i < n; i++) {
+                    heap[i] = i;
+                }
+                for (int i = n / 2 - 1; i >= 0; i--) {
+                    siftDown(i);
+                }
+            }
+        }
+
+        /** whether the message at one position goes before the other, holes first */
+        private boolean lower(final int a, final int b) {
+            final Message x = slots[a];
+            final Message y = slots[b];
+            if ((x == null) || (y == null)) {
+                return (x == null) && ((y != null) || (a < b));
+            }
+            return (x.priority < y.priority) || ((x.priority == y.priority) && (a < b));
+        }
+
+        private void popHeap() {
+            heap[0] = heap[--heapSize];
+            siftDown(0);
+        }
+
+        private void siftUp(int i) {
+            final int p = heap[i];
+            while (i > 0) {
+                final int parent = (i - 1) / 2;
+                if (!lower(p, heap[parent])) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = p;
+        }
+
+        private void siftDown(int i) {
+            final int p = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if ((child + 1 < heapSize) && lower(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!lower(heap[child], p)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = p;
+        }
+    }
+
+    /**
+     * Calls an output channel with the messages, asking for them a batch at
+     * a time
+     */
+    private static final class OutputSubscriber implements Flow.Subscriber<Message> {
+
+        private final Output channel;
+        private Flow.Subscription subscription;
+        private int left;
+
+        OutputSubscriber(final Output channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            left = BATCH;
+            subscription.request(BATCH);
+        }
+
+        @Override
+        public void onNext(final Message m) {
+            channel.output(m.channel, m.object);
+            if (--left == 0) {
+                left = BATCH;
+                subscription.request(BATCH);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            channel.output(ERR.class, throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -60,12 +60,33 @@ public abstract class CompoundTerm extends Term {
     public abstract String operator();
 
     /**
-     * Abstract clone method
+     * Clone the compound term. The result is a separate object, but only the
+     * components that can change in place are copied, see {@link #cloneList}.
      *
      * @return A clone of the compound term
      */
     @Override
-    public abstract Object clone();
+    public Object clone() {
+        return copy();
+    }
+
+    /**
+     * Abstract method to make the clone in subclasses
+     *
+     * @return A clone of the compound term
+     */
+    protected abstract CompoundTerm copy();
+
+    /**
+     * Whether the compound is never changed in place: a constant compound
+     * without variables is not renamed, and is substituted into by building
+     * a new compound, see {@link #applySubstitute}
+     *
+     * @return Whether the compound can be shared instead of cloned
+     */
+    public boolean isImmutable() {
+        return isConstant && !containVar();
+    }
 
     /* ----- object builders, called from subclasses ----- */
     /**
@@ -138,14 +159,21 @@ public abstract class CompoundTerm extends Term {
     
     @Override
     public boolean equals(final Object that) {
-        return (that instanceof Term) && (compareTo((Term) that) == 0);
+        if (this == that) {
+            return true;
+        }
+        if (!(that instanceof Term) || internedDifferent((Term) that)) {
+            return false;
+        }
+        return compareTo((Term) that) == 0;
     }
 
+    /**
+     * The hash code of the name, which String caches
+     */
     @Override
     public int hashCode() {
-        int hash = 7;
-        hash = 43 * hash + Objects.hashCode(this.components);
-        return hash;
+        return name.hashCode();
     }
 
     /**
@@ -157,6 +185,9 @@ public abstract class CompoundTerm extends Term {
      */
     @Override
     public int compareTo(final Term that) {
+        if (this == that) {
+            return 0;
+        }
         if (that instanceof CompoundTerm) {
             final CompoundTerm t = (CompoundTerm) that;
             int minSize = Math.min(size(), t.size());
@@ -331,7 +362,7 @@ public abstract class CompoundTerm extends Term {
             .append(Symbols.COMPOUND_TERM_OPENER).append(op);
         for (final Term t : arg) {
             name.append(Symbols.ARGUMENT_SEPARATOR);
-            if (t instanceof CompoundTerm) {
+            if ((t instanceof CompoundTerm) && ((CompoundTerm) t).containVar()) {
                 ((CompoundTerm) t).setName(((CompoundTerm) t).makeName());
             }
             name.append(t.getName());
@@ -469,7 +500,8 @@ public abstract class CompoundTerm extends Term {
     }
 
     /**
-     * Deep clone an array list of terms
+     * Deep clone an array list of terms. Atomic terms and immutable compounds
+     * are shared; only the compounds that contain variables are cloned.
      *
      * @param original The original component list
      * @return an identical and separate copy of the list
@@ -480,8 +512,12 @@ public abstract class CompoundTerm extends Term {
         }
         
         final ArrayList<Term> arr = new ArrayList<>(original.size());
-        for (final Term original1 : original) {
-            arr.add((Term) ((Term) original1).clone());
+        for (final Term t : original) {
+            if ((t instanceof CompoundTerm) && !((CompoundTerm) t).isImmutable()) {
+                arr.add((Term) t.clone());
+            } else {
+                arr.add(t);
+            }
         }
         return arr;
     }
@@ -621,6 +657,9 @@ public abstract class CompoundTerm extends Term {
      */
     @Override
     public void renameVariables() {
+        if (isImmutable()) {
+            return;
+        }
         if (containVar()) {
             renameVariables(new HashMap<Variable, Variable>());
         }
@@ -651,7 +690,7 @@ public abstract class CompoundTerm extends Term {
                         components.set(i, var);
                     }
                     map.put((Variable) term, var);
-                } else if (term instanceof CompoundTerm) {
+                } else if ((term instanceof CompoundTerm) && !((CompoundTerm) term).isImmutable()) {
                     ((CompoundTerm) term).renameVariables(map);
                     ((CompoundTerm) term).setName(((CompoundTerm) term).makeName());
                 }
@@ -660,28 +699,47 @@ public abstract class CompoundTerm extends Term {
     }
 
     /**
-     * Recursively apply a substitute to the current CompoundTerm
+     * Recursively apply a substitute to the current CompoundTerm, which is
+     * not changed: it may be a shared canonical term
      *
-     * @param subs
+     * @param subs The substitute
+     * @return The compound itself if none of the terms to replace is in it,
+     * otherwise a new compound, which shares the components left as they were
+     * when they are immutable
      */
-    public void applySubstitute(HashMap<Term, Term> subs) {        
+    public CompoundTerm applySubstitute(final HashMap<Term, Term> subs) {
+        CompoundTerm result = null;
         for (int i = 0; i < size(); i++) {
             final Term t1 = componentAt(i);
+            Term t2 = null;
             if (subs.containsKey(t1)) {
-                Term t2 = subs.get(t1);
+                t2 = subs.get(t1);
                 while (subs.containsKey(t2)) {
                     t2 = subs.get(t2);
                 }
-                components.set(i, (Term) t2.clone());
+                t2 = (Term) t2.clone();
             } else if (t1 instanceof CompoundTerm) {
-                ((CompoundTerm) t1).applySubstitute(subs);
+                t2 = ((CompoundTerm) t1).applySubstitute(subs);
+                if (t2 == t1) {
+                    t2 = null;
+                }
             }
+            if (t2 != null) {
+                if (result == null) {
+                    result = copy();
+                }
+                result.components.set(i, t2);
+            }
+        }
+        if (result == null) {
+            return this;
         }
-        if (this.isCommutative()) {         
+        if (result.isCommutative()) {
             // re-order
-            components = new ArrayList<>( new TreeSet<>(components) );
+            result.components = new ArrayList<>(new TreeSet<>(result.components));
         }
-        name = makeName();
+        result.setName(result.makeName());
+        return result;
     }
 
     /* ----- link CompoundTerm and its components ----- */
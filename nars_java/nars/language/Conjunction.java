@@ -52,12 +52,12 @@ public class Conjunction extends CompoundTerm {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      *
      * @return A new object
      */
     @Override
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new Conjunction(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -123,7 +123,7 @@ public class Conjunction extends CompoundTerm {
         final ArrayList<Term> argument = new ArrayList<>(set);
         final String name = makeCompoundName(Symbols.CONJUNCTION_OPERATOR, argument);
         final Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new Conjunction(argument);
+        return (t != null) ? t : memory.terms.intern(new Conjunction(argument));
     }
 
     // overload this method by term type?
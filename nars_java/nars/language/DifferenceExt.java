@@ -51,10 +51,10 @@ public class DifferenceExt extends CompoundTerm {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object, to be casted into a DifferenceExt
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new DifferenceExt(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -79,7 +79,7 @@ public class DifferenceExt extends CompoundTerm {
         
         String name = makeCompoundName(Symbols.DIFFERENCE_EXT_OPERATOR, argList);
         Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new DifferenceExt(argList);
+        return (t != null) ? t : memory.terms.intern(new DifferenceExt(argList));
     }
 
     /**
@@ -51,10 +51,10 @@ public class DifferenceInt extends CompoundTerm {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object, to be casted into a DifferenceInt
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new DifferenceInt(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -80,7 +80,7 @@ public class DifferenceInt extends CompoundTerm {
         
         String name = makeCompoundName(Symbols.DIFFERENCE_INT_OPERATOR, argList);
         Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new DifferenceInt(argList);
+        return (t != null) ? t : memory.terms.intern(new DifferenceInt(argList));
     }
 
     /**
@@ -51,11 +51,11 @@ public class Disjunction extends CompoundTerm {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object
      */
     @Override
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new Disjunction(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -111,7 +111,7 @@ public class Disjunction extends CompoundTerm {
         ArrayList<Term> argument = new ArrayList<>(set);
         String name = makeCompoundName(Symbols.DISJUNCTION_OPERATOR, argument);
         Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new Disjunction(argument);
+        return (t != null) ? t : memory.terms.intern(new Disjunction(argument));
     }
 
     /**
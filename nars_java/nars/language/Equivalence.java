@@ -50,11 +50,11 @@ public class Equivalence extends Statement {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object
      */
     @Override
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new Equivalence(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -86,7 +86,7 @@ public class Equivalence extends Statement {
             return (Equivalence) t;
         }
         ArrayList<Term> argument = argumentsToList(subject, predicate);
-        return new Equivalence(argument);
+        return memory.terms.intern(new Equivalence(argument));
     }
 
     /**
@@ -62,10 +62,10 @@ public class ImageExt extends CompoundTerm {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object, to be casted into an ImageExt
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new ImageExt(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity, relationIndex);
     }
 
@@ -142,7 +142,7 @@ public class ImageExt extends CompoundTerm {
     public static Term make(ArrayList<Term> argument, short index, Memory memory) {
         String name = makeImageName(Symbols.IMAGE_EXT_OPERATOR, argument, index);
         Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new ImageExt(name, argument, index);
+        return (t != null) ? t : memory.terms.intern(new ImageExt(name, argument, index));
     }
 
     /**
@@ -62,10 +62,10 @@ public class ImageInt extends CompoundTerm {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object, to be casted into an ImageInt
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new ImageInt(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity, relationIndex);
     }
 
@@ -145,7 +145,7 @@ public class ImageInt extends CompoundTerm {
     public static Term make(ArrayList<Term> argument, short index, Memory memory) {
         String name = makeImageName(Symbols.IMAGE_INT_OPERATOR, argument, index);
         Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new ImageInt(name, argument, index);
+        return (t != null) ? t : memory.terms.intern(new ImageInt(name, argument, index));
     }
 
     /**
@@ -50,10 +50,10 @@ public class Implication extends Statement {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new Implication(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -91,7 +91,7 @@ public class Implication extends Statement {
             return make(newCondition, ((Implication) predicate).getPredicate(), memory);
         } else {
             final ArrayList<Term> argument = argumentsToList(subject, predicate);
-            return new Implication(argument);
+            return memory.terms.intern(new Implication(argument));
         }
     }
 
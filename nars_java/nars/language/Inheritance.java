@@ -52,10 +52,10 @@ public class Inheritance extends Statement {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object, to be casted into a SetExt
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new Inheritance(name, (ArrayList<Term>) cloneList(components), isConstant, complexity);
     }
 
@@ -77,7 +77,7 @@ public class Inheritance extends Statement {
             return (Inheritance) t;
         }
         ArrayList<Term> argument = argumentsToList(subject, predicate);
-        return new Inheritance(argument);
+        return memory.terms.intern(new Inheritance(argument));
     }
 
     /**
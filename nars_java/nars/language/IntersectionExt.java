@@ -51,10 +51,10 @@ public class IntersectionExt extends CompoundTerm {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object, to be casted into a IntersectionExt
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new IntersectionExt(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -120,7 +120,7 @@ public class IntersectionExt extends CompoundTerm {
         ArrayList<Term> argument = new ArrayList<Term>(set);
         String name = makeCompoundName(Symbols.INTERSECTION_EXT_OPERATOR, argument);
         Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new IntersectionExt(argument);
+        return (t != null) ? t : memory.terms.intern(new IntersectionExt(argument));
     }
 
     /**
@@ -51,10 +51,10 @@ public class IntersectionInt extends CompoundTerm {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object, to be casted into a Conjunction
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new IntersectionInt(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -120,7 +120,7 @@ public class IntersectionInt extends CompoundTerm {
         ArrayList<Term> argument = new ArrayList<Term>(set);
         String name = makeCompoundName(Symbols.INTERSECTION_INT_OPERATOR, argument);
         Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new IntersectionInt(argument);
+        return (t != null) ? t : memory.terms.intern(new IntersectionInt(argument));
     }
 
     /**
@@ -53,12 +53,12 @@ public class Negation extends CompoundTerm {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      *
      * @return A new object
      */
     @Override
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new Negation(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -91,7 +91,7 @@ public class Negation extends CompoundTerm {
         }
         final String name = makeCompoundName(Symbols.NEGATION_OPERATOR, argument);
         final Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new Negation(argument);
+        return (t != null) ? t : memory.terms.intern(new Negation(argument));
     }
 
     /**
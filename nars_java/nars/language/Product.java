@@ -55,7 +55,7 @@ public class Product extends CompoundTerm {
      * Clone a Product
      * @return A new object, to be casted into an ImageExt
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new Product(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -68,7 +68,7 @@ public class Product extends CompoundTerm {
     public static Term make(ArrayList<Term> argument, Memory memory) {
         String name = makeCompoundName(Symbols.PRODUCT_OPERATOR, argument);
         Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new Product(argument);
+        return (t != null) ? t : memory.terms.intern(new Product(argument));
     }
         
     /**
@@ -54,7 +54,7 @@ public class SetExt extends CompoundTerm {
      * Clone a SetExt
      * @return A new object, to be casted into a SetExt
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new SetExt(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -94,7 +94,7 @@ public class SetExt extends CompoundTerm {
         final ArrayList<Term> argument = new ArrayList<Term>(set);
         final String name = makeSetName(Symbols.SET_EXT_OPENER, argument, Symbols.SET_EXT_CLOSER);
         final Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new SetExt(argument);
+        return (t != null) ? t : memory.terms.intern(new SetExt(argument));
     }
 
     /**
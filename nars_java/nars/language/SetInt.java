@@ -54,7 +54,7 @@ public class SetInt extends CompoundTerm {
      * Clone a SetInt
      * @return A new object, to be casted into a SetInt
      */
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new SetInt(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -94,7 +94,7 @@ public class SetInt extends CompoundTerm {
         ArrayList<Term> argument = new ArrayList<Term>(set);
         String name = makeSetName(Symbols.SET_INT_OPENER, argument, Symbols.SET_INT_CLOSER);
         Term t = memory.nameToListedTerm(name);
-        return (t != null) ? t : new SetInt(argument);
+        return (t != null) ? t : memory.terms.intern(new SetInt(argument));
     }
 
     /**
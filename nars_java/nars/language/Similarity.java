@@ -51,11 +51,11 @@ public class Similarity extends Statement {
     }
 
     /**
-     * Clone an object
+     * Copy an object
      * @return A new object, to be casted into a Similarity
      */
     @Override
-    public Object clone() {
+    protected CompoundTerm copy() {
         return new Similarity(name, (ArrayList<Term>) cloneList(components), isConstant(), complexity);
     }
 
@@ -79,7 +79,7 @@ public class Similarity extends Statement {
             return (Similarity) t;
         }
         ArrayList<Term> argument = argumentsToList(subject, predicate);
-        return new Similarity(argument);
+        return memory.terms.intern(new Similarity(argument));
     }
 
     /**
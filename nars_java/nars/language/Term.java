@@ -20,7 +20,10 @@
  */
 package nars.language;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import nars.core.Parameters;
+import nars.entity.Fingerprint;
 
 /**
  * Term is the basic component of Narsese, and the object of processing in NARS.
@@ -36,6 +39,20 @@ public class Term implements Cloneable, Comparable<Term> {
      * given alphabet (ASCII or Unicode)
      */
     protected String name;
+    /** The name whose fingerprint is cached in nameHash */
+    private volatile String hashedName;
+    private long nameHash;
+    /**
+     * Generation of the TermTable in the high 32 bits, id in the low 32 bits;
+     * 0 if the term is not canonical
+     */
+    private long internId;
+    /** Number of this Term object, 0 until first asked for */
+    private volatile long objectId;
+
+    private static final AtomicLong objectIds = new AtomicLong();
+    private static final AtomicLongFieldUpdater<Term> OBJECT_ID
+            = AtomicLongFieldUpdater.newUpdater(Term.class, "objectId");
 
     /**
      * Default constructor that build an internal Term
@@ -62,13 +79,84 @@ public class Term implements Cloneable, Comparable<Term> {
     }
 
     /**
-     * Make a new Term with the same name.
+     * The {@link Fingerprint} of the name, cached until the name changes
+     *
+     * @return Fingerprint.of(getName())
+     */
+    public long getNameHash() {
+        final String n = name;
+        if (hashedName != n) {
+            nameHash = Fingerprint.of(n);
+            hashedName = n;
+        }
+        return nameHash;
+    }
+
+    /**
+     * Whether this is the canonical instance of its name in a
+     * {@link TermTable}
+     */
+    public boolean isInterned() {
+        return internId != 0;
+    }
+
+    /**
+     * The id given by the TermTable
+     *
+     * @return The id, 0 if the term is not canonical
+     */
+    public int getId() {
+        return (int) internId;
+    }
+
+    /**
+     * A number identifying this Term object, given on first use: unlike
+     * {@link #getId()}, it tells apart equal terms that are not the same
+     * reference. The ids are never reused.
+     *
+     * @return The object id, never 0
+     */
+    public long getObjectId() {
+        long id = objectId;
+        if (id == 0) {
+            OBJECT_ID.compareAndSet(this, 0, objectIds.incrementAndGet());
+            id = objectId;
+        }
+        return id;
+    }
+
+    /**
+     * Whether {@link #getObjectId()} was called on this Term
+     */
+    public boolean hasObjectId() {
+        return objectId != 0;
+    }
+
+    long getInternId() {
+        return internId;
+    }
+
+    void setInternId(final long internId) {
+        this.internId = internId;
+    }
+
+    /**
+     * Whether two terms are known to differ without comparing them: both are
+     * canonical in the same table, and not the same reference
+     */
+    protected final boolean internedDifferent(final Term that) {
+        return (internId != 0) && (that.internId != 0) && (this != that)
+                && ((internId >>> 32) == (that.internId >>> 32));
+    }
+
+    /**
+     * An atomic Term is never changed, so it is its own clone.
      *
-     * @return The new Term
+     * @return The Term itself
      */
     @Override
     public Object clone() {
-        return new Term(name);
+        return this;
     }
 
     /**
@@ -80,7 +168,13 @@ public class Term implements Cloneable, Comparable<Term> {
      */
     @Override
     public boolean equals(final Object that) {
-        return (that instanceof Term) && name.equals(((Term) that).getName());
+        if (this == that) {
+            return true;
+        }
+        if (!(that instanceof Term) || internedDifferent((Term) that)) {
+            return false;
+        }
+        return name.equals(((Term) that).getName());
     }
 
     /**
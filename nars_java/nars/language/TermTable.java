@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.language;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import nars.entity.Fingerprint;
+import nars.storage.NameTable;
+
+/**
+ * Hash-consing table of the constant (variable-free) terms of a Memory.
+ * <p>
+ * {@link #intern(Term)} returns the one canonical Term with a given name, so
+ * the term constructors in the language package return shared instances for
+ * equal constant terms. A canonical Term is given an id, unique in its table,
+ * and two canonical terms of the same table are equal only if they are the
+ * same reference (see {@link Term#equals(Object)}).
+ * <p>
+ * Canonical terms are held weakly, so a term that is no longer referenced by
+ * any concept, task or link is dropped from the table. Canonical terms are
+ * never renamed nor substituted in place.
+ * <p>
+ * The table is shared by the threads firing concepts of its Memory. It is
+ * striped by the fingerprint of the names, each stripe with its own name
+ * table, queue of collected terms and lock, so that threads interning terms
+ * of different stripes do not wait for each other; a term already canonical
+ * is recognized by its id without locking.
+ *
+ * @author me
+ */
+public class TermTable {
+
+    /** Number of stripes, a power of two */
+    private static final int STRIPES = 16;
+
+    /** source of table generations, so ids of different tables never match */
+    private static final AtomicInteger generations = new AtomicInteger();
+    private static final long GENERATION_MASK = 0xffffffff00000000L;
+
+    private static final class Entry extends WeakReference<Term> {
+        final long key;
+        /** the name of the term, kept once the term is collected */
+        final String name;
+
+        Entry(final Term term, final long key, final ReferenceQueue<Term> queue) {
+            super(term, queue);
+            this.key = key;
+            name = term.getName();
+        }
+    }
+
+    private static final class Stripe {
+
+        /**
+         * canonical terms by their name, through its Fingerprint: names of
+         * the same fingerprint are kept apart
+         */
+        final NameTable<Entry> table = new NameTable<Entry>(1024 / STRIPES, 0.5f) {
+            @Override
+            protected String keyOf(final Entry e) {
+                return e.name;
+            }
+        };
+        final ReferenceQueue<Term> collected = new ReferenceQueue<>();
+        final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Remove the entries of collected terms
+         */
+        void expunge() {
+            Entry e;
+            while ((e = (Entry) collected.poll()) != null) {
+                if (table.get(e.key, e.name) == e) {
+                    table.remove(e.key, e);
+                }
+            }
+        }
+
+        void clear() {
+            table.clear();
+            while (collected.poll() != null) {
+            }
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    /** changed with the locks of all stripes held */
+    private volatile long generation;
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public TermTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        clear();
+    }
+
+    /**
+     * The stripe of a name, from the high bits of its fingerprint since the
+     * name tables index by the low bits
+     */
+    private Stripe stripe(final long key) {
+        return stripes[((int) (key >>> 40)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Get the canonical term with the name of a given term, making the given
+     * term canonical if there is none.
+     *
+     * @param term A newly built term
+     * @return The canonical equal term, or the term itself if it contains
+     * variables
+     */
+    public <T extends Term> T intern(final T term) {
+        final long id = term.getInternId();
+        if ((id != 0) && ((id & GENERATION_MASK) == generation)) {
+            return term;
+        }
+        if (Variable.containVar(term.getName())) {
+            return term;
+        }
+        final long key = term.getNameHash();
+        final Stripe s = stripe(key);
+        s.lock.lock();
+        try {
+            s.expunge();
+            final Entry e = s.table.get(key, term.getName());
+            if (e != null) {
+                final Term existing = e.get();
+                if (existing != null) {
+                    return (T) existing;
+                }
+            }
+            if (id != 0) {
+                return term;    // canonical in another table, or in an older generation
+            }
+            term.setInternId(generation | (nextId.incrementAndGet() & 0xffffffffL));
+            s.table.put(key, new Entry(term, key, s.collected));
+            return term;
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /**
+     * Get the canonical term with a given name
+     *
+     * @param name The name of a term
+     * @return The canonical term, or null
+     */
+    public Term get(final String name) {
+        final long key = Fingerprint.of(name);
+        final Stripe s = stripe(key);
+        s.lock.lock();
+        try {
+            final Entry e = s.table.get(key, name);
+            return (e == null) ? null : e.get();
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of canonical terms, including those collected but
+     * not expunged yet
+     */
+    public int size() {
+        int n = 0;
+        for (final Stripe s : stripes) {
+            s.lock.lock();
+            try {
+                n += s.table.size();
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Forget all canonical terms. Terms interned before are no longer
+     * considered canonical by equals, as they belong to an older generation.
+     */
+    public final void clear() {
+        for (final Stripe s : stripes) {
+            s.lock.lock();
+        }
+        try {
+            for (final Stripe s : stripes) {
+                s.clear();
+            }
+            generation = ((long) generations.incrementAndGet()) << 32;
+            nextId.set(0);
+        } finally {
+            for (final Stripe s : stripes) {
+                s.lock.unlock();
+            }
+        }
+    }
+}
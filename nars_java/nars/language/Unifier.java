@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.language;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Unification of two terms on a binding trail, for {@link Variable#unify} and
+ * {@link Variable#hasSubstitute}.
+ * <p>
+ * The bindings of the variables of both terms are appended to the trail, each
+ * with the side of the term it belongs to; a failed branch is undone by
+ * cutting the trail back to where it was, so that nothing is allocated while
+ * searching but the common variables of two unified variables. The
+ * components of two commutative compounds are tried in every pairing until
+ * one matches, instead of a single random one; the choices made inside a
+ * commutative compound are not revisited once it is matched, and the search
+ * gives up after {@link #MAX_STEPS} pairs of terms. The terms are only
+ * changed, in place, once a substitution is found.
+ * <p>
+ * A unifier is reused by the calls of one thread, see {@link #get()}.
+ *
+ * @author me
+ */
+public final class Unifier {
+
+    /** Most pairs of terms compared by one unification */
+    public static final int MAX_STEPS = 1024;
+
+    private static final ThreadLocal<Unifier> local = new ThreadLocal<Unifier>() {
+        @Override
+        protected Unifier initialValue() {
+            return new Unifier();
+        }
+    };
+
+    /** the type of the variables substituted */
+    private char type;
+    /** the bound variables, their values and the side of each, 0 or 1 */
+    private Term[] vars = new Term[16];
+    private Term[] values = new Term[16];
+    private byte[] sides = new byte[16];
+    private int size;
+    private int steps;
+
+    /**
+     * @return The unifier of the current thread
+     */
+    public static Unifier get() {
+        return local.get();
+    }
+
+    /**
+     * Find a substitution that unifies two terms, without changing them; the
+     * substitution is kept until the next call
+     *
+     * @param type The type of variable that can be substituted
+     * @param term1 The first term
+     * @param term2 The second term
+     * @return Whether there is a substitution
+     */
+    public boolean find(final char type, final Term term1, final Term term2) {
+        cut(0);
+        this.type = type;
+        steps = 0;
+        return match(term1, term2);
+    }
+
+    /**
+     * Apply the substitution found to the variables of one side, and rename
+     * the variables of the compound
+     *
+     * @param compound The compound containing the term of that side
+     * @param side 0 for the first term, 1 for the second
+     */
+    public void apply(final CompoundTerm compound, final int side) {
+        if (!hasBindings(side)) {
+            return;
+        }
+        substitute(compound, side);
+        compound.renameVariables();
+    }
+
+    private boolean hasBindings(final int side) {
+        for (int i = 0; i < size; i++) {
+            if (sides[i] == side) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isVar(final Term t) {
+        return (t instanceof Variable) && (((Variable) t).getType() == type);
+    }
+
+    /**
+     * @return The value of a variable of a side, the latest bound, or null
+     */
+    private Term lookup(final Term var, final int side) {
+        for (int i = size - 1; i >= 0; i--) {
+            if ((sides[i] == side) && vars[i].equals(var)) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    private void bind(final Term var, final int side, final Term value) {
+        if (size == vars.length) {
+            vars = Arrays.copyOf(vars, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            sides = Arrays.copyOf(sides, size * 2);
+        }
+        vars[size] = var;
+        values[size] = value;
+        sides[size] = (byte) side;
+        size++;
+    }
+
+    /**
+     * Undo the bindings made after a point of the trail
+     */
+    private void cut(final int mark) {
+        for (int i = mark; i < size; i++) {
+            vars[i] = null;
+            values[i] = null;
+        }
+        size = mark;
+    }
+
+    private boolean match(final Term term1, final Term term2) {
+        if (++steps > MAX_STEPS) {
+            return false;
+        }
+        if (isVar(term1)) {
+            final Term t = lookup(term1, 0);
+            if (t != null) {    // already mapped
+                return match(t, term2);
+            }
+            if (isVar(term2)) {
+                final Variable common = makeCommonVariable(term1, term2);
+                bind(term1, 0, common);  // unify
+                bind(term2, 1, common);  // unify
+            } else {
+                bind(term1, 0, term2);  // elimination
+                if (isCommonVariable(term1)) {
+                    bind(term1, 1, term2);
+                }
+            }
+            return true;
+        } else if (isVar(term2)) {
+            final Term t = lookup(term2, 1);
+            if (t != null) {    // already mapped
+                return match(term1, t);
+            }
+            bind(term2, 1, term1);  // elimination
+            if (isCommonVariable(term2)) {
+                bind(term2, 0, term1);
+            }
+            return true;
+        } else if ((term1 instanceof CompoundTerm) && term1.getClass().equals(term2.getClass())) {
+            final CompoundTerm cTerm1 = (CompoundTerm) term1;
+            final CompoundTerm cTerm2 = (CompoundTerm) term2;
+            if (cTerm1.size() != cTerm2.size()) {
+                return false;
+            }
+            if ((cTerm1 instanceof ImageExt) && (((ImageExt) cTerm1).getRelationIndex() != ((ImageExt) cTerm2).getRelationIndex())
+                    || (cTerm1 instanceof ImageInt) && (((ImageInt) cTerm1).getRelationIndex() != ((ImageInt) cTerm2).getRelationIndex())) {
+                return false;
+            }
+            if (cTerm1.isCommutative() && (cTerm1.size() <= Long.SIZE)) {
+                return matchCommutative(cTerm1, cTerm2, 0, 0L);
+            }
+            for (int i = 0; i < cTerm1.size(); i++) {   // matching order
+                if (!match(cTerm1.componentAt(i), cTerm2.componentAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return term1.equals(term2); // for atomic constant terms
+    }
+
+    /**
+     * Match the components of a commutative compound from the i-th on with
+     * those of the other not used yet, backtracking on failure
+     *
+     * @param used The components of cTerm2 already matched, one bit each
+     */
+    private boolean matchCommutative(final CompoundTerm cTerm1, final CompoundTerm cTerm2, final int i, final long used) {
+        if (i == cTerm1.size()) {
+            return true;
+        }
+        final Term t1 = cTerm1.componentAt(i);
+        for (int j = 0; j < cTerm2.size(); j++) {
+            if ((used & (1L << j)) != 0) {
+                continue;
+            }
+            final int mark = size;
+            if (match(t1, cTerm2.componentAt(j)) && matchCommutative(cTerm1, cTerm2, i + 1, used | (1L << j))) {
+                return true;
+            }
+            cut(mark);
+            if (steps > MAX_STEPS) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replace the bound variables of a side in a compound, recursively, then
+     * put the components of a commutative compound back in order
+     */
+    private void substitute(final CompoundTerm compound, final int side) {
+        if (!compound.containVar()) {
+            return;
+        }
+        final ArrayList<Term> components = compound.components;
+        for (int i = 0; i < components.size(); i++) {
+            final Term t1 = components.get(i);
+            Term t2 = isVar(t1) ? lookup(t1, side) : null;
+            if (t2 != null) {
+                for (int n = 0; n < size; n++) {     // a bound value may be bound in turn
+                    final Term t3 = isVar(t2) ? lookup(t2, side) : null;
+                    if (t3 == null) {
+                        break;
+                    }
+                    t2 = t3;
+                }
+                components.set(i, (Term) t2.clone());
+            } else if (t1 instanceof CompoundTerm) {
+                substitute((CompoundTerm) t1, side);
+            }
+        }
+        if (compound.isCommutative()) {         // re-order
+            Collections.sort(components);
+            for (int i = components.size() - 1; i > 0; i--) {
+                if (components.get(i).compareTo(components.get(i - 1)) == 0) {
+                    components.remove(i);
+                }
+            }
+        }
+        compound.name = compound.makeName();
+    }
+
+    private static Variable makeCommonVariable(final Term v1, final Term v2) {
+        return new Variable(v1.getName() + v2.getName() + '$');
+    }
+
+    private static boolean isCommonVariable(final Term v) {
+        final String s = v.getName();
+        return s.charAt(s.length() - 1) == '$';
+    }
+}
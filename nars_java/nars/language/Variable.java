@@ -20,10 +20,7 @@
  */
 package nars.language;
 
-import java.util.*;
-
 import nars.io.Symbols;
-import nars.storage.Memory;
 
 /**
  * A variable term, which does not correspond to a concept
@@ -40,13 +37,14 @@ public class Variable extends Term {
     }
 
     /**
-     * Clone a Variable
+     * A Variable is never changed; substitution and renaming replace it in
+     * its compound
      *
-     * @return The cloned Variable
+     * @return The Variable itself
      */
     @Override
     public Object clone() {
-        return new Variable(name);
+        return this;
     }
 
     /**
@@ -146,103 +144,15 @@ public class Variable extends Term {
      * @return Whether the unification is possible
      */
     public static boolean unify(final char type, final Term t1, final Term t2, final Term compound1, final Term compound2) {
-        final HashMap<Term, Term> map1 = new HashMap<>();
-        final HashMap<Term, Term> map2 = new HashMap<>();
-        final boolean hasSubs = findSubstitute(type, t1, t2, map1, map2); // find substitution
+        final Unifier unifier = Unifier.get();
+        final boolean hasSubs = unifier.find(type, t1, t2); // find substitution
         if (hasSubs) {
-            //renameVar(map1, compound1, "-1");
-            //renameVar(map2, compound2, "-2");
-            if (!map1.isEmpty()) {
-                ((CompoundTerm) compound1).applySubstitute(map1);
-                ((CompoundTerm) compound1).renameVariables();
-            }
-            if (!map2.isEmpty()) {
-                ((CompoundTerm) compound2).applySubstitute(map2);
-                ((CompoundTerm) compound2).renameVariables();
-            }
+            unifier.apply((CompoundTerm) compound1, 0);
+            unifier.apply((CompoundTerm) compound2, 1);
         }
         return hasSubs;
     }
 
-    /**
-     * To recursively find a substitution that can unify two Terms without
-     * changing them
-     *
-     * @param type The type of Variable to be substituted
-     * @param term1 The first Term to be unified
-     * @param term2 The second Term to be unified
-     * @param map1 The substitution for term1 formed so far
-     * @param map2 The substitution for term2 formed so far
-     * @return Whether there is a substitution that unifies the two Terms
-     */
-    private static boolean findSubstitute(final char type, final Term term1, final Term term2,
-            final HashMap<Term, Term> map1, final HashMap<Term, Term> map2) {
-        Term t;
-        if ((term1 instanceof Variable) && (((Variable) term1).getType() == type)) {
-            final Variable var1 = (Variable) term1;
-            t = map1.get(var1);
-            if (t != null) {    // already mapped
-                return findSubstitute(type, t, term2, map1, map2);
-            } else {            // not mapped yet
-                 if ((term2 instanceof Variable) && (((Variable) term2).getType() == type)) {
-                    Variable CommonVar = makeCommonVariable(term1, term2);
-                    map1.put(var1, CommonVar);  // unify
-                    map2.put(term2, CommonVar);  // unify
-                 } else {
-                    map1.put(var1, term2);  // elimination
-                    if (isCommonVariable(var1)) {
-                        map2.put(var1, term2);
-                    }
-                }
-                return true;
-            }
-        } else if ((term2 instanceof Variable) && (((Variable) term2).getType() == type)) {
-            final Variable var2 = (Variable) term2;
-            t = map2.get(var2);
-            if (t != null) {    // already mapped
-                return findSubstitute(type, term1, t, map1, map2);
-            } else {            // not mapped yet
-                map2.put(var2, term1);  // elimination
-                if (isCommonVariable(var2)) {
-                    map1.put(var2, term1);
-                }
-                return true;
-            }
-         } else if ((term1 instanceof CompoundTerm) && term1.getClass().equals(term2.getClass())) {
-            final CompoundTerm cTerm1 = (CompoundTerm) term1;
-            final CompoundTerm cTerm2 = (CompoundTerm) term2;
-            if (cTerm1.size() != (cTerm2).size()) {
-                return false;
-            }
-            if ((cTerm1 instanceof ImageExt) && (((ImageExt) cTerm1).getRelationIndex() != ((ImageExt) cTerm2).getRelationIndex())
-                || (cTerm1 instanceof ImageInt) && (((ImageInt) cTerm1).getRelationIndex() != ((ImageInt) cTerm2).getRelationIndex())) {
-                return false;
-            }
-            ArrayList<Term> list = cTerm1.cloneComponents();
-            if (cTerm1.isCommutative()) {
-                Collections.shuffle(list, Memory.randomNumber);
-            }
-            
-            for (int i = 0; i < cTerm1.size(); i++) {   // assuming matching order
-                Term t1 = list.get(i);
-                Term t2 = cTerm2.componentAt(i);
-                if (!findSubstitute(type, t1, t2, map1, map2)) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        return term1.equals(term2); // for atomic constant terms
-    }
-
-    private static Variable makeCommonVariable(Term v1, Term v2) {               return new Variable(v1.getName() + v2.getName() + '$');    
-    }
-    
-    private static boolean isCommonVariable(Variable v) {
-        String s = v.getName();
-        return s.charAt(s.length() - 1) == '$';
-    }
-
     /**
      * Check if two terms can be unified
      *
@@ -252,7 +162,7 @@ public class Variable extends Term {
      * @return Whether there is a substitution
      */
     public static boolean hasSubstitute(final char type, final Term term1, final Term term2) {
-        return findSubstitute(type, term1, term2, new HashMap<Term, Term>(), new HashMap<Term, Term>());
+        return Unifier.get().find(type, term1, term2);
     }
 
     /**
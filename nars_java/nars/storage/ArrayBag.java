@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.storage;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import nars.entity.Item;
+
+/**
+ * Bag whose levels are intrusive doubly-linked lists threaded through
+ * preallocated slot arrays. Each stored Item carries its slot index
+ * ({@link Item#getBagSlot()}), so removing a given item (pickOut, and the
+ * merge of a duplicate in putIn) is O(1) instead of a scan of its level,
+ * while every level keeps the FIFO order of {@link DefaultBag}.
+ * <p>
+ * The level an item is stored in is remembered per slot, so an item whose
+ * priority changed while in the bag is still removed from the right level.
+ * <p>
+ * An Item can be held by only one ArrayBag at a time.
+ *
+ * @author me
+ */
+public class ArrayBag<E extends Item> extends LevelBag<E> {
+    private final AtomicInteger forgetRate;
+
+    /** the item held in each slot, null for a free slot */
+    private final Item[] slotItem;
+    /** next slot in the same level, or in the free list; -1 at the end */
+    private final int[] slotNext;
+    /** previous slot in the same level; -1 at the head */
+    private final int[] slotPrev;
+    /** the level of the item held in each slot */
+    private final int[] slotLevel;
+
+    /** first (oldest) slot of each level, -1 if empty */
+    private final int[] levelHead;
+    /** last (newest) slot of each level, -1 if empty */
+    private final int[] levelTail;
+    private final int[] levelCount;
+
+    /** head of the list of free slots */
+    private int freeSlot;
+
+    public ArrayBag(int levels, int capacity, int forgetRate) {
+        this(levels, capacity, new AtomicInteger(forgetRate));
+    }
+
+    public ArrayBag(int levels, int capacity, AtomicInteger forgetRate) {
+        super(levels, capacity);
+        this.forgetRate = forgetRate;
+
+        //one spare slot beyond the capacity
+        final int slots = capacity + 1;
+        slotItem = new Item[slots];
+        slotNext = new int[slots];
+        slotPrev = new int[slots];
+        slotLevel = new int[slots];
+        levelHead = new int[levels];
+        levelTail = new int[levels];
+        levelCount = new int[levels];
+        clearLevels();
+    }
+
+    @Override
+    protected int forgetRate() {
+        return forgetRate.get();
+    }
+
+    @Override
+    protected final void clearLevels() {
+        for (int i = 0; i < slotItem.length; i++) {
+            if (slotItem[i] != null) {
+                slotItem[i].setBagSlot(-1);
+                slotItem[i] = null;
+            }
+            slotNext[i] = i + 1;
+        }
+        slotNext[slotItem.length - 1] = -1;
+        freeSlot = 0;
+        Arrays.fill(levelHead, -1);
+        Arrays.fill(levelTail, -1);
+        Arrays.fill(levelCount, 0);
+    }
+
+    @Override
+    protected void addToLevel(final int level, final E item) {
+        final int slot = freeSlot;
+        if (slot == -1) {
+            throw new IllegalStateException("ArrayBag overflow: " + size() + " items, capacity " + capacity);
+        }
+        freeSlot = slotNext[slot];
+
+        slotItem[slot] = item;
+        slotLevel[slot] = level;
+        slotNext[slot] = -1;
+        slotPrev[slot] = levelTail[level];
+        if (levelTail[level] == -1) {
+            levelHead[level] = slot;
+        } else {
+            slotNext[levelTail[level]] = slot;
+        }
+        levelTail[level] = slot;
+        levelCount[level]++;
+        item.setBagSlot(slot);
+    }
+
+    @Override
+    protected E removeFirstFromLevel(final int level) {
+        final int slot = levelHead[level];
+        final E item = (E) slotItem[slot];
+        unlink(slot);
+        return item;
+    }
+
+    @Override
+    protected int removeFromLevel(final E item, final int level) {
+        final int slot = item.getBagSlot();
+        if ((slot < 0) || (slot >= slotItem.length) || (slotItem[slot] != item)) {
+            return level;   // not in this bag
+        }
+        final int actualLevel = slotLevel[slot];
+        unlink(slot);
+        return actualLevel;
+    }
+
+    /**
+     * Remove a slot from its level and return it to the free list
+     */
+    private void unlink(final int slot) {
+        final int level = slotLevel[slot];
+        final int prev = slotPrev[slot];
+        final int next = slotNext[slot];
+        if (prev == -1) {
+            levelHead[level] = next;
+        } else {
+            slotNext[prev] = next;
+        }
+        if (next == -1) {
+            levelTail[level] = prev;
+        } else {
+            slotPrev[next] = prev;
+        }
+        levelCount[level]--;
+
+        slotItem[slot].setBagSlot(-1);
+        slotItem[slot] = null;
+        slotNext[slot] = freeSlot;
+        freeSlot = slot;
+    }
+
+    @Override
+    protected int levelSize(final int level) {
+        return levelCount[level];
+    }
+
+    @Override
+    public Collection<E> getLevel(final int level) {
+        return new AbstractCollection<E>() {
+
+            @Override
+            public Iterator<E> iterator() {
+                return new Iterator<E>() {
+                    private int slot = levelHead[level];
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot != -1;
+                    }
+
+                    @Override
+                    public E next() {
+                        if (slot == -1) {
+                            throw new NoSuchElementException();
+                        }
+                        final E item = (E) slotItem[slot];
+                        slot = slotNext[slot];
+                        return item;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return levelCount[level];
+            }
+        };
+    }
+
+}
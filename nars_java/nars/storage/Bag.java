@@ -20,11 +20,9 @@
  */
 package nars.storage;
 
-import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.Deque;
-import java.util.HashMap;
 
+import nars.entity.Fingerprint;
 import nars.entity.Item;
 import nars.inference.BudgetFunctions;
 import nars.core.Parameters;
@@ -35,11 +33,18 @@ import nars.core.Parameters;
  * <p>
  * Each entity in a bag must extend Item, which has a BudgetValue and a key.
  * <p>
- * A name table is used to merge duplicate items that have the same key.
- * <p>
  * The bag space is divided by a threshold, above which is mainly time
  * management, and below, space management. Differences: (1) level selection vs.
  * item selection, (2) decay rate
+ * <p>
+ * Subclasses provide the storage: {@link LevelBag} keeps the items in
+ * priority levels, each a FIFO queue, {@link SumTreeBag} samples them in
+ * proportion to priority, and {@link ConcurrentBag} spreads them over
+ * independently locked stripes, each a bag of its own.
+ * <p>
+ * A Bag is not thread-safe, except ConcurrentBag. The compound operations
+ * {@link #takeOutAndPutBack()}, {@link #putInIfAbsent(Item)} and
+ * {@link #adjust(Item, Adjustment)} are single steps in a ConcurrentBag.
  *
  * @param <E> The type of the Item in the Bag
  */
@@ -61,49 +66,19 @@ public abstract class Bag<E extends Item>  {
      * hashtable load factor
      */
     public static final float LOAD_FACTOR = Parameters.LOAD_FACTOR;       //
-    
-
-    
-    /**
-     * shared DISTRIBUTOR that produce the probability distribution
-     */
-    private final int[] DISTRIBUTOR;
-    
-    
-    /**
-     * mapping from key to item
-     */
-    protected final HashMap<String, E> nameTable;
-    /**
-     * array of lists of items, for items on different level
-     */
-    public final Deque<E>[] itemTable;
-    
-    //this is a cache holding whether itemTable[i] is empty. 
-    //it avoids needing to call itemTable.isEmpty() which may improve performance
-    //it is maintained each time an item is added or removed from one of the itemTable ArrayLists
-    public final boolean[] itemTableEmpty;
-    
     /**
      * defined in different bags
      */
     final int capacity;
     /**
-     * current sum of occupied level
-     */
-    private int mass;
-    /**
-     * index to get next level, kept in individual objects
-     */
-    private int levelIndex;
-    /**
-     * current take out level
+     * source of the time when forgetting by elapsed cycles, null to forget
+     * once per putBack
      */
-    private int currentLevel;
+    private Clock clock;
     /**
-     * maximum number of items to be taken out at current level
+     * receiver of the items dropped when the bag is full, null to lose them
      */
-    private int currentCounter;
+    private Overflow<? super E> overflow;
 
     
     private BagObserver<E> bagObserver = null;
@@ -118,11 +93,6 @@ public abstract class Bag<E extends Item>  {
         THRESHOLD = showLevel = (int)(Parameters.BAG_THRESHOLD * levels);
         RELATIVE_THRESHOLD = Parameters.BAG_THRESHOLD;
         this.capacity = capacity;
-        nameTable = new HashMap<>((int) (capacity / LOAD_FACTOR), LOAD_FACTOR);
-        itemTableEmpty = new boolean[this.levels];
-        itemTable = new Deque[this.levels];
-        DISTRIBUTOR = Distributor.get(this.levels).order;
-        clear();
         //showing = false;        
     }
     
@@ -135,19 +105,10 @@ public abstract class Bag<E extends Item>  {
         this(Parameters.BAG_LEVEL, capacity);
     }
 
-    public void clear() {
-        for (int i = 0; i < levels; i++) {
-            itemTableEmpty[i] = true;
-            if (itemTable[i]!=null)
-                itemTable[i].clear();
-        }
-        nameTable.clear();
-        currentLevel = levels - 1;
-        levelIndex = capacity % levels; // so that different bags start at different point
-        mass = 0;
-        currentCounter = 0;
-    }
-
+    /**
+     * Remove all the items
+     */
+    public abstract void clear();
 
 
     /**
@@ -158,14 +119,20 @@ public abstract class Bag<E extends Item>  {
      */
     protected abstract int forgetRate();
 
+    /**
+     * The items of a level, oldest first, for display and inspection
+     *
+     * @param level The level
+     * @return The items of the level, may be null if the level was never used
+     */
+    public abstract Collection<E> getLevel(final int level);
+
     /**
      * The number of items in the bag
      *
      * @return The number of items
      */
-    public int size() {
-        return nameTable.size();
-    }
+    public abstract int size();
 
     /**
      * Get the average priority of Items
@@ -176,7 +143,7 @@ public abstract class Bag<E extends Item>  {
         if (size() == 0) {
             return 0.01f;
         }
-        float f = (float) mass / (size() * levels);
+        float f = getMass() / (size() * levels);
         if (f > 1) {
             return 1.0f;
         }
@@ -189,9 +156,7 @@ public abstract class Bag<E extends Item>  {
      * @param it An item
      * @return Whether the Item is in the Bag
      */
-    public boolean contains(final E it) {
-        return nameTable.containsValue(it);
-    }
+    public abstract boolean contains(final E it);
 
     /**
      * Get an Item by key
@@ -200,9 +165,18 @@ public abstract class Bag<E extends Item>  {
      * @return The Item with the given key
      */
     public E get(final String key) {
-        return nameTable.get(key);
+        return get(Fingerprint.of(key), key);
     }
 
+    /**
+     * Get an Item by key, with its fingerprint already known
+     *
+     * @param keyHash The fingerprint of the key of the Item
+     * @param key The key of the Item
+     * @return The Item with the given key
+     */
+    public abstract E get(final long keyHash, final String key);
+
     /**
      * Add a new Item into the Bag
      *
@@ -210,175 +184,283 @@ public abstract class Bag<E extends Item>  {
      * @return Whether the new Item is added into the Bag
      */
     public boolean putIn(final E newItem) {
-        final String newKey = newItem.getKey();
-                
-        
-        final E oldItem = nameTable.put(newKey, newItem);
-        if (oldItem != null) {                  // merge duplications
-            outOfBase(oldItem);
-            newItem.merge(oldItem);
-        }
-        final E overflowItem = intoBase(newItem);  // put the (new or merged) item into itemTable
-        if (overflowItem != null) {             // remove overflow
-            final String overflowKey = overflowItem.getKey();
-            nameTable.remove(overflowKey);
-            return (overflowItem != newItem);
-        } else {
-            return true;
-        }
+        return putIn(newItem, false);
     }
 
+    /**
+     * Add a new Item into the Bag
+     *
+     * @param newItem The new Item
+     * @param admit Whether to add the item even if its priority is lower than
+     * that of all the items of a full bag, dropping the lowest of them instead
+     * @return Whether the new Item is added into the Bag
+     */
+    public abstract boolean putIn(final E newItem, final boolean admit);
+
     /**
      * Put an item back into the itemTable
      * <p>
-     * The only place where the forgetting rate is applied
+     * The only place where the forgetting rate is applied, unless forgetting
+     * by elapsed cycles
      *
      * @param oldItem The Item to put back
      * @return Whether the new Item is added into the Bag
      */
     public boolean putBack(final E oldItem) {
-        BudgetFunctions.forget(oldItem.getBudget(), forgetRate(), RELATIVE_THRESHOLD);
+        forget(oldItem);
         return putIn(oldItem);
     }
 
     /**
-     * Choose an Item according to priority distribution and take it out of the
-     * Bag
+     * Source of the current time
+     */
+    public interface Clock {
+
+        /**
+         * @return The current time, in cycles
+         */
+        long getTime();
+    }
+
+    /**
+     * Forget by the cycles elapsed since each item was last decayed, instead
+     * of once per putBack.
+     * <p>
+     * The priority of an item is then only brought up to date when it is
+     * used: taken out, put back, or re-levelled. Every takeOut also
+     * re-levels the first item of one level, going down the levels in turn,
+     * so that items that are not selected still sink to the level of their
+     * decayed priority, at a constant cost per takeOut rather than per cycle.
      *
-     * @return The selected Item
+     * @param clock The source of the current time, null to forget once per
+     * putBack
      */
-    public E takeOut() {
-        if (nameTable.isEmpty()) { // empty bag
-            return null;
-        }
-        if (itemTableEmpty[currentLevel] || (currentCounter == 0)) { // done with the current level
-            
-            // look for a non-empty level
-            do {
-                currentLevel = DISTRIBUTOR[levelIndex];
-                levelIndex = (levelIndex + 1) % DISTRIBUTOR.length;
-            } while (itemTableEmpty[currentLevel]);
-            
-            if (currentLevel < THRESHOLD) { // for dormant levels, take one item
-                currentCounter = 1;
-            } else {                  // for active levels, take all current items
-                currentCounter = getLevelSize(currentLevel);
-            }
-        }
-        final E selected = takeOutFirst(currentLevel); // take out the first item in the level
-        currentCounter--;
-        nameTable.remove(selected.getKey());
-        refresh();
-        return selected;
+    public void setClock(final Clock clock) {
+        this.clock = clock;
     }
 
-    public int getLevelSize(final int level) {        
-        return (itemTableEmpty[level]) ? 0 : itemTable[level].size();
+    /**
+     * @return Whether the bag forgets by elapsed cycles
+     */
+    protected final boolean forgetsByTime() {
+        return clock != null;
     }
-    
+
     /**
-     * Pick an item by key, then remove it from the bag
+     * Decay the priority of an item that was used
      *
-     * @param key The given key
-     * @return The Item with the key
+     * @param item The item, out of the bag
      */
-    public E pickOut(final String key) {
-        final E picked = nameTable.get(key);
-        if (picked != null) {
-            outOfBase(picked);
-            nameTable.remove(key);
+    protected void forget(final E item) {
+        if (clock == null) {
+            BudgetFunctions.forget(item.getBudget(), forgetRate(), RELATIVE_THRESHOLD);
+        } else {
+            BudgetFunctions.forget(item.getBudget(), forgetRate(), RELATIVE_THRESHOLD, clock.getTime());
         }
-        return picked;
     }
 
     /**
-     * Check whether a level is empty
+     * Start counting the cycles of an item put in for the first time, when
+     * forgetting by elapsed cycles
      *
-     * @param n The level index
-     * @return Whether that level is empty
+     * @param item The item put in
      */
-    public boolean emptyLevel(final int n) {
-        return itemTableEmpty[n];
+    protected void stamp(final E item) {
+        if ((clock != null) && (item.getBudget().getLastForgetTime() < 0)) {
+            item.getBudget().setLastForgetTime(clock.getTime());
+        }
     }
 
     /**
-     * Decide the put-in level according to priority
+     * Receiver of the items a full bag drops
+     */
+    public interface Overflow<E> {
+
+        /**
+         * @param item The item dropped: the one of lowest priority, or a new
+         * one of lower priority still, out of the bag
+         */
+        void overflow(E item);
+    }
+
+    /**
+     * Pass the items dropped when the bag is full to a receiver, instead of
+     * losing them
      *
-     * @param item The Item to put in
-     * @return The put-in level
+     * @param overflow The receiver, null to lose the items
      */
-    private int getLevel(final E item) {
-        final float fl = item.getPriority() * levels;
-        final int level = (int) Math.ceil(fl) - 1;
-        return (level < 0) ? 0 : level;     // cannot be -1
+    public void setOverflow(final Overflow<? super E> overflow) {
+        this.overflow = overflow;
     }
 
     /**
-     * Insert an item into the itemTable, and return the overflow
+     * Pass an item dropped by the full bag to the receiver, if any
      *
-     * @param newItem The Item to put in
-     * @return The overflow Item
-     */
-    private E intoBase(E newItem) {
-        E oldItem = null;
-        int inLevel = getLevel(newItem);
-        if (size() > capacity) {      // the bag is full
-            int outLevel = 0;
-            //while (itemTable[outLevel].isEmpty()) {
-            while (itemTableEmpty[outLevel]) {
-                outLevel++;
-            }
-            if (outLevel > inLevel) {           // ignore the item and exit
-                return newItem;
-            } else {                            // remove an old item in the lowest non-empty level
-                oldItem = takeOutFirst(outLevel);
-            }        
+     * @param item The item dropped, out of the bag
+     */
+    protected final void overflow(final E item) {
+        if (overflow != null) {
+            overflow.overflow(item);
         }
-        ensureLevelExists(inLevel);
-        itemTable[inLevel].add(newItem);        // FIFO
-        itemTableEmpty[inLevel] = false;
-        mass += (inLevel + 1);                  // increase total mass
-        refresh();                              // refresh the window
-        return oldItem;		// TODO return null is a bad smell
     }
 
-    protected void ensureLevelExists(int level) {
-        if (itemTable[level]==null)
-            itemTable[level] = newLevel();
+    /**
+     * Change of the budget of an item, applied while the item is out of its
+     * bag
+     */
+    public interface Adjustment<E> {
+
+        /**
+         * @param item The item to adjust
+         */
+        void apply(E item);
     }
-    
-    protected Deque<E> newLevel() {
-        //return new LinkedList<E>();
-        return new ArrayDeque<E>(1+capacity/levels);
+
+    /**
+     * Test of a candidate item, looked at while it stays in its bag
+     */
+    public interface Selection<E> {
+
+        /**
+         * @param item The candidate item, still in the bag
+         * @return Whether to take this item out
+         */
+        boolean select(E item);
     }
-    
+
+    /**
+     * Choose an Item according to priority distribution, take it out and put
+     * it back, so that it stays in the bag while its priority decays
+     *
+     * @return The selected Item, or null if the bag is empty
+     */
+    public E takeOutAndPutBack() {
+        final E selected = takeOut();
+        if (selected != null) {
+            putBack(selected);
+        }
+        return selected;
+    }
+
+    /**
+     * Add a new Item into the Bag, unless there is one with the same key
+     *
+     * @param newItem The new Item
+     * @return The Item with the key in the Bag, or null if the new Item was
+     * not added
+     */
+    public abstract E putInIfAbsent(final E newItem);
+
+    /**
+     * Take an item out, adjust its budget, and put it back
+     *
+     * @param item The item, which is put in even if it was not in the Bag
+     * @param adjustment The change of its budget
+     * @return Whether the item is in the Bag afterwards
+     */
+    public abstract boolean adjust(final E item, final Adjustment<? super E> adjustment);
+
+    /**
+     * Choose an Item according to priority distribution and take it out of the
+     * Bag
+     *
+     * @return The selected Item
+     */
+    public abstract E takeOut();
+
+    /**
+     * Look at items in the order {@link #takeOut()} would select them, without
+     * taking them out, and take out the first one the selection accepts.
+     * <p>
+     * The items looked at and not accepted stay in the bag, without
+     * forgetting. They are not looked at twice in one call.
+     *
+     * @param selection The test of each candidate; it must not change the bag
+     * @param candidates The maximum number of items to look at
+     * @return The accepted item, taken out of the bag, or null if none was
+     * accepted
+     */
+    public abstract E takeOut(final Selection<? super E> selection, final int candidates);
+
+    /**
+     * Take out the first item a selection accepts, as rounds of
+     * {@link #takeOut()} and {@link #putBack} would: the items not accepted
+     * are forgotten and moved to the level of their new priority, and the
+     * result and the bag are the same as after those rounds
+     *
+     * @param selection The test of each candidate; it must not change the bag
+     * @param candidates The maximum number of items to look at
+     * @return The accepted item, taken out of the bag, or null if none was
+     * accepted
+     */
+    public E takeOutOrPutBack(final Selection<? super E> selection, final int candidates) {
+        for (int i = 0; i < candidates; i++) {
+            final E item = takeOut();
+            if (item == null) {
+                return null;
+            }
+            if (selection.select(item)) {
+                return item;
+            }
+            putBack(item);
+        }
+        return null;
+    }
+
     /**
-     * Take out the first or last E in a level from the itemTable
+     * Take out the first item a selection accepts, as
+     * {@link #takeOut(Selection, int)} does, and put it back, so that it
+     * stays in the bag while its priority decays; the items looked at and not
+     * accepted do not decay
      *
-     * @param level The current level
-     * @return The first Item
-     */
-    private E takeOutFirst(final int level) {
-        final E selected = itemTable[level].removeFirst();
-        itemTableEmpty[level] = itemTable[level].isEmpty();
-        mass -= (level + 1);
-        refresh();
+     * @param selection The test of each candidate; it must not change the bag
+     * @param candidates The maximum number of items to look at
+     * @return The accepted item, or null if none was accepted
+     */
+    public E takeOutAndPutBack(final Selection<? super E> selection, final int candidates) {
+        final E selected = takeOut(selection, candidates);
+        if (selected != null) {
+            putBack(selected);
+        }
         return selected;
     }
 
     /**
-     * Remove an item from itemTable, then adjust mass
+     * The number of items in a level
+     *
+     * @param level The level
+     * @return The number of items
+     */
+    public abstract int getLevelSize(final int level);
+
+    /**
+     * Pick an item by key, then remove it from the bag
      *
-     * @param oldItem The Item to be removed
+     * @param key The given key
+     * @return The Item with the key
      */
-    protected void outOfBase(final E oldItem) {
-        final int level = getLevel(oldItem);
-        itemTable[level].remove(oldItem);
-        itemTableEmpty[level] = itemTable[level].isEmpty();
-        mass -= (level + 1);
-        refresh();
+    public E pickOut(final String key) {
+        return pickOut(Fingerprint.of(key), key);
     }
 
+    /**
+     * Pick an item by key, with its fingerprint already known, then remove it
+     * from the bag
+     *
+     * @param keyHash The fingerprint of the key
+     * @param key The given key
+     * @return The Item with the key
+     */
+    public abstract E pickOut(final long keyHash, final String key);
+
+    /**
+     * Check whether a level is empty
+     *
+     * @param n The level index
+     * @return Whether that level is empty
+     */
+    public abstract boolean emptyLevel(final int n);
+
     /**
      * To start displaying the Bag in a BagWindow; {@link nars.gui.BagWindow}
      * implements interface {@link BagObserver};
@@ -426,9 +508,9 @@ public abstract class Bag<E extends Item>  {
     public String toString() {
         final StringBuffer buf = new StringBuffer(" ");
         for (int i = levels-1; i >= showLevel; i--) {
-            if (itemTable[i]!=null && !itemTable[i].isEmpty()) {
+            if (!emptyLevel(i)) {
                 buf.append("\n --- Level ").append((i+1)).append(":\n");
-                for (final E e : itemTable[i]) {
+                for (final E e : getLevel(i)) {
                     buf.append(e.toStringBrief()).append('\n');
                 }
             }
@@ -443,9 +525,9 @@ public abstract class Bag<E extends Item>  {
         StringBuffer buf = new StringBuffer(" BAG " + getClass().getSimpleName());
         buf.append(" ").append(showSizes());
         for (int i = levels; i >= showLevel; i--) {
-            if (!itemTableEmpty[i-1]) {
+            if (!emptyLevel(i-1)) {
                 buf = buf.append("\n --- LEVEL ").append(i).append(":\n ");
-                for (final E e : itemTable[i-1]) {
+                for (final E e : getLevel(i-1)) {
                     buf = buf.append(e.toStringLong()).append('\n');
                 }
                 
@@ -461,10 +543,10 @@ public abstract class Bag<E extends Item>  {
     public String showSizes() {
         StringBuilder buf = new StringBuilder(" ");
         int l = 0;
-        for (Collection<E> items : itemTable) {
-            if ((items != null) && (!items.isEmpty())) {
+        for (int i = 0; i < levels; i++) {
+            if (!emptyLevel(i)) {
                 l++;
-                buf.append(items.size()).append(' ');
+                buf.append(getLevelSize(i)).append(' ');
             }
         }
         return "Levels: " + Integer.toString(l) + ", sizes: " + buf;
@@ -477,9 +559,10 @@ public abstract class Bag<E extends Item>  {
         this.showLevel = showLevel;
     }
 
-    public float getMass() {
-        return mass;
-    }
+    /**
+     * @return The sum over the items of their level plus one
+     */
+    public abstract float getMass();
     
     public float getAverageItemsPerLevel() {
         return ((float)capacity)/((float)levels);
@@ -504,9 +587,5 @@ public abstract class Bag<E extends Item>  {
     public int getCapacity() {
         return capacity;
     }
-
-    public Deque<E> getLevel(final int i) {
-        return itemTable[i];
-    }
         
 }
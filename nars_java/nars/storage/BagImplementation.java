@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.storage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import nars.core.Parameters;
+import nars.entity.Item;
+
+/**
+ * The available Bag implementations, selected per bag type in
+ * {@link nars.core.Parameters}.
+ *
+ * @author me
+ */
+public enum BagImplementation {
+
+    /** Deque per level, see {@link DefaultBag} */
+    DEQUE {
+        @Override
+        public <E extends Item> Bag<E> newBag(int levels, int capacity, AtomicInteger forgetRate) {
+            return new DefaultBag<>(levels, capacity, forgetRate);
+        }
+    },
+
+    /** Intrusive slot arrays with O(1) removal, see {@link ArrayBag} */
+    ARRAY {
+        @Override
+        public <E extends Item> Bag<E> newBag(int levels, int capacity, AtomicInteger forgetRate) {
+            return new ArrayBag<>(levels, capacity, forgetRate);
+        }
+    },
+
+    /** Thread-safe, striped over ArrayBags, see {@link ConcurrentBag} */
+    CONCURRENT {
+        @Override
+        public <E extends Item> Bag<E> newBag(int levels, int capacity, AtomicInteger forgetRate) {
+            return new ConcurrentBag<>(levels, capacity, forgetRate);
+        }
+    },
+
+    /** Selection exactly proportional to priority, see {@link SumTreeBag} */
+    SUMTREE {
+        @Override
+        public <E extends Item> Bag<E> newBag(int levels, int capacity, AtomicInteger forgetRate) {
+            return new SumTreeBag<>(levels, capacity, forgetRate);
+        }
+    };
+
+    public abstract <E extends Item> Bag<E> newBag(int levels, int capacity, AtomicInteger forgetRate);
+
+    public <E extends Item> Bag<E> newBag(int capacity, AtomicInteger forgetRate) {
+        return newBag(Parameters.BAG_LEVEL, capacity, forgetRate);
+    }
+}
@@ -21,7 +21,6 @@
 
 package nars.storage;
 
-import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import nars.entity.Concept;
 import nars.core.Parameters;
@@ -29,31 +28,26 @@ import nars.language.Term;
 
 /**
  * Contains Concepts.
+ * @deprecated The memory creates its bags by {@link BagImplementation}, as
+ * selected in {@link Parameters}; this is a {@link DefaultBag} of the size
+ * of the concept bag, kept for the code that creates one itself
  */
-public class ConceptBag extends Bag<Concept> {
-    private final AtomicInteger forgettingRate;
+@Deprecated
+public class ConceptBag extends DefaultBag<Concept> {
     
     /** Constructor
-     * @param memory The reference of memory
+     * @param forgettingRate The (adjustable) forget rate of ConceptBag
      */
     public ConceptBag (AtomicInteger forgettingRate) {
-        super(Parameters.CONCEPT_BAG_SIZE);
-        this.forgettingRate = forgettingRate;
-    }
-    
-    /**
-     * Get the (adjustable) forget rate of ConceptBag
-     * @return The forget rate of ConceptBag
-     */
-    @Override
-    protected int forgetRate() {
-    	return forgettingRate.get();
+        super(Parameters.BAG_LEVEL, Parameters.CONCEPT_BAG_SIZE, forgettingRate);
     }
     
     public void printAll() {
-        for (String k : this.nameTable.keySet()) {
-            Term v = nameTable.get(k).getTerm();
-            System.out.println("  " + k + " " + v + " (" + v.getClass().getSimpleName() + ")" );
+        for (int i = levels - 1; i >= 0; i--) {
+            for (Concept c : getLevel(i)) {
+                Term v = c.getTerm();
+                System.out.println("  " + c.getKey() + " " + v + " (" + v.getClass().getSimpleName() + ")" );
+            }
         }
     }
 
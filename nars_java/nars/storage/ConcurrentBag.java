@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import nars.entity.Item;
+
+/**
+ * Thread-safe Bag for items put in, taken out and activated by several
+ * threads at once, such as the concepts of a Memory fired in parallel.
+ * <p>
+ * The items are spread over stripes by the fingerprint of their key. Each
+ * stripe is an {@link ArrayBag} with its own levels, name table and lock, so
+ * threads working on items of different stripes do not wait for each other;
+ * the ConcurrentBag itself only dispatches to them.
+ * An item always belongs to the same stripe, so the operations on one item,
+ * including the compound {@link #takeOutAndPutBack()},
+ * {@link #putInIfAbsent(Item)} and {@link #adjust(Item, Adjustment)}, are
+ * atomic. The stripes are guarded by locks, not lock-free: a thread that
+ * finds the stripe it wants locked goes on to another one rather than
+ * waiting, and waits only when all of them are locked.
+ * <p>
+ * takeOut chooses a stripe with a probability proportional to its mass, so
+ * that the stripes holding more items of higher priority are selected from
+ * more often, as the levels of one bag would be, then selects by priority
+ * within the stripe. When the chosen stripe is locked by another thread, the
+ * following ones are tried in turn. The capacity is divided
+ * among the stripes, so an item can be dropped from a full stripe while
+ * another one still has room. Sizes, mass and the display are read without
+ * locking and are approximate while other threads modify the bag.
+ *
+ * @author me
+ */
+public class ConcurrentBag<E extends Item> extends Bag<E> {
+
+    /** Number of stripes of a bag large enough to have that many */
+    public static final int DEFAULT_STRIPES = 16;
+
+    private final ArrayBag<E>[] stripes;
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /** state of the random draws of the stripe to take out from */
+    private final AtomicLong draws = new AtomicLong();
+
+    public ConcurrentBag(int levels, int capacity, AtomicInteger forgetRate) {
+        this(levels, capacity, forgetRate, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes The number of stripes, rounded down to a power of two no
+     * larger than the capacity
+     */
+    public ConcurrentBag(int levels, int capacity, AtomicInteger forgetRate, int stripes) {
+        super(levels, capacity);
+        int n = Integer.highestOneBit(Math.max(1, Math.min(stripes, capacity)));
+        mask = n - 1;
+        this.stripes = new ArrayBag[n];
+        locks = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            final int stripeCapacity = (capacity / n) + ((i < (capacity % n)) ? 1 : 0);
+            this.stripes[i] = new ArrayBag<>(levels, stripeCapacity, forgetRate);
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * The stripe of a key, from the high bits of its fingerprint since the
+     * name tables index by the low bits
+     */
+    private int stripe(final long keyHash) {
+        return ((int) (keyHash >>> 40)) & mask;
+    }
+
+    /**
+     * Draw a stripe with a probability proportional to its mass; the masses
+     * are read without locking, so the draw is approximate while other
+     * threads modify the bag
+     *
+     * @return The index of the stripe
+     */
+    private int drawStripe() {
+        long z = draws.getAndAdd(0x9E3779B97F4A7C15L);    // SplitMix64
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        final float total = getMass();
+        if ((mask == 0) || (total <= 0)) {
+            return ((int) z) & mask;
+        }
+        float point = ((z >>> 40) * 0x1.0p-24f) * total;
+        int last = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            final float m = stripes[i].getMass();
+            if (m > 0) {
+                if (point < m) {
+                    return i;
+                }
+                point -= m;
+                last = i;
+            }
+        }
+        return last;                            // masses changed meanwhile
+    }
+
+    @Override
+    protected int forgetRate() {
+        return stripes[0].forgetRate();
+    }
+
+    @Override
+    public void setClock(final Clock clock) {
+        super.setClock(clock);
+        for (final ArrayBag<E> s : stripes) {
+            s.setClock(clock);
+        }
+    }
+
+    @Override
+    public void setOverflow(final Overflow<? super E> overflow) {
+        super.setOverflow(overflow);
+        for (final ArrayBag<E> s : stripes) {
+            s.setOverflow(overflow);
+        }
+    }
+
+    /* ---------- aggregated over the stripes ---------- */
+    @Override
+    public void clear() {
+        for (int i = 0; i < stripes.length; i++) {
+            locks[i].lock();
+            try {
+                stripes[i].clear();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public Collection<E> getLevel(final int level) {
+        final List<E> items = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            locks[i].lock();
+            try {
+                items.addAll(stripes[i].getLevel(level));
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public int getLevelSize(final int level) {
+        int n = 0;
+        for (final ArrayBag<E> s : stripes) {
+            n += s.getLevelSize(level);
+        }
+        return n;
+    }
+
+    @Override
+    public boolean emptyLevel(final int n) {
+        for (final ArrayBag<E> s : stripes) {
+            if (!s.emptyLevel(n)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        int n = 0;
+        for (final ArrayBag<E> s : stripes) {
+            n += s.size();
+        }
+        return n;
+    }
+
+    @Override
+    public float getMass() {
+        float m = 0;
+        for (final ArrayBag<E> s : stripes) {
+            m += s.getMass();
+        }
+        return m;
+    }
+
+    /* ---------- item access, under the lock of the item's stripe ---------- */
+    @Override
+    public boolean contains(final E it) {
+        final int i = stripe(it.getKeyHash());
+        locks[i].lock();
+        try {
+            return stripes[i].contains(it);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public E get(final long keyHash, final String key) {
+        final int i = stripe(keyHash);
+        locks[i].lock();
+        try {
+            return stripes[i].get(keyHash, key);
+        } finally {
+            locks[i].unlock();
+        }
+    }
+
+    @Override
+    public boolean putIn(final E newItem, final boolean admit) {
+        final int i = stripe(newItem.getKeyHash());
+        final boolean added;
+        locks[i].lock();
+        try {
+            added = stripes[i].putIn(newItem, admit);
+        } finally {
+            locks[i].unlock();
+        }
+        refresh();
+        return added;
+    }
+
+    @Override
+    public boolean putBack(final E oldItem) {
+        final int i = stripe(oldItem.getKeyHash());
+        final boolean added;
+        locks[i].lock();
+        try {
+            added = stripes[i].putBack(oldItem);
+        } finally {
+            locks[i].unlock();
+        }
+        refresh();
+        return added;
+    }
+
+    @Override
+    public E putInIfAbsent(final E newItem) {
+        final int i = stripe(newItem.getKeyHash());
+        final E item;
+        locks[i].lock();
+        try {
+            item = stripes[i].putInIfAbsent(newItem);
+        } finally {
+            locks[i].unlock();
+        }
+        refresh();
+        return item;
+    }
+
+    @Override
+    public boolean adjust(final E item, final Adjustment<? super E> adjustment) {
+        final int i = stripe(item.getKeyHash());
+        final boolean added;
+        locks[i].lock();
+        try {
+            added = stripes[i].adjust(item, adjustment);
+        } finally {
+            locks[i].unlock();
+        }
+        refresh();
+        return added;
+    }
+
+    @Override
+    public E pickOut(final long keyHash, final String key) {
+        final int i = stripe(keyHash);
+        final E picked;
+        locks[i].lock();
+        try {
+            picked = stripes[i].pickOut(keyHash, key);
+        } finally {
+            locks[i].unlock();
+        }
+        refresh();
+        return picked;
+    }
+
+    @Override
+    public E takeOut() {
+        return select(false, null, 0);
+    }
+
+    @Override
+    public E takeOutAndPutBack() {
+        return select(true, null, 0);
+    }
+
+    /**
+     * The candidates are looked at in one stripe, the one takeOut would
+     * select from
+     */
+    @Override
+    public E takeOut(final Selection<? super E> selection, final int candidates) {
+        return select(false, selection, candidates);
+    }
+
+    @Override
+    public E takeOutAndPutBack(final Selection<? super E> selection, final int candidates) {
+        return select(true, selection, candidates);
+    }
+
+    /**
+     * Take out an item from a stripe drawn by mass, or from the first one
+     * after it that is neither empty nor locked by another thread, waiting
+     * for a locked stripe only when all non-empty stripes are locked
+     *
+     * @param putBack Whether to put the item back under the same lock
+     * @param selection The test of the candidates, null to take out by
+     * priority only
+     * @param candidates The maximum number of candidates of the selection
+     * @return The selected item, or null if the bag is empty or no candidate
+     * was accepted
+     */
+    private E select(final boolean putBack, final Selection<? super E> selection, final int candidates) {
+        final int start = drawStripe();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int j = 0; j < stripes.length; j++) {
+                final int i = (start + j) & mask;
+                if (stripes[i].size() == 0) {
+                    continue;
+                }
+                if (pass == 0) {
+                    if (!locks[i].tryLock()) {
+                        continue;
+                    }
+                } else {
+                    locks[i].lock();
+                }
+                final E selected;
+                try {
+                    if (selection != null) {
+                        selected = putBack ? stripes[i].takeOutAndPutBack(selection, candidates) : stripes[i].takeOut(selection, candidates);
+                    } else {
+                        selected = putBack ? stripes[i].takeOutAndPutBack() : stripes[i].takeOut();
+                    }
+                } finally {
+                    locks[i].unlock();
+                }
+                if ((selected != null) || (selection != null)) {
+                    refresh();
+                    return selected;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -17,16 +17,26 @@
 
 package nars.storage;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.concurrent.atomic.AtomicInteger;
 import nars.entity.Item;
 
 /**
+ * Bag whose levels are Deques, created on first use.
+ * Removing a given item is a linear scan of its level.
  *
  * @author me
  */
-public class DefaultBag<E extends Item> extends Bag<E> {
+public class DefaultBag<E extends Item> extends LevelBag<E> {
     private final AtomicInteger forgetRate;
 
+    /**
+     * array of lists of items, for items on different level
+     */
+    public final Deque<E>[] itemTable;
+
     public DefaultBag(int levels, int capacity, int forgetRate) {
         this(levels, capacity, new AtomicInteger(forgetRate));        
     }
@@ -34,6 +44,7 @@ public class DefaultBag<E extends Item> extends Bag<E> {
     public DefaultBag(int levels, int capacity, AtomicInteger forgetRate) {
         super(levels, capacity);
         this.forgetRate = forgetRate;
+        itemTable = new Deque[levels];
     }
 
 
@@ -41,5 +52,48 @@ public class DefaultBag<E extends Item> extends Bag<E> {
     protected int forgetRate() {
         return forgetRate.get();
     }
-    
+
+    protected Deque<E> newLevel() {
+        //return new LinkedList<E>();
+        return new ArrayDeque<E>(1+capacity/levels);
+    }
+
+    @Override
+    protected void clearLevels() {
+        for (final Deque<E> level : itemTable) {
+            if (level != null) {
+                level.clear();
+            }
+        }
+    }
+
+    @Override
+    protected void addToLevel(final int level, final E item) {
+        if (itemTable[level] == null) {
+            itemTable[level] = newLevel();
+        }
+        itemTable[level].add(item);
+    }
+
+    @Override
+    protected E removeFirstFromLevel(final int level) {
+        return itemTable[level].removeFirst();
+    }
+
+    @Override
+    protected int removeFromLevel(final E item, final int level) {
+        itemTable[level].remove(item);
+        return level;
+    }
+
+    @Override
+    protected int levelSize(final int level) {
+        return (itemTable[level] == null) ? 0 : itemTable[level].size();
+    }
+
+    @Override
+    public Collection<E> getLevel(final int level) {
+        return itemTable[level];
+    }
+
 }
@@ -33,6 +33,8 @@ public final class Distributor {
     public final int order[];
     /** Capacity of the array */
     public final int capacity;
+    /** The positions of each number in the order, ascending */
+    private final int[][] positions;
 
     private final static Map<Integer,Distributor> distributors = new HashMap(8);
     public static Distributor get(int range) {
@@ -66,6 +68,34 @@ public final class Distributor {
                 order[index] = rank - 1;
             }
         }
+
+        positions = new int[range][];
+        final int[] count = new int[range];
+        for (int n = 0; n < range; n++) {
+            positions[n] = new int[n + 1];
+        }
+        for (int i = 0; i < capacity; i++) {
+            final int n = order[i];
+            positions[n][count[n]++] = i;
+        }
+    }
+
+    /**
+     * Find how far the next copy of a number is in the order
+     *
+     * @param number The number to look for
+     * @param index The current index
+     * @return The distance from the index to the first position of the
+     * number at or after it, wrapping around at the end of the order
+     */
+    public int distance(final int number, final int index) {
+        final int[] p = positions[number];
+        int i = Arrays.binarySearch(p, index);
+        if (i >= 0) {
+            return 0;
+        }
+        i = -i - 1;
+        return (i < p.length) ? p[i] - index : p[0] + capacity - index;
     }
 
     /**
@@ -0,0 +1,492 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.storage;
+
+import java.util.Arrays;
+import nars.entity.Item;
+
+/**
+ * Bag whose items are kept in priority levels, each a FIFO queue, selected
+ * through the {@link Distributor}.
+ * <p>
+ * A name table is used to merge duplicate items that have the same key.
+ * It is keyed by the 64-bit {@link nars.entity.Fingerprint} of the key
+ * ({@link Item#getKeyHash()}) and checks the key on a hit
+ * ({@link Item#keyEquals(Item)}), keeping apart the items of different keys
+ * that share a fingerprint; see {@link NameTable}.
+ * <p>
+ * Subclasses provide the storage of the levels: {@link DefaultBag} keeps a
+ * Deque per level, {@link ArrayBag} threads all levels through shared slot
+ * arrays.
+ *
+ * @param <E> The type of the Item in the Bag
+ * @author me
+ */
+public abstract class LevelBag<E extends Item> extends Bag<E> {
+
+    /**
+     * below one occupied DISTRIBUTOR entry in this many, the next level is
+     * looked up per occupied level instead of walking the DISTRIBUTOR
+     */
+    private static final int SPARSE_WALK = 16;
+
+    /**
+     * shared DISTRIBUTOR that produce the probability distribution
+     */
+    private final int[] DISTRIBUTOR;
+    private final Distributor distributor;
+
+    /**
+     * mapping from key to item, by the key fingerprint
+     */
+    protected final NameTable<E> nameTable;
+
+    //one bit per level, set when the level holds items, 64 levels per word.
+    //it avoids needing to call getLevelSize() and lets the lowest occupied level,
+    //and the next occupied level of the DISTRIBUTOR, be found without a scan.
+    //it is maintained each time an item is added or removed from one of the levels
+    private final long[] occupied;
+    /**
+     * number of DISTRIBUTOR entries that are occupied levels: the sum of
+     * (level + 1) over the occupied levels
+     */
+    private int occupiedEntries;
+
+    /**
+     * current sum of occupied level
+     */
+    private int mass;
+    /**
+     * index to get next level, kept in individual objects
+     */
+    private int levelIndex;
+    /**
+     * current take out level
+     */
+    private int currentLevel;
+    /**
+     * maximum number of items to be taken out at current level
+     */
+    private int currentCounter;
+
+    /**
+     * next level whose first item is re-levelled, when forgetting by elapsed
+     * cycles
+     */
+    private int sweepLevel;
+    /**
+     * number of items of each level looked at by the current call of
+     * {@link #takeOut(Selection, int)}, valid where lookedAtCall holds the
+     * number of that call
+     */
+    private final int[] lookedAt;
+    private final int[] lookedAtCall;
+    private int lookCall;
+
+    protected LevelBag(int levels, int capacity) {
+        super(levels, capacity);
+        nameTable = NameTable.ofItems(capacity + 1, LOAD_FACTOR);
+        occupied = new long[(this.levels + 63) >>> 6];
+        lookedAt = new int[this.levels];
+        lookedAtCall = new int[this.levels];
+        distributor = Distributor.get(this.levels);
+        DISTRIBUTOR = distributor.order;
+        reset();
+    }
+
+    @Override
+    public void clear() {
+        clearLevels();
+        nameTable.clear();
+        reset();
+    }
+
+    private void reset() {
+        Arrays.fill(occupied, 0);
+        occupiedEntries = 0;
+        currentLevel = sweepLevel = levels - 1;
+        levelIndex = capacity % levels; // so that different bags start at different point
+        mass = 0;
+        currentCounter = 0;
+    }
+
+    /* ---------- level storage, implemented by subclasses ---------- */
+    /**
+     * Empty all levels
+     */
+    protected abstract void clearLevels();
+
+    /**
+     * Append an item at the end of a level
+     *
+     * @param level The level
+     * @param item The Item to add
+     */
+    protected abstract void addToLevel(int level, E item);
+
+    /**
+     * Remove the first (oldest) item of a non-empty level
+     *
+     * @param level The level
+     * @return The removed Item
+     */
+    protected abstract E removeFirstFromLevel(int level);
+
+    /**
+     * Remove an item from the level it is stored in
+     *
+     * @param item The Item to remove
+     * @param level The level the item's priority maps to
+     * @return The level the item was actually removed from
+     */
+    protected abstract int removeFromLevel(E item, int level);
+
+    /**
+     * The number of items in a level
+     *
+     * @param level The level
+     * @return The number of items
+     */
+    protected abstract int levelSize(int level);
+
+    @Override
+    public int size() {
+        return nameTable.size();
+    }
+
+    @Override
+    public boolean contains(final E it) {
+        return nameTable.get(it.getKeyHash(), it) == it;
+    }
+
+    @Override
+    public E get(final long keyHash, final String key) {
+        return nameTable.get(keyHash, key);
+    }
+
+    @Override
+    public boolean putIn(final E newItem, final boolean admit) {
+        stamp(newItem);
+        final E oldItem = nameTable.put(newItem.getKeyHash(), newItem);
+        if (oldItem != null) {                  // merge duplications
+            outOfBase(oldItem);
+            newItem.merge(oldItem);
+        }
+        final E overflowItem = intoBase(newItem, admit);  // put the (new or merged) item into itemTable
+        if (overflowItem != null) {             // remove overflow
+            nameTable.remove(overflowItem.getKeyHash(), overflowItem);
+            overflow(overflowItem);
+            return (overflowItem != newItem);
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * Decay the first item of the next occupied level and move it to the level
+     * of its new priority, when forgetting by elapsed cycles
+     */
+    private void sweep() {
+        int level = highestLevel(sweepLevel);
+        if (level < 0) {
+            level = highestLevel(levels - 1);     // start again from the top
+            if (level < 0) {
+                return;
+            }
+        }
+        sweepLevel = ((level == 0) ? levels : level) - 1;
+        final E item = takeOutFirst(level);
+        forget(item);
+        intoBase(item, false);
+    }
+
+    @Override
+    public E putInIfAbsent(final E newItem) {
+        final E oldItem = nameTable.get(newItem.getKeyHash(), newItem);
+        if (oldItem != null) {
+            return oldItem;
+        }
+        return putIn(newItem) ? newItem : null;
+    }
+
+    @Override
+    public boolean adjust(final E item, final Adjustment<? super E> adjustment) {
+        final E old = nameTable.remove(item.getKeyHash(), item);
+        if (old != null) {
+            outOfBase(old);
+        }
+        adjustment.apply(item);
+        return putBack(item);
+    }
+
+    @Override
+    public E takeOut() {
+        if (nameTable.isEmpty()) { // empty bag
+            return null;
+        }
+        nextSelection();
+        final E selected = takeOutFirst(currentLevel); // take out the first item in the level
+        currentCounter--;
+        nameTable.remove(selected.getKeyHash(), selected);
+        if (forgetsByTime()) {
+            forget(selected);
+            sweep();
+        }
+        refresh();
+        return selected;
+    }
+
+    /**
+     * The items looked at and not accepted are each only moved to the end of
+     * their level, as takeOut and putIn would, so that the next calls look
+     * further. The level selection advances as one takeOut per item looked
+     * at.
+     */
+    @Override
+    public E takeOut(final Selection<? super E> selection, final int candidates) {
+        final int n = Math.min(candidates, size());
+        if (n <= 0) {
+            return null;
+        }
+        if (++lookCall == 0) {      // wrapped around
+            Arrays.fill(lookedAtCall, 0);
+            lookCall = 1;
+        }
+        int looked = 0;
+        while (looked < n) {
+            nextSelection();
+            currentCounter--;
+            final int level = currentLevel;
+            //the items looked at are moved to the end of the level, so the
+            //first one is new unless all the level was looked at already
+            final int seen = (lookedAtCall[level] == lookCall) ? lookedAt[level] : 0;
+            if (seen >= levelSize(level)) {
+                continue;
+            }
+            final E candidate = removeFirstFromLevel(level);
+            if (selection.select(candidate)) {
+                nameTable.remove(candidate.getKeyHash(), candidate);
+                setOccupied(level, levelSize(level) != 0);
+                mass -= (level + 1);
+                refresh();
+                return candidate;
+            }
+            addToLevel(level, candidate);
+            lookedAtCall[level] = lookCall;
+            lookedAt[level] = seen + 1;
+            looked++;
+        }
+        return null;
+    }
+
+    /**
+     * The items not accepted stay in the name table while they are forgotten
+     * and moved to their new level, instead of being removed and put again
+     */
+    @Override
+    public E takeOutOrPutBack(final Selection<? super E> selection, final int candidates) {
+        for (int i = 0; i < candidates; i++) {
+            if (nameTable.isEmpty()) {
+                return null;
+            }
+            nextSelection();
+            final E item = takeOutFirst(currentLevel);
+            currentCounter--;
+            if (forgetsByTime()) {
+                forget(item);
+                sweep();
+            }
+            refresh();
+            if (selection.select(item)) {
+                nameTable.remove(item.getKeyHash(), item);
+                return item;
+            }
+            forget(item);
+            intoBase(item, false);      // the bag has room: the item counts in it
+        }
+        return null;
+    }
+
+    /**
+     * Choose the level of the next selection, when done with the current one
+     */
+    private void nextSelection() {
+        if (emptyLevel(currentLevel) || (currentCounter <= 0)) { // done with the current level
+            nextLevel();
+            if (currentLevel < THRESHOLD) { // for dormant levels, take one item
+                currentCounter = 1;
+            } else {                  // for active levels, take all current items
+                currentCounter = getLevelSize(currentLevel);
+            }
+        }
+    }
+
+    /**
+     * Move to the next non-empty level of the DISTRIBUTOR, and past it.
+     * <p>
+     * While the occupied levels fill a good part of the DISTRIBUTOR, walking
+     * it entry by entry is short; otherwise the next entry of each occupied
+     * level is looked up and the nearest one taken, which is where the walk
+     * would have stopped.
+     */
+    private void nextLevel() {
+        if (occupiedEntries * SPARSE_WALK >= DISTRIBUTOR.length) {
+            do {
+                currentLevel = DISTRIBUTOR[levelIndex];
+                levelIndex = (levelIndex + 1) % DISTRIBUTOR.length;
+            } while (emptyLevel(currentLevel));
+            return;
+        }
+        int nearest = DISTRIBUTOR.length;
+        for (int w = 0; w < occupied.length; w++) {
+            for (long bits = occupied[w]; bits != 0; bits &= bits - 1) {
+                final int level = (w << 6) + Long.numberOfTrailingZeros(bits);
+                final int d = distributor.distance(level, levelIndex);
+                if (d < nearest) {
+                    nearest = d;
+                    currentLevel = level;
+                }
+            }
+        }
+        levelIndex = (levelIndex + nearest + 1) % DISTRIBUTOR.length;
+    }
+
+    /**
+     * @return The lowest level holding items, or -1 if all are empty
+     */
+    private int lowestLevel() {
+        for (int w = 0; w < occupied.length; w++) {
+            if (occupied[w] != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(occupied[w]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param top The highest level to consider
+     * @return The highest level holding items, no higher than top, or -1
+     */
+    private int highestLevel(final int top) {
+        int w = top >>> 6;
+        long bits = occupied[w] & (-1L >>> (63 - (top & 63)));
+        while (bits == 0) {
+            if (--w < 0) {
+                return -1;
+            }
+            bits = occupied[w];
+        }
+        return (w << 6) + 63 - Long.numberOfLeadingZeros(bits);
+    }
+
+    private void setOccupied(final int level, final boolean isOccupied) {
+        final long bit = 1L << level;
+        final boolean was = (occupied[level >>> 6] & bit) != 0;
+        if (isOccupied != was) {
+            occupied[level >>> 6] ^= bit;
+            occupiedEntries += isOccupied ? (level + 1) : -(level + 1);
+        }
+    }
+
+    @Override
+    public int getLevelSize(final int level) {
+        return emptyLevel(level) ? 0 : levelSize(level);
+    }
+
+    @Override
+    public E pickOut(final long keyHash, final String key) {
+        final E picked = nameTable.remove(keyHash, key);
+        if (picked != null) {
+            outOfBase(picked);
+        }
+        return picked;
+    }
+
+    @Override
+    public boolean emptyLevel(final int n) {
+        return (occupied[n >>> 6] & (1L << n)) == 0;
+    }
+
+    /**
+     * Decide the put-in level according to priority
+     *
+     * @param item The Item to put in
+     * @return The put-in level
+     */
+    private int getLevel(final E item) {
+        final float fl = item.getPriority() * levels;
+        final int level = (int) Math.ceil(fl) - 1;
+        return (level < 0) ? 0 : level;     // cannot be -1
+    }
+
+    /**
+     * Insert an item into the itemTable, and return the overflow
+     *
+     * @param newItem The Item to put in
+     * @param admit Whether to put the item in even if it is the lowest
+     * @return The overflow Item
+     */
+    private E intoBase(E newItem, final boolean admit) {
+        E oldItem = null;
+        int inLevel = getLevel(newItem);
+        if (size() > capacity) {      // the bag is full
+            final int outLevel = lowestLevel();
+            if ((outLevel > inLevel) && !admit) {   // ignore the item and exit
+                return newItem;
+            } else {                            // remove an old item in the lowest non-empty level
+                oldItem = takeOutFirst(outLevel);
+            }
+        }
+        addToLevel(inLevel, newItem);           // FIFO
+        setOccupied(inLevel, true);
+        mass += (inLevel + 1);                  // increase total mass
+        refresh();                              // refresh the window
+        return oldItem;		// TODO return null is a bad smell
+    }
+
+    /**
+     * Take out the first or last E in a level from the itemTable
+     *
+     * @param level The current level
+     * @return The first Item
+     */
+    private E takeOutFirst(final int level) {
+        final E selected = removeFirstFromLevel(level);
+        setOccupied(level, levelSize(level) != 0);
+        mass -= (level + 1);
+        refresh();
+        return selected;
+    }
+
+    /**
+     * Remove an item from itemTable, then adjust mass
+     *
+     * @param oldItem The Item to be removed
+     */
+    protected void outOfBase(final E oldItem) {
+        final int level = removeFromLevel(oldItem, getLevel(oldItem));
+        setOccupied(level, levelSize(level) != 0);
+        mass -= (level + 1);
+        refresh();
+    }
+
+    @Override
+    public float getMass() {
+        return mass;
+    }
+}
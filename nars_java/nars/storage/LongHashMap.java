@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.storage;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long keys to non-null values,
+ * with linear probing and backward-shift deletion; no boxing and no entry
+ * objects.
+ *
+ * @param <V> The type of the values
+ * @author me
+ */
+public class LongHashMap<V> {
+
+    private final float loadFactor;
+    private long[] keys;
+    /** null marks a free cell */
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongHashMap(final int expectedSize, final float loadFactor) {
+        this.loadFactor = loadFactor;
+        int cells = 2;
+        while (cells * loadFactor < expectedSize) {
+            cells <<= 1;
+        }
+        allocate(cells);
+    }
+
+    private void allocate(final int cells) {
+        keys = new long[cells];
+        values = new Object[cells];
+        mask = cells - 1;
+        resizeAt = Math.min(cells - 1, (int) (cells * loadFactor));
+    }
+
+    /** spread the key bits over the table index (murmur3 finalizer) */
+    private int cell(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return ((int) k) & mask;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(final long key) {
+        for (int i = cell(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The previous value of the key, or null
+     */
+    public V put(final long key, final V value) {
+        int i = cell(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                final V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            rehash();
+        }
+        return null;
+    }
+
+    /**
+     * @return The removed value, or null
+     */
+    public V remove(final long key) {
+        int i = cell(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                final V old = (V) values[i];
+                shiftBack(i);
+                size--;
+                return old;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Close the gap at a removed cell by moving back the entries of the
+     * following probe sequence that would no longer be reachable
+     */
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == null) {
+                break;
+            }
+            final int home = cell(keys[i]);
+            //move the entry if its home is not cyclically within (gap, i]
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private void rehash() {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = cell(oldKeys[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+}
@@ -20,32 +20,41 @@
  */
 package nars.storage;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import nars.entity.BudgetValue;
 import nars.entity.Concept;
 import nars.entity.Item;
 import nars.entity.Sentence;
-import nars.entity.Stamp;
 import nars.entity.Task;
-import nars.entity.TaskLink;
 import nars.entity.TermLink;
-import nars.entity.TruthValue;
 import nars.inference.BudgetFunctions;
+import nars.inference.InferenceContext;
 import nars.inference.InferenceRecorder;
+import nars.inference.LocalRules;
+import nars.language.Statement;
 import nars.language.Term;
+import nars.language.TermTable;
+import nars.language.Variable;
+import nars.core.Metrics;
 import nars.core.Parameters;
 import nars.core.NAR;
+import nars.io.ConceptStore;
+import nars.io.EventLog;
 import nars.io.Output.OUT;
 
 /**
  * The memory of the system.
  */
-public class Memory {    
+public class Memory implements Bag.Clock, Closeable {    
     public static Random randomNumber = new Random(1);
 
     /**
@@ -57,15 +66,48 @@ public class Memory {
     /**
      * Concept bag. Containing all Concepts of the system
      */
-    public final ConceptBag concepts;
+    public final Bag<Concept> concepts;
+    /**
+     * Cold tier of the concepts, keeping those dropped by the full concept
+     * bag; null when they are lost
+     */
+    private final ConceptStore conceptStore;
+    /**
+     * The concept the reasoner thread works on, which is not written to the
+     * concept store before the work ends, see {@link #pinConcept(Concept)}
+     */
+    private Concept pinnedConcept;
+    /**
+     * The pinned concept if the full concept bag dropped it, to be written
+     * once it is unpinned; null otherwise
+     */
+    private Concept droppedPinnedConcept;
+    /**
+     * The statements of the concepts by their components, to answer questions
+     * with query variables; null when not kept
+     */
+    private final StatementIndex statementIndex;
+    /**
+     * Counters and latency histograms of the work of the memory; null when
+     * not kept
+     */
+    private final Metrics metrics;
     /**
      * New tasks with novel composed terms, for delayed and selective processing
      */
-    public final NovelTaskBag novelTasks;
+    public final Bag<Task> novelTasks;
+    /**
+     * Canonical instances of the constant terms
+     */
+    public final TermTable terms = new TermTable();
     /**
      * Inference record text to be written into a log file
      */
     private InferenceRecorder recorder;
+    /**
+     * Binary log of the steps of the inference, or null
+     */
+    private final EventLog eventLog;
     
     public final AtomicInteger beliefForgettingRate = new AtomicInteger(Parameters.TERM_LINK_FORGETTING_CYCLE);
     public final AtomicInteger taskForgettingRate = new AtomicInteger(Parameters.TASK_LINK_FORGETTING_CYCLE);
@@ -74,43 +116,26 @@ public class Memory {
     /* ---------- Short-term workspace for a single cycle ---------- */
     /**
      * List of new tasks accumulated in one cycle, to be processed in the next
-     * cycle
+     * cycle; concepts fired in parallel add to it concurrently
      */
-    public final LinkedList<Task> newTasks;
+    public final ConcurrentLinkedDeque<Task> newTasks;
 
     /**
-     * The selected Term
-     */
-    public Term currentTerm;
-    /**
-     * The selected Concept
+     * The inference context of the thread running the working cycle
      */
-    public Concept currentConcept;
-    /**
-     * The selected TaskLink
-     */
-    public TaskLink currentTaskLink;
-    /**
-     * The selected Task
-     */
-    public Task currentTask;
-    /**
-     * The selected TermLink
-     */
-    public TermLink currentBeliefLink;
-    /**
-     * The selected belief
-     */
-    public Sentence currentBelief;
+    private final InferenceContext context;
+
     /**
-     * The new Stamp
+     * The threads firing concepts in parallel, null when concepts are fired
+     * on the thread running the working cycle
      */
-    public Stamp newStamp;
+    private ParallelFiring parallelFiring;
+
     /**
-     * The substitution that unify the common term in the Task and the Belief
-     * TODO unused
+     * Reports of the concepts fired in parallel, output on the thread running
+     * the working cycle once they are fired
      */
-    protected HashMap<Term, Term> substitute;
+    private final ConcurrentLinkedQueue<Sentence> reports = new ConcurrentLinkedQueue<>();
     
 
 
@@ -125,22 +150,123 @@ public class Memory {
     public Memory(NAR reasoner) {
         this.reasoner = reasoner;
         recorder = new NullInferenceRecorder();
-        concepts = new ConceptBag(conceptForgettingRate);
-        novelTasks = new NovelTaskBag();
-        newTasks = new LinkedList<>();
+        concepts = reasoner.param.getConceptBag().newBag(Parameters.CONCEPT_BAG_SIZE, conceptForgettingRate);
+        novelTasks = reasoner.param.getNovelTaskBag().newBag(Parameters.TASK_BUFFER_SIZE, new AtomicInteger(Parameters.NEW_TASK_FORGETTING_CYCLE));
+        if (reasoner.param.isTimeForgetting()) {
+            concepts.setClock(this);
+        }
+        statementIndex = reasoner.param.isStatementIndex() ? new StatementIndex(concepts) : null;
+        conceptStore = openConceptStore(reasoner.param.getConceptStore());
+        if ((statementIndex != null) || (conceptStore != null)) {
+            concepts.setOverflow(new Bag.Overflow<Concept>() {
+                @Override
+                public void overflow(final Concept concept) {
+                    if (statementIndex != null) {
+                        statementIndex.remove(concept.getTerm());
+                    }
+                    if (conceptStore != null) {
+                        if (concept == pinnedConcept) {     // would be written as it changes
+                            droppedPinnedConcept = concept;
+                        } else {
+                            conceptStore.overflow(concept);
+                        }
+                    }
+                }
+            });
+        }
+        newTasks = new ConcurrentLinkedDeque<>();
+        context = new InferenceContext(this);
+        metrics = reasoner.param.isMetrics() ? new Metrics(this) : null;
+        eventLog = openEventLog(reasoner.param.getEventLog());
+    }
+
+    private ConceptStore openConceptStore(final File directory) {
+        if (directory == null) {
+            return null;
+        }
+        try {
+            return new ConceptStore(this, directory, ConceptStore.DEFAULT_REGION_SIZE);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot create the concept store in " + directory, e);
+        }
+    }
+
+    private static EventLog openEventLog(final File file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new EventLog(file, EventLog.DEFAULT_CAPACITY);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot create the event log " + file, e);
+        }
     }
 
     public void init() {
+        if (parallelFiring != null) {
+            parallelFiring.shutdown();
+            parallelFiring = null;
+        }
         concepts.clear();
+        pinnedConcept = null;
+        droppedPinnedConcept = null;
+        if (conceptStore != null) {
+            conceptStore.clear();
+        }
+        if (statementIndex != null) {
+            statementIndex.clear();
+        }
+        terms.clear();
         novelTasks.clear();
         newTasks.clear();
+        reports.clear();
+        context.clear();
+        if (metrics != null) {
+            metrics.unregister();
+            metrics.reset();
+            metrics.register();
+        }
         randomNumber = new Random(1);
         reasoner.initTimer();
+        if (eventLog != null) {
+            eventLog.term(EventLog.RESET, getTime(), null);
+        }
         if (getRecorder().isActive()) {
             getRecorder().append("--reset--");
         }
     }
 
+    /**
+     * Release what the memory holds besides its heap: stop the reasoning
+     * threads, close the concept store and the event log, and unregister the
+     * metrics. The memory is not to be used afterwards.
+     * <p>
+     * Called in Reasoner.close only
+     *
+     * @throws IOException if the concept store or the event log cannot be
+     * closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (parallelFiring != null) {
+            parallelFiring.shutdown();
+            parallelFiring = null;
+        }
+        concepts.setOverflow(null);
+        if (metrics != null) {
+            metrics.unregister();
+        }
+        try {
+            if (conceptStore != null) {
+                conceptStore.close();
+            }
+        } finally {
+            if (eventLog != null) {
+                eventLog.close();
+            }
+        }
+    }
+
     public InferenceRecorder getRecorder() {
         return recorder;
     }
@@ -149,10 +275,95 @@ public class Memory {
         this.recorder = recorder;
     }
 
+    /**
+     * @return The binary log of the steps of the inference, or null if they
+     * are not logged; closed with the memory
+     */
+    public EventLog getEventLog() {
+        return eventLog;
+    }
+
+    /**
+     * Record a step of the inference on a task, in the event log and with the
+     * inference recorder, when they are on
+     *
+     * @param event The type of the step, one of the types of EventLog
+     * @param task The task
+     */
+    public void trace(final byte event, final Task task) {
+        if (eventLog != null) {
+            eventLog.task(event, getTime(), task);
+        }
+        if (recorder.isActive()) {
+            recorder.append(EventLog.label(event) + task + "\n");
+        }
+    }
+
+    /**
+     * Record a step of the inference on a sentence
+     *
+     * @param event The type of the step
+     * @param sentence The sentence
+     */
+    public void trace(final byte event, final Sentence sentence) {
+        if (eventLog != null) {
+            eventLog.sentence(event, getTime(), sentence);
+        }
+        if (recorder.isActive()) {
+            recorder.append(EventLog.label(event) + sentence + "\n");
+        }
+    }
+
+    /**
+     * Record a step of the inference on a link
+     *
+     * @param event The type of the step
+     * @param link The TermLink or TaskLink
+     */
+    public void trace(final byte event, final TermLink link) {
+        if (eventLog != null) {
+            eventLog.link(event, getTime(), link);
+        }
+        if (recorder.isActive()) {
+            recorder.append(EventLog.label(event) + link + "\n");
+        }
+    }
+
+    /**
+     * Record a step of the inference on a term
+     *
+     * @param event The type of the step
+     * @param term The term
+     */
+    public void trace(final byte event, final Term term) {
+        if (eventLog != null) {
+            eventLog.term(event, getTime(), term);
+        }
+        if (recorder.isActive()) {
+            recorder.append(EventLog.label(event) + term + "\n");
+        }
+    }
+
+    @Override
     public long getTime() {
         return reasoner.getTime();
     }
 
+    /**
+     * Get the workspace of the inference step running on the current
+     * thread
+     *
+     * @return The context of a thread firing concepts in parallel, or the
+     * context of the working cycle
+     */
+    public InferenceContext getContext() {
+        final Thread t = Thread.currentThread();
+        if ((t instanceof ParallelFiring.ReasoningThread) && (((ParallelFiring.ReasoningThread) t).memory == this)) {
+            return ((ParallelFiring.ReasoningThread) t).context;
+        }
+        return context;
+    }
+
 
     /**
      * Actually means that there are no new Tasks
@@ -163,7 +374,31 @@ public class Memory {
 
     /* ---------- conversion utilities ---------- */
     /**
-     * Get an existing Concept for a given name
+     * @return The cold tier of the concepts, or null if the concepts dropped
+     * by the concept bag are lost; closed with the memory
+     */
+    public ConceptStore getConceptStore() {
+        return conceptStore;
+    }
+
+    /**
+     * @return The index of the statements of the concepts by their
+     * components, or null if it is not kept
+     */
+    public StatementIndex getStatementIndex() {
+        return statementIndex;
+    }
+
+    /**
+     * @return The metrics of the memory, or null if they are not kept
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get an existing Concept for a given name, among those in the concept
+     * bag only
      * <p>
      * called from Term and ConceptWindow.
      *
@@ -175,15 +410,19 @@ public class Memory {
     }
 
     /**
-     * Get a Term for a given name of a Concept or Operator
+     * Get a Term for a given name of a canonical term, Concept or Operator
      * <p>
      * called in StringParser and the make methods of compound terms.
      *
-     * @param name the name of a concept or operator
-     * @return a Term or null (if no Concept/Operator has this name)
+     * @param name the name of a term, concept or operator
+     * @return a Term or null (if no Term/Concept/Operator has this name)
      */
     public Term nameToListedTerm(final String name) {
-        final Concept concept = concepts.get(name);
+        final Term t = terms.get(name);
+        if (t != null) {
+            return t;
+        }
+        final Concept concept = nameToConcept(name);
         if (concept != null) {
             return concept.getTerm();
         }
@@ -191,13 +430,70 @@ public class Memory {
     }
 
     /**
-     * Get an existing Concept for a given Term.
+     * Get an existing Concept for a given Term, reloading it into the concept
+     * bag if it was spilled to the concept store
      *
      * @param term The Term naming a concept
      * @return a Concept or null
      */
     public Concept termToConcept(final Term term) {
-        return nameToConcept(term.getName());
+        final Concept concept = concepts.get(term.getNameHash(), term.getName());
+        if ((concept != null) || (conceptStore == null)) {
+            return concept;
+        }
+        if ((droppedPinnedConcept != null) && droppedPinnedConcept.getKey().equals(term.getName())) {
+            final Concept pinned = droppedPinnedConcept;
+            droppedPinnedConcept = null;
+            concepts.putIn(pinned, true);
+            if (statementIndex != null) {
+                statementIndex.add(pinned.getTerm());
+            }
+            return pinned;
+        }
+        return reloadConcept(term);
+    }
+
+    /**
+     * Keep a concept from being written to the concept store while the
+     * reasoner thread works on it: if the full concept bag drops it, for
+     * another concept made or reloaded meanwhile, it is written when
+     * unpinned, with all its changes, and a lookup of its term before then
+     * takes the same concept back into the bag instead of an older copy
+     *
+     * @param concept The concept to work on, null for none
+     */
+    public void pinConcept(final Concept concept) {
+        unpinConcept();
+        pinnedConcept = concept;
+    }
+
+    /**
+     * End the work on the pinned concept, and write it to the concept store
+     * if the concept bag dropped it meanwhile and did not take it back
+     */
+    public void unpinConcept() {
+        final Concept dropped = droppedPinnedConcept;
+        pinnedConcept = null;
+        droppedPinnedConcept = null;
+        if ((dropped != null) && !concepts.contains(dropped)) {     // not put back by an activation
+            conceptStore.overflow(dropped);
+        }
+    }
+
+    /**
+     * Take a concept spilled to the concept store back into the concept bag,
+     * where it takes the place of the concept of lowest priority if the bag
+     * is full, whatever its own priority, since it is in use again
+     *
+     * @param term The Term naming the concept
+     * @return The concept, or null if it is not in the store
+     */
+    private Concept reloadConcept(final Term term) {
+        final Concept concept = conceptStore.reload(term);
+        if (concept != null) {
+            concepts.putIn(concept, true);
+        }
+        return concept;
     }
 
     /**
@@ -210,16 +506,78 @@ public class Memory {
         if (!term.isConstant()) {
             return null;
         }
-        final String n = term.getName();
-        Concept concept = concepts.get(n);
-        if (concept == null) {
-            concept = new Concept(term, this); // the only place to make a new Concept
-            final boolean created = concepts.putIn(concept);
-            if (!created) {
-                return null;
+        final Concept concept = termToConcept(term);
+        if (concept != null) {
+            return concept;
+        }
+        return concepts.putInIfAbsent(new Concept(term, this)); // the only place to make a new Concept
+    }
+
+    /**
+     * The concepts whose statements match a pattern with query variables,
+     * among those in the concept bag; through the statement index if it is
+     * kept and one side of the pattern is constant, by a scan of the bag
+     * otherwise
+     *
+     * @param pattern A statement with query variables on one side at least
+     * @return The concepts of the statements that the query variables of the
+     * pattern can be substituted into
+     */
+    public List<Concept> search(final Statement pattern) {
+        final List<Concept> found = new ArrayList<>();
+        if ((statementIndex != null) && StatementIndex.canMatch(pattern)) {
+            for (final Statement s : statementIndex.match(pattern)) {
+                final Concept c = concepts.get(s.getNameHash(), s.getName());
+                if (c != null) {
+                    found.add(c);
+                }
             }
+            return found;
+        }
+        for (int level = concepts.levels - 1; level >= 0; level--) {
+            if (concepts.emptyLevel(level)) {
+                continue;
+            }
+            for (final Concept c : concepts.getLevel(level)) {
+                final Term t = c.getTerm();
+                if ((t instanceof Statement) && !Variable.containVarQuery(t.getName())
+                        && StatementIndex.matches(pattern, (Statement) t)) {
+                    found.add(c);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Answer a question with query variables by the best belief of the
+     * concepts the statement index finds for it
+     * <p>
+     * called in Concept.processQuestion
+     *
+     * @param task The question
+     * @param ctx The inference context of the working cycle
+     */
+    public void answerFromIndex(final Task task, final InferenceContext ctx) {
+        final Term content = task.getContent();
+        if ((statementIndex == null) || !(content instanceof Statement) || !StatementIndex.canMatch((Statement) content)) {
+            return;
+        }
+        final Sentence question = task.getSentence();
+        Sentence best = null;
+        float bestQuality = 0;
+        for (final Concept c : search((Statement) content)) {
+            for (final Sentence belief : c.beliefs) {
+                final float quality = LocalRules.solutionQuality(question, belief);
+                if (quality > bestQuality) {
+                    bestQuality = quality;
+                    best = belief;
+                }
+            }
+        }
+        if (best != null) {
+            LocalRules.trySolution(best, task, ctx);
         }
-        return concept;
     }
 
     /**
@@ -243,9 +601,12 @@ public class Memory {
      * @param b the new BudgetValue
      */
     public void activateConcept(final Concept c, final BudgetValue b) {
-        concepts.pickOut(c.getKey());
-        BudgetFunctions.activate(c, b);
-        concepts.putBack(c);
+        concepts.adjust(c, new Bag.Adjustment<Concept>() {
+            @Override
+            public void apply(final Concept concept) {
+                BudgetFunctions.activate(concept, b);
+            }
+        });
     }
 
     /* ---------- new task entries ---------- */
@@ -262,200 +623,35 @@ public class Memory {
      */
     public void inputTask(final Task task) {
         if (task.getBudget().aboveThreshold()) {
-            if (recorder.isActive()) {
-                recorder.append("!!! Perceived: " + task + "\n");
-            }
+            trace(EventLog.PERCEIVED, task);
             newTasks.add(task);       // wait to be processed in the next workCycle
         } else {
-            if (recorder.isActive()) {
-                recorder.append("!!! Neglected: " + task + "\n");
-            }
+            trace(EventLog.NEGLECTED, task);
         }
     }
 
     /**
-     * Activated task called in MatchingRules.trySolution and
-     * Concept.processGoal
-     *
-     * @param budget The budget value of the new Task
-     * @param sentence The content of the new Task
-     * @param candidateBelief The belief to be used in future inference, for
-     * forward/backward correspondence
-     */
-    public void activatedTask(final BudgetValue budget, final Sentence sentence, final Sentence candidateBelief) {
-        final Task task = new Task(sentence, budget, currentTask, sentence, candidateBelief);
-        if (recorder.isActive()) {
-            recorder.append("!!! Activated: " + task.toString() + "\n");
-        }
-        if (sentence.isQuestion()) {
-            final float s = task.getBudget().summary();
-//            float minSilent = reasoner.getMainWindow().silentW.value() / 100.0f;
-            final float minSilent = reasoner.param.getSilenceLevel() / 100.0f;
-            if (s > minSilent) {  // only report significant derived Tasks
-                reasoner.output(OUT.class, task.getSentence());
-            }
-        }
-        newTasks.add(task);
-    }
-
-    /**
-     * Derived task comes from the inference rules.
+     * Report a sentence on the output channels of the reasoner; from a
+     * concept fired in parallel, once the concepts of the cycle are fired, so
+     * that the output channels are only called by the thread running the
+     * working cycle, and may keep it waiting
+     * <p>
+     * A copy is reported: the stamp of a derived sentence is shared with the
+     * others derived from the same premises, whose derivation chains are
+     * added to it afterwards, while the channels may format the sentence
+     * later, on other threads
      *
-     * @param task the derived task
+     * @param sentence The sentence to report
      */
-    private void derivedTask(Task task, boolean revised, boolean single) {
-        if (task.getBudget().aboveThreshold()) {
-            if (task.getSentence() != null && task.getSentence().getTruth() != null) {
-                float conf = task.getSentence().getTruth().getConfidence();
-                if (conf == 0) { //no confidence - we can delete the wrongs out that way.
-                    if (recorder.isActive()) {
-                        recorder.append("!!! Ignored (confidence): " + task + "\n");
-                    }
-                    return;
-                }
-            }
-            Stamp stamp = task.getSentence().getStamp();
-            List<Term> chain = stamp.getChain();
-            
-	    if (currentBelief != null) {
-                if(chain.contains(currentBelief.getContent())) {
-                    chain.remove(currentBelief.getContent());
-                }
-                stamp.addToChain(currentBelief.getContent());
-            }
-            if (currentTask != null && !single) {
-                if(chain.contains(currentTask.getContent())) {
-                    chain.remove(currentTask.getContent());
-                }
-                stamp.addToChain(currentTask.getContent());
-            }
-            if (!revised) { //its a inference rule, we have to do the derivation chain check to hamper cycles
-                for (final Term chain1 : chain) {
-                    if (task.getContent() == chain1) {
-                        if (recorder.isActive()) {
-                            recorder.append("!!! Cyclic Reasoning detected: " + task + "\n");
-                        }
-                        return;
-                    }
-                }
-            } else { //its revision, of course its cyclic, apply evidental base policy
-                for (int i = 0; i < stamp.length(); i++) {
-                    for (int j = 0; j < stamp.length(); j++) {
-                        if (i != j && stamp.getBase()[i] == stamp.getBase()[j]) {
-                            if (recorder.isActive()) {
-                                recorder.append("!!! Overlapping Evidence on Revision detected: " + task + "\n");
-                            }
-                            return;
-                        }
-                    }
-                }
-            }
-            if (recorder.isActive()) {
-                recorder.append("!!! Derived: " + task + "\n");
-            }
-            float budget = task.getBudget().summary();
-//            float minSilent = reasoner.getMainWindow().silentW.value() / 100.0f;
-            float minSilent = reasoner.param.getSilenceLevel() / 100.0f;
-            if (budget > minSilent) {  // only report significant derived Tasks
-                reasoner.output(OUT.class, task.getSentence());
-            }
-            newTasks.add(task);
+    public void report(final Sentence sentence) {
+        final Sentence copy = (Sentence) sentence.clone();
+        if (getContext() != context) {
+            reports.add(copy);
         } else {
-            if (recorder.isActive()) {
-                recorder.append("!!! Ignored: " + task + "\n");
-            }
+            reasoner.output(OUT.class, copy);
         }
     }
 
-    /* --------------- new task building --------------- */
-    /**
-     * Shared final operations by all double-premise rules, called from the
-     * rules except StructuralRules
-     *
-     * @param newContent The content of the sentence in task
-     * @param newTruth The truth value of the sentence in task
-     * @param newBudget The budget value in task
-     */
-    public void doublePremiseTaskRevised(Term newContent, TruthValue newTruth, BudgetValue newBudget) {
-        if (newContent != null) {
-            Sentence newSentence = new Sentence(newContent, currentTask.getSentence().getPunctuation(), newTruth, newStamp);
-            Task newTask = new Task(newSentence, newBudget, currentTask, currentBelief);
-            derivedTask(newTask, true, false);
-        }
-    }
-
-    /**
-     * Shared final operations by all double-premise rules, called from the
-     * rules except StructuralRules
-     *
-     * @param newContent The content of the sentence in task
-     * @param newTruth The truth value of the sentence in task
-     * @param newBudget The budget value in task
-     */
-    public void doublePremiseTask(final Term newContent, final TruthValue newTruth, final BudgetValue newBudget) {
-        if (newContent != null) {
-            final Sentence newSentence = new Sentence(newContent, currentTask.getSentence().getPunctuation(), newTruth, newStamp);
-            final Task newTask = new Task(newSentence, newBudget, currentTask, currentBelief);
-            derivedTask(newTask, false, false);
-        }
-    }
-
-    /**
-     * Shared final operations by all double-premise rules, called from the
-     * rules except StructuralRules
-     *
-     * @param newContent The content of the sentence in task
-     * @param newTruth The truth value of the sentence in task
-     * @param newBudget The budget value in task
-     * @param revisible Whether the sentence is revisible
-     */
-    public void doublePremiseTask(Term newContent, TruthValue newTruth, BudgetValue newBudget, boolean revisible) {
-        if (newContent != null) {
-            Sentence taskSentence = currentTask.getSentence();
-            Sentence newSentence = new Sentence(newContent, taskSentence.getPunctuation(), newTruth, newStamp, revisible);
-            Task newTask = new Task(newSentence, newBudget, currentTask, currentBelief);
-            derivedTask(newTask, false, false);
-        }
-    }
-
-    /**
-     * Shared final operations by all single-premise rules, called in
-     * StructuralRules
-     *
-     * @param newContent The content of the sentence in task
-     * @param newTruth The truth value of the sentence in task
-     * @param newBudget The budget value in task
-     */
-    public void singlePremiseTask(Term newContent, TruthValue newTruth, BudgetValue newBudget) {
-        singlePremiseTask(newContent, currentTask.getSentence().getPunctuation(), newTruth, newBudget);
-    }
-
-    /**
-     * Shared final operations by all single-premise rules, called in
-     * StructuralRules
-     *
-     * @param newContent The content of the sentence in task
-     * @param punctuation The punctuation of the sentence in task
-     * @param newTruth The truth value of the sentence in task
-     * @param newBudget The budget value in task
-     */
-    public void singlePremiseTask(Term newContent, char punctuation, TruthValue newTruth, BudgetValue newBudget) {
-        Task parentTask = currentTask.getParentTask();
-        if (parentTask != null && newContent.equals(parentTask.getContent())) { // circular structural inference
-            return;
-        }
-        Sentence taskSentence = currentTask.getSentence();
-        if (taskSentence.isJudgment() || currentBelief == null) {
-            newStamp = new Stamp(taskSentence.getStamp(), getTime());
-        } else {    // to answer a question with negation in NAL-5 --- move to activated task?
-            newStamp = new Stamp(currentBelief.getStamp(), getTime());
-        }
-
-        Sentence newSentence = new Sentence(newContent, punctuation, newTruth, newStamp, taskSentence.getRevisible());
-        Task newTask = new Task(newSentence, newBudget, currentTask, null);
-        derivedTask(newTask, false, true);
-    }
-
     /* ---------- system working workCycle ---------- */
     /**
      * An atomic working cycle of the system: process new Tasks, then fire a
@@ -466,29 +662,48 @@ public class Memory {
      * @param clock The current time to be displayed
      */
     public void workCycle(final long clock) {
+        if (eventLog != null) {
+            eventLog.term(EventLog.CYCLE, clock, null);
+        }
         if (recorder.isActive()) {
             recorder.append(" --- " + clock + " ---\n");
         }
         
+        long start = (metrics != null) ? System.nanoTime() : 0;
         processNewTask();
+        if (metrics != null) {
+            start = metrics.phase(Metrics.NEW_TASK, start);
+        }
         
         if (noResult()) {       // necessary?
             processNovelTask();
+            if (metrics != null) {
+                start = metrics.phase(Metrics.NOVEL_TASK, start);
+            }
         }
         
         if (noResult()) {       // necessary?
-            processConcept();
+            fireConcepts();
+            if (metrics != null) {
+                metrics.phase(Metrics.CONCEPT, start);
+            }
         }
         
         novelTasks.refresh();
+        if (metrics != null) {
+            metrics.cycle();
+        }
     }
 
     /**
      * Process the newTasks accumulated in the previous workCycle, accept input
      * ones and those that corresponding to existing concepts, plus one from the
      * buffer.
+     * <p>
+     * Called in workCycle, and by {@link nars.io.BulkInput} after each chunk
+     * of input tasks
      */
-    private void processNewTask() {
+    public void processNewTask() {
                 
         // don't include new tasks produced in the current workCycle
         int counter = newTasks.size();  
@@ -504,9 +719,7 @@ public class Memory {
                     if (exp > Parameters.DEFAULT_CREATION_EXPECTATION) {
                         novelTasks.putIn(task);    // new concept formation
                     } else {
-                        if (recorder.isActive()) {
-                            recorder.append("!!! Neglected: " + task + "\n");
-                        }
+                        trace(EventLog.NEGLECTED, task);
                     }
                 }
             }
@@ -527,17 +740,77 @@ public class Memory {
      * Select a concept to fire.
      */
     private void processConcept() {
-        currentConcept = concepts.takeOut();
-        if (currentConcept != null) {
-            currentTerm = currentConcept.getTerm();
-            
-            if (recorder.isActive()) {
-                recorder.append(" * Selected Concept: " + currentTerm + "\n");
+        final Concept concept = selectConcept();
+        context.currentConcept = concept;
+        if (concept != null) {
+            pinConcept(concept);
+            try {
+                fireConcept(concept, context);
+            } finally {
+                unpinConcept();
+            }
+        }
+    }
+
+    /**
+     * Select a concept to fire, which remains in the bag all the time
+     *
+     * @return The selected concept, or null if the bag is empty
+     */
+    private Concept selectConcept() {
+        return concepts.takeOutAndPutBack();
+    }
+
+    /**
+     * Fire a selected concept
+     *
+     * @param concept The concept to fire
+     * @param ctx The inference context of the current thread
+     */
+    void fireConcept(final Concept concept, final InferenceContext ctx) {
+        ctx.clear();
+        ctx.currentConcept = concept;
+        ctx.currentTerm = concept.getTerm();
+
+        trace(EventLog.SELECTED_CONCEPT, ctx.currentTerm);
+
+        concept.fire(ctx);              // a working workCycle
+    }
+
+    /**
+     * Fire the concepts of a working cycle: one on the current thread, or as
+     * many as the parallel reasoning threads, each on its own thread, which
+     * requires a {@link ConcurrentBag} of concepts
+     */
+    private void fireConcepts() {
+        final int threads = reasoner.param.getReasoningThreads();
+        if (threads <= 1) {
+            if (parallelFiring != null) {
+                parallelFiring.shutdown();
+                parallelFiring = null;
+            }
+            processConcept();
+            return;
+        }
+        if (!(concepts instanceof ConcurrentBag)) {
+            throw new IllegalStateException("Firing concepts on " + threads + " threads needs the " + BagImplementation.CONCURRENT + " concept bag");
+        }
+        if (conceptStore != null) {     // a concept dropped while it fires would be written as it changes
+            throw new IllegalStateException("Firing concepts on " + threads + " threads does not work with a concept store");
+        }
+        if ((parallelFiring == null) || (parallelFiring.size() != threads)) {
+            if (parallelFiring != null) {
+                parallelFiring.shutdown();
+            }
+            parallelFiring = new ParallelFiring(this, threads);
+        }
+        try {
+            parallelFiring.fire();
+        } finally {
+            Sentence report;
+            while ((report = reports.poll()) != null) {
+                reasoner.output(OUT.class, report);
             }
-            
-            concepts.putBack(currentConcept);   // current Concept remains in the bag all the time
-            
-            currentConcept.fire();              // a working workCycle
         }
     }
 
@@ -549,18 +822,22 @@ public class Memory {
      * @param task the task to be accepted
      */
     private void immediateProcess(final Task task) {
-        currentTask = task; // one of the two places where this variable is set
+        final InferenceContext ctx = context;
+        ctx.currentTask = task; // one of the two places where this variable is set
         
-        if (recorder.isActive()) {
-            recorder.append("!!! Insert: " + task + "\n");
-        }
+        trace(EventLog.INSERT, task);
         
-        currentTerm = task.getContent();
-        currentConcept = getConcept(currentTerm);
+        ctx.currentTerm = task.getContent();
+        ctx.currentConcept = getConcept(ctx.currentTerm);
         
-        if (currentConcept != null) {
-            activateConcept(currentConcept, task.getBudget());
-            currentConcept.directProcess(task);
+        if (ctx.currentConcept != null) {
+            pinConcept(ctx.currentConcept);
+            try {
+                activateConcept(ctx.currentConcept, task.getBudget());
+                ctx.currentConcept.directProcess(task, ctx);
+            } finally {
+                unpinConcept();
+            }
         }
     }
 
@@ -572,7 +849,7 @@ public class Memory {
      * we don't want to expose fields concepts and novelTasks, AND we want to
      * separate GUI and inference, so this method takes as argument a
      * {@link BagObserver} and calls
-     * {@link ConceptBag#addBagObserver(BagObserver, String)} ;
+     * {@link Bag#addBagObserver(BagObserver, String)} ;
      *
      * see design for {@link Bag} and {@link nars.gui.BagWindow} in
      * {@link Bag#addBagObserver(BagObserver, String)}
@@ -601,13 +878,14 @@ public class Memory {
 
     @Override
     public String toString() {
+        final InferenceContext ctx = getContext();
         final StringBuffer sb = new StringBuffer(1024);
         sb.append(toStringLongIfNotNull(concepts, "concepts"))
                 .append(toStringLongIfNotNull(novelTasks, "novelTasks"))
                 .append(toStringIfNotNull(newTasks, "newTasks"))
-                .append(toStringLongIfNotNull(currentTask, "currentTask"))
-                .append(toStringLongIfNotNull(currentBeliefLink, "currentBeliefLink"))
-                .append(toStringIfNotNull(currentBelief, "currentBelief"));
+                .append(toStringLongIfNotNull(ctx.currentTask, "currentTask"))
+                .append(toStringLongIfNotNull(ctx.currentBeliefLink, "currentBeliefLink"))
+                .append(toStringIfNotNull(ctx.currentBelief, "currentBelief"));
         return sb.toString();
     }
 
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.entity.Item;
+import nars.language.Term;
+
+/**
+ * Map from a key String to a value, found by the 64-bit
+ * {@link nars.entity.Fingerprint} of the key and checked against the key
+ * itself, so that two keys of the same fingerprint are kept apart instead of
+ * taken for one.
+ * <p>
+ * A fingerprint is shared by one value in nearly all cases, which is kept in
+ * a {@link LongHashMap} cell of its own; the values of a fingerprint shared by
+ * several keys are chained in a bucket in that cell.
+ *
+ * @param <V> The type of the values
+ * @author me
+ */
+public abstract class NameTable<V> {
+
+    /** the values of a fingerprint shared by several keys */
+    private static final class Bucket {
+
+        final List<Object> values = new ArrayList<>(2);
+    }
+
+    private final LongHashMap<Object> table;
+    private int size;
+
+    public NameTable(final int expectedSize, final float loadFactor) {
+        table = new LongHashMap<>(expectedSize, loadFactor);
+    }
+
+    /**
+     * A table of Items, by their key
+     */
+    public static <E extends Item> NameTable<E> ofItems(final int expectedSize, final float loadFactor) {
+        return new NameTable<E>(expectedSize, loadFactor) {
+            @Override
+            protected String keyOf(final E item) {
+                return item.getKey();
+            }
+
+            @Override
+            protected boolean sameKey(final E a, final E b) {
+                return a.keyEquals(b);
+            }
+        };
+    }
+
+    /**
+     * A table of Terms, by their name
+     */
+    public static <T extends Term> NameTable<T> ofTerms(final int expectedSize, final float loadFactor) {
+        return new NameTable<T>(expectedSize, loadFactor) {
+            @Override
+            protected String keyOf(final T term) {
+                return term.getName();
+            }
+        };
+    }
+
+    /**
+     * @param value A value of the table
+     * @return Its key
+     */
+    protected abstract String keyOf(V value);
+
+    /**
+     * @return Whether two values have the same key
+     */
+    protected boolean sameKey(final V a, final V b) {
+        return (a == b) || keyOf(a).equals(keyOf(b));
+    }
+
+    /** whether a value has a key, given either as a String or as a value */
+    private boolean matches(final V value, final String key, final V like) {
+        return (like != null) ? sameKey(value, like) : keyOf(value).equals(key);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param hash The fingerprint of the key
+     * @param key The key
+     * @return The value of the key, or null
+     */
+    public V get(final long hash, final String key) {
+        return find(hash, key, null);
+    }
+
+    /**
+     * @param hash The fingerprint of the key of the value
+     * @param like A value
+     * @return The value of the table with the key of the given value, or null
+     */
+    public V get(final long hash, final V like) {
+        return find(hash, null, like);
+    }
+
+    private V find(final long hash, final String key, final V like) {
+        final Object o = table.get(hash);
+        if (o instanceof Bucket) {
+            for (final Object v : ((Bucket) o).values) {
+                if (matches((V) v, key, like)) {
+                    return (V) v;
+                }
+            }
+            return null;
+        }
+        return ((o != null) && matches((V) o, key, like)) ? (V) o : null;
+    }
+
+    /**
+     * @param hash The fingerprint of the key of the value
+     * @param value The value
+     * @return The previous value of its key, or null
+     */
+    public V put(final long hash, final V value) {
+        final Object o = table.get(hash);
+        if (o == null) {
+            table.put(hash, value);
+            size++;
+            return null;
+        }
+        if (o instanceof Bucket) {
+            final List<Object> values = ((Bucket) o).values;
+            for (int i = 0; i < values.size(); i++) {
+                if (sameKey((V) values.get(i), value)) {
+                    return (V) values.set(i, value);
+                }
+            }
+            values.add(value);
+            size++;
+            return null;
+        }
+        if (sameKey((V) o, value)) {
+            table.put(hash, value);
+            return (V) o;
+        }
+        final Bucket b = new Bucket();     // another key of the same fingerprint
+        b.values.add(o);
+        b.values.add(value);
+        table.put(hash, b);
+        size++;
+        return null;
+    }
+
+    /**
+     * @param hash The fingerprint of the key
+     * @param key The key
+     * @return The removed value of the key, or null
+     */
+    public V remove(final long hash, final String key) {
+        return remove(hash, key, null);
+    }
+
+    /**
+     * @param hash The fingerprint of the key of the value
+     * @param like A value
+     * @return The removed value with the key of the given value, or null
+     */
+    public V remove(final long hash, final V like) {
+        return remove(hash, null, like);
+    }
+
+    private V remove(final long hash, final String key, final V like) {
+        final Object o = table.get(hash);
+        if (o instanceof Bucket) {
+            final List<Object> values = ((Bucket) o).values;
+            for (int i = 0; i < values.size(); i++) {
+                if (matches((V) values.get(i), key, like)) {
+                    final V removed = (V) values.remove(i);
+                    if (values.size() == 1) {
+                        table.put(hash, values.get(0));
+                    }
+                    size--;
+                    return removed;
+                }
+            }
+            return null;
+        }
+        if ((o != null) && matches((V) o, key, like)) {
+            table.remove(hash);
+            size--;
+            return (V) o;
+        }
+        return null;
+    }
+
+    public void clear() {
+        table.clear();
+        size = 0;
+    }
+}
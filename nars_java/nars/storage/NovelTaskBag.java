@@ -26,23 +26,16 @@ import nars.core.Parameters;
 
 /**
  * New tasks that contain new Term.
+ * @deprecated The memory creates its bags by {@link BagImplementation}, as
+ * selected in {@link Parameters}; this is a {@link DefaultBag} of the size
+ * of the novel task bag, kept for the code that creates one itself
  */
-public class NovelTaskBag extends Bag<Task> {
+@Deprecated
+public class NovelTaskBag extends DefaultBag<Task> {
 
-    /** Constructor
-     * @param memory The reference of memory
-     */
+    /** Constructor, with the (constant) forget rate of NovelTaskBag */
     public NovelTaskBag() {
-        super(Parameters.TASK_BUFFER_SIZE);
-    }
-
-
-    /**
-     * Get the (constant) forget rate in NovelTaskBag
-     * @return The forget rate in NovelTaskBag
-     */
-    protected int forgetRate() {
-        return Parameters.NEW_TASK_FORGETTING_CYCLE;
+        super(Parameters.BAG_LEVEL, Parameters.TASK_BUFFER_SIZE, Parameters.NEW_TASK_FORGETTING_CYCLE);
     }
 }
 
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import nars.entity.Concept;
+import nars.entity.Task;
+import nars.inference.InferenceContext;
+
+/**
+ * Fires concepts of a Memory on a pool of reasoning threads, one concept per
+ * thread in each working cycle.
+ * <p>
+ * Each thread works in its own InferenceContext, and a concept is fired by
+ * one thread at a time. The tasks a thread derives are kept in a buffer of
+ * its own, and added to the new tasks of the memory once all the threads
+ * fired, in the order of the threads, to be processed in the next cycle on
+ * the thread running the working cycle, as in sequential firing. Which
+ * concept a thread fires depends on the scheduling of the threads.
+ *
+ * @author me
+ */
+final class ParallelFiring {
+
+    /**
+     * Number of concepts a thread looks at, at most, to find one that is not
+     * fired by another thread
+     */
+    private static final int MAX_SELECTION_ATTEMPTS = 4;
+
+    /**
+     * Accepts a concept not fired by another thread, reserving it for the
+     * current thread
+     */
+    private static final Bag.Selection<Concept> NOT_FIRED = new Bag.Selection<Concept>() {
+        @Override
+        public boolean select(final Concept concept) {
+            return concept.tryLock();
+        }
+    };
+
+    /**
+     * A thread firing concepts of a memory, with its inference context
+     */
+    static final class ReasoningThread extends Thread {
+
+        final Memory memory;
+        final InferenceContext context;
+        /** the tasks derived in the context */
+        final List<Task> newTasks = new ArrayList<>();
+
+        ReasoningThread(final Memory memory, final Runnable r, final String name) {
+            super(r, name);
+            this.memory = memory;
+            context = new InferenceContext(memory, newTasks);
+            setDaemon(true);
+        }
+    }
+
+    private final Memory memory;
+    private final ExecutorService executor;
+    private final List<Callable<List<Task>>> firings;
+
+    ParallelFiring(final Memory memory, final int threads) {
+        this.memory = memory;
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count;
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new ReasoningThread(memory, r, "reasoning-" + (++count));
+            }
+        });
+        final Callable<List<Task>> firing = new Callable<List<Task>>() {
+            @Override
+            public List<Task> call() {
+                return fireOne();
+            }
+        };
+        firings = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            firings.add(firing);
+        }
+    }
+
+    /**
+     * @return The number of reasoning threads
+     */
+    int size() {
+        return firings.size();
+    }
+
+    /**
+     * Fire one concept on each reasoning thread, wait for all of them, and
+     * add the tasks they derived to the new tasks of the memory
+     */
+    void fire() {
+        final List<Future<List<Task>>> results;
+        try {
+            results = executor.invokeAll(firings);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (final Future<List<Task>> result : results) {
+            try {
+                memory.newTasks.addAll(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * Stop the reasoning threads
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Select a concept not fired by another thread, and fire it in the context
+     * of the current thread; the concepts fired by other threads are passed
+     * over without decaying
+     *
+     * @return The tasks derived
+     */
+    private List<Task> fireOne() {
+        final ReasoningThread thread = (ReasoningThread) Thread.currentThread();
+        final InferenceContext ctx = thread.context;
+        try {
+            final Concept concept = memory.concepts.takeOutAndPutBack(NOT_FIRED, MAX_SELECTION_ATTEMPTS);
+            if (concept != null) {
+                try {
+                    memory.fireConcept(concept, ctx);
+                } finally {
+                    concept.unlock();
+                }
+            }
+            return new ArrayList<>(thread.newTasks);
+        } finally {
+            thread.newTasks.clear();
+            ctx.clear();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.entity.Fingerprint;
+import nars.io.Symbols;
+import nars.language.Statement;
+import nars.language.Term;
+import nars.language.Variable;
+
+/**
+ * Inverted index of the statements that name concepts, by their components:
+ * for a copula, a side and a term, the statements with that term on that
+ * side, either side for a symmetric copula. A question with query variables
+ * on one side only is matched against the concepts that can answer it,
+ * without waiting for inference to bring them together.
+ * <p>
+ * A statement is added when its concept is made, see
+ * {@link nars.entity.Concept}, and removed when the full concept bag drops
+ * its concept, see {@link Memory}; a concept taken out of the bag otherwise
+ * is removed when a lookup comes across its statement. Statements with query
+ * variables, which cannot be answers, are not indexed.
+ *
+ * @author me
+ */
+public class StatementIndex {
+
+    private final Bag<?> concepts;
+    /**
+     * the statements of each copula, side and component, by fingerprint: a
+     * list may also hold those of another component of the same fingerprint,
+     * which {@link #matches} rejects
+     */
+    private final LongHashMap<List<Statement>> bySide = new LongHashMap<>(1024, Bag.LOAD_FACTOR);
+    /** the statements indexed, by their name */
+    private final NameTable<Statement> indexed = NameTable.ofTerms(1024, Bag.LOAD_FACTOR);
+
+    /**
+     * @param concepts The concept bag, where the concepts of the statements
+     * indexed are looked for
+     */
+    public StatementIndex(final Bag<?> concepts) {
+        this.concepts = concepts;
+    }
+
+    private static long key(final Statement s, final int side, final Term component) {
+        final int position = s.isCommutative() ? 0 : side;
+        return Fingerprint.append(Fingerprint.append(Fingerprint.of(s.operator()), (char) ('0' + position)), component.getName());
+    }
+
+    /**
+     * Index the term of a concept, if it is a statement
+     *
+     * @param term The term of a new concept
+     */
+    public synchronized void add(final Term term) {
+        if (!(term instanceof Statement) || Variable.containVarQuery(term.getName())) {
+            return;
+        }
+        final Statement s = (Statement) term;
+        if (indexed.get(s.getNameHash(), s) != null) {
+            return;
+        }
+        indexed.put(s.getNameHash(), s);
+        addTo(key(s, 0, s.getSubject()), s);
+        addTo(key(s, 1, s.getPredicate()), s);
+    }
+
+    private void addTo(final long key, final Statement s) {
+        List<Statement> list = bySide.get(key);
+        if (list == null) {
+            list = new ArrayList<>(2);
+            bySide.put(key, list);
+        }
+        list.add(s);
+    }
+
+    /**
+     * @param question A statement with query variables
+     * @return Whether the question has a side without variables, to look the
+     * answers up by
+     */
+    public static boolean canMatch(final Statement question) {
+        return !Variable.containVar(question.getPredicate().getName()) || !Variable.containVar(question.getSubject().getName());
+    }
+
+    /**
+     * The statements a question may be answered by: those of the same copula
+     * whose component on the constant side of the question is the same, and
+     * whose other side matches the query variables
+     *
+     * @param question A statement with query variables
+     * @return The statements whose concepts are in the bag, empty if the
+     * question has variables on both sides
+     */
+    public synchronized List<Statement> match(final Statement question) {
+        final List<Statement> found = new ArrayList<>();
+        final List<Statement> list;
+        if (!Variable.containVar(question.getPredicate().getName())) {
+            list = bySide.get(key(question, 1, question.getPredicate()));
+        } else if (!Variable.containVar(question.getSubject().getName())) {
+            list = bySide.get(key(question, 0, question.getSubject()));
+        } else {
+            return found;
+        }
+        if (list == null) {
+            return found;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            final Statement s = list.get(i);
+            if (concepts.get(s.getNameHash(), s.getName()) == null) {   // the concept is gone
+                remove(s);
+                i--;
+            } else if (matches(question, s)) {
+                found.add(s);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Whether the query variables of a question can be substituted into a
+     * statement, side by side, in either order for a symmetric copula
+     *
+     * @param question A statement with query variables
+     * @param s A statement without query variables
+     * @return Whether the statement answers the question
+     */
+    public static boolean matches(final Statement question, final Statement s) {
+        if (question.getClass() != s.getClass()) {
+            return false;
+        }
+        final Term subject = question.getSubject();
+        final Term predicate = question.getPredicate();
+        if (matches(subject, s.getSubject()) && matches(predicate, s.getPredicate())) {
+            return true;
+        }
+        return question.isCommutative() && matches(subject, s.getPredicate()) && matches(predicate, s.getSubject());
+    }
+
+    private static boolean matches(final Term question, final Term t) {
+        return Variable.containVar(question.getName()) ? Variable.hasSubstitute(Symbols.VAR_QUERY, question, t) : question.equals(t);
+    }
+
+    /**
+     * Remove the term of a concept, if it is an indexed statement
+     *
+     * @param term The term of a concept dropped by the concept bag
+     */
+    public synchronized void remove(final Term term) {
+        final Statement s = (term instanceof Statement) ? indexed.remove(term.getNameHash(), term.getName()) : null;
+        if (s != null) {
+            removeFrom(key(s, 0, s.getSubject()), s);
+            removeFrom(key(s, 1, s.getPredicate()), s);
+        }
+    }
+
+    private void removeFrom(final long key, final Statement s) {
+        final List<Statement> list = bySide.get(key);
+        if (list == null) {
+            return;
+        }
+        final int i = list.indexOf(s);
+        if (i >= 0) {
+            list.set(i, list.get(list.size() - 1));     // order does not matter
+            list.remove(list.size() - 1);
+        }
+        if (list.isEmpty()) {
+            bySide.remove(key);
+        }
+    }
+
+    /**
+     * @return The number of statements indexed
+     */
+    public synchronized int size() {
+        return indexed.size();
+    }
+
+    public synchronized void clear() {
+        bySide.clear();
+        indexed.clear();
+    }
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import nars.entity.Item;
+
+/**
+ * Bag that selects an item with a probability exactly proportional to its
+ * priority, instead of through priority levels and the
+ * {@link Distributor}.
+ * <p>
+ * Each item is kept in a slot, a leaf of a binary tree whose nodes hold the
+ * sum and the minimum of the priorities below them, side by side in one
+ * array so a step down the tree reads one place. takeOut
+ * descends the sums from a random point of the total priority; a full bag
+ * drops the item of lowest priority, found by descending the minimums, or
+ * refuses a new item of lower priority still. Insertion, removal and
+ * selection are O(log n) whatever the number of items.
+ * <p>
+ * The priority of an item is read when it is put in. The levels are kept only
+ * as counts, for display and inspection: there is no FIFO order within a
+ * level, and no dormant levels.
+ * <p>
+ * An Item can be held by only one slot-based bag at a time, as it carries its
+ * slot ({@link Item#getBagSlot()}).
+ *
+ * @author me
+ */
+public class SumTreeBag<E extends Item> extends Bag<E> {
+    private final AtomicInteger forgetRate;
+
+    /**
+     * mapping from key to item, by the key fingerprint
+     */
+    private final NameTable<E> nameTable;
+
+    /** number of leaves, the capacity rounded up to a power of two */
+    private final int leaves;
+    /**
+     * for node i, the sum of the priorities below it at 2i, and the lowest
+     * priority below it, infinite where there is no item, at 2i+1; node i
+     * has children 2i and 2i+1, and slot s is leaf (leaves + s)
+     */
+    private final double[] tree;
+
+    /** the item held in each slot, null for a free slot */
+    private final Item[] slotItem;
+    /** the level of the item held in each slot */
+    private final int[] slotLevel;
+    private final int[] levelCount;
+    /** stack of the free slots, the next one on top */
+    private final int[] freeSlots;
+    private int freeCount;
+
+    /**
+     * number of the last call of {@link #takeOut(Selection, int)} that looked
+     * at the item of each slot
+     */
+    private final int[] lookedAtCall;
+    private int lookCall;
+
+    /** state of the xorshift generator for the selection */
+    private long seed;
+    /** next slot to re-level, when forgetting by elapsed cycles */
+    private int sweepSlot;
+
+    public SumTreeBag(int levels, int capacity, int forgetRate) {
+        this(levels, capacity, new AtomicInteger(forgetRate));
+    }
+
+    public SumTreeBag(int levels, int capacity, AtomicInteger forgetRate) {
+        super(levels, capacity);
+        this.forgetRate = forgetRate;
+        nameTable = NameTable.ofItems(capacity + 1, LOAD_FACTOR);
+        leaves = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        tree = new double[4 * leaves];
+        slotItem = new Item[capacity];
+        slotLevel = new int[capacity];
+        freeSlots = new int[capacity];
+        lookedAtCall = new int[capacity];
+        levelCount = new int[levels];
+        seed = 0x9E3779B97F4A7C15L * (capacity + 1);   // so that different bags pick differently
+        clearSlots();
+    }
+
+    @Override
+    protected int forgetRate() {
+        return forgetRate.get();
+    }
+
+    /* ---------- the tree ---------- */
+    /**
+     * Set the priority of a slot, and update the nodes above it
+     *
+     * @param slot The slot
+     * @param priority The priority of its item, infinite for no item
+     */
+    private void setLeaf(final int slot, final double priority) {
+        int node = leaves + slot;
+        tree[2 * node] = (priority == Double.POSITIVE_INFINITY) ? 0 : priority;
+        tree[2 * node + 1] = priority;
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            final int left = node << 2;
+            tree[2 * node] = tree[left] + tree[left + 2];
+            tree[2 * node + 1] = Math.min(tree[left + 1], tree[left + 3]);
+        }
+    }
+
+    private double priorityOf(final int slot) {
+        return tree[2 * (leaves + slot) + 1];
+    }
+
+    /**
+     * @return The slot at a point of the total priority, between 0 and the
+     * sum at the root
+     */
+    private int slotAt(double point) {
+        int node = 1;
+        while (node < leaves) {
+            node <<= 1;
+            final double left = tree[2 * node];
+            if ((point >= left) && (tree[2 * node + 2] > 0)) {
+                point -= left;
+                node++;
+            }
+        }
+        return node - leaves;
+    }
+
+    /**
+     * @return The slot of lowest priority
+     */
+    private int lowestSlot() {
+        int node = 1;
+        while (node < leaves) {
+            node <<= 1;
+            if (tree[2 * node + 3] < tree[2 * node + 1]) {
+                node++;
+            }
+        }
+        return node - leaves;
+    }
+
+    private long nextRandom() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+
+    /**
+     * @return The slot of an item drawn with a probability proportional to
+     * its priority, from a bag that is not empty
+     */
+    private int drawSlot() {
+        final long r = nextRandom();
+        final double total = tree[2];
+        int slot;
+        if (total > 0) {
+            slot = slotAt(((r >>> 11) * 0x1.0p-53) * total);
+            if (slotItem[slot] == null) {       // rounding past the last item
+                slot = lowestSlot();
+            }
+        } else {                                // all at zero, take any of them
+            slot = (int) ((r >>> 33) % capacity);
+            while (slotItem[slot] == null) {
+                slot = (slot + 1) % capacity;
+            }
+        }
+        return slot;
+    }
+
+    /* ---------- slots ---------- */
+    private int levelOf(final float priority) {
+        final int level = (int) Math.ceil(priority * levels) - 1;
+        return (level < 0) ? 0 : level;
+    }
+
+    private void addSlot(final E item) {
+        final int slot = freeSlots[--freeCount];
+        final float priority = item.getPriority();
+        final int level = levelOf(priority);
+        slotItem[slot] = item;
+        slotLevel[slot] = level;
+        levelCount[level]++;
+        item.setBagSlot(slot);
+        setLeaf(slot, priority);
+    }
+
+    private E removeSlot(final int slot) {
+        final E item = (E) slotItem[slot];
+        levelCount[slotLevel[slot]]--;
+        item.setBagSlot(-1);
+        slotItem[slot] = null;
+        freeSlots[freeCount++] = slot;
+        setLeaf(slot, Double.POSITIVE_INFINITY);
+        return item;
+    }
+
+    /* ---------- Bag operations ---------- */
+    @Override
+    public void clear() {
+        clearSlots();
+        nameTable.clear();
+    }
+
+    @Override
+    public int size() {
+        return nameTable.size();
+    }
+
+    @Override
+    public boolean contains(final E it) {
+        return nameTable.get(it.getKeyHash(), it) == it;
+    }
+
+    @Override
+    public E get(final long keyHash, final String key) {
+        return nameTable.get(keyHash, key);
+    }
+
+    @Override
+    public boolean putIn(final E newItem, final boolean admit) {
+        stamp(newItem);
+        final long newKey = newItem.getKeyHash();
+        final E oldItem = nameTable.put(newKey, newItem);
+        if (oldItem != null) {                  // merge duplications
+            outOfBase(oldItem);
+            newItem.merge(oldItem);
+        }
+        if (freeCount == 0) {                   // the bag is full
+            final int lowest = lowestSlot();
+            if ((newItem.getPriority() < priorityOf(lowest)) && !admit) {
+                nameTable.remove(newKey, newItem);      // ignore the item
+                overflow(newItem);
+                return false;
+            }
+            final E dropped = removeSlot(lowest);
+            nameTable.remove(dropped.getKeyHash(), dropped);
+            overflow(dropped);
+        }
+        addSlot(newItem);
+        refresh();
+        return true;
+    }
+
+    /**
+     * Choose an Item with a probability proportional to its priority and take
+     * it out of the Bag; uniformly if all priorities are zero
+     *
+     * @return The selected Item, or null if the bag is empty
+     */
+    @Override
+    public E takeOut() {
+        if (freeCount == capacity) {
+            return null;
+        }
+        final E selected = removeSlot(drawSlot());
+        nameTable.remove(selected.getKeyHash(), selected);
+        if (forgetsByTime()) {
+            forget(selected);
+            sweep();
+        }
+        refresh();
+        return selected;
+    }
+
+    /**
+     * Decay the item of the next used slot among a few, and set its new
+     * priority in the tree
+     */
+    private void sweep() {
+        for (int i = 0; i < SWEEP_LOOKAHEAD; i++) {
+            final int slot = sweepSlot;
+            sweepSlot = (sweepSlot + 1) % capacity;
+            if (slotItem[slot] != null) {
+                final E item = removeSlot(slot);
+                forget(item);
+                addSlot(item);      // back into the slot just freed
+                return;
+            }
+        }
+    }
+
+    /** slots looked at by a sweep for one in use */
+    private static final int SWEEP_LOOKAHEAD = 8;
+
+    /**
+     * The candidates are drawn by priority as in {@link #takeOut()}, an item
+     * drawn again counting as a candidate without being looked at twice
+     */
+    @Override
+    public E takeOut(final Selection<? super E> selection, final int candidates) {
+        final int n = Math.min(candidates, size());
+        if (n <= 0) {
+            return null;
+        }
+        if (++lookCall == 0) {      // wrapped around
+            Arrays.fill(lookedAtCall, 0);
+            lookCall = 1;
+        }
+        int looked = 0;
+        for (int draw = 0; draw < candidates; draw++) {
+            final int slot = drawSlot();
+            if (lookedAtCall[slot] == lookCall) {
+                continue;
+            }
+            final E candidate = (E) slotItem[slot];
+            if (selection.select(candidate)) {
+                removeSlot(slot);
+                nameTable.remove(candidate.getKeyHash(), candidate);
+                refresh();
+                return candidate;
+            }
+            lookedAtCall[slot] = lookCall;
+            if (++looked == n) {
+                return null;            // as many items looked at as allowed, or all of them
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E putInIfAbsent(final E newItem) {
+        final E oldItem = nameTable.get(newItem.getKeyHash(), newItem);
+        if (oldItem != null) {
+            return oldItem;
+        }
+        return putIn(newItem) ? newItem : null;
+    }
+
+    @Override
+    public boolean adjust(final E item, final Adjustment<? super E> adjustment) {
+        final E old = nameTable.remove(item.getKeyHash(), item);
+        if (old != null) {
+            outOfBase(old);
+        }
+        adjustment.apply(item);
+        return putBack(item);
+    }
+
+    @Override
+    public E pickOut(final long keyHash, final String key) {
+        final E picked = nameTable.remove(keyHash, key);
+        if (picked != null) {
+            outOfBase(picked);
+        }
+        return picked;
+    }
+
+    /**
+     * Remove an item from its slot, if it holds one
+     *
+     * @param oldItem The Item to be removed
+     */
+    private void outOfBase(final E oldItem) {
+        final int slot = oldItem.getBagSlot();
+        if ((slot >= 0) && (slot < capacity) && (slotItem[slot] == oldItem)) {
+            removeSlot(slot);
+        }
+        refresh();
+    }
+
+    @Override
+    public float getMass() {
+        return (float) (tree[2] * levels);
+    }
+
+    @Override
+    public float getAveragePriority() {
+        final int size = size();
+        if (size == 0) {
+            return 0.01f;
+        }
+        final float f = (float) (tree[2] / size);
+        return (f > 1) ? 1.0f : f;
+    }
+
+    /* ---------- levels, as counts only ---------- */
+    private void clearSlots() {
+        for (int i = 0; i < capacity; i++) {
+            if (slotItem[i] != null) {
+                slotItem[i].setBagSlot(-1);
+                slotItem[i] = null;
+            }
+            freeSlots[i] = capacity - 1 - i;    // slot 0 on top
+        }
+        freeCount = capacity;
+        for (int i = 0; i < tree.length; i += 2) {
+            tree[i] = 0;
+            tree[i + 1] = Double.POSITIVE_INFINITY;
+        }
+        Arrays.fill(levelCount, 0);
+    }
+
+    @Override
+    public int getLevelSize(final int level) {
+        return levelCount[level];
+    }
+
+    @Override
+    public boolean emptyLevel(final int n) {
+        return levelCount[n] == 0;
+    }
+
+    /**
+     * The items of a level, in slot order; a scan of all the slots
+     */
+    @Override
+    public Collection<E> getLevel(final int level) {
+        final List<E> items = new ArrayList<>(levelCount[level]);
+        for (int i = 0; (i < capacity) && (items.size() < levelCount[level]); i++) {
+            if ((slotItem[i] != null) && (slotLevel[i] == level)) {
+                items.add((E) slotItem[i]);
+            }
+        }
+        return items;
+    }
+}
@@ -27,25 +27,18 @@ import nars.core.Parameters;
 
 /**
  * TaskLinkBag contains links to tasks.
+ * @deprecated Concepts create their bags by {@link BagImplementation}, as
+ * selected in {@link Parameters}; this is a {@link DefaultBag} of the size
+ * of a task link bag, kept for the code that creates one itself
  */
-public class TaskLinkBag extends Bag<TaskLink> {
-    private final AtomicInteger taskForgettingRate;
+@Deprecated
+public class TaskLinkBag extends DefaultBag<TaskLink> {
 
     /** Constructor
-     * @param memory The reference of memory
+     * @param taskForgettingRate The (adjustable) forget rate of TaskLinkBag
      */
-    public TaskLinkBag (AtomicInteger taskForgettingRAte) {
-        super(Parameters.TASK_LINK_BAG_SIZE);
-        this.taskForgettingRate = taskForgettingRAte;        
-    }
-
-    
-    /**
-     * Get the (adjustable) forget rate of TaskLinkBag
-     * @return The forget rate of TaskLinkBag
-     */
-    protected int forgetRate() {
-        return taskForgettingRate.get();
+    public TaskLinkBag (AtomicInteger taskForgettingRate) {
+        super(Parameters.BAG_LEVEL, Parameters.TASK_LINK_BAG_SIZE, taskForgettingRate);
     }
 }
 
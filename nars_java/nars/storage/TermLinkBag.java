@@ -26,25 +26,18 @@ import nars.core.Parameters;
 
 /**
  * Contains TermLinks to relevant (compound or component) Terms.
+ * @deprecated Concepts create their bags by {@link BagImplementation}, as
+ * selected in {@link Parameters}; this is a {@link DefaultBag} of the size
+ * of a term link bag, kept for the code that creates one itself
  */
-public class TermLinkBag extends Bag<TermLink> {
-    private final AtomicInteger beliefForgettingRate;
+@Deprecated
+public class TermLinkBag extends DefaultBag<TermLink> {
 
     /** Constructor
-     * @param memory The reference of memory
+     * @param beliefForgettingRate The (adjustable) forget rate of TermLinkBag
      */
     public TermLinkBag(AtomicInteger beliefForgettingRate) {
-        super(Parameters.TERM_LINK_BAG_SIZE);
-        this.beliefForgettingRate = beliefForgettingRate;
-    }
-
-
-    /**
-     * Get the (adjustable) forget rate of TermLinkBag
-     * @return The forget rate of TermLinkBag
-     */
-    protected int forgetRate() {
-        return beliefForgettingRate.get();  
+        super(Parameters.BAG_LEVEL, Parameters.TERM_LINK_BAG_SIZE, beliefForgettingRate);
     }
 
     /**
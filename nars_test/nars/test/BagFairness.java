@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.util.Random;
+import nars.entity.Item;
+import nars.storage.Bag;
+import nars.storage.DefaultBag;
+import nars.storage.SumTreeBag;
+
+/**
+ * Compares the selection of DefaultBag and SumTreeBag: how far the frequency
+ * of the items of each priority band is from their share of the total
+ * priority, and how many takeOut/putIn pairs per millisecond each performs,
+ * for growing capacities.
+ * <p>
+ * Prints CSV: bag, capacity, ms per iteration, kb per iteration, selection
+ * error, takeOut/putIn per ms.
+ *
+ * @author me
+ */
+public class BagFairness {
+
+    int repeats = 4;
+    int warmups = 1;
+    int forgetRate = 10;
+    int levels = 100;
+
+    public BagFairness() {
+        for (int capacity = 100; capacity <= 1000000; capacity *= 10) {
+            testBag(false, capacity);
+            testBag(true, capacity);
+        }
+    }
+
+    public void testBag(final boolean sumTree, final int capacity) {
+        final Item[] items = randomItems(capacity, new Random(1));
+        final int draws = Math.max(100000, capacity * 4);
+        final double[] error = new double[1];
+
+        Performance p = new Performance((sumTree ? "SumTreeBag" : "DefaultBag") + "," + capacity, repeats, warmups) {
+
+            @Override public void init() { }
+
+            @Override
+            public void run(boolean warmup) {
+                Bag<Item> b = sumTree ? new SumTreeBag<Item>(levels, capacity, forgetRate)
+                        : new DefaultBag<Item>(levels, capacity, forgetRate);
+                error[0] = selectionError(b, items, draws);
+            }
+
+        }.printCSV();
+
+        System.out.print(error[0] + ",");
+        System.out.print(draws / (p.getAverageTime() / 1.0e6));
+        System.out.println();
+    }
+
+    public static Item[] randomItems(final int n, final Random r) {
+        final Item[] items = new Item[n];
+        for (int i = 0; i < n; i++) {
+            items[i] = new BagTest.KeyItem("i" + i, r.nextFloat());
+        }
+        return items;
+    }
+
+    /**
+     * Fill a bag, then take out and put back in (without forgetting) a number
+     * of times, counting how often the items of each of 20 priority bands are
+     * selected. Counting per band rather than per item keeps the sampling
+     * noise of a random selection low.
+     *
+     * @return The total variation distance between the selection frequencies
+     * and the priorities of the bands normalized to their sum: 0 when
+     * selection is exactly proportional to priority, 1 at most
+     */
+    public static double selectionError(final Bag<Item> b, final Item[] items, final int draws) {
+        final double[] expected = new double[BANDS];
+        double total = 0;
+        for (final Item i : items) {
+            b.putIn(i);
+            expected[band(i)] += i.getPriority();
+            total += i.getPriority();
+        }
+        final int[] selected = new int[BANDS];
+        for (int d = 0; d < draws; d++) {
+            final Item x = b.takeOut();
+            selected[band(x)]++;
+            b.putIn(x);
+        }
+        double distance = 0;
+        for (int i = 0; i < BANDS; i++) {
+            distance += Math.abs(selected[i] / (double) draws - expected[i] / total);
+        }
+        return distance / 2;
+    }
+
+    static final int BANDS = 20;
+
+    private static int band(final Item i) {
+        return Math.min(BANDS - 1, (int) (i.getPriority() * BANDS));
+    }
+
+    public static void main(String[] args) {
+        new BagFairness();
+    }
+
+}
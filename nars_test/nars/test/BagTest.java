@@ -0,0 +1,572 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import nars.core.NAR;
+import nars.core.Parameters;
+import nars.entity.BudgetValue;
+import nars.entity.Fingerprint;
+import nars.entity.Item;
+import nars.entity.Task;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+import nars.io.TextInput;
+import nars.language.CompoundTerm;
+import nars.storage.ArrayBag;
+import nars.storage.Bag;
+import nars.storage.ConcurrentBag;
+import nars.storage.DefaultBag;
+import nars.storage.Distributor;
+import nars.storage.LongHashMap;
+import nars.storage.SumTreeBag;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class BagTest {
+
+    public static class KeyItem extends Item {
+
+        public KeyItem(String key, float priority) {
+            super(key, new BudgetValue(priority, 0.5f, 0.5f));
+        }
+    }
+
+    /**
+     * Apply the same random sequence of operations to both bags and check
+     * that they select the same items in the same order.
+     */
+    public static void assertSameBehavior(Bag<Item> a, Bag<Item> b, int operations, int keys) {
+        Random r = new Random(1);
+
+        for (int i = 0; i < operations; i++) {
+            String key = "k" + r.nextInt(keys);
+            float priority = r.nextFloat();
+
+            Item x, y;
+            switch (r.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(a.putIn(new KeyItem(key, priority)), b.putIn(new KeyItem(key, priority)));
+                    break;
+                case 2:
+                    x = a.takeOut();
+                    y = b.takeOut();
+                    assertEquals(key(x), key(y));
+                    if (x != null) {
+                        assertEquals(a.putBack(x), b.putBack(y));
+                    }
+                    break;
+                case 3:
+                    x = a.pickOut(key);
+                    y = b.pickOut(key);
+                    assertEquals(key(x), key(y));
+                    break;
+            }
+
+            assertEquals(a.size(), b.size());
+            assertEquals(a.getMass(), b.getMass(), 0);
+            assertTrue(a.size() <= a.getCapacity());
+        }
+
+        for (int l = 0; l < a.levels; l++) {
+            assertEquals(a.getLevelSize(l), b.getLevelSize(l));
+        }
+        assertEquals(a.toString(), b.toString());
+    }
+
+    private static String key(Item i) {
+        return (i == null) ? null : i.getKey();
+    }
+
+    @Test
+    public void testArrayBagMatchesDefaultBag() {
+        for (int capacity : new int[] { 1, 10, 100 }) {
+            assertSameBehavior(
+                    new DefaultBag<Item>(100, capacity, 10),
+                    new ArrayBag<Item>(100, capacity, 10),
+                    20000, capacity * 3);
+        }
+    }
+
+    @Test
+    public void testArrayBagClear() {
+        ArrayBag<Item> b = new ArrayBag<>(10, 4, 10);
+        Item x = new KeyItem("x", 0.5f);
+        b.putIn(x);
+        b.clear();
+        assertEquals(0, b.size());
+        assertEquals(-1, x.getBagSlot());
+        for (int i = 0; i < 10; i++) {
+            b.putIn(new KeyItem("k" + i, 0.5f));
+        }
+        assertEquals(4, b.size());
+    }
+
+    @Test
+    public void testConcurrentBagMatchesArrayBag() {
+        for (int capacity : new int[] { 1, 10, 100 }) {
+            assertSameBehavior(
+                    new ArrayBag<Item>(100, capacity, 10),
+                    new ConcurrentBag<Item>(100, capacity, new AtomicInteger(10), 1),
+                    20000, capacity * 3);
+        }
+    }
+
+    @Test
+    public void testConcurrentBagThreads() throws InterruptedException {
+        final int capacity = 100;
+        final ConcurrentBag<Item> b = new ConcurrentBag<>(100, capacity, new AtomicInteger(10));
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final Random r = new Random(t);
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 20000; i++) {
+                        String key = "k" + r.nextInt(capacity * 3);
+                        switch (r.nextInt(4)) {
+                            case 0: b.putIn(new KeyItem(key, r.nextFloat())); break;
+                            case 1: b.takeOutAndPutBack(); break;
+                            case 2: b.putInIfAbsent(new KeyItem(key, r.nextFloat())); break;
+                            case 3:
+                                Item x = b.pickOut(key);
+                                if (x != null) {
+                                    b.adjust(x, new Bag.Adjustment<Item>() {
+                                        @Override
+                                        public void apply(Item item) {
+                                            item.setPriority(0.5f);
+                                        }
+                                    });
+                                }
+                                break;
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertTrue(b.size() <= b.getCapacity());
+        int inLevels = 0;
+        for (int l = 0; l < b.levels; l++) {
+            for (Item x : b.getLevel(l)) {
+                assertTrue(b.contains(x));
+                inLevels++;
+            }
+        }
+        assertEquals(b.size(), inLevels);
+    }
+
+    /**
+     * The stripes of a ConcurrentBag are selected from in proportion to their
+     * mass, not in turn.
+     */
+    @Test
+    public void testConcurrentBagStripeSelection() {
+        final ConcurrentBag<Item> b = new ConcurrentBag<>(100, 20, new AtomicInteger(10), 2);
+        final java.util.Set<String> high = new HashSet<>();
+        int highCount = 0, lowCount = 0;
+        for (int i = 0; (highCount < 5) || (lowCount < 5); i++) {
+            final String key = "k" + i;
+            final boolean inFirst = ((((int) (Fingerprint.of(key) >>> 40)) & 1) == 0);
+            if (inFirst && (highCount < 5)) {
+                b.putIn(new KeyItem(key, 0.9f));            // level 89, mass 90
+                high.add(key);
+                highCount++;
+            } else if (!inFirst && (lowCount < 5)) {
+                b.putIn(new KeyItem(key, 0.1f));            // level 9, mass 10
+                lowCount++;
+            }
+        }
+        assertEquals(500, b.getMass(), 0);
+        final int draws = 10000;
+        final int[] selected = new int[1];
+        for (int i = 0; i < draws; i++) {
+            b.takeOut(new Bag.Selection<Item>() {
+                @Override
+                public boolean select(Item item) {
+                    if (high.contains(item.getKey())) {
+                        selected[0]++;
+                    }
+                    return false;
+                }
+            }, 1);
+        }
+        assertEquals(10, b.size());
+        assertEquals(0.9, selected[0] / (double) draws, 0.02);
+    }
+
+    /**
+     * Selection from a bag whose items sit in a few levels, dense and sparse,
+     * follows the DISTRIBUTOR walk over the non-empty levels.
+     */
+    @Test
+    public void testSelectionFollowsDistributor() {
+        final int levels = 100;
+        final int[] order = Distributor.get(levels).order;
+        final int threshold = (int) (Parameters.BAG_THRESHOLD * levels);
+        final float[] priorities = { 0.005f, 0.015f, 0.255f, 0.645f, 0.995f };
+        for (int used = 1; used <= priorities.length; used++) {
+            final int capacity = 1000 + used;
+            final ArrayBag<Item> b = new ArrayBag<>(levels, capacity, 10);
+            final ArrayDeque<String>[] model = new ArrayDeque[levels];
+            for (int l = 0; l < levels; l++) {
+                model[l] = new ArrayDeque<>();
+            }
+            int index = capacity % levels, level = levels - 1, counter = 0, size = 0;
+            final Random r = new Random(used);
+            for (int i = 0; i < 20000; i++) {
+                if ((size == 0) || (r.nextInt(3) == 0)) {
+                    final float p = priorities[r.nextInt(used)];
+                    final String key = "k" + i;
+                    b.putIn(new KeyItem(key, p));
+                    model[(int) Math.ceil(p * levels) - 1].add(key);
+                    size++;
+                } else {
+                    if (model[level].isEmpty() || (counter == 0)) {
+                        do {
+                            level = order[index];
+                            index = (index + 1) % order.length;
+                        } while (model[level].isEmpty());
+                        counter = (level < threshold) ? 1 : model[level].size();
+                    }
+                    counter--;
+                    size--;
+                    assertEquals(model[level].poll(), b.takeOut().getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Candidates are looked at in the order takeOut selects, without taking
+     * them out or changing their level, and only the accepted one is taken
+     * out.
+     */
+    @Test
+    public void testTakeOutSelection() {
+        final ArrayBag<Item> a = new ArrayBag<>(100, 300, 10);
+        final ArrayBag<Item> b = new ArrayBag<>(100, 300, 10);
+        final Random r = new Random(1);
+        for (int i = 0; i < 300; i++) {
+            final float p = 0.3f + 0.7f * r.nextFloat();
+            a.putIn(new KeyItem("k" + i, p));
+            b.putIn(new KeyItem("k" + i, p));
+        }
+        final String before = a.showSizes();
+        final float mass = a.getMass();
+        final List<String> looked = new java.util.ArrayList<>();
+        assertEquals(null, a.takeOut(new Bag.Selection<Item>() {
+            @Override
+            public boolean select(Item item) {
+                looked.add(item.getKey());
+                return false;
+            }
+        }, 20));
+        assertEquals(20, looked.size());
+        assertEquals(300, a.size());
+        assertEquals(before, a.showSizes());
+        assertEquals(mass, a.getMass(), 0);
+        for (String key : looked) {
+            assertEquals(key, b.takeOut().getKey());
+        }
+
+        final String chosen = looked.get(5);
+        final Item taken = a.takeOut(new Bag.Selection<Item>() {
+            @Override
+            public boolean select(Item item) {
+                return item.getKey().equals(chosen);
+            }
+        }, 300);
+        assertEquals(chosen, taken.getKey());
+        assertEquals(299, a.size());
+        assertEquals(null, a.get(chosen));
+
+        for (Bag<Item> c : new Bag[] {
+                new ConcurrentBag<Item>(100, 10, new AtomicInteger(10), 1),
+                new SumTreeBag<Item>(100, 10, 10) }) {
+            for (int i = 0; i < 10; i++) {
+                c.putIn(new KeyItem("k" + i, 0.1f * (i + 1)));
+            }
+            final List<String> all = new java.util.ArrayList<>();
+            assertEquals(null, c.takeOut(new Bag.Selection<Item>() {
+                @Override
+                public boolean select(Item item) {
+                    all.add(item.getKey());
+                    return false;
+                }
+            }, 1000));
+            assertEquals(10, c.size());
+            assertTrue(all.size() <= 10);
+            assertEquals("k9", c.takeOut(new Bag.Selection<Item>() {
+                @Override
+                public boolean select(Item item) {
+                    return item.getKey().equals("k9");
+                }
+            }, 1000).getKey());
+            assertEquals(9, c.size());
+        }
+    }
+
+    @Test
+    public void testTakeOutAndPutBackSelection() {
+        for (Bag<Item> c : new Bag[] {
+                new ArrayBag<Item>(100, 10, 10),
+                new ConcurrentBag<Item>(100, 10, new AtomicInteger(10), 1),
+                new SumTreeBag<Item>(100, 10, 10) }) {
+            for (int i = 0; i < 10; i++) {
+                c.putIn(new KeyItem("k" + i, 0.5f + 0.05f * i));
+            }
+            final List<Item> looked = new java.util.ArrayList<>();
+            final List<Float> priorities = new java.util.ArrayList<>();
+            final Item selected = c.takeOutAndPutBack(new Bag.Selection<Item>() {
+                @Override
+                public boolean select(Item item) {
+                    looked.add(item);
+                    priorities.add(item.getPriority());
+                    return looked.size() == 3;
+                }
+            }, 10);
+            assertEquals(3, looked.size());
+            assertTrue(selected == looked.get(2));
+            assertEquals(10, c.size());
+            assertTrue(c.contains(selected));
+            assertTrue(selected.getPriority() < priorities.get(2));
+            for (int i = 0; i < 2; i++) {
+                assertEquals(priorities.get(i), looked.get(i).getPriority(), 0);
+            }
+        }
+    }
+
+    /**
+     * takeOutOrPutBack of a LevelBag leaves the bag as rounds of takeOut and
+     * putBack would, while keeping the items not selected in the name table.
+     */
+    @Test
+    public void testTakeOutOrPutBackSelection() {
+        final ArrayBag<Item> a = new ArrayBag<>(100, 300, 10);
+        final ArrayBag<Item> b = new ArrayBag<>(100, 300, 10);
+        final Random r = new Random(1);
+        for (int i = 0; i < 300; i++) {
+            final float p = 0.3f + 0.7f * r.nextFloat();
+            a.putIn(new KeyItem("k" + i, p));
+            b.putIn(new KeyItem("k" + i, p));
+        }
+        final List<String> looked = new java.util.ArrayList<>();
+        final Item taken = a.takeOutOrPutBack(new Bag.Selection<Item>() {
+            @Override
+            public boolean select(Item item) {
+                looked.add(item.getKey());
+                return looked.size() == 20;
+            }
+        }, 30);
+        assertEquals(20, looked.size());
+        assertEquals(looked.get(19), taken.getKey());
+        assertEquals(null, a.get(taken.getKey()));
+        for (int i = 0; i < 19; i++) {
+            final Item x = b.takeOut();
+            assertEquals(looked.get(i), x.getKey());
+            b.putBack(x);
+        }
+        assertEquals(looked.get(19), b.takeOut().getKey());
+        assertEquals(b.showSizes(), a.showSizes());
+        assertEquals(b.getMass(), a.getMass(), 0);
+        while (b.size() > 0) {
+            assertEquals(b.takeOut().getKey(), a.takeOut().getKey());
+        }
+    }
+
+    private static class TestClock implements Bag.Clock {
+        long time;
+
+        @Override
+        public long getTime() {
+            return time;
+        }
+    }
+
+    /**
+     * With a clock, an item decays by the cycles elapsed since it was last
+     * decayed, when taken out, and items not selected are re-levelled by the
+     * sweep of takeOut.
+     */
+    @Test
+    public void testTimeForgetting() {
+        final TestClock clock = new TestClock();
+        final ArrayBag<Item> b = new ArrayBag<>(100, 10, 10);
+        b.setClock(clock);
+        for (int i = 0; i < 5; i++) {
+            b.putIn(new KeyItem("k" + i, 0.9f));
+        }
+        assertEquals(0, b.get("k0").getBudget().getLastForgetTime());
+        assertEquals(5, b.getLevelSize(89));
+
+        clock.time = 10;
+        final Item x = b.takeOut();
+        assertEquals(0.05f + 0.85f * 0.5f, x.getPriority(), 0.001f);
+        b.putBack(x);
+        assertEquals(0.05f + 0.85f * 0.5f, x.getPriority(), 0.001f);
+        //one item taken out, one swept down
+        assertEquals(3, b.getLevelSize(89));
+        assertEquals(2, b.getLevelSize(47));
+
+        clock.time = 20;
+        for (int i = 0; i < 5; i++) {
+            b.takeOutAndPutBack();
+        }
+        assertEquals(0, b.getLevelSize(89));
+        assertEquals(5, b.size());
+    }
+
+    @Test
+    public void testTimeForgettingReasoning() {
+        final Parameters p = new nars.core.DefaultParameters();
+        p.setTimeForgetting(true);
+        final NAR n = new NAR(p);
+        final List<String> out = new java.util.ArrayList<>();
+        new nars.io.TextOutput(n) {
+            @Override
+            public void output(Class c, Object line) {
+                out.add(line.toString());
+            }
+        };
+        new TextInput(n, "<bird --> animal>.\n<robin --> bird>.\n<robin --> animal>?\n");
+        n.run(100);
+        boolean answered = false;
+        for (String o : out) {
+            answered |= o.contains("<robin --> animal>. %1.00;0.81%");
+        }
+        assertTrue(out.toString(), answered);
+    }
+
+    @Test
+    public void testTermLinkLookaheadReasoning() {
+        final Parameters p = new nars.core.DefaultParameters();
+        p.setTermLinkLookahead(true);
+        final NAR n = new NAR(p);
+        final List<String> out = new java.util.ArrayList<>();
+        new nars.io.TextOutput(n) {
+            @Override
+            public void output(Class c, Object line) {
+                out.add(line.toString());
+            }
+        };
+        new TextInput(n, "<0 --> num>.\n<<$1 --> num> ==> <(*,$1) --> num>>.\n<(*,(*,(*,0))) --> num>?\n");
+        n.run(600);
+        boolean answered = false;
+        for (String o : out) {
+            answered |= o.contains("<(*,(*,(*,0))) --> num>. %1.00;");
+        }
+        assertTrue(out.toString(), answered);
+    }
+
+    @Test
+    public void testLongHashMap() {
+        Random r = new Random(1);
+        LongHashMap<Long> m = new LongHashMap<>(4, 0.5f);
+        HashMap<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long k = r.nextInt(500) * 0x100000001L;   //colliding low bits
+            switch (r.nextInt(3)) {
+                case 0: assertEquals(expected.put(k, (long) i), m.put(k, (long) i)); break;
+                case 1: assertEquals(expected.remove(k), m.remove(k)); break;
+                case 2: assertEquals(expected.get(k), m.get(k)); break;
+            }
+            assertEquals(expected.size(), m.size());
+        }
+    }
+
+    /** Item whose key fingerprint is the same whatever its key */
+    static class CollidingItem extends KeyItem {
+
+        CollidingItem(String key, float priority) {
+            super(key, priority);
+            keyHash = 42;
+        }
+    }
+
+    @Test
+    public void testKeyCollision() {
+        List<Bag<Item>> bags = Arrays.<Bag<Item>>asList(
+                new DefaultBag<Item>(10, 10, 10),
+                new ArrayBag<Item>(10, 10, 10),
+                new SumTreeBag<Item>(10, 10, 10),
+                new ConcurrentBag<Item>(10, 10, new AtomicInteger(10), 1));
+        for (Bag<Item> b : bags) {
+            for (String key : new String[] { "a", "b", "c" }) {
+                assertTrue(b.putIn(new CollidingItem(key, 0.5f)));
+            }
+            Item a = new CollidingItem("a", 0.9f);
+            b.putIn(a);
+            assertEquals(3, b.size());
+            assertEquals(0.9f, a.getPriority(), 0.001f);    // merged with the other "a" only
+            assertTrue(b.contains(a));
+            assertEquals("b", b.get(42, "b").getKey());
+            assertEquals(null, b.get(42, "d"));
+            assertEquals("b", b.pickOut(42, "b").getKey());
+            assertEquals(null, b.get(42, "b"));
+            assertEquals(a, b.get(42, "a"));
+            assertEquals("c", b.get(42, "c").getKey());
+            HashSet<String> taken = new HashSet<>();
+            for (Item x = b.takeOut(); x != null; x = b.takeOut()) {
+                taken.add(x.getKey());
+            }
+            assertEquals(new HashSet<>(Arrays.asList("a", "c")), taken);
+            assertEquals(0, b.size());
+        }
+    }
+
+    @Test
+    public void testLinkKeyFingerprint() throws Exception {
+        NAR n = new NAR();
+        CompoundTerm t = (CompoundTerm) TextInput.parseTerm("<(&&,<#1 --> bird>,<#1 --> [red]>) ==> <robin --> (/,eat,_,worm)>>", n.memory);
+        Task task = TextInput.parseTask("<(*,robin,worm) --> eat>.", n.memory, 0);
+        List<TermLink> templates = t.prepareComponentLinks();
+        assertTrue(templates.size() > 1);
+
+        for (TermLink template : templates) {
+            TermLink toComponent = new TermLink(template.getTarget(), template, new BudgetValue());
+            TermLink toCompound = new TermLink(t, template, new BudgetValue());
+            TaskLink taskLink = new TaskLink(task, template, new BudgetValue());
+            for (Item link : new Item[] { toComponent, toCompound, taskLink }) {
+                assertEquals(link.getKey(), Fingerprint.of(link.getKey()), link.getKeyHash());
+            }
+            assertNotEquals(toComponent.getKeyHash(), toCompound.getKeyHash());
+            assertTrue(toComponent.keyEquals(new TermLink(template.getTarget(), template, new BudgetValue())));
+            assertTrue(taskLink.keyEquals(new TaskLink(task, template, new BudgetValue())));
+            assertTrue(!toComponent.keyEquals(toCompound));
+        }
+        assertEquals(Fingerprint.of(t.getName()), t.getNameHash());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedList;
+import java.util.List;
+import nars.core.NAR;
+import nars.io.BulkInput;
+import nars.io.TextOutput;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class BulkInputTest {
+
+    @Test
+    public void testLoadThenReason() throws IOException {
+        final NAR n = new NAR();
+        final List<String> out = new LinkedList();
+        new TextOutput(n) {
+            @Override
+            public void output(Class c, Object line) {
+                if (c == OUT.class) {
+                    out.add(line.toString());
+                }
+            }
+        };
+
+        BulkInput.Result r = n.load(new StringReader(
+                "//knowledge\n<bird --> animal>.\n\n<robin --> bird>.\nnot narsese\n<robin --> animal>?\n"));
+        assertEquals(3, r.statements);
+        assertEquals(1, r.rejected);
+        assertTrue(out.get(0).contains("statements/sec"));
+        assertNotNull(n.memory.nameToConcept("<robin --> bird>"));
+
+        n.run(10);
+        boolean answered = false;
+        for (String o : out) {
+            answered |= o.contains("<robin --> animal>. %1.00;0.81%");
+        }
+        assertTrue(out.toString(), answered);
+    }
+
+    @Test
+    public void testParallelChunks() throws IOException {
+        final NAR n = new NAR();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("<a").append(i).append(" --> b").append(i % 10).append(">.\n");
+        }
+        BulkInput.Result r = new BulkInput(n, 4, 50).load(new StringReader(sb.toString()));
+        assertEquals(200, r.statements);
+        assertEquals(0, r.rejected);
+        for (int i = 0; i < 200; i += 19) {
+            assertNotNull(n.memory.nameToConcept("<a" + i + " --> b" + (i % 10) + ">"));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.DefaultParameters;
+import nars.core.NAR;
+import nars.core.Parameters;
+import nars.entity.Concept;
+import nars.io.ConceptStore;
+import nars.io.TextInput;
+import nars.language.Term;
+import nars.storage.Bag;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class ConceptStoreTest {
+
+    static final int STATEMENTS = 1000;
+
+    static NAR load(final boolean store) throws IOException {
+        final Parameters p = new DefaultParameters();
+        if (store) {
+            p.setConceptStore(new java.io.File(System.getProperty("java.io.tmpdir")));
+        }
+        final NAR n = new NAR(p);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < STATEMENTS; i++) {
+            sb.append("<a").append(i).append(" --> b").append(i).append(">.\n");
+        }
+        n.load(new StringReader(sb.toString()));
+        return n;
+    }
+
+    @Test
+    public void testSpillAndReload() throws Exception {
+        final NAR n = load(true);
+        final ConceptStore store = n.memory.getConceptStore();
+        assertEquals(Parameters.CONCEPT_BAG_SIZE, n.memory.concepts.size());
+        assertTrue(store.size() > 0);
+        assertEquals(0, store.getLost());
+
+        //the concept of every statement is in the bag or in the store
+        final List<Term> spilled = new ArrayList<>();
+        for (int i = 0; i < STATEMENTS; i++) {
+            final Term t = TextInput.parseTerm("<a" + i + " --> b" + i + ">", n.memory);
+            if (store.contains(t)) {
+                assertNull(n.memory.nameToConcept(t.getName()));
+                spilled.add(t);
+            } else {
+                assertNotNull(n.memory.nameToConcept(t.getName()));
+            }
+        }
+        assertFalse(spilled.isEmpty());
+        final int total = n.memory.concepts.size() + store.size();
+
+        //a reloaded concept takes the place of the lowest in the bag, whatever its priority
+        for (final Term t : spilled) {
+            final Concept c = n.memory.termToConcept(t);
+            assertNotNull(c);
+            assertSame(c, n.memory.nameToConcept(t.getName()));
+            assertFalse(store.contains(t));
+            assertTrue(c.displayContent(), c.displayContent().contains(t.getName() + ". %1.00;0.90%"));
+            assertEquals(total, n.memory.concepts.size() + store.size());
+        }
+        final Term reloaded = spilled.get(spilled.size() - 1);
+        assertNotNull(n.memory.nameToConcept(reloaded.getName()));
+
+        n.reset();
+        assertEquals(0, store.size());
+        assertNull(n.memory.termToConcept(reloaded));
+        n.close();
+    }
+
+    /**
+     * Put new concepts of high priority into the bag, each in place of the
+     * lowest one as a reloaded concept would be, until the bag drops a given
+     * one
+     *
+     * @return Whether the concept was dropped
+     */
+    private static boolean dropByNewConcepts(final NAR n, final Concept c) throws Exception {
+        for (int i = 0; i < 10 * Parameters.CONCEPT_BAG_SIZE; i++) {
+            final Term t = TextInput.parseTerm("<c" + i + " --> d" + i + ">", n.memory);
+            final Concept x = new Concept(t, n.memory);
+            x.setPriority(0.9f);
+            n.memory.concepts.putIn(x, true);
+            if (n.memory.nameToConcept(c.getKey()) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A pinned concept dropped by the bag is not written to the store until
+     * it is unpinned, and a lookup meanwhile takes the same concept back
+     */
+    @Test
+    public void testPinnedConcept() throws Exception {
+        final NAR n = load(true);
+        final ConceptStore store = n.memory.getConceptStore();
+        int level = n.memory.concepts.levels - 1;
+        while (n.memory.concepts.emptyLevel(level)) {
+            level--;
+        }
+        final Concept c = n.memory.concepts.getLevel(level).iterator().next();
+        final Term t = c.getTerm();
+        final Bag.Adjustment<Concept> lowest = new Bag.Adjustment<Concept>() {
+            @Override
+            public void apply(final Concept concept) {
+                concept.setPriority(0);
+            }
+        };
+
+        n.memory.pinConcept(c);
+        n.memory.concepts.adjust(c, lowest);
+        assertTrue(dropByNewConcepts(n, c));
+        assertFalse(store.contains(t));
+        assertSame(c, n.memory.termToConcept(t));
+        assertSame(c, n.memory.nameToConcept(t.getName()));
+        n.memory.unpinConcept();
+        assertFalse(store.contains(t));
+
+        n.memory.pinConcept(c);
+        n.memory.concepts.adjust(c, lowest);
+        assertTrue(dropByNewConcepts(n, c));
+        assertFalse(store.contains(t));
+        final String content = c.displayContent();
+        n.memory.unpinConcept();
+        assertTrue(store.contains(t));
+        assertEquals(content, n.memory.termToConcept(t).displayContent());
+        n.close();
+    }
+
+    @Test
+    public void testClosedWithReasoner() throws Exception {
+        final NAR n = load(true);
+        final ConceptStore store = n.memory.getConceptStore();
+        assertTrue(store.size() > 0);
+        assertTrue(store.getFile().exists());
+        n.close();
+        assertEquals(0, store.size());
+        assertFalse(store.getFile().exists());
+    }
+
+    @Test
+    public void testLostWithoutStore() throws Exception {
+        final NAR n = load(false);
+        assertNull(n.memory.getConceptStore());
+        int found = 0;
+        for (int i = 0; i < STATEMENTS; i++) {
+            final Term t = TextInput.parseTerm("<a" + i + " --> b" + i + ">", n.memory);
+            if (n.memory.termToConcept(t) != null) {
+                found++;
+            }
+        }
+        assertTrue(found < STATEMENTS);
+    }
+
+    /**
+     * The regions of the file are written again once their concepts are
+     * reloaded
+     */
+    @Test
+    public void testRegionReuse() throws Exception {
+        final NAR n = new NAR();
+        n.load(new StringReader("<bird --> animal>.\n<robin --> bird>.\n"));
+        n.run(5);
+        final Concept c = n.memory.nameToConcept("<robin --> bird>");
+        final String content = c.displayContent();
+
+        try (ConceptStore store = new ConceptStore(n.memory, null, 1 << 12)) {
+            Concept x = c;
+            for (int i = 0; i < 1000; i++) {
+                store.overflow(x);
+                assertEquals(1, store.size());
+                x = store.reload(x.getTerm());
+                assertEquals(content, x.displayContent());
+                assertEquals(0, store.size());
+            }
+            store.overflow(x);
+            store.overflow(x);
+            assertEquals(1, store.size());
+            assertTrue(store.getFileSize() <= 2 << 12);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import nars.core.DefaultParameters;
+import nars.core.NAR;
+import nars.core.Parameters;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.TruthValue;
+import nars.inference.InferenceRecorder;
+import nars.io.EventLog;
+import nars.language.Term;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class EventLogTest {
+
+    /** Keeps the lines the memory records, as the GUI would show them */
+    static class ListRecorder implements InferenceRecorder {
+
+        final List<String> lines = new ArrayList<>();
+
+        @Override public void init() { }
+        @Override public void show() { }
+        @Override public void play() { }
+        @Override public void stop() { }
+        @Override public boolean isActive() { return true; }
+        @Override public void openLogFile() { }
+        @Override public void closeLogFile() { }
+        @Override public boolean isLogging() { return false; }
+
+        @Override
+        public void append(final String s) {
+            lines.add(s);
+        }
+    }
+
+    static List<String> render(final File file) throws IOException {
+        final StringWriter w = new StringWriter();
+        try (InputStream in = new FileInputStream(file)) {
+            EventLog.render(in, w);
+        }
+        return Arrays.asList(w.toString().split(System.getProperty("line.separator")));
+    }
+
+    /** The first line of a recorded text, without the parents of a task */
+    static String firstLine(final String s) {
+        final int end = s.indexOf('\n');
+        return ((end >= 0) ? s.substring(0, end) : s).replaceAll("\\s+$", "");
+    }
+
+    @Test
+    public void testRenderAsRecorded() throws Exception {
+        final File file = File.createTempFile("events", ".log");
+        file.deleteOnExit();
+        final Parameters p = new DefaultParameters();
+        p.setEventLog(file);
+        final NAR n = new NAR(p);
+        final ListRecorder recorder = new ListRecorder();
+        n.memory.setRecorder(recorder);
+        n.reset();
+        n.load(new StringReader("<swan --> swimmer>. %0.90%\n<swan --> bird>.\n<bird --> animal>.\n<?x --> animal>?\n"));
+        n.run(60);
+        n.getEventLog().flush();
+        n.close();
+
+        final List<String> rendered = render(file);
+        assertEquals("--reset--", rendered.get(0));
+        assertEquals(recorder.lines.size(), rendered.size());
+        boolean derived = false;
+        for (int i = 0; i < recorder.lines.size(); i++) {
+            final String expected = firstLine(recorder.lines.get(i));
+            final String actual = rendered.get(i).replaceAll("\\s+$", "");
+            if (expected.startsWith(EventLog.label(EventLog.SELECTED_TASK_LINK))
+                    || expected.startsWith(EventLog.label(EventLog.SELECTED_TERM_LINK))) {
+                final int budget = expected.indexOf("$ ") + 2;     // the link type is not logged
+                assertEquals(expected.substring(0, budget), actual.substring(0, budget));
+            } else {
+                assertEquals(expected, actual);
+            }
+            derived |= actual.startsWith(EventLog.label(EventLog.DERIVED));
+        }
+        assertTrue(derived);
+    }
+
+    @Test
+    public void testConcurrentAndFull() throws Exception {
+        final File file = File.createTempFile("events", ".log");
+        file.deleteOnExit();
+        final EventLog log = new EventLog(file, 4);
+        final int threads = 4, events = 20000;
+        final Term[] terms = {new Term("a"), new Term("b"), new Term("c")};
+        final Thread[] t = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            t[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int e = 0; e < events; e++) {
+                        log.term(EventLog.SELECTED_CONCEPT, e, terms[e % terms.length]);
+                    }
+                }
+            };
+            t[i].start();
+        }
+        for (final Thread thread : t) {
+            thread.join();
+        }
+        log.close();
+        log.term(EventLog.SELECTED_CONCEPT, 0, terms[0]);      // ignored once closed
+
+        long logged = 0, lost = 0;
+        for (final String line : render(file)) {
+            if (line.startsWith(EventLog.label(EventLog.LOST))) {
+                lost += Long.parseLong(line.split(" ")[2]);
+            } else {
+                assertTrue(line, line.matches(" \\* Selected Concept: [abc]"));
+                logged++;
+            }
+        }
+        assertEquals(log.getDropped(), lost);
+        assertEquals(threads * events, logged + lost);
+    }
+
+    /** A term renamed in place, as a compound is while its name is made */
+    static class RenamedTerm extends Term {
+
+        RenamedTerm(final String name) {
+            super(name);
+        }
+
+        void rename(final String name) {
+            setName(name);
+        }
+    }
+
+    @Test
+    public void testNameReadWhenLogged() throws Exception {
+        final File file = File.createTempFile("events", ".log");
+        file.deleteOnExit();
+        final EventLog log = new EventLog(file, 16);
+        final RenamedTerm t = new RenamedTerm("before");
+        log.term(EventLog.SELECTED_CONCEPT, 0, t);
+        t.rename("after");
+        log.close();
+        assertEquals(Arrays.asList(" * Selected Concept: before"), render(file));
+    }
+
+    /** The stamp is formatted by the drainer, as it was when logged */
+    @Test
+    public void testStampReadWhenLogged() throws Exception {
+        final File file = File.createTempFile("events", ".log");
+        file.deleteOnExit();
+        final EventLog log = new EventLog(file, 16);
+        final Sentence s = new Sentence(new Term("a"), '.', new TruthValue(1f, 0.9f), new Stamp(0));
+        s.getStamp().addToChain(new Term("b"));
+        final String before = s.toStringBrief();
+        log.sentence(EventLog.SELECTED_BELIEF, 0, s);
+        s.getStamp().addToChain(new Term("c"));
+        assertNotEquals(before, s.toStringBrief());
+        log.close();
+        assertEquals(Arrays.asList(EventLog.label(EventLog.SELECTED_BELIEF) + before), render(file));
+    }
+
+    @Test
+    public void testFlushWhileBusy() throws Exception {
+        final File file = File.createTempFile("events", ".log");
+        file.deleteOnExit();
+        final EventLog log = new EventLog(file, 1 << 10);
+        final Term term = new Term("a");
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                while (!isInterrupted()) {
+                    log.term(EventLog.SELECTED_CONCEPT, 0, term);
+                }
+            }
+        };
+        producer.setDaemon(true);
+        producer.start();
+        final boolean[] flushed = new boolean[1];
+        final Thread flusher = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 10; i++) {
+                        log.flush();
+                    }
+                    flushed[0] = true;
+                } catch (IOException e) {
+                }
+            }
+        };
+        flusher.start();
+        flusher.join(10000);
+        producer.interrupt();
+        producer.join();
+        log.close();
+        assertTrue(flushed[0]);
+    }
+}
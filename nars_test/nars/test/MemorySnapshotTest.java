@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedList;
+import java.util.List;
+import nars.core.NAR;
+import nars.entity.Concept;
+import nars.entity.Stamp;
+import nars.io.TextOutput;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class MemorySnapshotTest {
+
+    @Test
+    public void testSaveRestore() throws IOException {
+        final NAR n = new NAR();
+        n.load(new StringReader("<bird --> animal>.\n<robin --> bird>.\n<{tweety} --> robin>.\n<(*,robin,worm) --> eat>.\n<robin --> animal>?\n"));
+        n.run(30);
+
+        final File file = File.createTempFile("memory", ".nars");
+        file.deleteOnExit();
+        n.save(file);
+        final long serial = Stamp.getCurrentSerial();
+
+        final NAR m = new NAR();
+        m.restore(file);
+        assertEquals(n.getTime(), m.getTime());
+        assertEquals(serial, Stamp.getCurrentSerial());
+        assertEquals(n.memory.concepts.size(), m.memory.concepts.size());
+        assertEquals(n.memory.concepts.toStringLong(), m.memory.concepts.toStringLong());
+        assertEquals(n.memory.novelTasks.toStringLong(), m.memory.novelTasks.toStringLong());
+        assertEquals(n.memory.newTasks.toString(), m.memory.newTasks.toString());
+
+        final Concept c = m.memory.nameToConcept("<robin --> bird>");
+        assertNotNull(c);
+        assertTrue(c.getTaskLinks().size() > 0);
+        assertEquals(n.memory.nameToConcept("<robin --> bird>").displayContent(), c.displayContent());
+    }
+
+    @Test
+    public void testReasonAfterRestore() throws IOException {
+        final NAR n = new NAR();
+        n.load(new StringReader("<bird --> animal>.\n<robin --> bird>.\n"));
+        n.run(2);
+        final File file = File.createTempFile("memory", ".nars");
+        file.deleteOnExit();
+        n.save(file);
+
+        final NAR m = new NAR();
+        final List<String> out = new LinkedList();
+        new TextOutput(m) {
+            @Override
+            public void output(Class c, Object line) {
+                if (c == OUT.class) {
+                    out.add(line.toString());
+                }
+            }
+        };
+        m.restore(file);
+        m.load(new StringReader("<robin --> animal>?\n"));
+        m.run(10);
+        boolean answered = false;
+        for (String o : out) {
+            answered |= o.contains("<robin --> animal>. %1.00;0.81%");
+        }
+        assertTrue(out.toString(), answered);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import javax.management.MBeanServer;
+import nars.core.DefaultParameters;
+import nars.core.Metrics;
+import nars.core.NAR;
+import nars.core.Parameters;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class MetricsTest {
+
+    @Test
+    public void testCounts() throws Exception {
+        assertNull(new NAR().getMetrics());
+
+        final Parameters p = new DefaultParameters();
+        p.setMetrics(true);
+        final NAR n = new NAR(p);
+        final Metrics m = n.getMetrics();
+        assertNotNull(m);
+        try {
+            n.load(new StringReader("<swan --> swimmer>. %0.90%\n<swan --> bird>.\n<bird --> animal>.\n"));
+            n.run(100);
+
+            assertEquals(n.getTime(), m.getCycles());
+            assertEquals(m.getCycles(), (long) m.getPhaseCounts().get("processNewTask"));
+            assertTrue(m.getPhaseCounts().get("processConcept") > 0);
+            final Map<String, Long> latency = m.getPhaseLatencyNanos();
+            assertTrue(latency.get("processConcept.p50") <= latency.get("processConcept.max"));
+            assertTrue(latency.get("processConcept.max") > 0);
+
+            final Map<String, Long> derived = m.getDerivedByRule();
+            assertTrue(derived.toString(), derived.get("SyllogisticRules.abdIndCom") > 0);
+            assertTrue(derived.toString(), derived.get("CompositionalRules.processComposed") > 0);
+            assertFalse(derived.containsKey("unknown"));
+            long sum = 0;
+            for (long d : m.getRejected().values()) {
+                sum += d;
+            }
+            assertTrue(sum > 0);
+
+            int concepts = 0;
+            for (int c : m.getConceptBagOccupancy()) {
+                concepts += c;
+            }
+            assertEquals(n.memory.concepts.size(), concepts);
+
+            //the same, over JMX
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertTrue(server.isRegistered(m.getName()));
+            assertEquals(m.getCycles(), server.getAttribute(m.getName(), "Cycles"));
+            assertTrue(((Double) server.getAttribute(m.getName(), "CyclesPerSecond")) >= 0);
+            server.invoke(m.getName(), "reset", null, null);
+            assertEquals(0, m.getCycles());
+            assertEquals(0, m.getDerived());
+
+            n.run(10);
+            assertEquals(9, m.getCycles());
+            n.reset();
+            assertEquals(0, m.getCycles());
+            assertTrue(server.isRegistered(m.getName()));
+            n.close();
+            assertFalse(server.isRegistered(m.getName()));
+        } finally {
+            m.unregister();
+        }
+    }
+
+    @Test
+    public void testHistogram() {
+        final Metrics.Histogram h = new Metrics.Histogram();
+        assertEquals(0, h.getPercentile(0.5));
+        for (long v = 1; v <= 1000; v++) {
+            h.record(v * 1000);
+        }
+        assertEquals(1000, h.getCount());
+        for (double f : new double[]{0.01, 0.5, 0.9, 0.99, 1}) {
+            final double expected = f * 1000 * 1000;
+            final long p = h.getPercentile(f);
+            assertTrue(f + ": " + p, (p >= expected) && (p <= expected * 1.07));
+        }
+        h.record(7);
+        assertEquals(7, h.getPercentile(0));
+        h.reset();
+        assertEquals(0, h.getCount());
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import nars.core.NAR;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.TruthValue;
+import nars.io.Flow;
+import nars.io.Output;
+import nars.io.Output.OUT;
+import nars.io.OutputPublisher;
+import nars.io.OutputPublisher.Message;
+import nars.io.OutputPublisher.Overflow;
+import nars.language.Term;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class OutputPublisherTest {
+
+    /** Keeps the messages, asking for them when told to */
+    static class ListSubscriber implements Flow.Subscriber<Message> {
+
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final Message item) {
+            received.add(item.object.toString());
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    /** Keeps the output, as a channel of the reasoner */
+    static class ListOutput implements Output {
+
+        final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void output(final Class channel, final Object o) {
+            lines.add(channel.getSimpleName() + ": " + o);
+        }
+    }
+
+    static Sentence judgment(final String term, final float frequency) {
+        return new Sentence(new Term(term), '.', new TruthValue(frequency, 0.9f), new Stamp(0));
+    }
+
+    @Test
+    public void testSameOutput() throws Exception {
+        final NAR n = new NAR();
+        final ListOutput direct = new ListOutput();
+        final ListOutput decoupled = new ListOutput();
+        n.addOutputChannel(direct);
+        n.addOutputChannel(decoupled);
+        final OutputPublisher publisher = new OutputPublisher(n);
+        final OutputPublisher.BufferedSubscription s = publisher.decouple(decoupled, 16, Overflow.BLOCK);
+        final ListSubscriber subscriber = new ListSubscriber();
+        publisher.subscribe(subscriber, 16, Overflow.BLOCK);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        n.load(new StringReader("<swan --> swimmer>. %0.90%\n<swan --> bird>.\n<bird --> animal>.\n<?x --> animal>?\n"));
+        n.run(100);
+        publisher.close();
+        assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+
+        assertTrue(direct.lines.size() > 16);
+        assertEquals(direct.lines.size(), subscriber.received.size());
+        for (int i = 0; i < direct.lines.size(); i++) {
+            assertTrue(direct.lines.get(i).endsWith(": " + subscriber.received.get(i)));
+        }
+        for (int i = 0; (i < 1000) && (decoupled.lines.size() < direct.lines.size()); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(direct.lines, decoupled.lines);
+        assertEquals(0, s.getDropped());
+    }
+
+    @Test
+    public void testDropLowest() {
+        final OutputPublisher publisher = new OutputPublisher(new NAR());
+        final ListSubscriber subscriber = new ListSubscriber();
+        final OutputPublisher.BufferedSubscription s = publisher.subscribe(subscriber, 3, Overflow.DROP_LOWEST);
+        final float[] frequencies = {0.9f, 0.1f, 0.5f, 0.7f, 0.2f};
+        for (int i = 0; i < frequencies.length; i++) {
+            publisher.output(OUT.class, judgment("abcde".substring(i, i + 1), frequencies[i]));
+        }
+        assertEquals(3, s.size());
+        assertEquals(2, s.getDropped());
+        publisher.close();
+        subscriber.subscription.request(10);
+        await(subscriber);
+        final StringBuilder kept = new StringBuilder();
+        for (final String r : subscriber.received) {
+            kept.append(r.charAt(0));
+        }
+        assertEquals("acd", kept.toString());
+    }
+
+    @Test
+    public void testDropLowestKeepsHighest() {
+        final OutputPublisher publisher = new OutputPublisher(new NAR());
+        final ListSubscriber subscriber = new ListSubscriber();
+        final OutputPublisher.BufferedSubscription s = publisher.subscribe(subscriber, 16, Overflow.DROP_LOWEST);
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(1));
+        final List<String> highest = new ArrayList<>();
+        for (final int i : order) {
+            publisher.output(OUT.class, judgment("t" + i, i / 1000f));
+            if (i >= 984) {
+                highest.add("t" + i);
+            }
+        }
+        assertEquals(984, s.getDropped());
+        publisher.close();
+        subscriber.subscription.request(Long.MAX_VALUE);
+        await(subscriber);
+        final List<String> kept = new ArrayList<>();
+        for (final String r : subscriber.received) {
+            kept.add(r.substring(0, r.indexOf('.')));
+        }
+        assertEquals(highest, kept);
+    }
+
+    @Test
+    public void testSample() {
+        final OutputPublisher publisher = new OutputPublisher(new NAR());
+        final ListSubscriber subscriber = new ListSubscriber();
+        final OutputPublisher.BufferedSubscription s = publisher.subscribe(subscriber, 4, Overflow.SAMPLE);
+        for (int i = 0; i < 1000; i++) {
+            publisher.output(OUT.class, i);
+        }
+        assertEquals(996, s.getDropped());
+        publisher.close();
+        subscriber.subscription.request(Long.MAX_VALUE);
+        await(subscriber);
+        assertEquals(4, subscriber.received.size());
+        int previous = -1, late = 0;
+        for (final String r : subscriber.received) {
+            final int i = Integer.parseInt(r);
+            assertTrue(subscriber.received.toString(), i > previous);
+            previous = i;
+            if (i >= 4) {
+                late++;
+            }
+        }
+        assertTrue(late > 0);
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        final OutputPublisher publisher = new OutputPublisher(new NAR());
+        final ListSubscriber subscriber = new ListSubscriber() {
+            @Override
+            public void onNext(final Message item) {
+                super.onNext(item);
+                subscription.request(1);
+            }
+        };
+        final OutputPublisher.BufferedSubscription s = publisher.subscribe(subscriber, 1, Overflow.BLOCK);
+        final Thread reasoner = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 100; i++) {
+                    publisher.output(OUT.class, i);
+                }
+            }
+        };
+        reasoner.start();
+        Thread.sleep(50);
+        assertTrue(reasoner.isAlive());     // waiting for room
+        subscriber.subscription.request(1);
+        reasoner.join(10000);
+        publisher.close();
+        await(subscriber);
+        assertEquals(0, s.getDropped());
+        assertEquals(100, subscriber.received.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.toString(i), subscriber.received.get(i));
+        }
+    }
+
+    static void await(final ListSubscriber subscriber) {
+        try {
+            assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.util.Random;
+import nars.entity.BudgetValue;
+import nars.entity.ShortFloat;
+import nars.entity.TruthValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * The packed budget and truth values read and print as ShortFloats would.
+ *
+ * @author me
+ */
+public class PackedValueTest {
+
+    @Test
+    public void testSameAsShortFloat() {
+        Random r = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            float p = r.nextFloat(), d = r.nextFloat(), q = r.nextFloat();
+            if (i == 0) {
+                p = 1; d = 0; q = 0.99995f;
+            }
+            BudgetValue b = new BudgetValue(p, d, q);
+            ShortFloat sp = new ShortFloat(p), sd = new ShortFloat(d), sq = new ShortFloat(q);
+            assertEquals(sp.getValue(), b.getPriority(), 0);
+            assertEquals(sd.getValue(), b.getDurability(), 0);
+            assertEquals(sq.getValue(), b.getQuality(), 0);
+            assertEquals("$" + sp + ";" + sd + ";" + sq + "$", b.toString());
+            assertEquals("$" + sp.toStringBrief() + ";" + sd.toStringBrief() + ";" + sq.toStringBrief() + "$", b.toStringBrief());
+
+            b.incDurability(q);
+            b.setPriority(q);
+            sd.setValue(1 - (1 - sd.getValue()) * (1 - q));
+            assertEquals(sd.getValue(), b.getDurability(), 0);
+            assertEquals(sq.getValue(), b.getPriority(), 0);
+            assertEquals(sq.getValue(), b.getQuality(), 0);
+
+            TruthValue t = new TruthValue(p, d);
+            assertEquals(sp.getValue(), t.getFrequency(), 0);
+            assertEquals(new ShortFloat(d).getValue(), t.getConfidence(), 0);
+            assertEquals(t, new TruthValue(t));
+        }
+        assertEquals(0.9999f, new TruthValue(1, 1).getConfidence(), 0);
+        assertEquals("%1.00;0.99%", new TruthValue(1, 0.9999f).toStringBrief());
+    }
+
+    @Test
+    public void testInvalidValue() {
+        BudgetValue b = new BudgetValue(0.5f, 0.5f, 0.5f);
+        try {
+            b.setDurability(1.5f);
+            fail();
+        } catch (ArithmeticException e) {
+        }
+        assertEquals(0.5f, b.getDurability(), 0);
+        assertEquals(0.5f, b.getPriority(), 0);
+    }
+}
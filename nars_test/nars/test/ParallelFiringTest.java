@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import nars.core.DefaultParameters;
+import nars.core.NAR;
+import nars.core.Parameters;
+import nars.entity.BudgetValue;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.Task;
+import nars.entity.TruthValue;
+import nars.inference.InferenceContext;
+import nars.io.OutputPublisher;
+import nars.io.OutputPublisher.Overflow;
+import nars.io.TextInput;
+import nars.io.TextOutput;
+import nars.language.Term;
+import nars.storage.BagImplementation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class ParallelFiringTest {
+
+    private static final String DEDUCTION = "<bird --> animal>.\n<robin --> bird>.\n<robin --> animal>?\n";
+
+    private static List<String> run(final NAR n, final int cycles) {
+        final List<String> out = new CopyOnWriteArrayList<>();
+        new TextOutput(n) {
+            @Override
+            public void output(Class c, Object line) {
+                if (c == OUT.class) {
+                    out.add(line.toString().trim());
+                }
+            }
+        };
+        new TextInput(n, DEDUCTION);
+        n.run(cycles);
+        return out;
+    }
+
+    private static boolean contains(final List<String> out, final String s) {
+        for (final String o : out) {
+            if (o.contains(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testParallelDeduction() {
+        final Parameters p = new DefaultParameters();
+        p.setConceptBag(BagImplementation.CONCURRENT);
+        p.setReasoningThreads(4);
+        final NAR n = new NAR(p);
+        final List<String> out = run(n, 100);
+        assertTrue(out.toString(), contains(out, "<robin --> animal>. %1.00;0.81%"));
+
+        n.param.setReasoningThreads(1);
+        n.run(10);
+    }
+
+    @Test
+    public void testBlockingSubscriberOfParallelFiring() throws Exception {
+        final Parameters p = new DefaultParameters();
+        p.setConceptBag(BagImplementation.CONCURRENT);
+        p.setReasoningThreads(4);
+        final NAR n = new NAR(p);
+        final OutputPublisher publisher = new OutputPublisher(n);
+        final List<String> out = new CopyOnWriteArrayList<>();
+        final OutputPublisher.BufferedSubscription s = publisher.decouple(new TextOutput(n) {
+            @Override
+            public void output(Class c, Object line) {
+                if (c == OUT.class) {
+                    out.add(line.toString().trim());
+                }
+            }
+        }, 1, Overflow.BLOCK);
+        new TextInput(n, DEDUCTION);
+        n.run(100);
+        publisher.close();
+        for (int i = 0; (i < 500) && !contains(out, "<robin --> animal>. %1.00;0.81%"); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(out.toString(), contains(out, "<robin --> animal>. %1.00;0.81%"));
+        assertEquals(0, s.getDropped());
+        n.close();
+    }
+
+    @Test
+    public void testResultsOfContext() {
+        final NAR n = new NAR();
+        final List<Task> derived = new ArrayList<>();
+        final InferenceContext ctx = new InferenceContext(n.memory, derived);
+        final Sentence judgment = new Sentence(new Term("a"), '.', new TruthValue(1f, 0.9f), new Stamp(0));
+        n.memory.inputTask(new Task(judgment, new BudgetValue(0.9f, 0.9f, 0.9f)));  // as from another thread
+        assertTrue(ctx.noResult());
+
+        ctx.activatedTask(new BudgetValue(0.9f, 0.9f, 0.9f), judgment, null);
+        assertFalse(ctx.noResult());
+        assertEquals(1, derived.size());
+        assertEquals(1, n.memory.newTasks.size());
+        ctx.clear();
+        assertTrue(ctx.noResult());
+    }
+
+    private static int reasoningThreads() {
+        int n = 0;
+        for (final Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.isAlive() && t.getName().startsWith("reasoning-")) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Test
+    public void testResetStopsThreads() throws InterruptedException {
+        final Parameters p = new DefaultParameters();
+        p.setConceptBag(BagImplementation.CONCURRENT);
+        p.setReasoningThreads(4);
+        final NAR n = new NAR(p);
+        run(n, 10);
+        assertTrue(reasoningThreads() >= 4);
+        n.reset();
+        for (int i = 0; (i < 500) && (reasoningThreads() > 0); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, reasoningThreads());
+    }
+
+    @Test
+    public void testParallelNeedsConcurrentBag() {
+        final NAR n = new NAR();
+        n.param.setReasoningThreads(4);
+        final List<String> err = new CopyOnWriteArrayList<>();
+        new TextOutput(n) {
+            @Override
+            public void output(Class c, Object line) {
+                if (c == ERR.class) {
+                    err.add(line.toString());
+                }
+            }
+        };
+        run(n, 10);
+        assertTrue(err.toString(), contains(err, "CONCURRENT concept bag"));
+    }
+}
@@ -67,6 +67,11 @@ public abstract class Performance {
         return this;
     }    
             
+    /** Average duration of an iteration, in nanoseconds */
+    public double getAverageTime() {
+        return ((double)totalTime)/((double)repeats);
+    }
+            
     abstract public void init();
     abstract public void run(boolean warmup);
     
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import nars.core.Parameters;
+import nars.entity.DerivationChain;
+import nars.entity.Stamp;
+import nars.language.Term;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class StampTest {
+
+    private static Stamp stamp(long... base) {
+        return new Stamp(base, false, 0, new DerivationChain());
+    }
+
+    @Test
+    public void testSortedBase() {
+        Stamp s = stamp(5, 1, 3, 1);
+        assertArrayEquals(new long[]{1, 3, 5}, s.getBase());
+        assertEquals(3, s.length());
+        assertTrue(s.isOverlapping());
+        assertFalse(stamp(2, 1).isOverlapping());
+    }
+
+    @Test
+    public void testEquality() {
+        assertEquals(stamp(1, 2, 3), stamp(3, 2, 1));
+        assertEquals(stamp(1, 2, 3).hashCode(), stamp(3, 1, 2).hashCode());
+        assertFalse(stamp(1, 2, 3).equals(stamp(1, 2, 4)));
+        assertFalse(stamp(1, 2).equals(stamp(1, 2, 3)));
+    }
+
+    @Test
+    public void testMerge() {
+        Stamp m = Stamp.make(stamp(1, 4, 6), stamp(2, 7), 10);
+        assertArrayEquals(new long[]{1, 2, 4, 6, 7}, m.getBase());
+        assertFalse(m.isOverlapping());
+        assertFalse(stamp(1, 4, 6).overlaps(stamp(2, 7)));
+
+        m = Stamp.make(stamp(1, 4, 6), stamp(4, 7), 10);
+        assertArrayEquals(new long[]{1, 4, 6, 7}, m.getBase());
+        assertTrue(m.isOverlapping());
+        assertTrue(stamp(1, 4, 6).overlaps(stamp(4, 7)));
+        assertTrue(Stamp.make(m, stamp(9), 11).isOverlapping());
+    }
+
+    @Test
+    public void testMergeTruncated() {
+        final int max = Parameters.MAXIMUM_EVIDENTAL_BASE_LENGTH;
+        final long[] a = new long[max], b = new long[max];
+        for (int i = 0; i < max; i++) {
+            a[i] = 2 * i + 1;
+            b[i] = 2 * i + 2;
+        }
+        Stamp m = Stamp.make(stamp(a), stamp(b), 10);
+        assertEquals(max, m.length());
+        final long[] base = m.getBase();
+        for (int i = 1; i < base.length; i++) {
+            assertTrue(base[i - 1] < base[i]);
+        }
+        // the most recent evidence of both
+        assertEquals(2 * max, base[max - 1]);
+        assertEquals(2 * max - 1, base[max - 2]);
+        assertFalse(m.isOverlapping());
+    }
+
+    @Test
+    public void testChain() {
+        final Term a = new Term("a"), b = new Term("b"), c = new Term("c");
+        final Stamp premise = stamp(1);
+        premise.addToChain(a);
+        final Stamp derived = new Stamp(premise, 1);
+        assertTrue(derived.getChain() == premise.getChain());
+
+        derived.addToChain(b);
+        assertTrue(derived.getChain() != premise.getChain());
+        assertEquals(1, premise.getChain().size());
+        assertTrue(derived.getChain().contains(a));
+        assertTrue(derived.getChain().contains(b));
+        assertFalse(derived.getChain().contains(c));
+        assertTrue(derived.getChain().contains(new Term("b")));        // by name
+        assertTrue(derived.getChain().containsSame(b));
+        assertFalse(derived.getChain().containsSame(new Term("b")));   // by reference
+
+        derived.addToChain(a);
+        assertEquals(2, derived.getChain().size());
+        assertEquals("a", derived.getChain().get(1));
+        assertEquals(a.getObjectId(), derived.getChain().getObjectId(1));
+
+        final Stamp other = stamp(2);
+        other.addToChain(c);
+        other.addToChain(new Term("a"));
+        final Stamp merged = Stamp.make(derived, other, 2);
+        // the bases have the same length, so the other stamp comes first; the
+        // derived one takes another turn after its repeated a
+        assertEquals(3, merged.getChain().size());
+        assertEquals("c", merged.getChain().get(0));
+        assertEquals("b", merged.getChain().get(1));
+        assertEquals("a", merged.getChain().get(2));
+        assertFalse(merged.getChain().containsSame(a));
+        assertEquals(" {2 : 1;2c;b;a} ", merged.toString());
+        assertEquals(" {0 : 1 : } ", stamp(1).toString());
+    }
+
+    @Test
+    public void testChainRing() {
+        final int max = Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH;
+        final Stamp s = stamp(1);
+        final Term[] terms = new Term[max + 3];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = new Term("t" + i);
+            s.addToChain(terms[i]);
+        }
+        assertEquals(max, s.getChain().size());
+        assertFalse(s.getChain().contains(terms[2]));
+        assertTrue(s.getChain().contains(terms[3]));
+        assertEquals("t3", s.getChain().get(0));
+        assertEquals("t" + (max + 2), s.getChain().get(max - 1));
+    }
+}
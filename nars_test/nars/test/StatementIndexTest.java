@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import nars.core.DefaultParameters;
+import nars.core.NAR;
+import nars.core.Parameters;
+import nars.entity.Concept;
+import nars.io.TextInput;
+import nars.io.TextOutput;
+import nars.language.Statement;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class StatementIndexTest {
+
+    static final String KNOWLEDGE = "<bird --> swimmer>. %1.00;0.80%\n<robin --> bird>.\n<fish --> swimmer>. %1.00;0.90%\n"
+            + "<swimmer --> animal>.\n<bird <-> swimmer>.\n<(*,bird,water) --> swimmer>.\n";
+
+    static NAR nar(final boolean index, final List<String> out) {
+        final Parameters p = new DefaultParameters();
+        p.setStatementIndex(index);
+        final NAR n = new NAR(p);
+        new TextOutput(n) {
+            @Override
+            public void output(Class c, Object line) {
+                if (c == OUT.class) {
+                    out.add(line.toString());
+                }
+            }
+        };
+        return n;
+    }
+
+    /**
+     * The question is answered as it is input, before any working cycle
+     */
+    @Test
+    public void testAnswerAtOnce() throws IOException {
+        for (final boolean index : new boolean[]{false, true}) {
+            final List<String> out = new LinkedList<>();
+            final NAR n = nar(index, out);
+            n.load(new StringReader(KNOWLEDGE + "<?x --> swimmer>?\n"));
+            assertEquals(0, n.getTime());
+            boolean answered = false;
+            for (String o : out) {
+                answered |= o.contains("<fish --> swimmer>. %1.00;0.90%");
+            }
+            assertEquals(out.toString(), index, answered);
+        }
+    }
+
+    static List<String> search(final NAR n, final String pattern) throws Exception {
+        final List<String> names = new ArrayList<>();
+        for (final Concept c : n.memory.search((Statement) TextInput.parseTerm(pattern, n.memory))) {
+            names.add(c.getKey());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    @Test
+    public void testSearchSameAsScan() throws Exception {
+        final NAR indexed = nar(true, new LinkedList<String>());
+        final NAR scanned = nar(false, new LinkedList<String>());
+        indexed.load(new StringReader(KNOWLEDGE));
+        scanned.load(new StringReader(KNOWLEDGE));
+        assertNotNull(indexed.memory.getStatementIndex());
+
+        assertEquals("[<(*,bird,water) --> swimmer>, <bird --> swimmer>, <fish --> swimmer>]", search(indexed, "<?x --> swimmer>").toString());
+        for (String pattern : new String[]{"<?x --> swimmer>", "<bird --> ?x>", "<swimmer --> ?x>", "<?x <-> bird>",
+            "<swimmer <-> ?x>", "<(*,?x,water) --> swimmer>", "<?x --> ?y>", "<?x --> nothing>"}) {
+            assertEquals(pattern, search(scanned, pattern), search(indexed, pattern));
+        }
+    }
+
+    @Test
+    public void testDroppedByFullBag() throws Exception {
+        final NAR n = nar(true, new LinkedList<String>());
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Parameters.CONCEPT_BAG_SIZE; i++) {
+            sb.append("<a").append(i).append(" --> b").append(i).append(">.\n");
+        }
+        n.load(new StringReader(sb.toString()));
+        int statements = 0;
+        for (int level = 0; level < n.memory.concepts.levels; level++) {
+            if (!n.memory.concepts.emptyLevel(level)) {
+                for (final Concept c : n.memory.concepts.getLevel(level)) {
+                    if (c.getTerm() instanceof Statement) {
+                        statements++;
+                    }
+                }
+            }
+        }
+        assertTrue(statements < Parameters.CONCEPT_BAG_SIZE);
+        assertEquals(statements, n.memory.getStatementIndex().size());
+    }
+
+    @Test
+    public void testConceptGone() throws Exception {
+        final NAR n = nar(true, new LinkedList<String>());
+        n.load(new StringReader(KNOWLEDGE));
+        final int size = n.memory.getStatementIndex().size();
+        assertNotNull(n.memory.concepts.pickOut("<fish --> swimmer>"));
+        assertFalse(search(n, "<?x --> swimmer>").contains("<fish --> swimmer>"));
+        assertEquals(size - 1, n.memory.getStatementIndex().size());
+
+        n.reset();
+        assertEquals(0, n.memory.getStatementIndex().size());
+        assertTrue(search(n, "<?x --> swimmer>").isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2014 me
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nars.test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import nars.entity.Item;
+import nars.storage.DefaultBag;
+import nars.storage.SumTreeBag;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author me
+ */
+public class SumTreeBagTest {
+
+    @Test
+    public void testMatchesMap() {
+        Random r = new Random(1);
+        int capacity = 50;
+        SumTreeBag<Item> b = new SumTreeBag<>(100, capacity, 10);
+        Map<String, Item> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            String key = "k" + r.nextInt(capacity * 3);
+            switch (r.nextInt(3)) {
+                case 0:
+                    Item x = new BagTest.KeyItem(key, r.nextFloat());
+                    if (b.putIn(x)) {
+                        expected.put(key, x);
+                    }
+                    break;
+                case 1:
+                    Item y = b.takeOut();
+                    if (y != null) {
+                        assertSame(expected.remove(y.getKey()), y);
+                        if (b.putBack(y)) {
+                            expected.put(y.getKey(), y);
+                        }
+                    }
+                    break;
+                case 2:
+                    assertSame(expected.remove(key), b.pickOut(key));
+                    break;
+            }
+            //an item dropped from the full bag is no longer found
+            for (Iterator<Item> it = expected.values().iterator(); it.hasNext();) {
+                if (!b.contains(it.next())) {
+                    it.remove();
+                }
+            }
+            assertEquals(expected.size(), b.size());
+            assertTrue(b.size() <= capacity);
+        }
+        float mass = 0;
+        for (Item x : expected.values()) {
+            mass += x.getPriority();
+        }
+        assertEquals(mass / expected.size(), b.getAveragePriority(), 0.001f);
+    }
+
+    @Test
+    public void testEviction() {
+        SumTreeBag<Item> b = new SumTreeBag<>(100, 4, 10);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(b.putIn(new BagTest.KeyItem("k" + i, 0.2f + 0.2f * i)));
+        }
+        assertFalse(b.putIn(new BagTest.KeyItem("low", 0.1f)));
+        assertNull(b.get("low"));
+        assertTrue(b.putIn(new BagTest.KeyItem("high", 0.9f)));
+        assertNull(b.get("k0"));
+        assertEquals(4, b.size());
+
+        int inLevels = 0;
+        for (int l = 0; l < b.levels; l++) {
+            assertEquals(b.getLevelSize(l), b.getLevel(l).size());
+            inLevels += b.getLevelSize(l);
+        }
+        assertEquals(4, inLevels);
+        assertEquals((0.4f + 0.6f + 0.8f + 0.9f) / 4, b.getAveragePriority(), 0.0001f);
+
+        b.clear();
+        assertEquals(0, b.size());
+        assertNull(b.takeOut());
+    }
+
+    /**
+     * One item of high priority among many in a dormant level: the levels
+     * give one item of the dormant level per visit, so the high item gets
+     * most of the selections; the sum tree gives it its share of the total
+     * priority.
+     */
+    @Test
+    public void testFairnessAgainstDefaultBag() {
+        Item[] items = new Item[101];
+        for (int i = 0; i < 100; i++) {
+            items[i] = new BagTest.KeyItem("i" + i, 0.05f);
+        }
+        items[100] = new BagTest.KeyItem("high", 0.5f);
+
+        double sumTree = BagFairness.selectionError(new SumTreeBag<Item>(100, 200, 10), items, 100000);
+        double levels = BagFairness.selectionError(new DefaultBag<Item>(100, 200, 10), items, 100000);
+        assertTrue("sum tree error " + sumTree, sumTree < 0.03);
+        assertTrue("level error " + levels, levels > 0.3);
+
+        Item[] random = BagFairness.randomItems(1000, new Random(2));
+        assertTrue(BagFairness.selectionError(new SumTreeBag<Item>(100, 1000, 10), random, 200000) < 0.05);
+    }
+}
@@ -16,12 +16,20 @@
  */
 package nars.test;
 
+import java.util.HashMap;
 import java.util.TreeSet;
 import nars.core.NAR;
 import nars.io.TextInput;
 import nars.io.TextInput.InvalidInputException;
+import nars.language.CompoundTerm;
 import nars.language.Inheritance;
+import nars.language.Statement;
 import nars.language.Term;
+import nars.language.Variable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -87,4 +95,133 @@ public class TermTest {
             assertTrue(e.toString(), false);
         }
     }
+
+    @Test
+    public void testTermTable() throws InvalidInputException {
+        NAR n = new NAR();
+
+        Term a = TextInput.parseTerm("<(*,a,{b}) --> (/,r,_,c)>", n.memory);
+        Term b = TextInput.parseTerm("<(*,a,{b}) --> (/,r,_,c)>", n.memory);
+        assertSame("constant compounds are canonical", a, b);
+        assertTrue(a.isInterned());
+        assertTrue(a.getId() != 0);
+
+        Term v1 = TextInput.parseTerm("<(*,a,$x) --> r>", n.memory);
+        Term v2 = TextInput.parseTerm("<(*,a,$x) --> r>", n.memory);
+        assertNotSame("terms with variables are not shared", v1, v2);
+        assertTrue(!v1.isInterned());
+        assertEquals(v1, v2);
+
+        CompoundTerm ac = (CompoundTerm) a.clone();
+        assertNotSame(a, ac);
+        assertEquals(a, ac);
+        assertEquals(ac, a);
+        assertEquals(a.hashCode(), ac.hashCode());
+        assertSame("immutable components are shared", ((CompoundTerm) a).componentAt(0), ac.componentAt(0));
+
+        CompoundTerm vc = (CompoundTerm) v1.clone();
+        assertEquals(v1, vc);
+        assertNotSame("components with variables are cloned", ((CompoundTerm) v1).componentAt(0), vc.componentAt(0));
+        assertSame(((CompoundTerm) v1).componentAt(1), vc.componentAt(1));
+
+        Term d = TextInput.parseTerm("<(*,a,{b}) --> (/,r,c,_)>", n.memory);
+        assertTrue(!a.equals(d));
+
+        //canonical terms of different tables, or generations, are compared by name
+        NAR n2 = new NAR();
+        Term a2 = TextInput.parseTerm("<(*,a,{b}) --> (/,r,_,c)>", n2.memory);
+        assertTrue(a2.isInterned());
+        assertNotSame(a, a2);
+        assertEquals(a, a2);
+        assertSame(a, n.memory.terms.intern(a2));
+
+        n.memory.terms.clear();
+        Term a3 = TextInput.parseTerm("<(*,a,{b}) --> (/,r,_,c)>", n.memory);
+        assertNotSame(a, a3);
+        assertEquals(a, a3);
+        assertEquals(a3, a);
+    }
+
+    @Test
+    public void testTermTableThreads() throws InterruptedException {
+        final NAR n = new NAR();
+        final int names = 2000;
+        final Term[][] interned = new Term[4][names];
+        final Thread[] threads = new Thread[interned.length];
+        for (int t = 0; t < threads.length; t++) {
+            final Term[] mine = interned[t];
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < names; i++) {
+                        mine[i] = n.memory.terms.intern(new Term("t" + i));
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread t : threads) {
+            t.join();
+        }
+        final TreeSet<Integer> ids = new TreeSet<>();
+        for (int i = 0; i < names; i++) {
+            for (int t = 1; t < interned.length; t++) {
+                assertSame(interned[0][i], interned[t][i]);
+            }
+            assertSame(interned[0][i], n.memory.terms.get("t" + i));
+            ids.add(interned[0][i].getId());
+        }
+        assertEquals(names, ids.size());
+    }
+
+    @Test
+    public void testApplySubstitute() throws InvalidInputException {
+        NAR n = new NAR();
+        CompoundTerm c = (CompoundTerm) TextInput.parseTerm("(&&,<robin --> bird>,<robin --> [flying]>)", n.memory);
+        assertTrue(c.isInterned());
+        HashMap<Term, Term> subs = new HashMap<>();
+        subs.put(new Term("robin"), new Variable("#varDep2"));
+        CompoundTerm s = c.applySubstitute(subs);
+        assertEquals("(&&,<#varDep2 --> bird>,<#varDep2 --> [flying]>)", s.getName());
+        assertEquals("the canonical term is not changed", "(&&,<robin --> bird>,<robin --> [flying]>)", c.getName());
+        assertSame(c, TextInput.parseTerm("(&&,<robin --> bird>,<robin --> [flying]>)", n.memory));
+
+        //substituted in a term with variables, without changing it either
+        CompoundTerm v = (CompoundTerm) TextInput.parseTerm("<<robin --> $1> ==> <robin --> [flying]>>", n.memory);
+        assertEquals("<<#varDep2 --> $1> ==> <#varDep2 --> [flying]>>", v.applySubstitute(subs).getName());
+        assertEquals("<<robin --> $1> ==> <robin --> [flying]>>", v.getName());
+        HashMap<Term, Term> rename = new HashMap<>();
+        rename.put(new Variable("$1"), new Variable("$2"));
+        Statement r = (Statement) v.applySubstitute(rename);
+        assertEquals("<<robin --> $2> ==> <robin --> [flying]>>", r.getName());
+        assertSame("the components left as they were are shared", ((Statement) v).getPredicate(), r.getPredicate());
+
+        subs.clear();
+        subs.put(new Term("sparrow"), new Variable("#varDep2"));
+        assertSame("a compound without the terms to replace is its own result", c, c.applySubstitute(subs));
+    }
+
+    @Test
+    public void testUnify() throws InvalidInputException {
+        NAR n = new NAR();
+
+        //commutative components are matched in every pairing, not in one shuffled order
+        Term c1 = TextInput.parseTerm("(&&,<$1 --> a>,<$1 --> b>)", n.memory);
+        Term c2 = TextInput.parseTerm("(&&,<d --> b>,<d --> a>)", n.memory);
+        Term c3 = TextInput.parseTerm("(&&,<d --> a>,<e --> b>)", n.memory);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(Variable.hasSubstitute('$', c1, c2));
+            assertTrue(Variable.hasSubstitute('$', c2, c1));
+            assertFalse(Variable.hasSubstitute('$', c1, c3));
+        }
+
+        Statement rule = (Statement) TextInput.parseTerm("<<$1 --> bird> ==> <$1 --> flyer>>", n.memory);
+        Term fact = TextInput.parseTerm("<robin --> bird>", n.memory);
+        Term other = TextInput.parseTerm("<robin --> fish>", n.memory);
+        assertFalse(Variable.unify('$', rule.getSubject(), other, rule, other));
+        assertEquals("<<$1 --> bird> ==> <$1 --> flyer>>", rule.getName());
+        assertTrue(Variable.unify('$', rule.getSubject(), fact, rule, fact));
+        assertEquals("<<robin --> bird> ==> <robin --> flyer>>", rule.getName());
+        assertEquals("<robin --> bird>", fact.getName());
+    }
 }